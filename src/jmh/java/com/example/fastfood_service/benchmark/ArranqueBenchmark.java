@@ -0,0 +1,105 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.persistence.ModoDurabilidad;
+import com.example.fastfood_service.service.PedidoService;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Tiempo de arranque de una partición con "tamano" pedidos en disco (la mitad despachados):
+// - LOG: se reproduce el log completo
+// - INSTANTANEA: se carga la instantánea y se reproducen solo las operaciones posteriores
+// En los dos casos hay la misma cola de operaciones después del grueso de los pedidos.
+// Cada medición es un arranque en frío (SingleShotTime); con 5 millones de pedidos conviene darle
+// memoria al fork: -Djmh.args="Arranque -jvmArgsAppend -Xmx8g" (o -p tamano=1000000)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ArranqueBenchmark extends BenchmarkBase {
+
+    // Operaciones que quedan en el log después de la instantánea
+    private static final int COLA_DEL_LOG = 10_000;
+
+    private static final int LOTE = 1000;
+
+    @Param({"5000000"})
+    int tamano;
+
+    @Param({"LOG", "INSTANTANEA"})
+    String recuperacion;
+
+    private Path directorio;
+    private PedidosProperties propiedades;
+
+    @Setup
+    public void preparar() throws IOException {
+        directorio = Files.createTempDirectory("arranque");
+        propiedades = new PedidosProperties();
+        propiedades.getWal().setHabilitado(true);
+        propiedades.getWal().setDirectorio(directorio.toString());
+        propiedades.getWal().setDurabilidad(ModoDurabilidad.NINGUNO);
+
+        PedidoService servicio = new PedidoService(propiedades);
+        crear(servicio, 0, tamano);
+        for (int despachados = 0; despachados < tamano / 2; despachados += LOTE) {
+            servicio.despacharLote(LOTE, null);
+        }
+        if (recuperacion.equals("INSTANTANEA")) {
+            servicio.tomarInstantanea();
+        }
+        crear(servicio, tamano, COLA_DEL_LOG);
+        servicio.cerrar();
+    }
+
+    private static void crear(PedidoService servicio, int desde, int cantidad) {
+        List<Pedido> lote = new ArrayList<>(LOTE);
+        for (int i = desde; i < desde + cantidad; i++) {
+            lote.add(Datos.body(i));
+            if (lote.size() == LOTE || i == desde + cantidad - 1) {
+                servicio.crearLote(lote, 0);
+                lote.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void limpiar() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public EstadisticasPedidos arrancar() {
+        PedidoService servicio = new PedidoService(propiedades);
+        try {
+            return servicio.obtenerEstadisticas();
+        } finally {
+            servicio.cerrar();
+        }
+    }
+}
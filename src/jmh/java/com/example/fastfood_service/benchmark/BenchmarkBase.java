@@ -0,0 +1,21 @@
+package com.example.fastfood_service.benchmark;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Configuración común: tiempo promedio por operación en ns (las asignaciones salen en B/op con -prof gc)
+// Iteraciones cortas para que la suite completa corra en minutos; para medir con más precisión
+// se pueden pasar -wi, -i y -f en jmh.args
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkBase {
+}
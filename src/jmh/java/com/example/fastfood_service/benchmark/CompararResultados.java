@@ -0,0 +1,104 @@
+package com.example.fastfood_service.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compara dos archivos JSON de JMH y lista las regresiones de más de "tolerancia" por ciento:
+// - tiempo por operación (o menos operaciones por segundo en modo thrpt)
+// - bytes asignados por operación (gc.alloc.rate.norm)
+// Se emparejan por benchmark, parámetros y cantidad de hilos; lo que está en una sola corrida se ignora.
+// También se puede usar sola: java ... CompararResultados base.json nuevo.json [tolerancia]
+public class CompararResultados {
+
+    private static final String ASIGNACIONES = "gc.alloc.rate.norm";
+
+    // Las asignaciones chicas varían en pocos bytes entre corridas: por debajo de esto no se compara
+    private static final double BYTES_MINIMOS = 16.0;
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Uso: CompararResultados base.json nuevo.json [tolerancia%]");
+            System.exit(2);
+        }
+        double tolerancia = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        List<String> regresiones = comparar(Path.of(args[0]), Path.of(args[1]), tolerancia);
+        regresiones.forEach(System.out::println);
+        System.exit(regresiones.isEmpty() ? 0 : 1);
+    }
+
+    static List<String> comparar(Path base, Path nuevo, double tolerancia) {
+        Map<String, JsonNode> anteriores = leer(base);
+        List<String> regresiones = new ArrayList<>();
+        leer(nuevo).forEach((clave, actual) -> {
+            JsonNode anterior = anteriores.get(clave);
+            if (anterior == null) {
+                return;
+            }
+            JsonNode metricaActual = actual.get("primaryMetric");
+            double antes = anterior.get("primaryMetric").get("score").asDouble();
+            double ahora = metricaActual.get("score").asDouble();
+            // En modo throughput más es mejor; en los demás (avgt, sample, ss) menos es mejor
+            boolean masEsMejor = "thrpt".equals(actual.get("mode").asString());
+            double empeoro = masEsMejor ? -porcentaje(antes, ahora) : porcentaje(antes, ahora);
+            if (empeoro > tolerancia) {
+                regresiones.add(String.format("%s: %.2f -> %.2f %s (%+.1f%%)", clave, antes, ahora,
+                        metricaActual.get("scoreUnit").asString(), porcentaje(antes, ahora)));
+            }
+            double bytesAntes = asignaciones(anterior);
+            double bytesAhora = asignaciones(actual);
+            if (bytesAntes >= 0 && bytesAhora >= 0 && Math.max(bytesAntes, bytesAhora) >= BYTES_MINIMOS
+                    && porcentaje(bytesAntes, bytesAhora) > tolerancia) {
+                regresiones.add(String.format("%s: asignaciones %.1f -> %.1f B/op (%+.1f%%)", clave, bytesAntes, bytesAhora,
+                        porcentaje(bytesAntes, bytesAhora)));
+            }
+        });
+        return regresiones;
+    }
+
+    // Cuánto por ciento subió "ahora" respecto de "antes"
+    private static double porcentaje(double antes, double ahora) {
+        if (antes == 0) {
+            return ahora == 0 ? 0 : 100;
+        }
+        return (ahora - antes) / antes * 100.0;
+    }
+
+    private static double asignaciones(JsonNode resultado) {
+        JsonNode secundarias = resultado.get("secondaryMetrics");
+        if (secundarias == null) {
+            return -1;
+        }
+        // JMH antepone un punto medio al nombre de las métricas de perfiladores ("·gc.alloc.rate.norm")
+        for (Map.Entry<String, JsonNode> metrica : secundarias.properties()) {
+            if (metrica.getKey().endsWith(ASIGNACIONES)) {
+                return metrica.getValue().get("score").asDouble();
+            }
+        }
+        return -1;
+    }
+
+    // Resultados por "benchmark {parámetros} hilos"
+    private static Map<String, JsonNode> leer(Path archivo) {
+        ObjectMapper mapper = JsonMapper.builder().build();
+        JsonNode raiz = mapper.readTree(archivo.toFile());
+        Map<String, JsonNode> porClave = new HashMap<>();
+        for (JsonNode resultado : raiz) {
+            Map<String, String> parametros = new TreeMap<>();
+            JsonNode params = resultado.get("params");
+            if (params != null) {
+                params.properties().forEach(p -> parametros.put(p.getKey(), p.getValue().asString()));
+            }
+            String clave = resultado.get("benchmark").asString() + " " + parametros + " hilos=" + resultado.get("threads").asInt();
+            porClave.put(clave, resultado);
+        }
+        return porClave;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.model.Pedido;
+
+// Pedidos de prueba parecidos a los reales: pocos clientes y artículos que se repiten
+final class Datos {
+
+    private static final String[] CLIENTES = {"Ana", "Luis", "Eva", "Marta", "Jorge", "Sofía", "Pablo", "Lucía"};
+    private static final String[] ARTICULOS = {"Hamburguesa doble", "Papas fritas", "Combo pollo", "Refresco", "Helado"};
+
+    private Datos() {
+    }
+
+    static Pedido pedido(int id) {
+        return new Pedido(id, CLIENTES[id % CLIENTES.length], ARTICULOS[id % ARTICULOS.length],
+                5.0 + (id % 20) * 0.5, "REGISTRADO");
+    }
+
+    // Cuerpo de un POST: sin id ni estado
+    static Pedido body(int i) {
+        return new Pedido(0, CLIENTES[i % CLIENTES.length], ARTICULOS[i % ARTICULOS.length], 5.0 + (i % 20) * 0.5, null);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.fastfood_service.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Punto de entrada del perfil "jmh" (ver pom.xml)
+// - corre los benchmarks una vez por cada cantidad de hilos de -Djmh.hilos (por ejemplo 1,4)
+// - siempre con el perfilador de GC, para tener las asignaciones (gc.alloc.rate.norm = bytes por operación)
+// - junta todo en un solo JSON (-Djmh.resultado) y, si se indica -Djmh.base, lo compara con esa corrida
+// Los argumentos son los de JMH (filtro de benchmarks, -p tamano=1000, -wi, -i, -f...)
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linea = new CommandLineOptions(args);
+        List<RunResult> resultados = new ArrayList<>();
+        for (int hilos : hilos(System.getProperty("jmh.hilos", "1"))) {
+            Options opciones = new OptionsBuilder()
+                    .parent(linea)
+                    .threads(hilos)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            resultados.addAll(new Runner(opciones).run());
+        }
+
+        Path archivo = Path.of(System.getProperty("jmh.resultado", "target/jmh/resultados.json"));
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, archivo.toString()).writeOut(resultados);
+        System.out.println("Resultados en " + archivo.toAbsolutePath());
+
+        String base = System.getProperty("jmh.base", "");
+        if (!base.isBlank()) {
+            double tolerancia = Double.parseDouble(System.getProperty("jmh.tolerancia", "10"));
+            List<String> regresiones = CompararResultados.comparar(Path.of(base), archivo, tolerancia);
+            if (!regresiones.isEmpty()) {
+                System.out.println("Regresiones de más de " + tolerancia + "% contra " + base + ":");
+                regresiones.forEach(r -> System.out.println("  " + r));
+                System.exit(1);
+            }
+            System.out.println("Sin regresiones de más de " + tolerancia + "% contra " + base);
+        }
+    }
+
+    private static int[] hilos(String lista) {
+        int[] hilos = Arrays.stream(lista.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt).toArray();
+        if (hilos.length == 0 || Arrays.stream(hilos).anyMatch(h -> h < 1)) {
+            throw new IllegalArgumentException("jmh.hilos debe ser una lista de enteros positivos, por ejemplo 1,4");
+        }
+        return hilos;
+    }
+}
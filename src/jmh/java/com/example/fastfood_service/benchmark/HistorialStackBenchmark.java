@@ -0,0 +1,48 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.datastructures.HistorialStack;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.HistorialOperacion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Historial compartido entre los hilos, lleno hasta "tamano" (su capacidad)
+@State(Scope.Benchmark)
+public class HistorialStackBenchmark extends BenchmarkBase {
+
+    @Param({"1000", "100000"})
+    int tamano;
+
+    private HistorialStack historial;
+    private HistorialOperacion operacion;
+
+    @Setup
+    public void preparar() {
+        historial = new HistorialStack(tamano);
+        for (int id = 1; id <= tamano; id++) {
+            historial.push(new HistorialOperacion("CREAR", id, null, EstadoPedido.REGISTRADO, null));
+        }
+        operacion = new HistorialOperacion("CREAR", tamano + 1, null, EstadoPedido.REGISTRADO, null);
+    }
+
+    // Con el historial lleno, push descarta la más antigua (anillo)
+    @Benchmark
+    public HistorialOperacion pushYPop() {
+        historial.push(operacion);
+        return historial.pop();
+    }
+
+    @Benchmark
+    public HistorialOperacion[] recientes() {
+        return historial.recientes(20);
+    }
+
+    @Benchmark
+    public boolean pushYPopIfTop() {
+        historial.push(operacion);
+        return historial.popIfTop(operacion);
+    }
+}
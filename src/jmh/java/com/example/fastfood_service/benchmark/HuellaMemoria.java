@@ -0,0 +1,51 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.datastructures.ModoAlmacen;
+import com.example.fastfood_service.datastructures.PedidoStore;
+import com.example.fastfood_service.model.Pedido;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Instant;
+
+// Memoria por pedido de cada modo de almacén, medida con JOL (perfil "jmh", ver pom.xml)
+// JOL recorre el grafo de objetos que cuelga del almacén y suma sus tamaños: el resultado es el
+// mismo en cada corrida, sin depender de cuándo pase el GC como al medir la memoria libre del heap
+// Termina con error si COLUMNAR no ocupa al menos -Dhuella.relacion-minima veces menos que OBJETOS
+public class HuellaMemoria {
+
+    private static final String[] CANALES = {"MOSTRADOR", "DELIVERY", "EXPRESS"};
+
+    private static final long INICIO = Instant.parse("2026-01-05T12:00:00Z").toEpochMilli();
+
+    public static void main(String[] args) {
+        int n = Integer.getInteger("huella.pedidos", 200_000);
+        double relacionMinima = Double.parseDouble(System.getProperty("huella.relacion-minima", "3"));
+
+        long objetos = bytesPorPedido(ModoAlmacen.OBJETOS, n);
+        long columnar = bytesPorPedido(ModoAlmacen.COLUMNAR, n);
+        double relacion = (double) objetos / columnar;
+        System.out.printf("Memoria por pedido con %d pedidos: OBJETOS=%d B, COLUMNAR=%d B (%.1f veces menos)%n",
+                n, objetos, columnar, relacion);
+        if (relacion < relacionMinima) {
+            System.out.println("COLUMNAR debería ocupar al menos " + relacionMinima + " veces menos que OBJETOS");
+            System.exit(1);
+        }
+    }
+
+    private static long bytesPorPedido(ModoAlmacen modo, int n) {
+        PedidoStore almacen = PedidoStore.crear(modo);
+        for (int id = 1; id <= n; id++) {
+            almacen.add(pedido(id));
+        }
+        return GraphLayout.parseInstance(almacen).totalSize() / n;
+    }
+
+    // Como llegan de la API: textos repetidos entre pedidos pero cada uno es un String distinto
+    private static Pedido pedido(int id) {
+        Pedido p = new Pedido(id, new String("Cliente " + (id % 500)), new String("Combo " + (id % 40) + " con papas"),
+                5.0 + (id % 97) * 0.25, "REGISTRADO");
+        p.setCanal(new String(CANALES[id % CANALES.length]));
+        p.setCreadoEn(Instant.ofEpochMilli(INICIO + id * 1_250L));
+        return p;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Costo de las métricas del servicio en el camino caliente: el mismo despacho con el registro de
+// Prometheus que usa la aplicación (histograma de tiempos por canal) y con un registro que no guarda nada
+// La diferencia entre los dos modos es lo que agregan las métricas a cada despacho
+@State(Scope.Benchmark)
+public class MetricasBenchmark extends BenchmarkBase {
+
+    public enum Metricas { PROMETHEUS, APAGADAS }
+
+    @Param({"PROMETHEUS", "APAGADAS"})
+    Metricas metricas;
+
+    private PedidoService servicio;
+
+    @Setup
+    public void preparar() {
+        // Un registro compuesto sin registros adentro entrega medidores que no hacen nada
+        MeterRegistry registro = metricas == Metricas.PROMETHEUS
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        servicio = new PedidoService(new PedidosProperties(), registro);
+        for (int i = 0; i < 1000; i++) {
+            servicio.crearPedido(Datos.body(i));
+        }
+    }
+
+    @Benchmark
+    public Pedido despacharYRevertir() {
+        servicio.despacharSiguiente();
+        return servicio.rollbackUltimaOperacion();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.datastructures.DefinicionCarril;
+import com.example.fastfood_service.datastructures.OrdenCarril;
+import com.example.fastfood_service.datastructures.PedidoQueue;
+import com.example.fastfood_service.model.Pedido;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cola compartida entre los hilos, con "tamano" pedidos esperando
+// Cada operación deja la cola del mismo tamaño, así el resultado no depende de cuánto dure la corrida
+@State(Scope.Benchmark)
+public class PedidoQueueBenchmark extends BenchmarkBase {
+
+    private static final String[] CANALES = {"MOSTRADOR", "DELIVERY", "EXPRESS"};
+
+    @Param({"1000", "100000"})
+    int tamano;
+
+    // Un carril FIFO (sin candados) o los carriles de application.properties (con montículo)
+    @Param({"FIFO", "CARRILES"})
+    String cola;
+
+    private PedidoQueue queue;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    @Setup
+    public void preparar() {
+        queue = "FIFO".equals(cola) ? new PedidoQueue() : new PedidoQueue(List.of(
+                new DefinicionCarril("MOSTRADOR", 1, OrdenCarril.FIFO),
+                new DefinicionCarril("DELIVERY", 2, OrdenCarril.ANTIGUEDAD),
+                new DefinicionCarril("EXPRESS", 3, OrdenCarril.FIFO)));
+        for (int id = 1; id <= tamano; id++) {
+            queue.enqueue(pedido(id));
+        }
+        nextId.set(tamano + 1);
+    }
+
+    private static Pedido pedido(int id) {
+        Pedido p = Datos.pedido(id);
+        p.setCanal(CANALES[id % CANALES.length]);
+        return p;
+    }
+
+    @Benchmark
+    public Pedido enqueueYDequeue() {
+        queue.enqueue(pedido(nextId.getAndIncrement()));
+        return queue.dequeue();
+    }
+
+    // Como una cancelación: el pedido sale del medio de la cola
+    @Benchmark
+    public boolean enqueueYRemoveById() {
+        int id = nextId.getAndIncrement();
+        queue.enqueue(pedido(id));
+        return queue.removeById(id);
+    }
+
+    // Como el rollback de un despacho: vuelve al frente
+    @Benchmark
+    public Pedido dequeueYEnqueueFront() {
+        Pedido p = queue.dequeue();
+        if (p != null) {
+            queue.enqueueFront(p);
+        }
+        return p;
+    }
+}
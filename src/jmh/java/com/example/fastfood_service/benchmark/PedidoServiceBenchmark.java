@@ -0,0 +1,112 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.datastructures.ModoAlmacen;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Operaciones del servicio de punta a punta (sin HTTP ni log), con el servicio compartido entre los hilos
+// Las que modifican van en pareja con su rollback, así la cantidad de pedidos no crece con la corrida.
+// Con varios hilos (-t) el rollback deshace la última operación de cualquiera de ellos, no
+// necesariamente la propia: cada hilo apila una antes de sacar una, así que el historial no se vacía.
+@State(Scope.Benchmark)
+public class PedidoServiceBenchmark extends BenchmarkBase {
+
+    @Param({"1000", "100000"})
+    int tamano;
+
+    @Param({"OBJETOS", "COLUMNAR"})
+    ModoAlmacen modo;
+
+    private PedidoService servicio;
+    private final AtomicInteger contador = new AtomicInteger();
+    private final AtomicInteger hilos = new AtomicInteger();
+
+    // Tramo de ids propio de cada hilo, recorrido en orden: dos hilos nunca cancelan el mismo pedido,
+    // y un hilo vuelve a uno de los suyos recién después de pasar por todo el tramo
+    @State(Scope.Thread)
+    public static class Tramo {
+        int desde;
+        int ancho;
+        int siguiente;
+
+        @Setup
+        public void preparar(PedidoServiceBenchmark benchmark, BenchmarkParams params) {
+            ancho = benchmark.tamano / params.getThreads();
+            if (ancho == 0) {
+                throw new IllegalArgumentException("Hacen falta al menos tantos pedidos como hilos");
+            }
+            desde = 1 + benchmark.hilos.getAndIncrement() * ancho;
+        }
+
+        int proximo() {
+            int id = desde + siguiente;
+            siguiente = (siguiente + 1) % ancho;
+            return id;
+        }
+    }
+
+    @Setup
+    public void preparar() {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getAlmacen().setModo(modo);
+        servicio = new PedidoService(propiedades);
+        for (int i = 0; i < tamano; i++) {
+            servicio.crearPedido(Datos.body(i));
+        }
+    }
+
+    @Benchmark
+    public Pedido crearYRevertir() {
+        servicio.crearPedido(Datos.body(contador.getAndIncrement()));
+        return servicio.rollbackUltimaOperacion();
+    }
+
+    @Benchmark
+    public Pedido despacharYRevertir() {
+        servicio.despacharSiguiente();
+        return servicio.rollbackUltimaOperacion();
+    }
+
+    @Benchmark
+    public Pedido cancelarYRevertir(Tramo tramo) {
+        try {
+            servicio.cancelarPedido(tramo.proximo());
+        } catch (IllegalStateException sigueCancelado) {
+            // Nuestro rollback anterior deshizo la cancelación de otro hilo y este pedido sigue esperando
+            // el de ese hilo: es el 409 de la API, un resultado válido. No apilamos nada, así que no sacamos
+            return null;
+        }
+        return servicio.rollbackUltimaOperacion();
+    }
+
+    @Benchmark
+    public Pedido buscarPorId() {
+        return servicio.buscarPorId(1 + ThreadLocalRandom.current().nextInt(tamano));
+    }
+
+    @Benchmark
+    public EstadisticasPedidos estadisticas() {
+        return servicio.obtenerEstadisticas();
+    }
+
+    @Benchmark
+    public double totalRecursivo() {
+        return servicio.calcularTotalMontoRecursivo();
+    }
+
+    @Benchmark
+    public PedidoService.PaginaPedidos listarPagina() {
+        return servicio.listarPagina(null, 100, "REGISTRADO", null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.datastructures.ModoAlmacen;
+import com.example.fastfood_service.datastructures.PedidoStore;
+import com.example.fastfood_service.model.Pedido;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Los mismos recorridos que SinglyLinkedListBenchmark sobre el almacén indexado que usa el servicio,
+// compartido entre los hilos (es seguro entre hilos)
+@State(Scope.Benchmark)
+public class PedidoStoreBenchmark extends BenchmarkBase {
+
+    @Param({"1000", "100000"})
+    int tamano;
+
+    @Param({"OBJETOS", "COLUMNAR"})
+    ModoAlmacen modo;
+
+    private PedidoStore almacen;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    @Setup
+    public void preparar() {
+        almacen = PedidoStore.crear(modo);
+        for (int id = 1; id <= tamano; id++) {
+            almacen.add(Datos.pedido(id));
+        }
+        nextId.set(tamano + 1);
+    }
+
+    @Benchmark
+    public boolean addYQuitar() {
+        Pedido p = Datos.pedido(nextId.getAndIncrement());
+        almacen.add(p);
+        return almacen.removeById(p.getId());
+    }
+
+    @Benchmark
+    public Pedido findById() {
+        return almacen.findById(1 + ThreadLocalRandom.current().nextInt(tamano));
+    }
+
+    @Benchmark
+    public Pedido[] toArray() {
+        return almacen.toArray();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.controller.EscritorJson;
+import com.example.fastfood_service.controller.RespuestaPedido;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Map;
+
+// JSON de las respuestas con pedidos: Jackson (como hasta ahora, con el Map.of de mensaje y pedido)
+// contra EscritorJson. Los dos escriben al mismo stream que descarta los bytes, como el de la
+// respuesta del servlet; con -prof gc se ven las asignaciones por operación.
+@State(Scope.Thread)
+public class SerializacionBenchmark extends BenchmarkBase {
+
+    // Pedidos del arreglo (el listado completo o un lote)
+    @Param({"1", "1000"})
+    int cantidad;
+
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    // Descarta los bytes (Jackson cierra el stream al terminar: este no se entera)
+    private final OutputStream salida = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private Pedido[] pedidos;
+
+    @Setup
+    public void preparar() {
+        pedidos = new Pedido[cantidad];
+        long creado = 1_700_000_000_000L;
+        for (int i = 0; i < cantidad; i++) {
+            Pedido pedido = Datos.pedido(i + 1);
+            pedido.setCanal("MOSTRADOR");
+            pedido.setCreadoEn(Instant.ofEpochMilli(creado + i * 1_250L));
+            if (i % 2 == 0) {
+                pedido.setEstado(EstadoPedido.DESPACHADO.name());
+                pedido.setDespachadoEn(Instant.ofEpochMilli(creado + i * 1_250L + 90_000));
+            }
+            pedidos[i] = pedido;
+        }
+    }
+
+    @Benchmark
+    public void arregloJackson() {
+        mapper.writeValue(salida, pedidos);
+    }
+
+    @Benchmark
+    public void arregloEscritor() throws IOException {
+        EscritorJson.escribir(pedidos, salida);
+    }
+
+    @Benchmark
+    public void respuestaJackson() {
+        mapper.writeValue(salida, Map.of("mensaje", "Pedido despachado correctamente", "pedido", pedidos[0]));
+    }
+
+    @Benchmark
+    public void respuestaEscritor() throws IOException {
+        EscritorJson.escribir(new RespuestaPedido("Pedido despachado correctamente", pedidos[0]), salida);
+    }
+}
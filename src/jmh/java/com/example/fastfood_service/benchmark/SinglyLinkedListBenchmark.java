@@ -0,0 +1,48 @@
+package com.example.fastfood_service.benchmark;
+
+import com.example.fastfood_service.datastructures.SinglyLinkedList;
+import com.example.fastfood_service.model.Pedido;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// SinglyLinkedList no es segura entre hilos: cada hilo del benchmark tiene su propia lista
+@State(Scope.Thread)
+public class SinglyLinkedListBenchmark extends BenchmarkBase {
+
+    @Param({"1000", "100000"})
+    int tamano;
+
+    private SinglyLinkedList lista;
+    private Pedido extra;
+
+    @Setup
+    public void preparar() {
+        lista = new SinglyLinkedList();
+        for (int id = 1; id <= tamano; id++) {
+            lista.add(Datos.pedido(id));
+        }
+        extra = Datos.pedido(tamano + 1);
+    }
+
+    // add recorre hasta el final; se quita enseguida para que la lista no crezca entre invocaciones
+    @Benchmark
+    public boolean addYQuitar() {
+        lista.add(extra);
+        return lista.removeById(extra.getId());
+    }
+
+    @Benchmark
+    public Pedido findById() {
+        return lista.findById(1 + ThreadLocalRandom.current().nextInt(tamano));
+    }
+
+    @Benchmark
+    public Pedido[] toArray() {
+        return lista.toArray();
+    }
+}
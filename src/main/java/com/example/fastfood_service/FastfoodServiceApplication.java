@@ -2,8 +2,10 @@ package com.example.fastfood_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class FastfoodServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,18 @@
+package com.example.fastfood_service.config;
+
+import com.example.fastfood_service.controller.ConversorJsonPedidos;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Ajustes de Spring MVC
+@Configuration
+public class ConfiguracionWeb implements WebMvcConfigurer {
+
+    // Las respuestas con pedidos se escriben con el conversor propio; los conversores agregados
+    // aquí van antes que los de siempre, así que el resto de los tipos sigue yendo a Jackson
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new ConversorJsonPedidos());
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.fastfood_service.config;
+
+import com.example.fastfood_service.datastructures.HistorialStack;
+import com.example.fastfood_service.datastructures.ModoAlmacen;
+import com.example.fastfood_service.datastructures.OrdenCarril;
+import com.example.fastfood_service.persistence.ModoDurabilidad;
+import com.example.fastfood_service.service.PoliticaDesborde;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Configuración del servicio de pedidos (propiedades "pedidos.*" en application.properties)
+@ConfigurationProperties(prefix = "pedidos")
+public class PedidosProperties {
+
+    private final Estadisticas estadisticas = new Estadisticas();
+
+    private final Almacen almacen = new Almacen();
+
+    private final Wal wal = new Wal();
+
+    private final Historial historial = new Historial();
+
+    private final Cola cola = new Cola();
+
+    private final Eventos eventos = new Eventos();
+
+    private final Analitica analitica = new Analitica();
+
+    private final Sucursales sucursales = new Sucursales();
+
+    private final Ventana ventana = new Ventana();
+
+    private final Archivo archivo = new Archivo();
+
+    public Estadisticas getEstadisticas() { return estadisticas; }
+
+    public Almacen getAlmacen() { return almacen; }
+
+    public Historial getHistorial() { return historial; }
+
+    public Wal getWal() { return wal; }
+
+    public Cola getCola() { return cola; }
+
+    public Eventos getEventos() { return eventos; }
+
+    public Analitica getAnalitica() { return analitica; }
+
+    public Sucursales getSucursales() { return sucursales; }
+
+    public Ventana getVentana() { return ventana; }
+
+    public Archivo getArchivo() { return archivo; }
+
+    public static class Estadisticas {
+
+        // Modo depuración: cada consulta compara los contadores incrementales contra un recorrido completo
+        private boolean verificar = false;
+
+        public boolean isVerificar() { return verificar; }
+        public void setVerificar(boolean verificar) { this.verificar = verificar; }
+    }
+
+    public static class Almacen {
+
+        // OBJETOS (un Pedido por pedido) o COLUMNAR (columnas de primitivos, mucha menos memoria)
+        private ModoAlmacen modo = ModoAlmacen.OBJETOS;
+
+        public ModoAlmacen getModo() { return modo; }
+        public void setModo(ModoAlmacen modo) { this.modo = modo; }
+    }
+
+    public static class Historial {
+
+        // Cuántas operaciones se pueden revertir como máximo; las más antiguas se descartan
+        private int capacidad = HistorialStack.CAPACIDAD_POR_DEFECTO;
+
+        public int getCapacidad() { return capacidad; }
+        public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
+    }
+
+    public static class Cola {
+
+        // Carriles de la cola de despacho (el primero recibe los pedidos sin canal)
+        // Si no se configura ninguno hay un solo carril FIFO
+        private List<Carril> carriles = new ArrayList<>();
+
+        public List<Carril> getCarriles() { return carriles; }
+        public void setCarriles(List<Carril> carriles) { this.carriles = carriles; }
+
+        public static class Carril {
+
+            // Nombre del canal que atiende (el "canal" del pedido)
+            private String nombre;
+
+            // Turnos que recibe este carril por cada vuelta del reparto
+            private int peso = 1;
+
+            // FIFO, MONTO (mayor monto primero) o ANTIGUEDAD (pedido más antiguo primero)
+            private OrdenCarril orden = OrdenCarril.FIFO;
+
+            public String getNombre() { return nombre; }
+            public void setNombre(String nombre) { this.nombre = nombre; }
+
+            public int getPeso() { return peso; }
+            public void setPeso(int peso) { this.peso = peso; }
+
+            public OrdenCarril getOrden() { return orden; }
+            public void setOrden(OrdenCarril orden) { this.orden = orden; }
+        }
+    }
+
+    public static class Eventos {
+
+        // Cuántos eventos recientes se guardan (para suscriptores atrasados y para retomar con Last-Event-ID)
+        private int capacidad = 8192;
+
+        // Cuánto se puede atrasar un suscriptor antes de aplicar la política de desborde
+        private int maximoPendientes = 1024;
+
+        // DESCARTAR (saltar y enviar REINICIO) o DESCONECTAR
+        private PoliticaDesborde politica = PoliticaDesborde.DESCARTAR;
+
+        // Duración máxima de una conexión SSE; el navegador se reconecta solo con Last-Event-ID
+        private long timeoutMs = 30 * 60 * 1000L;
+
+        public int getCapacidad() { return capacidad; }
+        public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
+
+        public int getMaximoPendientes() { return maximoPendientes; }
+        public void setMaximoPendientes(int maximoPendientes) { this.maximoPendientes = maximoPendientes; }
+
+        public PoliticaDesborde getPolitica() { return politica; }
+        public void setPolitica(PoliticaDesborde politica) { this.politica = politica; }
+
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+    }
+
+    public static class Analitica {
+
+        // Cuántos artículos distintos se siguen como candidatos al top (el top pedido no puede ser mayor)
+        private int capacidad = 200;
+
+        // Tamaño del Count-Min sketch: más ancho = menos error, más filas = menos probabilidad de error
+        private int ancho = 2048;
+        private int profundidad = 4;
+
+        public int getCapacidad() { return capacidad; }
+        public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
+
+        public int getAncho() { return ancho; }
+        public void setAncho(int ancho) { this.ancho = ancho; }
+
+        public int getProfundidad() { return profundidad; }
+        public void setProfundidad(int profundidad) { this.profundidad = profundidad; }
+    }
+
+    public static class Wal {
+
+        // Si está deshabilitado todo vive solo en memoria (como antes)
+        private boolean habilitado = false;
+
+        // Carpeta donde se guardan los segmentos del log
+        private String directorio = "data/wal";
+
+        // Tamaño de cada segmento mapeado en memoria, en bytes
+        private int tamanoSegmento = 64 * 1024 * 1024;
+
+        // NINGUNO, GRUPO (commit en grupo) o SINCRONO
+        private ModoDurabilidad durabilidad = ModoDurabilidad.GRUPO;
+
+        // Cada cuánto se guarda una instantánea del estado en la carpeta del log (0 = nunca)
+        // Al arrancar se carga la última y solo se reproduce el log posterior
+        private long intervaloInstantaneasMs = 0;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+
+        public String getDirectorio() { return directorio; }
+        public void setDirectorio(String directorio) { this.directorio = directorio; }
+
+        public int getTamanoSegmento() { return tamanoSegmento; }
+        public void setTamanoSegmento(int tamanoSegmento) { this.tamanoSegmento = tamanoSegmento; }
+
+        public ModoDurabilidad getDurabilidad() { return durabilidad; }
+        public void setDurabilidad(ModoDurabilidad durabilidad) { this.durabilidad = durabilidad; }
+
+        public long getIntervaloInstantaneasMs() { return intervaloInstantaneasMs; }
+        public void setIntervaloInstantaneasMs(long intervaloInstantaneasMs) { this.intervaloInstantaneasMs = intervaloInstantaneasMs; }
+    }
+
+    public static class Ventana {
+
+        // Minutos hacia atrás que guarda la ventana de actividad (un balde de memoria fija por minuto)
+        private int minutos = 60;
+
+        public int getMinutos() { return minutos; }
+        public void setMinutos(int minutos) { this.minutos = minutos; }
+    }
+
+    public static class Archivo {
+
+        // Si está habilitado, los pedidos terminados viejos salen del heap a segmentos en disco
+        private boolean habilitado = false;
+
+        // Carpeta de los segmentos (se vacía al arrancar: son una copia, no la fuente de verdad)
+        private String directorio = "data/frio";
+
+        // Cuánto después de despachado o cancelado un pedido pasa a disco
+        private long antiguedadMs = 10 * 60 * 1000;
+
+        // Cada cuánto se hace una pasada de archivo
+        private long intervaloMs = 60 * 1000;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+
+        public String getDirectorio() { return directorio; }
+        public void setDirectorio(String directorio) { this.directorio = directorio; }
+
+        public long getAntiguedadMs() { return antiguedadMs; }
+        public void setAntiguedadMs(long antiguedadMs) { this.antiguedadMs = antiguedadMs; }
+
+        public long getIntervaloMs() { return intervaloMs; }
+        public void setIntervaloMs(long intervaloMs) { this.intervaloMs = intervaloMs; }
+    }
+
+    public static class Sucursales {
+
+        // Sucursales con su propia partición (lista, cola, historial y log) en /api/sucursales/{id}/pedidos
+        // Los pedidos de /api/pedidos quedan en la partición "principal"
+        private List<String> ids = new ArrayList<>();
+
+        public List<String> getIds() { return ids; }
+        public void setIds(List<String> ids) { this.ids = ids; }
+    }
+}
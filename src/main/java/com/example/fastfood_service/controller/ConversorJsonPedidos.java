@@ -0,0 +1,39 @@
+package com.example.fastfood_service.controller;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+// Conversor de Spring para las respuestas con pedidos: las escribe con EscritorJson en lugar de Jackson
+// Se registra antes que los de Spring (ver ConfiguracionWeb). Solo escribe: los cuerpos de las
+// peticiones se siguen leyendo con Jackson, igual que cualquier otro tipo.
+public class ConversorJsonPedidos extends AbstractHttpMessageConverter<Object> {
+
+    public ConversorJsonPedidos() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EscritorJson.soporta(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Solo escribe pedidos", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object valor, HttpOutputMessage outputMessage) throws IOException {
+        EscritorJson.escribir(valor, outputMessage.getBody());
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.fastfood_service.controller;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService.PaginaPedidos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// JSON de los pedidos y sus respuestas escrito a mano, en UTF-8, directo al stream de la respuesta
+//
+// Es lo que más sale por la API (listados, lotes, el pedido de cada operación) y con Jackson cada
+// pedido pasa por el binding por reflexión. Aquí:
+// - Las claves, la puntuación y los estados ya están codificados en bytes, una sola vez.
+// - Números, fechas y textos se codifican en un buffer por hilo que se vuelca al stream cuando se
+//   llena: un pedido típico no crea ningún objeto (solo un monto con más de dos decimales o una
+//   fecha fuera de 1970-9999 pasan por un String).
+// - La salida es idéntica byte a byte a la de Jackson con la configuración de Spring: el orden de
+//   @JsonPropertyOrder, los null, los escapes (\n, \u001F, sustitutos sueltos), los números como
+//   Double.toString y las fechas en ISO-8601 (EscritorJsonTest lo compara contra el ObjectMapper).
+//
+// Si se agrega un campo a Pedido hay que agregarlo también aquí.
+public final class EscritorJson {
+
+    private static final int TAMANO_BUFFER = 8192;
+
+    // Lo más largo que se escribe sin fijarse en el espacio: un carácter escapado, un número o una fecha
+    private static final int RESERVA = 32;
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NOMBRE_CLIENTE = ascii(",\"nombreCliente\":");
+    private static final byte[] DESCRIPCION = ascii(",\"descripcion\":");
+    private static final byte[] MONTO = ascii(",\"monto\":");
+    private static final byte[] CANAL = ascii(",\"canal\":");
+    private static final byte[] ESTADO = ascii(",\"estado\":");
+    private static final byte[] CREADO_EN = ascii(",\"creadoEn\":");
+    private static final byte[] DESPACHADO_EN = ascii(",\"despachadoEn\":");
+    private static final byte[] CANCELADO_EN = ascii(",\"canceladoEn\":");
+    private static final byte[] MENSAJE = ascii("{\"mensaje\":");
+    private static final byte[] PEDIDO = ascii(",\"pedido\":");
+    private static final byte[] PEDIDOS = ascii(",\"pedidos\":");
+    private static final byte[] PAGINA = ascii("{\"pedidos\":");
+    private static final byte[] SIGUIENTE = ascii(",\"siguiente\":");
+    private static final byte[] NULL = ascii("null");
+
+    // Nombre de cada estado entre comillas, por código
+    private static final EstadoPedido[] ESTADOS = EstadoPedido.values();
+    private static final byte[][] NOMBRES_ESTADO = new byte[EstadoPedido.CODIGOS][];
+
+    static {
+        for (EstadoPedido estado : ESTADOS) {
+            NOMBRES_ESTADO[estado.codigo()] = ascii("\"" + estado.name() + "\"");
+        }
+    }
+
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    // Primer segundo del año 10000: hasta ahí las fechas tienen cuatro dígitos de año
+    private static final long FIN_9999 = 253_402_300_800L;
+
+    // Un escritor por hilo, con su buffer (los hilos de Tomcat atienden una petición por vez)
+    private static final ThreadLocal<EscritorJson> POR_HILO = ThreadLocal.withInitial(EscritorJson::new);
+
+    private final byte[] buffer = new byte[TAMANO_BUFFER];
+    private int posicion;
+    private OutputStream salida;
+
+    private EscritorJson() {
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Tipos que sabe escribir (el resto sigue pasando por Jackson)
+    public static boolean soporta(Class<?> tipo) {
+        return tipo == Pedido.class || tipo == Pedido[].class || tipo == PaginaPedidos.class
+                || tipo == RespuestaPedido.class || tipo == RespuestaPedidos.class;
+    }
+
+    // Escribe el valor (de un tipo soportado) en la salida; la salida no se cierra
+    public static void escribir(Object valor, OutputStream salida) throws IOException {
+        EscritorJson escritor = abrir(salida);
+        try {
+            escritor.valor(valor);
+            escritor.vaciar();
+        } finally {
+            escritor.salida = null;
+        }
+    }
+
+    // El JSON del valor en un arreglo (para guardar respuestas ya serializadas)
+    public static byte[] aBytes(Object valor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            escribir(valor, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Para escribir varios valores seguidos en la misma salida (NDJSON); hay que llamar a cerrar()
+    static EscritorJson abrir(OutputStream salida) {
+        EscritorJson escritor = POR_HILO.get();
+        escritor.salida = salida;
+        escritor.posicion = 0;
+        return escritor;
+    }
+
+    // Escribe lo que quede en el buffer y suelta la salida
+    void cerrar() throws IOException {
+        try {
+            vaciar();
+        } finally {
+            salida = null;
+        }
+    }
+
+    void valor(Object valor) throws IOException {
+        switch (valor) {
+            case Pedido pedido -> pedido(pedido);
+            case Pedido[] pedidos -> pedidos(pedidos);
+            case PaginaPedidos pagina -> {
+                bytes(PAGINA);
+                pedidos(pagina.getPedidos());
+                bytes(SIGUIENTE);
+                if (pagina.getSiguiente() == null) {
+                    bytes(NULL);
+                } else {
+                    reservar(RESERVA);
+                    entero(pagina.getSiguiente());
+                }
+                byteSuelto('}');
+            }
+            case RespuestaPedido respuesta -> {
+                bytes(MENSAJE);
+                texto(respuesta.mensaje());
+                bytes(PEDIDO);
+                pedido(respuesta.pedido());
+                byteSuelto('}');
+            }
+            case RespuestaPedidos respuesta -> {
+                bytes(MENSAJE);
+                texto(respuesta.mensaje());
+                bytes(PEDIDOS);
+                pedidos(respuesta.pedidos());
+                byteSuelto('}');
+            }
+            default -> throw new IllegalArgumentException("Tipo no soportado: " + valor.getClass());
+        }
+    }
+
+    void pedido(Pedido pedido) throws IOException {
+        if (pedido == null) {
+            bytes(NULL);
+            return;
+        }
+        bytes(ID);
+        reservar(RESERVA);
+        entero(pedido.getId());
+        bytes(NOMBRE_CLIENTE);
+        texto(pedido.getNombreCliente());
+        bytes(DESCRIPCION);
+        texto(pedido.getDescripcion());
+        bytes(MONTO);
+        monto(pedido.getMonto());
+        bytes(CANAL);
+        texto(pedido.getCanal());
+        bytes(ESTADO);
+        estado(pedido.getEstado());
+        bytes(CREADO_EN);
+        instante(pedido.getCreadoEn());
+        bytes(DESPACHADO_EN);
+        instante(pedido.getDespachadoEn());
+        bytes(CANCELADO_EN);
+        instante(pedido.getCanceladoEn());
+        byteSuelto('}');
+    }
+
+    private void pedidos(Pedido[] pedidos) throws IOException {
+        if (pedidos == null) {
+            bytes(NULL);
+            return;
+        }
+        byteSuelto('[');
+        for (int i = 0; i < pedidos.length; i++) {
+            if (i > 0) {
+                byteSuelto(',');
+            }
+            pedido(pedidos[i]);
+        }
+        byteSuelto(']');
+    }
+
+    // El servicio pone siempre el name() de un estado; cualquier otro texto se escribe tal cual
+    private void estado(String estado) throws IOException {
+        for (EstadoPedido e : ESTADOS) {
+            if (e.name().equals(estado)) {
+                bytes(NOMBRES_ESTADO[e.codigo()]);
+                return;
+            }
+        }
+        texto(estado);
+    }
+
+    // Buffer
+
+    void byteSuelto(char c) throws IOException {
+        reservar(1);
+        buffer[posicion++] = (byte) c;
+    }
+
+    private void bytes(byte[] fragmento) throws IOException {
+        reservar(fragmento.length);
+        System.arraycopy(fragmento, 0, buffer, posicion, fragmento.length);
+        posicion += fragmento.length;
+    }
+
+    // Deja al menos "n" bytes libres (n <= TAMANO_BUFFER)
+    private void reservar(int n) throws IOException {
+        if (posicion + n > buffer.length) {
+            vaciar();
+        }
+    }
+
+    private void vaciar() throws IOException {
+        if (posicion > 0) {
+            salida.write(buffer, 0, posicion);
+            posicion = 0;
+        }
+    }
+
+    // Textos: comillas, escapes como Jackson y UTF-8 (los pares sustitutos juntos, los sueltos escapados)
+
+    private void texto(String texto) throws IOException {
+        if (texto == null) {
+            bytes(NULL);
+            return;
+        }
+        reservar(1);
+        buffer[posicion++] = '"';
+        int largo = texto.length();
+        for (int i = 0; i < largo; i++) {
+            if (posicion + RESERVA > buffer.length) {
+                vaciar();
+            }
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20) {
+                    escapeControl(c);
+                } else if (c == '"' || c == '\\') {
+                    buffer[posicion++] = '\\';
+                    buffer[posicion++] = (byte) c;
+                } else {
+                    buffer[posicion++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[posicion++] = (byte) (0xC0 | (c >> 6));
+                buffer[posicion++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < largo && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int punto = Character.toCodePoint(c, texto.charAt(++i));
+                buffer[posicion++] = (byte) (0xF0 | (punto >> 18));
+                buffer[posicion++] = (byte) (0x80 | ((punto >> 12) & 0x3F));
+                buffer[posicion++] = (byte) (0x80 | ((punto >> 6) & 0x3F));
+                buffer[posicion++] = (byte) (0x80 | (punto & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                escapeUnicode(c);
+            } else {
+                buffer[posicion++] = (byte) (0xE0 | (c >> 12));
+                buffer[posicion++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[posicion++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buffer[posicion++] = '"';
+    }
+
+    private void escapeControl(char c) {
+        char corto = switch (c) {
+            case '\b' -> 'b';
+            case '\t' -> 't';
+            case '\n' -> 'n';
+            case '\f' -> 'f';
+            case '\r' -> 'r';
+            default -> 0;
+        };
+        if (corto != 0) {
+            buffer[posicion++] = '\\';
+            buffer[posicion++] = (byte) corto;
+        } else {
+            escapeUnicode(c);
+        }
+    }
+
+    private void escapeUnicode(char c) {
+        buffer[posicion++] = '\\';
+        buffer[posicion++] = 'u';
+        buffer[posicion++] = HEX[(c >> 12) & 0xF];
+        buffer[posicion++] = HEX[(c >> 8) & 0xF];
+        buffer[posicion++] = HEX[(c >> 4) & 0xF];
+        buffer[posicion++] = HEX[c & 0xF];
+    }
+
+    // Textos de los casos raros (ya sabemos que son ASCII sin nada que escapar)
+    private void textoSimple(String texto, boolean comillas) throws IOException {
+        reservar(texto.length() + 2);
+        if (comillas) {
+            buffer[posicion++] = '"';
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            buffer[posicion++] = (byte) texto.charAt(i);
+        }
+        if (comillas) {
+            buffer[posicion++] = '"';
+        }
+    }
+
+    // Números (con RESERVA bytes libres)
+
+    private void entero(long valor) {
+        if (valor < 0) {
+            buffer[posicion++] = '-';
+            // Long.MIN_VALUE no tiene opuesto positivo: se escriben sus dígitos desde el negativo
+            escribirDigitos(valor);
+            return;
+        }
+        escribirDigitos(-valor);
+    }
+
+    // Dígitos de -negativo (negativo <= 0)
+    private void escribirDigitos(long negativo) {
+        int digitos = 1;
+        for (long resto = negativo / 10; resto != 0; resto /= 10) {
+            digitos++;
+        }
+        int fin = posicion + digitos;
+        for (int p = fin - 1; p >= posicion; p--) {
+            buffer[p] = (byte) ('0' - (negativo % 10));
+            negativo /= 10;
+        }
+        posicion = fin;
+    }
+
+    // Como Double.toString (lo que escribe Jackson). Un monto con hasta dos decimales entre 0.01 y
+    // 10^7 se escribe a partir de sus centavos: si c / 100.0 es exactamente el monto, el decimal más
+    // corto que lo representa es c / 100 sin los ceros de la derecha, que es lo que da Double.toString.
+    private void monto(double monto) throws IOException {
+        reservar(RESERVA);
+        long centavos = Math.round(monto * 100);
+        if (centavos >= 1 && centavos < 1_000_000_000L && centavos / 100.0 == monto) {
+            entero(centavos / 100);
+            buffer[posicion++] = '.';
+            int resto = (int) (centavos % 100);
+            buffer[posicion++] = (byte) ('0' + resto / 10);
+            if (resto % 10 != 0) {
+                buffer[posicion++] = (byte) ('0' + resto % 10);
+            }
+            return;
+        }
+        if (Double.isNaN(monto) || Double.isInfinite(monto)) {
+            // Jackson escribe NaN e infinitos como texto
+            textoSimple(Double.toString(monto), true);
+            return;
+        }
+        textoSimple(Double.toString(monto), false);
+    }
+
+    // Fechas: ISO-8601 en UTC con los milisegundos si no son cero ("2024-05-01T12:30:00.250Z"),
+    // igual que Instant.toString. Fuera de 1970-9999 o con más precisión que milisegundos, Instant.toString.
+    private void instante(Instant instante) throws IOException {
+        if (instante == null) {
+            bytes(NULL);
+            return;
+        }
+        long segundos = instante.getEpochSecond();
+        int nanos = instante.getNano();
+        if (segundos < 0 || segundos >= FIN_9999 || nanos % 1_000_000 != 0) {
+            textoSimple(instante.toString(), true);
+            return;
+        }
+        reservar(RESERVA);
+        long dias = segundos / 86_400;
+        int delDia = (int) (segundos % 86_400);
+
+        // Día civil a partir de los días desde la época (algoritmo de H. Hinnant, "days_from_civil" al revés)
+        long z = dias + 719_468;
+        long era = z / 146_097;
+        long diaDeEra = z - era * 146_097;
+        long anioDeEra = (diaDeEra - diaDeEra / 1460 + diaDeEra / 36_524 - diaDeEra / 146_096) / 365;
+        long diaDelAnio = diaDeEra - (365 * anioDeEra + anioDeEra / 4 - anioDeEra / 100);
+        long mp = (5 * diaDelAnio + 2) / 153;
+        int dia = (int) (diaDelAnio - (153 * mp + 2) / 5 + 1);
+        int mes = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int anio = (int) (anioDeEra + era * 400 + (mes <= 2 ? 1 : 0));
+
+        buffer[posicion++] = '"';
+        dosDigitos(anio / 100);
+        dosDigitos(anio % 100);
+        buffer[posicion++] = '-';
+        dosDigitos(mes);
+        buffer[posicion++] = '-';
+        dosDigitos(dia);
+        buffer[posicion++] = 'T';
+        dosDigitos(delDia / 3600);
+        buffer[posicion++] = ':';
+        dosDigitos(delDia / 60 % 60);
+        buffer[posicion++] = ':';
+        dosDigitos(delDia % 60);
+        if (nanos != 0) {
+            int milis = nanos / 1_000_000;
+            buffer[posicion++] = '.';
+            buffer[posicion++] = (byte) ('0' + milis / 100);
+            dosDigitos(milis % 100);
+        }
+        buffer[posicion++] = 'Z';
+        buffer[posicion++] = '"';
+    }
+
+    private void dosDigitos(int valor) {
+        buffer[posicion++] = (byte) ('0' + valor / 10);
+        buffer[posicion++] = (byte) ('0' + valor % 10);
+    }
+}
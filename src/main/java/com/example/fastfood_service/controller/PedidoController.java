@@ -1,15 +1,44 @@
 package com.example.fastfood_service.controller;
 
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.model.EventoPedido;
+import com.example.fastfood_service.model.HistorialOperacion;
 import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.EventosPedidos;
+import com.example.fastfood_service.service.EventosPedidos.Suscripcion;
 import com.example.fastfood_service.service.PedidoService;
-import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import com.example.fastfood_service.service.PedidoService.EstadisticasVentana;
+import com.example.fastfood_service.service.PedidoService.ResultadoLote;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PreDestroy;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 // Aquí se definen los endpoints que se consumen desde el cliente
 @Tag(name = "Pedidos", description = "API para gestionar pedidos de comida rápida")
@@ -17,12 +46,49 @@ import java.util.NoSuchElementException;
 @RequestMapping("/api/pedidos") // Prefijo común para todos los endpoints de este controlador
 public class PedidoController {
 
+    // Tipo de contenido del listado en streaming: un JSON por línea
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Tamaño de página cuando se pide paginación sin "limit"
+    private static final int LIMITE_POR_DEFECTO = 100;
+
+    // Pedidos que se crean juntos en cada sección crítica de la ingesta por lotes
+    private static final int TAMANO_BLOQUE_LOTE = 1000;
+
+    // Pedidos por lote cuando se despacha solo con ?maxMs (sin n)
+    private static final int LIMITE_LOTE_POR_DEFECTO = 1000;
+
+    // Artículos del top de ventas si no se indica ?k
+    private static final int TOP_POR_DEFECTO = 10;
+
+    // Cada cuánto se envía un ping a los suscriptores de eventos sin novedades
+    private static final long INTERVALO_PING_SEGUNDOS = 15;
+
     // Servicio donde está la lógica de negocio
     private final PedidoService servicio;
 
+    // Conversor a JSON de Spring (se usa para escribir el streaming y leer los lotes de a un pedido)
+    private final ObjectMapper mapper;
+
+    // Un hilo virtual por suscriptor de eventos
+    private final ExecutorService hilosEventos = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Duración máxima de cada conexión SSE
+    private final long timeoutEventos;
+
+    // Últimas respuestas serializadas del listado completo, las estadísticas y el total, con su ETag
+    private final RespuestaVersionada listado;
+    private final RespuestaVersionada estadisticasGuardadas;
+    private final RespuestaVersionada totalGuardado;
+
     // Inyección de dependencia por constructor
-    public PedidoController(PedidoService servicio) {
+    public PedidoController(PedidoService servicio, ObjectMapper mapper, PedidosProperties propiedades) {
         this.servicio = servicio;
+        this.mapper = mapper;
+        this.timeoutEventos = propiedades.getEventos().getTimeoutMs();
+        this.listado = new RespuestaVersionada(EscritorJson::aBytes);
+        this.estadisticasGuardadas = new RespuestaVersionada(mapper::writeValueAsBytes);
+        this.totalGuardado = new RespuestaVersionada(mapper::writeValueAsBytes);
     }
 
     //  Registrar un nuevo pedido
@@ -40,12 +106,217 @@ public class PedidoController {
         }
     }
 
-    //  Listar todos los pedidos
-    @Operation(summary = "Listar todos los pedidos")
+    //  Registrar pedidos por lotes
+    //  Acepta un arreglo JSON o NDJSON (un pedido por línea) y lo lee de a un pedido, sin cargar el
+    //  cuerpo entero en memoria. Cada pedido se valida por separado; los válidos se crean en bloques
+    //  de hasta TAMANO_BLOQUE_LOTE, cada uno en una sola sección crítica. Devuelve un resultado por pedido.
+    @Operation(summary = "Registrar pedidos por lotes (arreglo JSON o NDJSON)")
+    @PostMapping(value = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<?> crearLote(InputStream cuerpo) {
+        List<ResultadoLote> resultados = new ArrayList<>();
+        List<Pedido> bloque = new ArrayList<>(TAMANO_BLOQUE_LOTE);
+        int indice = 0;
+        String error = null;
+        // Leemos un pedido por vez: lo que sigue a cada uno no es un error
+        ObjectReader lector = mapper.readerFor(JsonNode.class)
+                .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        try (JsonParser parser = lector.createParser(cuerpo)) {
+            JsonToken token = parser.nextToken();
+            // Con un arreglo los pedidos vienen dentro; con NDJSON vienen uno tras otro en la raíz
+            boolean arreglo = token == JsonToken.START_ARRAY;
+            if (arreglo) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode nodo = lector.readValue(parser);
+                Pedido pedido = null;
+                String invalido = null;
+                try {
+                    pedido = nodo.isObject() ? mapper.treeToValue(nodo, Pedido.class) : null;
+                    if (pedido == null) {
+                        invalido = "Cada elemento debe ser un objeto pedido";
+                    }
+                } catch (JacksonException e) {
+                    invalido = "Pedido con formato inválido: " + e.getOriginalMessage();
+                }
+                if (invalido != null) {
+                    // Creamos lo acumulado antes, para que los índices de cada bloque sean consecutivos
+                    crearBloque(bloque, indice - bloque.size(), resultados);
+                    resultados.add(new ResultadoLote(indice, null, invalido));
+                } else {
+                    bloque.add(pedido);
+                    if (bloque.size() == TAMANO_BLOQUE_LOTE) {
+                        crearBloque(bloque, indice + 1 - bloque.size(), resultados);
+                    }
+                }
+                indice++;
+                token = parser.nextToken();
+            }
+        } catch (JacksonException e) {
+            // JSON cortado o mal formado: lo leído hasta aquí se procesa igual
+            error = "Cuerpo JSON inválido después de " + indice + " pedidos: " + e.getOriginalMessage();
+        }
+        crearBloque(bloque, indice - bloque.size(), resultados);
+
+        long creados = resultados.stream().filter(r -> r.getId() != null).count();
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("creados", creados);
+        respuesta.put("rechazados", resultados.size() - creados);
+        respuesta.put("resultados", resultados);
+        if (error != null) {
+            // 400 BAD REQUEST, pero informando qué pedidos sí se crearon
+            respuesta.put("error", error);
+            return ResponseEntity.badRequest().body(respuesta);
+        }
+        return ResponseEntity.ok(respuesta);
+    }
+
+    private void crearBloque(List<Pedido> bloque, int primerIndice, List<ResultadoLote> resultados) {
+        if (!bloque.isEmpty()) {
+            resultados.addAll(Arrays.asList(servicio.crearLote(bloque, primerIndice)));
+            bloque.clear();
+        }
+    }
+
+    //  Listar pedidos
+    //  Sin parámetros devuelve todos los pedidos (como siempre).
+    //  Con ?after=id&limit=n devuelve una página y el cursor "siguiente"; estado y nombreCliente filtran.
+    //  El listado completo lleva ETag: con If-None-Match y sin cambios se responde 304.
+    @Operation(summary = "Listar pedidos (todos o por páginas)")
     @GetMapping
-    public ResponseEntity<Pedido[]> listar() {
-        // Obtenemos todos los pedidos y devolvemos 200 OK
-        return ResponseEntity.ok(servicio.listarTodos());
+    public ResponseEntity<?> listar(@RequestParam(required = false) Integer after,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) String estado,
+                                    @RequestParam(required = false) String nombreCliente,
+                                    WebRequest request) {
+        if (after == null && limit == null && estado == null && nombreCliente == null) {
+            // Todos los pedidos con 200 OK (serializados una vez por versión)
+            return listado.responder(request, servicio::version, servicio::listarTodos);
+        }
+        try {
+            int tamano = limit == null ? LIMITE_POR_DEFECTO : limit;
+            return ResponseEntity.ok(servicio.listarPagina(after, tamano, estado, nombreCliente));
+        } catch (IllegalArgumentException e) {
+            // limit o estado inválidos: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Listar pedidos en streaming (NDJSON): se escriben directo a la respuesta,
+    //  sin armar un arreglo con todos
+    @Operation(summary = "Listar pedidos en streaming (NDJSON)")
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> listarStream(@RequestParam(required = false) String estado,
+                                                              @RequestParam(required = false) String nombreCliente) {
+        try {
+            // Validamos antes de empezar a escribir, para poder responder 400
+            servicio.validarEstado(estado);
+        } catch (IllegalArgumentException e) {
+            // Spring solo acepta un StreamingResponseBody aquí, así que el error se escribe igual
+            byte[] error = mapper.writeValueAsBytes(Map.of("error", e.getMessage()));
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(salida -> salida.write(error));
+        }
+        StreamingResponseBody cuerpo = salida -> {
+            // Los pedidos se codifican en el buffer del escritor, que se vuelca a la respuesta cuando se llena
+            EscritorJson escritor = EscritorJson.abrir(salida);
+            try {
+                servicio.recorrerPedidos(estado, nombreCliente, pedido -> {
+                    try {
+                        escritor.pedido(pedido);
+                        escritor.byteSuelto('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // El cliente cerró la conexión
+                throw e.getCause();
+            } finally {
+                escritor.cerrar();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(cuerpo);
+    }
+
+    //  Listar pedidos en un estado (usa el índice por estado, no recorre todos los pedidos)
+    @Operation(summary = "Listar pedidos por estado")
+    @GetMapping("/estado/{estado}")
+    public ResponseEntity<?> listarPorEstado(@PathVariable String estado,
+                                             @RequestParam(required = false) Integer limit) {
+        try {
+            int tamano = limit == null ? LIMITE_POR_DEFECTO : limit;
+            return ResponseEntity.ok(servicio.listarPorEstado(estado, tamano));
+        } catch (IllegalArgumentException e) {
+            // limit o estado inválidos: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Listar pedidos de un cliente por páginas (usa el índice por cliente)
+    @Operation(summary = "Listar pedidos de un cliente")
+    @GetMapping("/cliente/{nombreCliente}")
+    public ResponseEntity<?> listarPorCliente(@PathVariable String nombreCliente,
+                                              @RequestParam(required = false) Integer after,
+                                              @RequestParam(required = false) Integer limit) {
+        try {
+            int tamano = limit == null ? LIMITE_POR_DEFECTO : limit;
+            return ResponseEntity.ok(servicio.listarPorCliente(nombreCliente, after, tamano));
+        } catch (IllegalArgumentException e) {
+            // limit inválido: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Eventos en vivo (Server-Sent Events) para las pantallas de cocina y de retiro
+    //  Cada suscriptor se atiende en un hilo virtual: mientras espera eventos casi no cuesta nada.
+    //  Con el encabezado Last-Event-ID (o ?ultimoId) se retoma desde el último evento recibido.
+    //  El id de cada evento es "época-secuencia": después de un reinicio del servidor la época
+    //  cambia y el cliente que vuelve con un id viejo recibe un REINICIO.
+    @Operation(summary = "Eventos de cambios de estado (SSE)")
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                              @RequestParam(required = false) String ultimoId) {
+        SseEmitter emisor = new SseEmitter(timeoutEventos);
+        Suscripcion suscripcion = servicio.eventos().suscribir(lastEventId != null ? lastEventId : ultimoId);
+        // Si la conexión termina por cualquier motivo, se suelta la suscripción (y se despierta su hilo)
+        emisor.onCompletion(suscripcion::close);
+        emisor.onTimeout(suscripcion::close);
+        emisor.onError(e -> suscripcion.close());
+        hilosEventos.submit(() -> transmitir(emisor, suscripcion));
+        return emisor;
+    }
+
+    private void transmitir(SseEmitter emisor, Suscripcion suscripcion) {
+        EventosPedidos eventos = servicio.eventos();
+        try (suscripcion) {
+            while (!suscripcion.cerrada()) {
+                EventoPedido evento = suscripcion.siguiente(INTERVALO_PING_SEGUNDOS, TimeUnit.SECONDS);
+                if (evento == null) {
+                    // Comentario vacío para mantener viva la conexión y detectar clientes que se fueron
+                    emisor.send(SseEmitter.event().comment("ping"));
+                    continue;
+                }
+                emisor.send(SseEmitter.event()
+                        .id(eventos.idEvento(evento))
+                        .name(evento.tipo())
+                        .data(evento, MediaType.APPLICATION_JSON));
+            }
+        } catch (IllegalStateException e) {
+            // Suscriptor demasiado lento (política DESCONECTAR) o conexión ya cerrada
+            emisor.complete();
+        } catch (IOException e) {
+            // El cliente cerró la conexión
+            emisor.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emisor.complete();
+        }
+    }
+
+    @PreDestroy
+    public void cerrarEventos() {
+        hilosEventos.shutdownNow();
     }
 
     // Obtener un pedido por su id
@@ -64,6 +335,25 @@ public class PedidoController {
         }
     }
 
+    //  Pasar un pedido a EN_PREPARACION (la cocina lo empezó)
+    @Operation(summary = "Marcar pedido en preparación por id")
+    @PostMapping("/{id}/preparar")
+    public ResponseEntity<?> preparar(@PathVariable int id) {
+        try {
+            Pedido preparado = servicio.prepararPedido(id);
+            // Devolvemos 200 OK con un mensaje y el pedido ya en preparación
+            return ResponseEntity.ok(new RespuestaPedido("Pedido en preparación", preparado));
+        } catch (NoSuchElementException e) {
+            // Si no existe el pedido, devolvemos 404 NOT FOUND
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // El pedido no está REGISTRADO (ya en preparación, despachado o cancelado): 409 CONFLICT
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     //  Cancelar un pedido por id
     @Operation(summary = "Cancelar pedido por id")
     @DeleteMapping("/{id}")
@@ -72,29 +362,37 @@ public class PedidoController {
             // Delegamos al servicio la cancelación del pedido
             Pedido cancelado = servicio.cancelarPedido(id);
             // Devolvemos 200 OK con un mensaje y el pedido ya cancelado
-            return ResponseEntity.ok(Map.of(
-                    "mensaje", "Pedido cancelado correctamente",
-                    "pedido", cancelado
-            ));
+            return ResponseEntity.ok(new RespuestaPedido("Pedido cancelado correctamente", cancelado));
         } catch (NoSuchElementException e) {
             // Si no existe el pedido, devolvemos 404 NOT FOUND
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // El pedido ya estaba despachado o cancelado: 409 CONFLICT
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
     //  Despachar el siguiente pedido en la cola
-    @Operation(summary = "Despachar el siguiente pedido")
+    //  Con ?n=K (y/o ?maxMs=T) despacha un lote de hasta K pedidos (o los que alcancen en T ms)
+    @Operation(summary = "Despachar el siguiente pedido (o un lote)")
     @PostMapping("/despachar")
-    public ResponseEntity<?> despachar() {
+    public ResponseEntity<?> despachar(@RequestParam(required = false) Integer n,
+                                       @RequestParam(required = false) Long maxMs) {
         try {
+            if (n != null || maxMs != null) {
+                // Despacho por lotes: hasta n pedidos (o los que alcancen en maxMs) en un solo paso
+                // Devolvemos 200 OK con el arreglo de pedidos despachados
+                return ResponseEntity.ok(servicio.despacharLote(n == null ? LIMITE_LOTE_POR_DEFECTO : n, maxMs));
+            }
             // Pedimos al servicio que despache el siguiente pedido en la cola
             Pedido despachado = servicio.despacharSiguiente();
             // Devolvemos 200 OK con mensaje y el pedido despachado
-            return ResponseEntity.ok(Map.of(
-                    "mensaje", "Pedido despachado correctamente",
-                    "pedido", despachado
-            ));
+            return ResponseEntity.ok(new RespuestaPedido("Pedido despachado correctamente", despachado));
+        } catch (IllegalArgumentException e) {
+            // n o maxMs inválidos: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IllegalStateException e) {
             // Si no hay pedidos por despachar, devolvemos 409 CONFLICT con el error
             return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -102,40 +400,83 @@ public class PedidoController {
         }
     }
 
-    // Obtener estadísticas de los pedidos
+    // Obtener estadísticas de los pedidos (los mismos que lista GET /api/pedidos, sin las sucursales;
+    // las de todas juntas están en /api/sucursales/estadisticas). Si nada cambió, 304 o lo ya serializado
     @Operation(summary = "Estadísticas de pedidos")
     @GetMapping("/estadisticas")
-    public ResponseEntity<EstadisticasPedidos> estadisticas() {
-        // Obtenemos las estadísticas del servicio y las devolvemos con 200 OK
-        return ResponseEntity.ok(servicio.obtenerEstadisticas());
+    public ResponseEntity<byte[]> estadisticas(WebRequest request) {
+        // Obtenemos las estadísticas y las devolvemos con 200 OK
+        return estadisticasGuardadas.responder(request, servicio::version, servicio::obtenerEstadisticas);
     }
 
-    //  Calcular el monto total de los pedidos usando el método recursivo
+    // Actividad reciente: pedidos por minuto y percentiles del tiempo hasta el despacho
+    // en los últimos ?minutos (por defecto 15)
+    @Operation(summary = "Estadísticas de los últimos minutos")
+    @GetMapping("/estadisticas/ventana")
+    public ResponseEntity<?> estadisticasVentana(@RequestParam(defaultValue = "15") int minutos) {
+        try {
+            return ResponseEntity.ok(new EstadisticasVentana(servicio.resumenVentana(minutos)));
+        } catch (IllegalArgumentException e) {
+            // minutos fuera de rango: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Artículos más vendidos (según la descripción), con su monto
+    @Operation(summary = "Top de artículos más vendidos")
+    @GetMapping("/estadisticas/top")
+    public ResponseEntity<?> topArticulos(@RequestParam(required = false) Integer k) {
+        try {
+            return ResponseEntity.ok(servicio.topArticulos(k == null ? TOP_POR_DEFECTO : k));
+        } catch (IllegalArgumentException e) {
+            // k fuera de rango: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Calcular el monto total de los pedidos usando el método recursivo (solo si algo cambió)
     @Operation(summary = "Calcular monto total de pedidos")
     @GetMapping("/total-recursivo")
-    public ResponseEntity<Map<String, Double>> totalRecursivo() {
-        // Calculamos el total recursivo en el servicio
-        double total = servicio.calcularTotalMontoRecursivo();
+    public ResponseEntity<byte[]> totalRecursivo(WebRequest request) {
         // Devolvemos un JSON con la propiedad "totalMontoRecursivo"
-        return ResponseEntity.ok(Map.of("totalMontoRecursivo", total));
+        return totalGuardado.responder(request, servicio::version,
+                () -> Map.of("totalMontoRecursivo", servicio.calcularTotalMontoRecursivo()));
     }
 
-    //  Realizar rollback de la última operación registrada en el historial
+    //  Realizar rollback de las últimas operaciones registradas en el historial
+    //  (por defecto solo la última; con ?pasos=n se revierten n operaciones juntas)
     @Operation(summary = "Realizar rollback ")
     @PostMapping("/rollback")
-    public ResponseEntity<?> rollback() {
+    public ResponseEntity<?> rollback(@RequestParam(defaultValue = "1") int pasos) {
         try {
-            // Pedimos al servicio que revierta la última operación
-            Pedido pedido = servicio.rollbackUltimaOperacion();
-            // Devolvemos 200 OK con mensaje y el pedido afectado por el rollback
-            return ResponseEntity.ok(Map.of(
-                    "mensaje", "Rollback realizado correctamente",
-                    "pedido", pedido
-            ));
+            // Pedimos al servicio que revierta las operaciones
+            Pedido[] pedidos = servicio.rollback(pasos);
+            if (pedidos.length == 1) {
+                // Devolvemos 200 OK con mensaje y el pedido afectado por el rollback
+                return ResponseEntity.ok(new RespuestaPedido("Rollback realizado correctamente", pedidos[0]));
+            }
+            // Con varios pasos (o un lote) devolvemos los pedidos afectados (del más reciente al más antiguo)
+            return ResponseEntity.ok(new RespuestaPedidos(
+                    "Rollback de " + pasos + " operaciones realizado correctamente", pedidos));
+        } catch (IllegalArgumentException e) {
+            // pasos inválido: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IllegalStateException e) {
-            // Si no hay operaciones para revertir, devolvemos 409 CONFLICT
+            // Si no hay operaciones suficientes para revertir, devolvemos 409 CONFLICT
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("error", e.getMessage()));
         }
     }
+
+    //  Consultar las últimas operaciones del historial sin revertirlas
+    @Operation(summary = "Consultar historial reciente")
+    @GetMapping("/historial")
+    public ResponseEntity<?> historial(@RequestParam(defaultValue = "20") int limite) {
+        try {
+            HistorialOperacion[] ops = servicio.listarHistorial(limite);
+            return ResponseEntity.ok(ops);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
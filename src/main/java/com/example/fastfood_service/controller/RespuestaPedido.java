@@ -0,0 +1,9 @@
+package com.example.fastfood_service.controller;
+
+import com.example.fastfood_service.model.Pedido;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// Respuesta de una operación sobre un pedido: un mensaje y el pedido como quedó
+@JsonPropertyOrder({ "mensaje", "pedido" })
+public record RespuestaPedido(String mensaje, Pedido pedido) {
+}
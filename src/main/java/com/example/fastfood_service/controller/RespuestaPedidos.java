@@ -0,0 +1,9 @@
+package com.example.fastfood_service.controller;
+
+import com.example.fastfood_service.model.Pedido;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// Respuesta de una operación que afecta a varios pedidos (rollback de varios pasos o de un lote)
+@JsonPropertyOrder({ "mensaje", "pedidos" })
+public record RespuestaPedidos(String mensaje, Pedido[] pedidos) {
+}
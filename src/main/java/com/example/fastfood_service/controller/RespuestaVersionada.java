@@ -0,0 +1,61 @@
+package com.example.fastfood_service.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Respuesta JSON de un GET que solo cambia cuando cambia la versión de los datos (listado, estadísticas)
+//
+// - Se guardan los bytes ya serializados de la última versión pedida: mientras nada cambie, la
+//   respuesta sale de ahí sin recorrer los pedidos ni volver a serializar.
+// - El ETag es la versión. Si el cliente manda If-None-Match con el ETag vigente se responde
+//   304 sin cuerpo, mirando solo el contador de versión.
+// - Las versiones vuelven a empezar al reiniciar el proceso, así que el ETag lleva además un
+//   prefijo al azar de este arranque: un ETag de antes del reinicio nunca coincide.
+final class RespuestaVersionada {
+
+    // La respuesta serializada de una versión
+    private record Guardada(long version, String etag, byte[] cuerpo) {
+    }
+
+    private static final String ARRANQUE = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    // Convierte la respuesta a JSON (Jackson, o EscritorJson para los pedidos)
+    private final Function<Object, byte[]> serializar;
+
+    private volatile Guardada ultima;
+
+    RespuestaVersionada(Function<Object, byte[]> serializar) {
+        this.serializar = serializar;
+    }
+
+    // La versión se lee ANTES de calcular: si algo cambia mientras tanto, lo guardado puede ser más
+    // nuevo que su versión (la próxima consulta lo recalcula), pero nunca más viejo
+    ResponseEntity<byte[]> responder(WebRequest request, LongSupplier version, Supplier<?> calcular) {
+        long actual = version.getAsLong();
+        String etag = etag(actual);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        Guardada guardada = ultima;
+        if (guardada == null || guardada.version() != actual) {
+            guardada = new Guardada(actual, etag, serializar.apply(calcular.get()));
+            // Si otro hilo ya guardó una versión más nueva, no la pisamos
+            Guardada previa = ultima;
+            if (previa == null || previa.version() < actual) {
+                ultima = guardada;
+            }
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(guardada.etag()).body(guardada.cuerpo());
+    }
+
+    private static String etag(long version) {
+        return "\"" + ARRANQUE + "-" + version + "\"";
+    }
+}
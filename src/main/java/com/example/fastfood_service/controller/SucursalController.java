@@ -0,0 +1,249 @@
+package com.example.fastfood_service.controller;
+
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.ParticionPedidos;
+import com.example.fastfood_service.service.PedidoService.EstadisticasVentana;
+import com.example.fastfood_service.service.SucursalesService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Endpoints de los pedidos de una sucursal: cada una tiene su propia lista, cola e historial
+// Si la sucursal no existe se responde 404, igual que con un pedido que no existe
+@Tag(name = "Sucursales", description = "Pedidos separados por sucursal")
+@RestController
+@RequestMapping("/api/sucursales")
+public class SucursalController {
+
+    // Tamaño de página cuando se pide paginación sin "limit"
+    private static final int LIMITE_POR_DEFECTO = 100;
+
+    // Pedidos por lote cuando se despacha solo con ?maxMs (sin n)
+    private static final int LIMITE_LOTE_POR_DEFECTO = 1000;
+
+    private final SucursalesService sucursales;
+
+    // Últimas estadísticas y total globales ya serializados, con su ETag
+    private final RespuestaVersionada estadisticasGuardadas;
+    private final RespuestaVersionada totalGuardado;
+
+    public SucursalController(SucursalesService sucursales, ObjectMapper mapper) {
+        this.sucursales = sucursales;
+        this.estadisticasGuardadas = new RespuestaVersionada(mapper::writeValueAsBytes);
+        this.totalGuardado = new RespuestaVersionada(mapper::writeValueAsBytes);
+    }
+
+    //  Sucursales con sus estadísticas
+    @Operation(summary = "Listar sucursales con sus estadísticas")
+    @GetMapping
+    public ResponseEntity<?> listarSucursales() {
+        return ResponseEntity.ok(sucursales.estadisticasPorSucursal());
+    }
+
+    // Estadísticas de todas las sucursales juntas, la principal (/api/pedidos) incluida
+    // (se combinan las de cada partición, consultadas en paralelo; si ninguna cambió, 304 o lo ya serializado)
+    @Operation(summary = "Estadísticas de pedidos de todas las sucursales")
+    @GetMapping("/estadisticas")
+    public ResponseEntity<byte[]> estadisticasGlobales(WebRequest request) {
+        return estadisticasGuardadas.responder(request, sucursales::version, sucursales::estadisticasGlobales);
+    }
+
+    // Actividad reciente de todas las sucursales juntas (los últimos ?minutos, por defecto 15)
+    @Operation(summary = "Estadísticas de los últimos minutos de todas las sucursales")
+    @GetMapping("/estadisticas/ventana")
+    public ResponseEntity<?> estadisticasVentanaGlobal(@RequestParam(defaultValue = "15") int minutos) {
+        try {
+            return ResponseEntity.ok(sucursales.ventanaGlobal(minutos));
+        } catch (IllegalArgumentException e) {
+            // minutos fuera de rango: 400 BAD REQUEST
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Monto total de todas las sucursales juntas: cada una calcula su total recursivo en paralelo
+    //  y se suman (solo si algo cambió)
+    @Operation(summary = "Calcular monto total de pedidos de todas las sucursales")
+    @GetMapping("/total-recursivo")
+    public ResponseEntity<byte[]> totalRecursivoGlobal(WebRequest request) {
+        return totalGuardado.responder(request, sucursales::version,
+                () -> Map.of("totalMontoRecursivo", sucursales.totalMontoGlobal()));
+    }
+
+    //  Registrar un nuevo pedido en la sucursal
+    @Operation(summary = "Registrar nuevo pedido en una sucursal")
+    @PostMapping("/{sucursal}/pedidos")
+    public ResponseEntity<?> crear(@PathVariable String sucursal, @RequestBody Pedido pedidoRequest) {
+        try {
+            Pedido creado = sucursales.particion(sucursal).crearPedido(pedidoRequest);
+            return ResponseEntity.status(HttpStatus.CREATED).body(creado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Listar pedidos de la sucursal (todos, o por páginas con ?after=id&limit=n)
+    @Operation(summary = "Listar pedidos de una sucursal")
+    @GetMapping("/{sucursal}/pedidos")
+    public ResponseEntity<?> listar(@PathVariable String sucursal,
+                                    @RequestParam(required = false) Integer after,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) String estado,
+                                    @RequestParam(required = false) String nombreCliente) {
+        try {
+            ParticionPedidos particion = sucursales.particion(sucursal);
+            if (after == null && limit == null && estado == null && nombreCliente == null) {
+                return ResponseEntity.ok(particion.listarTodos());
+            }
+            int tamano = limit == null ? LIMITE_POR_DEFECTO : limit;
+            return ResponseEntity.ok(particion.listarPagina(after, tamano, estado, nombreCliente));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Obtener un pedido de la sucursal por su id
+    @Operation(summary = "Obtener pedido de una sucursal por id")
+    @GetMapping("/{sucursal}/pedidos/{id}")
+    public ResponseEntity<?> obtener(@PathVariable String sucursal, @PathVariable int id) {
+        try {
+            return ResponseEntity.ok(sucursales.particion(sucursal).buscarPorId(id));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Pasar un pedido de la sucursal a EN_PREPARACION
+    @Operation(summary = "Marcar pedido de una sucursal en preparación")
+    @PostMapping("/{sucursal}/pedidos/{id}/preparar")
+    public ResponseEntity<?> preparar(@PathVariable String sucursal, @PathVariable int id) {
+        try {
+            Pedido preparado = sucursales.particion(sucursal).prepararPedido(id);
+            return ResponseEntity.ok(new RespuestaPedido("Pedido en preparación", preparado));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // El pedido no está REGISTRADO: 409 CONFLICT
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Cancelar un pedido de la sucursal
+    @Operation(summary = "Cancelar pedido de una sucursal")
+    @DeleteMapping("/{sucursal}/pedidos/{id}")
+    public ResponseEntity<?> cancelar(@PathVariable String sucursal, @PathVariable int id) {
+        try {
+            Pedido cancelado = sucursales.particion(sucursal).cancelarPedido(id);
+            return ResponseEntity.ok(new RespuestaPedido("Pedido cancelado correctamente", cancelado));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // El pedido ya estaba despachado o cancelado: 409 CONFLICT
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Despachar el siguiente pedido de la cola de la sucursal (o un lote con ?n=K y/o ?maxMs=T)
+    @Operation(summary = "Despachar el siguiente pedido de una sucursal (o un lote)")
+    @PostMapping("/{sucursal}/pedidos/despachar")
+    public ResponseEntity<?> despachar(@PathVariable String sucursal,
+                                       @RequestParam(required = false) Integer n,
+                                       @RequestParam(required = false) Long maxMs) {
+        try {
+            ParticionPedidos particion = sucursales.particion(sucursal);
+            if (n != null || maxMs != null) {
+                return ResponseEntity.ok(particion.despacharLote(n == null ? LIMITE_LOTE_POR_DEFECTO : n, maxMs));
+            }
+            Pedido despachado = particion.despacharSiguiente();
+            return ResponseEntity.ok(new RespuestaPedido("Pedido despachado correctamente", despachado));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // No hay pedidos por despachar en esta sucursal: 409 CONFLICT
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Estadísticas de la sucursal
+    @Operation(summary = "Estadísticas de pedidos de una sucursal")
+    @GetMapping("/{sucursal}/pedidos/estadisticas")
+    public ResponseEntity<?> estadisticas(@PathVariable String sucursal) {
+        try {
+            return ResponseEntity.ok(sucursales.particion(sucursal).obtenerEstadisticas());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Actividad reciente de la sucursal (pedidos por minuto y percentiles del tiempo hasta el despacho)
+    @Operation(summary = "Estadísticas de los últimos minutos de una sucursal")
+    @GetMapping("/{sucursal}/pedidos/estadisticas/ventana")
+    public ResponseEntity<?> estadisticasVentana(@PathVariable String sucursal,
+                                                 @RequestParam(defaultValue = "15") int minutos) {
+        try {
+            return ResponseEntity.ok(new EstadisticasVentana(sucursales.particion(sucursal).resumenVentana(minutos)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Monto total de los pedidos de la sucursal (método recursivo)
+    @Operation(summary = "Calcular monto total de pedidos de una sucursal")
+    @GetMapping("/{sucursal}/pedidos/total-recursivo")
+    public ResponseEntity<?> totalRecursivo(@PathVariable String sucursal) {
+        try {
+            double total = sucursales.particion(sucursal).calcularTotalMontoRecursivo();
+            return ResponseEntity.ok(Map.of("totalMontoRecursivo", total));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Rollback de las últimas operaciones de la sucursal (con ?pasos=n se revierten n juntas)
+    @Operation(summary = "Realizar rollback en una sucursal")
+    @PostMapping("/{sucursal}/pedidos/rollback")
+    public ResponseEntity<?> rollback(@PathVariable String sucursal, @RequestParam(defaultValue = "1") int pasos) {
+        try {
+            Pedido[] pedidos = sucursales.particion(sucursal).rollback(pasos);
+            if (pedidos.length == 1) {
+                return ResponseEntity.ok(new RespuestaPedido("Rollback realizado correctamente", pedidos[0]));
+            }
+            return ResponseEntity.ok(new RespuestaPedidos(
+                    "Rollback de " + pasos + " operaciones realizado correctamente", pedidos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // No hay operaciones suficientes para revertir en esta sucursal: 409 CONFLICT
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    //  Últimas operaciones del historial de la sucursal
+    @Operation(summary = "Consultar historial reciente de una sucursal")
+    @GetMapping("/{sucursal}/pedidos/historial")
+    public ResponseEntity<?> historial(@PathVariable String sucursal, @RequestParam(defaultValue = "20") int limite) {
+        try {
+            return ResponseEntity.ok(sucursales.particion(sucursal).listarHistorial(limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Nivel frío de un PedidoStore: pedidos DESPACHADO y CANCELADO viejos, fuera del heap, en segmentos
+// inmutables mapeados en memoria (ver SegmentoFrio)
+//
+// - Cada pasada de archivo escribe un segmento nuevo. Para que no se acumulen, después de agregar uno
+//   se fusionan los dos últimos mientras el anteúltimo no sea más del doble que el último (como un
+//   contador binario): quedan O(log n) segmentos y cada pedido se reescribe O(log n) veces.
+// - Un pedido vive en un solo segmento. Si vuelve a memoria (rollback o cancelación de un pedido
+//   archivado) o se borra, se marca como retirado en su segmento; las fusiones ya no lo copian.
+// - Los archivos son una copia de lo que salió del heap, no la fuente de verdad: al arrancar se
+//   borran los que hubiera (la recuperación es el log de operaciones).
+//
+// No toma candados propios: PedidoStore lo usa con su candado (lecturas con el de lectura, cambios
+// con el de escritura). Escribir y fusionar archivos se hace sin candado y se publica con el de escritura.
+final class AlmacenFrio {
+
+    // Segmentos del más viejo al más nuevo; se reemplaza el arreglo entero (las lecturas optimistas
+    // siempre ven uno completo)
+    private volatile SegmentoFrio[] segmentos = new SegmentoFrio[0];
+
+    private volatile int size;
+
+    private final Path directorio;
+
+    // Número del próximo archivo
+    private int siguienteNumero;
+
+    AlmacenFrio(Path directorio) {
+        this.directorio = directorio;
+        try {
+            Files.createDirectories(directorio);
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                for (Path archivo : archivos.filter(AlmacenFrio::esSegmento).toList()) {
+                    Files.delete(archivo);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean esSegmento(Path archivo) {
+        return archivo.getFileName().toString().matches("frio-\\d{8}\\.seg");
+    }
+
+    // Pedidos vigentes en el nivel frío
+    int size() {
+        return size;
+    }
+
+    int cantidadSegmentos() {
+        return segmentos.length;
+    }
+
+    // Los segmentos actuales, del más viejo al más nuevo (el arreglo no se modifica: se reemplaza)
+    SegmentoFrio[] segmentos() {
+        return segmentos;
+    }
+
+    // Pedido vigente con ese id, o null
+    Pedido buscar(int id) {
+        SegmentoFrio[] actuales = segmentos;
+        for (int i = actuales.length - 1; i >= 0; i--) {
+            int posicion = actuales[i].buscar(id);
+            if (posicion >= 0) {
+                return actuales[i].leer(posicion);
+            }
+        }
+        return null;
+    }
+
+    boolean contiene(int id) {
+        for (SegmentoFrio segmento : segmentos) {
+            if (segmento.buscar(id) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Saca el pedido del nivel frío y lo devuelve (null si no estaba); con el candado de escritura
+    Pedido retirar(int id) {
+        for (SegmentoFrio segmento : segmentos) {
+            int posicion = segmento.buscar(id);
+            if (posicion >= 0) {
+                Pedido pedido = segmento.leer(posicion);
+                segmento.retirar(id);
+                size--;
+                return pedido;
+            }
+        }
+        return null;
+    }
+
+    int contar(EstadoPedido estado) {
+        int total = 0;
+        for (SegmentoFrio segmento : segmentos) {
+            total += segmento.contar(estado);
+        }
+        return total;
+    }
+
+    // Suma compensada de los montos vigentes, leyendo solo la columna de montos de cada registro
+    double sumarMontos() {
+        double suma = 0.0;
+        double compensacion = 0.0;
+        for (SegmentoFrio segmento : segmentos) {
+            for (int p = segmento.inicioDespuesDe(null); p < segmento.fin(); p = segmento.siguiente(p)) {
+                if (segmento.retirado(segmento.idEn(p))) {
+                    continue;
+                }
+                double x = segmento.montoEn(p);
+                double t = suma + x;
+                compensacion += Math.abs(suma) >= Math.abs(x) ? (suma - t) + x : (x - t) + suma;
+                suma = t;
+            }
+        }
+        return suma + compensacion;
+    }
+
+    // Hasta "limite" pedidos vigentes en orden de id, después de "despuesDeId" (null = desde el principio),
+    // filtrando por estado y por cliente (null = sin filtro). Mezcla los segmentos, que están ordenados por id.
+    List<Pedido> pagina(Integer despuesDeId, int limite, EstadoPedido estado, String cliente) {
+        SegmentoFrio[] actuales = segmentos;
+        int[] posiciones = new int[actuales.length];
+        for (int i = 0; i < actuales.length; i++) {
+            posiciones[i] = actuales[i].inicioDespuesDe(despuesDeId);
+        }
+        List<Pedido> resultado = new ArrayList<>(Math.min(limite, Math.max(size, 0)));
+        while (resultado.size() < limite) {
+            // El segmento con el menor id pendiente
+            int menor = -1;
+            for (int i = 0; i < actuales.length; i++) {
+                if (posiciones[i] < actuales[i].fin()
+                        && (menor < 0 || actuales[i].idEn(posiciones[i]) < actuales[menor].idEn(posiciones[menor]))) {
+                    menor = i;
+                }
+            }
+            if (menor < 0) {
+                break;
+            }
+            SegmentoFrio segmento = actuales[menor];
+            int p = posiciones[menor];
+            posiciones[menor] = segmento.siguiente(p);
+            if (segmento.retirado(segmento.idEn(p))
+                    || (estado != null && segmento.estadoEn(p) != estado)
+                    || (cliente != null && !cliente.equals(segmento.clienteEn(p)))) {
+                continue;
+            }
+            resultado.add(segmento.leer(p));
+        }
+        return resultado;
+    }
+
+    // Escribe un segmento con los pedidos (ordenados por id); sin candado, todavía no se ve
+    SegmentoFrio escribir(List<Pedido> pedidos) {
+        return SegmentoFrio.escribir(nuevoArchivo(), pedidos);
+    }
+
+    private synchronized Path nuevoArchivo() {
+        return directorio.resolve(String.format("frio-%08d.seg", siguienteNumero++));
+    }
+
+    // Agrega el segmento (con el candado de escritura); "vigentes" son los que no se retiraron al publicarlo
+    void publicar(SegmentoFrio segmento) {
+        SegmentoFrio[] nuevos = Arrays.copyOf(segmentos, segmentos.length + 1);
+        nuevos[nuevos.length - 1] = segmento;
+        segmentos = nuevos;
+        size += segmento.vigentes();
+    }
+
+    // Los dos últimos segmentos si conviene fusionarlos, o null (con algún candado tomado)
+    SegmentoFrio[] paraFusionar() {
+        SegmentoFrio[] actuales = segmentos;
+        if (actuales.length < 2) {
+            return null;
+        }
+        SegmentoFrio anteultimo = actuales[actuales.length - 2];
+        SegmentoFrio ultimo = actuales[actuales.length - 1];
+        if (anteultimo.vigentes() > 2 * ultimo.vigentes()) {
+            return null;
+        }
+        return new SegmentoFrio[]{anteultimo, ultimo};
+    }
+
+    // Escribe un segmento con los registros vigentes de "a" y "b" (sin candado; "retiradosA" y
+    // "retiradosB" son las copias de sus retirados tomadas con el candado)
+    SegmentoFrio fusionar(SegmentoFrio a, Set<Integer> retiradosA, SegmentoFrio b, Set<Integer> retiradosB) {
+        List<Pedido> juntos = new ArrayList<>(a.cantidad() - retiradosA.size() + b.cantidad() - retiradosB.size());
+        int pa = a.inicioDespuesDe(null);
+        int pb = b.inicioDespuesDe(null);
+        while (pa < a.fin() || pb < b.fin()) {
+            boolean deA = pb >= b.fin() || (pa < a.fin() && a.idEn(pa) <= b.idEn(pb));
+            if (deA) {
+                if (!retiradosA.contains(a.idEn(pa))) {
+                    juntos.add(a.leer(pa));
+                }
+                pa = a.siguiente(pa);
+            } else {
+                if (!retiradosB.contains(b.idEn(pb))) {
+                    juntos.add(b.leer(pb));
+                }
+                pb = b.siguiente(pb);
+            }
+        }
+        return escribir(juntos);
+    }
+
+    // Reemplaza "a" y "b" (los dos últimos) por su fusión (con el candado de escritura). Lo que se
+    // retiró de ellos mientras se fusionaban se retira también del nuevo. Devuelve false si los
+    // segmentos cambiaron entretanto (la fusión se descarta).
+    boolean reemplazar(SegmentoFrio a, Set<Integer> retiradosA, SegmentoFrio b, Set<Integer> retiradosB,
+                       SegmentoFrio fusion) {
+        SegmentoFrio[] actuales = segmentos;
+        int n = actuales.length;
+        if (n < 2 || actuales[n - 2] != a || actuales[n - 1] != b) {
+            borrar(fusion);
+            return false;
+        }
+        for (Integer id : a.retirados()) {
+            if (!retiradosA.contains(id)) {
+                fusion.retirar(id);
+            }
+        }
+        for (Integer id : b.retirados()) {
+            if (!retiradosB.contains(id)) {
+                fusion.retirar(id);
+            }
+        }
+        SegmentoFrio[] nuevos = Arrays.copyOf(actuales, n - 1);
+        nuevos[n - 2] = fusion;
+        segmentos = nuevos;
+        // Las lecturas que ya tenían el mapeo viejo lo siguen usando hasta que el GC lo suelte
+        borrar(a);
+        borrar(b);
+        return true;
+    }
+
+    private static void borrar(SegmentoFrio segmento) {
+        try {
+            Files.deleteIfExists(segmento.archivo());
+        } catch (IOException e) {
+            // En algunos sistemas no se puede borrar un archivo mapeado: se borra al próximo arranque
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.List;
+
+// Un carril de PedidoQueue
+// "sacar" devuelve el próximo nodo que sale del carril (puede traer el pedido ya anulado: quien llama
+// lo reclama y, si estaba anulado, vuelve a sacar). "descartar" avisa que un nodo se anuló para
+// que el carril lo suelte si puede hacerlo en O(log n) o menos.
+abstract class Carril {
+
+    final String nombre;
+    final int peso;
+
+    Carril(String nombre, int peso) {
+        this.nombre = nombre;
+        this.peso = peso;
+    }
+
+    abstract void agregar(NodoCola nodo);
+
+    abstract NodoCola sacar();
+
+    abstract void descartar(NodoCola nodo);
+
+    // Los nodos que están en el carril, en el orden en que saldrían (en un montículo, en cualquier
+    // orden: al volver a agregarlos se reordenan solos). Puede incluir nodos ya anulados.
+    abstract List<NodoCola> nodos();
+
+    static Carril crear(DefinicionCarril definicion) {
+        switch (definicion.orden()) {
+            case MONTO:
+                // Mayor monto primero; a igual monto, el más antiguo
+                return new CarrilPrioridad(definicion.nombre(), definicion.peso(),
+                        (a, b) -> a.monto != b.monto ? Double.compare(b.monto, a.monto) : Integer.compare(a.id, b.id));
+            case ANTIGUEDAD:
+                // Los ids crecen con la creación: menor id = más antiguo
+                return new CarrilPrioridad(definicion.nombre(), definicion.peso(), (a, b) -> Integer.compare(a.id, b.id));
+            default:
+                return new CarrilFifo(definicion.nombre(), definicion.peso());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.fastfood_service.datastructures;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+// Carril FIFO sin candados: cola de Michael-Scott (enlaces con CAS y nodo centinela)
+// Los nodos anulados se quedan en la cola hasta que sacar pasa por ellos
+final class CarrilFifo extends Carril {
+
+    private static final VarHandle NEXT;
+    private static final VarHandle FRONT;
+    private static final VarHandle REAR;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NEXT = lookup.findVarHandle(NodoCola.class, "next", NodoCola.class);
+            FRONT = lookup.findVarHandle(CarrilFifo.class, "front", NodoCola.class);
+            REAR = lookup.findVarHandle(CarrilFifo.class, "rear", NodoCola.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Puntero al nodo centinela (su siguiente es el próximo en salir)
+    private volatile NodoCola front;
+
+    // Puntero al último nodo (el último que entró)
+    private volatile NodoCola rear;
+
+    CarrilFifo(String nombre, int peso) {
+        super(nombre, peso);
+        NodoCola centinela = new NodoCola(null, this);
+        front = centinela;
+        rear = centinela;
+    }
+
+    @Override
+    void agregar(NodoCola nuevo) {
+        while (true) {
+            NodoCola ultimo = rear;
+            NodoCola siguiente = ultimo.next;
+            if (ultimo != rear) {
+                continue;
+            }
+            if (siguiente == null) {
+                // Intentamos enlazar el nuevo nodo después del último
+                if (NEXT.compareAndSet(ultimo, null, nuevo)) {
+                    // Si falla, otro hilo ya movió rear por nosotros
+                    REAR.compareAndSet(this, ultimo, nuevo);
+                    return;
+                }
+            } else {
+                // rear quedó atrasado: ayudamos a avanzarlo
+                REAR.compareAndSet(this, ultimo, siguiente);
+            }
+        }
+    }
+
+    @Override
+    NodoCola sacar() {
+        while (true) {
+            NodoCola centinela = front;
+            NodoCola ultimo = rear;
+            NodoCola siguiente = centinela.next;
+            if (centinela != front) {
+                continue;
+            }
+            if (siguiente == null) {
+                // Carril vacío
+                return null;
+            }
+            if (centinela == ultimo) {
+                // rear quedó atrasado: ayudamos a avanzarlo
+                REAR.compareAndSet(this, ultimo, siguiente);
+                continue;
+            }
+            // El hilo que logra mover front es dueño del nodo "siguiente"
+            if (FRONT.compareAndSet(this, centinela, siguiente)) {
+                return siguiente;
+            }
+        }
+    }
+
+    @Override
+    void descartar(NodoCola nodo) {
+        // Borrado lógico: sacar lo salta cuando llegue a él
+    }
+
+    @Override
+    List<NodoCola> nodos() {
+        // Recorrer los enlaces es seguro aunque otros hilos saquen a la vez: se ve un sufijo de la cola
+        List<NodoCola> nodos = new ArrayList<>();
+        for (NodoCola nodo = front.next; nodo != null; nodo = nodo.next) {
+            nodos.add(nodo);
+        }
+        return nodos;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Carril con prioridad: montículo binario en un arreglo
+// Cada nodo guarda su posición, así descartar un pedido cancelado es O(log n) sin buscarlo
+// Las operaciones toman el monitor del carril (secciones cortas, O(log n))
+final class CarrilPrioridad extends Carril {
+
+    private final Comparator<NodoCola> orden;
+
+    private NodoCola[] monticulo = new NodoCola[16];
+
+    private int size;
+
+    CarrilPrioridad(String nombre, int peso, Comparator<NodoCola> orden) {
+        super(nombre, peso);
+        this.orden = orden;
+    }
+
+    @Override
+    synchronized void agregar(NodoCola nodo) {
+        if (size == monticulo.length) {
+            monticulo = Arrays.copyOf(monticulo, size * 2);
+        }
+        colocar(nodo, size++);
+        subir(nodo.posicion);
+    }
+
+    @Override
+    synchronized NodoCola sacar() {
+        if (size == 0) {
+            return null;
+        }
+        NodoCola primero = monticulo[0];
+        quitarEn(0);
+        return primero;
+    }
+
+    @Override
+    synchronized void descartar(NodoCola nodo) {
+        // Si ya salió del montículo (lo sacó otro hilo) no hay nada que hacer
+        if (nodo.posicion >= 0 && nodo.posicion < size && monticulo[nodo.posicion] == nodo) {
+            quitarEn(nodo.posicion);
+        }
+    }
+
+    @Override
+    synchronized List<NodoCola> nodos() {
+        return List.of(Arrays.copyOf(monticulo, size));
+    }
+
+    // Quita el nodo de la posición i poniendo el último en su lugar y reacomodándolo
+    private void quitarEn(int i) {
+        NodoCola quitado = monticulo[i];
+        quitado.posicion = -1;
+        size--;
+        NodoCola ultimo = monticulo[size];
+        monticulo[size] = null;
+        if (i < size) {
+            colocar(ultimo, i);
+            if (!subir(i)) {
+                bajar(i);
+            }
+        }
+    }
+
+    // Sube el nodo de la posición i mientras tenga más prioridad que su padre; dice si se movió
+    private boolean subir(int i) {
+        NodoCola nodo = monticulo[i];
+        int inicio = i;
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (orden.compare(nodo, monticulo[padre]) >= 0) {
+                break;
+            }
+            colocar(monticulo[padre], i);
+            i = padre;
+        }
+        colocar(nodo, i);
+        return i != inicio;
+    }
+
+    private void bajar(int i) {
+        NodoCola nodo = monticulo[i];
+        while (true) {
+            int hijo = 2 * i + 1;
+            if (hijo >= size) {
+                break;
+            }
+            if (hijo + 1 < size && orden.compare(monticulo[hijo + 1], monticulo[hijo]) < 0) {
+                hijo++;
+            }
+            if (orden.compare(monticulo[hijo], nodo) >= 0) {
+                break;
+            }
+            colocar(monticulo[hijo], i);
+            i = hijo;
+        }
+        colocar(nodo, i);
+    }
+
+    private void colocar(NodoCola nodo, int i) {
+        monticulo[i] = nodo;
+        nodo.posicion = i;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.fastfood_service.datastructures;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// Almacén de pedidos en columnas ("struct of arrays")
+// En lugar de un objeto Pedido (con sus String) por pedido, cada campo es un arreglo de primitivos
+// indexado por casilla: ids en int[], montos en double[], el estado como código de un byte
+// (en PedidoStore) y los textos como códigos de un diccionario compartido.
+//
+// Tiempos: la creación va en milisegundos (long) y el despacho o la cancelación, como milisegundos desde
+// la creación en un solo int ("cierre"). Los casos raros (un pedido cancelado después de despachado,
+// o cerrado más de 24 días después de creado) van a un mapa aparte.
+public class ColumnarPedidoStore extends PedidoStore {
+
+    private int[] ids;
+    private double[] montos;
+
+    // Códigos en el diccionario de textos
+    private int[] clientes;
+    private int[] descripciones;
+    private int[] canales;
+
+    // Momento de creación en milisegundos desde 1970 (SIN_TIEMPO = null)
+    private long[] creados;
+
+    // Milisegundos desde la creación + 1 hasta el despacho (positivo) o la cancelación (negativo);
+    // SIN_TIEMPO = ninguno, EN_MAPA = ver "tiemposAparte"
+    private int[] cierres;
+
+    // Casilla -> {despachadoEn, canceladoEn} en milisegundos, para lo que no entra en "cierres"
+    private final Map<Integer, long[]> tiemposAparte = new HashMap<>();
+
+    private static final int SIN_TIEMPO = 0;
+    private static final int EN_MAPA = Integer.MIN_VALUE;
+
+    private final StringDictionary textos = new StringDictionary();
+
+    public ColumnarPedidoStore() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public ColumnarPedidoStore(int capacidadInicial) {
+        // Los ids del servicio salen de un contador: alcanza con un índice directo de 4 bytes por id
+        super(capacidadInicial, new DenseIntIndex());
+        int capacidad = Math.max(capacidadInicial, 1);
+        ids = new int[capacidad];
+        montos = new double[capacidad];
+        clientes = new int[capacidad];
+        descripciones = new int[capacidad];
+        canales = new int[capacidad];
+        creados = new long[capacidad];
+        cierres = new int[capacidad];
+    }
+
+    @Override
+    int capacidad() {
+        return ids.length;
+    }
+
+    @Override
+    void crecer(int nuevaCapacidad) {
+        ids = Arrays.copyOf(ids, nuevaCapacidad);
+        montos = Arrays.copyOf(montos, nuevaCapacidad);
+        clientes = Arrays.copyOf(clientes, nuevaCapacidad);
+        descripciones = Arrays.copyOf(descripciones, nuevaCapacidad);
+        canales = Arrays.copyOf(canales, nuevaCapacidad);
+        creados = Arrays.copyOf(creados, nuevaCapacidad);
+        cierres = Arrays.copyOf(cierres, nuevaCapacidad);
+    }
+
+    @Override
+    void guardar(int casilla, Pedido pedido) {
+        ids[casilla] = pedido.getId();
+        montos[casilla] = pedido.getMonto();
+        clientes[casilla] = textos.codificar(pedido.getNombreCliente());
+        descripciones[casilla] = textos.codificar(pedido.getDescripcion());
+        canales[casilla] = textos.codificar(pedido.getCanal());
+        creados[casilla] = milis(pedido.getCreadoEn());
+        guardarCierre(casilla, pedido.getDespachadoEn(), pedido.getCanceladoEn());
+    }
+
+    @Override
+    void soltar(int casilla) {
+        // Un monto en 0 no cambia la suma de la columna
+        montos[casilla] = 0.0;
+        // Los textos que solo usaba este pedido salen del diccionario
+        textos.soltar(clientes[casilla]);
+        textos.soltar(descripciones[casilla]);
+        textos.soltar(canales[casilla]);
+        if (cierres[casilla] == EN_MAPA) {
+            tiemposAparte.remove(casilla);
+        }
+        cierres[casilla] = SIN_TIEMPO;
+    }
+
+    @Override
+    Pedido leer(int casilla) {
+        Pedido p = new Pedido(ids[casilla], textos.texto(clientes[casilla]), textos.texto(descripciones[casilla]),
+                montos[casilla], EstadoPedido.deCodigo(estado[casilla]).name());
+        p.setCanal(textos.texto(canales[casilla]));
+        p.setCreadoEn(instante(creados[casilla]));
+        int cierre = cierres[casilla];
+        if (cierre == EN_MAPA) {
+            long[] tiempos = tiemposAparte.get(casilla);
+            p.setDespachadoEn(instante(tiempos[0]));
+            p.setCanceladoEn(instante(tiempos[1]));
+        } else if (cierre > 0) {
+            p.setDespachadoEn(Instant.ofEpochMilli(creados[casilla] + cierre - 1));
+        } else if (cierre < 0) {
+            p.setCanceladoEn(Instant.ofEpochMilli(creados[casilla] - cierre - 1));
+        }
+        return p;
+    }
+
+    @Override
+    int idEn(int casilla) {
+        return ids[casilla];
+    }
+
+    @Override
+    String clienteEn(int casilla) {
+        return textos.texto(clientes[casilla]);
+    }
+
+    @Override
+    void alCambiarEstado(int casilla, EstadoPedido nuevo) {
+        // El estado solo vive en la columna de códigos
+    }
+
+    @Override
+    void marcarTiempos(int casilla, Instant despachadoEn, Instant canceladoEn) {
+        guardarCierre(casilla, despachadoEn, canceladoEn);
+    }
+
+    private void guardarCierre(int casilla, Instant despachadoEn, Instant canceladoEn) {
+        if (cierres[casilla] == EN_MAPA) {
+            tiemposAparte.remove(casilla);
+        }
+        if (despachadoEn == null && canceladoEn == null) {
+            cierres[casilla] = SIN_TIEMPO;
+            return;
+        }
+        // Diferencia + 1: un cierre en el mismo milisegundo de la creación no se confunde con SIN_TIEMPO
+        long diferencia = creados[casilla] == SIN_TIEMPO || (despachadoEn != null && canceladoEn != null) ? -1
+                : (despachadoEn != null ? despachadoEn : canceladoEn).toEpochMilli() - creados[casilla] + 1;
+        if (diferencia > 0 && diferencia < Integer.MAX_VALUE) {
+            cierres[casilla] = despachadoEn != null ? (int) diferencia : (int) -diferencia;
+        } else {
+            cierres[casilla] = EN_MAPA;
+            tiemposAparte.put(casilla, new long[]{milis(despachadoEn), milis(canceladoEn)});
+        }
+    }
+
+    private static long milis(Instant instante) {
+        return instante == null ? 0 : instante.toEpochMilli();
+    }
+
+    private static Instant instante(long milis) {
+        return milis == 0 ? null : Instant.ofEpochMilli(milis);
+    }
+
+    // Suma la columna de montos en paralelo, sin armar ningún Pedido
+    @Override
+    double sumarMontosEnMemoria() {
+        return ForkJoinPool.commonPool().invoke(new TotalMontoTask(montos, 0, usadas)).total();
+    }
+}
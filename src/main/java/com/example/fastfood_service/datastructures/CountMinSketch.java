@@ -0,0 +1,49 @@
+package com.example.fastfood_service.datastructures;
+
+// Count-Min sketch: frecuencia aproximada de muchísimas claves en memoria fija (ancho x profundidad)
+// Cada clave suma en una celda por fila (una función hash por fila); la estimación es el mínimo
+// de sus celdas. Con conteos que nunca quedan negativos, la estimación nunca es menor que el
+// valor real y se pasa como mucho en (e / ancho) * total, con probabilidad 1 - e^-profundidad.
+// Acepta restas (cancelaciones), por eso sirve aunque los pedidos se anulen.
+//
+// No es seguro entre hilos: SpaceSavingSketch lo usa bajo su propio candado.
+public class CountMinSketch {
+
+    private final long[][] celdas;
+    private final int ancho;
+
+    public CountMinSketch(int ancho, int profundidad) {
+        if (ancho < 1 || profundidad < 1) {
+            throw new IllegalArgumentException("ancho y profundidad deben ser mayores a 0");
+        }
+        this.ancho = ancho;
+        this.celdas = new long[profundidad][ancho];
+    }
+
+    // Suma "delta" a la clave y devuelve su nueva estimación
+    public long sumar(String clave, long delta) {
+        long h = mezclar(clave.hashCode());
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        long estimacion = Long.MAX_VALUE;
+        for (int fila = 0; fila < celdas.length; fila++) {
+            // Doble hashing: la fila i usa h1 + i * h2 (equivale a funciones hash independientes)
+            int columna = Math.floorMod(h1 + fila * h2, ancho);
+            celdas[fila][columna] += delta;
+            estimacion = Math.min(estimacion, celdas[fila][columna]);
+        }
+        return estimacion;
+    }
+
+    public long estimar(String clave) {
+        return sumar(clave, 0);
+    }
+
+    // Finalizador de MurmurHash3: reparte bien hashCodes parecidos
+    private static long mezclar(int hash) {
+        long z = hash * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
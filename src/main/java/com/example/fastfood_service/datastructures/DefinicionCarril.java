@@ -0,0 +1,18 @@
+package com.example.fastfood_service.datastructures;
+
+// Un carril de la cola de despacho: su nombre (el "canal" del pedido), su peso en el reparto
+// de turnos y el orden en que salen sus pedidos
+public record DefinicionCarril(String nombre, int peso, OrdenCarril orden) {
+
+    public DefinicionCarril {
+        if (nombre == null || nombre.isBlank()) {
+            throw new IllegalArgumentException("El carril necesita un nombre");
+        }
+        if (peso < 1 || peso > 1000) {
+            throw new IllegalArgumentException("El peso del carril " + nombre + " debe estar entre 1 y 1000");
+        }
+        if (orden == null) {
+            orden = OrdenCarril.FIFO;
+        }
+    }
+}
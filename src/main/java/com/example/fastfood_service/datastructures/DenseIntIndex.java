@@ -0,0 +1,71 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.Arrays;
+
+// Índice id -> casilla por direccionamiento directo, en páginas
+// Los ids salen de un contador, así que son casi consecutivos: en lugar de una tabla hash
+// (dos int por entrada y la mitad vacía) basta un int por id, en páginas que se crean al usarlas.
+// Cuesta unos 4 bytes por id contra 16 a 32 de IntIndexMap; no conviene si los ids están muy dispersos.
+// Una página se libera cuando se quitan todos sus ids (por ejemplo, cuando se archivaron): el índice
+// ocupa lo que los pedidos en memoria más una referencia por página de ids pasados.
+class DenseIntIndex implements IndiceIds {
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA = TAMANO_PAGINA - 1;
+
+    // Se guarda valor + 1 para que 0 signifique "sin valor"
+    private int[][] paginas = new int[16][];
+
+    // Valores guardados en cada página
+    private int[] ocupadas = new int[16];
+
+    @Override
+    public int get(int clave) {
+        int pagina = clave >>> BITS_PAGINA;
+        if (clave < 0 || pagina >= paginas.length) {
+            return NO_ENCONTRADO;
+        }
+        // La página se lee una sola vez: remove puede soltarla
+        int[] valores = paginas[pagina];
+        return valores == null ? NO_ENCONTRADO : valores[clave & MASCARA] - 1;
+    }
+
+    @Override
+    public int put(int clave, int valor) {
+        if (clave < 0) {
+            throw new IllegalArgumentException("id debe ser mayor o igual a 0");
+        }
+        if (valor < 0) {
+            throw new IllegalArgumentException("valor debe ser mayor o igual a 0");
+        }
+        int pagina = clave >>> BITS_PAGINA;
+        if (pagina >= paginas.length) {
+            int nuevoLargo = Math.max(paginas.length * 2, pagina + 1);
+            paginas = Arrays.copyOf(paginas, nuevoLargo);
+            ocupadas = Arrays.copyOf(ocupadas, nuevoLargo);
+        }
+        if (paginas[pagina] == null) {
+            paginas[pagina] = new int[TAMANO_PAGINA];
+        }
+        int anterior = paginas[pagina][clave & MASCARA] - 1;
+        paginas[pagina][clave & MASCARA] = valor + 1;
+        if (anterior == NO_ENCONTRADO) {
+            ocupadas[pagina]++;
+        }
+        return anterior;
+    }
+
+    @Override
+    public int remove(int clave) {
+        int anterior = get(clave);
+        if (anterior != NO_ENCONTRADO) {
+            int pagina = clave >>> BITS_PAGINA;
+            paginas[pagina][clave & MASCARA] = 0;
+            if (--ocupadas[pagina] == 0) {
+                paginas[pagina] = null;
+            }
+        }
+        return anterior;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.fastfood_service.datastructures;
+
+// Histograma log-lineal de valores enteros no negativos (milisegundos) en memoria fija
+//
+// Los valores menores a 16 tienen un balde cada uno; de ahí en más cada potencia de dos se parte en
+// 16 baldes del mismo ancho. Tomando el centro del balde, un percentil se equivoca como mucho en 1/32
+// (~3%) del valor real, sea de milisegundos o de horas. Los valores de 2^32 ms (~50 días) o más caen
+// en el último balde.
+//
+// Dos histogramas se suman balde a balde, así que el de varias particiones o varios minutos es
+// exactamente el que se habría armado con todos los valores juntos.
+//
+// No es seguro entre hilos: VentanaTemporal guarda sus baldes en arreglos atómicos y arma uno de
+// estos solo al leer (las métricas de despacho usan los mismos baldes, también atómicos).
+public class HistogramaLogLineal {
+
+    // Bits de sub-balde por potencia de dos (16 baldes)
+    private static final int BITS_SUB_BALDE = 4;
+    private static final int SUB_BALDES = 1 << BITS_SUB_BALDE;
+
+    // Mayor valor con balde propio
+    private static final long VALOR_MAXIMO = (1L << 32) - 1;
+
+    // Cantidad de baldes: los 16 exactos y 16 por cada potencia de dos desde 2^4 hasta 2^31
+    public static final int BALDES = balde(VALOR_MAXIMO) + 1;
+
+    private final long[] conteos = new long[BALDES];
+    private long cantidad;
+
+    // Balde de un valor en O(1) (los negativos cuentan como 0)
+    public static int balde(long valor) {
+        if (valor < SUB_BALDES) {
+            return (int) Math.max(valor, 0);
+        }
+        long v = Math.min(valor, VALOR_MAXIMO);
+        int exponente = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exponente - BITS_SUB_BALDE)) & (SUB_BALDES - 1);
+        return (exponente - BITS_SUB_BALDE + 1) * SUB_BALDES + sub;
+    }
+
+    // Menor valor que cae en el balde
+    static long inicioBalde(int balde) {
+        if (balde < SUB_BALDES) {
+            return balde;
+        }
+        int exponente = balde / SUB_BALDES + BITS_SUB_BALDE - 1;
+        return (long) (SUB_BALDES + balde % SUB_BALDES) << (exponente - BITS_SUB_BALDE);
+    }
+
+    // Valor que representa al balde: su centro
+    static long centroBalde(int balde) {
+        if (balde < SUB_BALDES) {
+            return balde;
+        }
+        int exponente = balde / SUB_BALDES + BITS_SUB_BALDE - 1;
+        long ancho = 1L << (exponente - BITS_SUB_BALDE);
+        return inicioBalde(balde) + (ancho - 1) / 2;
+    }
+
+    public void agregar(long valor) {
+        agregarEnBalde(balde(valor), 1);
+    }
+
+    // Suma "conteo" valores de una vez al balde (se usa al copiar baldes de otra estructura)
+    public void agregarEnBalde(int balde, long conteo) {
+        conteos[balde] += conteo;
+        cantidad += conteo;
+    }
+
+    // Suma los valores del otro histograma a este
+    public void sumar(HistogramaLogLineal otro) {
+        for (int i = 0; i < BALDES; i++) {
+            conteos[i] += otro.conteos[i];
+        }
+        cantidad += otro.cantidad;
+    }
+
+    public long cantidad() {
+        return cantidad;
+    }
+
+    // Valor aproximado del percentil "p" (entre 0 y 100); 0 si el histograma está vacío
+    public long percentil(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("p debe estar entre 0 y 100");
+        }
+        if (cantidad == 0) {
+            return 0;
+        }
+        // Posición (desde 1) del valor buscado si estuvieran ordenados
+        long posicion = Math.max(1, (long) Math.ceil(p / 100.0 * cantidad));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= posicion) {
+                return centroBalde(i);
+            }
+        }
+        return centroBalde(BALDES - 1);
+    }
+}
@@ -1,46 +1,138 @@
 package com.example.fastfood_service.datastructures;
 import com.example.fastfood_service.model.HistorialOperacion;
 
+// Pila de historial con capacidad fija sobre un arreglo circular (ring buffer)
+// - push, pop y peek son O(1) y no crean nodos
+// - cuando la pila está llena, apilar sobrescribe la operación MÁS ANTIGUA, así la memoria
+//   no crece con el tiempo que lleva encendido el servicio
+// - las operaciones toman el monitor de la pila solo para mover índices (secciones muy cortas)
 public class HistorialStack {
 
+    public static final int CAPACIDAD_POR_DEFECTO = 10_000;
 
-    private static class Node {
-        HistorialOperacion data;
-        Node next;
+    private final HistorialOperacion[] buffer;
 
-        Node(HistorialOperacion data) {
-            this.data = data;
-        }
+    // Índice donde se escribirá el próximo push (el tope está en tope - 1)
+    private int tope;
+
+    // Cantidad de operaciones guardadas (como máximo buffer.length)
+    private int size;
+
+    // Cuántas operaciones se descartaron por falta de espacio
+    private long descartadas;
+
+    public HistorialStack() {
+        this(CAPACIDAD_POR_DEFECTO);
     }
 
-    // Puntero al tope de la pila (última operación registrada)
-    private Node top;
+    public HistorialStack(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("capacidad debe ser mayor a 0");
+        }
+        buffer = new HistorialOperacion[capacidad];
+    }
 
     // Apilar (push): agrega una nueva operación en el tope de la pila
-    public void push(HistorialOperacion op) {
-        Node nuevo = new Node(op);
-        // El nuevo nodo apunta al que antes era el tope
-        nuevo.next = top;
-        // Ahora el nuevo nodo se convierte en el tope de la pila
-        top = nuevo;
+    public synchronized void push(HistorialOperacion op) {
+        buffer[tope] = op;
+        tope = siguiente(tope);
+        if (size < buffer.length) {
+            size++;
+        } else {
+            // Sobrescribimos la más antigua: ya no se podrá revertir
+            descartadas++;
+        }
+    }
+
+    // Apila varias operaciones en orden (la última queda en el tope) con una sola toma del monitor
+    public synchronized void pushTodas(HistorialOperacion[] ops) {
+        for (HistorialOperacion op : ops) {
+            push(op);
+        }
     }
 
     // Desapilar (pop): saca y devuelve la última operación de la pila
-    public HistorialOperacion pop() {
-        if (top == null) {
+    public synchronized HistorialOperacion pop() {
+        if (size == 0) {
             // Pila vacía, no hay nada que desapilar
             return null;
         }
-        // Guardamos la operación del nodo actual
-        HistorialOperacion op = top.data;
-        // Movemos el tope al siguiente nodo
-        top = top.next;
-        // Devolvemos la operación que estaba en el tope
+        tope = anterior(tope);
+        HistorialOperacion op = buffer[tope];
+        // Soltamos la referencia para que el GC pueda recolectarla
+        buffer[tope] = null;
+        size--;
         return op;
     }
 
+    // Consulta la última operación sin sacarla
+    public synchronized HistorialOperacion peek() {
+        return size == 0 ? null : buffer[anterior(tope)];
+    }
+
+    // Devuelve hasta n operaciones, de la más reciente a la más antigua, sin sacarlas
+    public synchronized HistorialOperacion[] recientes(int n) {
+        int cantidad = Math.max(0, Math.min(n, size));
+        HistorialOperacion[] ops = new HistorialOperacion[cantidad];
+        int i = tope;
+        for (int k = 0; k < cantidad; k++) {
+            i = anterior(i);
+            ops[k] = buffer[i];
+        }
+        return ops;
+    }
+
+    // Desapila solo si "op" sigue siendo la última operación
+    // Permite revisar el tope, bloquear el pedido afectado y luego confirmar que nadie apiló encima
+    public synchronized boolean popIfTop(HistorialOperacion op) {
+        if (size == 0 || buffer[anterior(tope)] != op) {
+            return false;
+        }
+        pop();
+        return true;
+    }
+
+    // Igual que popIfTop pero para varias operaciones (ops[0] es la más reciente):
+    // o se sacan todas juntas o ninguna
+    public synchronized boolean popIfTop(HistorialOperacion[] ops) {
+        if (ops.length > size) {
+            return false;
+        }
+        int i = tope;
+        for (HistorialOperacion op : ops) {
+            i = anterior(i);
+            if (buffer[i] != op) {
+                return false;
+            }
+        }
+        for (int k = 0; k < ops.length; k++) {
+            pop();
+        }
+        return true;
+    }
+
     // Indica si la pila está vacía
-    public boolean isEmpty() {
-        return top == null;
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacidad() {
+        return buffer.length;
+    }
+
+    public synchronized long descartadas() {
+        return descartadas;
+    }
+
+    private int siguiente(int i) {
+        return i + 1 == buffer.length ? 0 : i + 1;
+    }
+
+    private int anterior(int i) {
+        return i == 0 ? buffer.length - 1 : i - 1;
     }
 }
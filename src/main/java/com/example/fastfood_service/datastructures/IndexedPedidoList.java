@@ -0,0 +1,80 @@
+package com.example.fastfood_service.datastructures;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Lista de pedidos con índice por id
+// Mantiene los pedidos ordenados por id (el orden de creación) con add, findById y removeById en O(1)
+//
+// Guarda un objeto Pedido por casilla: findById devuelve el mismo objeto que se agregó
+// y los cambios de estado se ven en él. Casillas, enlaces e índices están en PedidoStore.
+public class IndexedPedidoList extends PedidoStore {
+
+    // Pedido almacenado en cada casilla (null si la casilla está libre)
+    private Pedido[] datos;
+
+    public IndexedPedidoList() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public IndexedPedidoList(int capacidadInicial) {
+        super(capacidadInicial, new IntIndexMap(Math.max(capacidadInicial, 1)));
+        datos = new Pedido[Math.max(capacidadInicial, 1)];
+    }
+
+    @Override
+    int capacidad() {
+        return datos.length;
+    }
+
+    @Override
+    void crecer(int nuevaCapacidad) {
+        datos = Arrays.copyOf(datos, nuevaCapacidad);
+    }
+
+    @Override
+    void guardar(int casilla, Pedido pedido) {
+        datos[casilla] = pedido;
+    }
+
+    @Override
+    void soltar(int casilla) {
+        // Soltamos la referencia para que el GC pueda recolectar el pedido
+        datos[casilla] = null;
+    }
+
+    @Override
+    Pedido leer(int casilla) {
+        return datos[casilla];
+    }
+
+    @Override
+    int idEn(int casilla) {
+        return datos[casilla].getId();
+    }
+
+    @Override
+    String clienteEn(int casilla) {
+        return datos[casilla].getNombreCliente();
+    }
+
+    @Override
+    void alCambiarEstado(int casilla, EstadoPedido nuevo) {
+        datos[casilla].setEstado(nuevo.name());
+    }
+
+    @Override
+    void marcarTiempos(int casilla, Instant despachadoEn, Instant canceladoEn) {
+        datos[casilla].setDespachadoEn(despachadoEn);
+        datos[casilla].setCanceladoEn(canceladoEn);
+    }
+
+    // Suma los montos de todos los pedidos en paralelo directamente sobre las casillas (sin copiar la lista)
+    @Override
+    double sumarMontosEnMemoria() {
+        return ForkJoinPool.commonPool().invoke(new TotalMontoTask(datos, 0, usadas)).total();
+    }
+}
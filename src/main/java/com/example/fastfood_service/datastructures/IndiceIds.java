@@ -0,0 +1,20 @@
+package com.example.fastfood_service.datastructures;
+
+// Índice id -> casilla que usa PedidoStore
+// Los valores son siempre >= 0; NO_ENCONTRADO indica que el id no está
+interface IndiceIds {
+
+    int NO_ENCONTRADO = -1;
+
+    int get(int clave);
+
+    // Devuelve el valor anterior o NO_ENCONTRADO
+    int put(int clave, int valor);
+
+    // Devuelve el valor que tenía o NO_ENCONTRADO
+    int remove(int clave);
+
+    default boolean containsKey(int clave) {
+        return get(clave) != NO_ENCONTRADO;
+    }
+}
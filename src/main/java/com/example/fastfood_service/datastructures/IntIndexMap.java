@@ -0,0 +1,163 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.Arrays;
+
+// Mapa hash de int -> int con direccionamiento abierto (sondeo lineal)
+// Se usa como índice por id: evita recorrer listas completas para encontrar un pedido
+public class IntIndexMap implements IndiceIds {
+
+    // Valor que se devuelve cuando la clave no existe
+    public static final int NO_ENCONTRADO = IndiceIds.NO_ENCONTRADO;
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    // Claves almacenadas en cada casilla
+    private int[] claves;
+
+    // Valores de cada casilla; se guarda valor + 1 para que 0 signifique "casilla vacía"
+    private int[] valores;
+
+    // Cantidad de claves almacenadas
+    private int size;
+
+    public IntIndexMap() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public IntIndexMap(int capacidadEsperada) {
+        int capacidad = CAPACIDAD_INICIAL;
+        // Mantenemos el factor de carga por debajo de 0.5 para que los sondeos sean cortos
+        while (capacidad < capacidadEsperada * 2) {
+            capacidad <<= 1;
+        }
+        claves = new int[capacidad];
+        valores = new int[capacidad];
+    }
+
+    // Mezcla los bits de la clave para repartir bien ids consecutivos
+    private static int hash(int clave) {
+        int h = clave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Busca el valor asociado a la clave, o NO_ENCONTRADO si no existe
+    @Override
+    public int get(int clave) {
+        int mask = claves.length - 1;
+        int i = hash(clave) & mask;
+        // Recorremos casillas consecutivas hasta encontrar la clave o una casilla vacía
+        while (valores[i] != 0) {
+            if (claves[i] == clave) {
+                return valores[i] - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_ENCONTRADO;
+    }
+
+    @Override
+    public boolean containsKey(int clave) {
+        return get(clave) != NO_ENCONTRADO;
+    }
+
+    // Asocia la clave con el valor (valor >= 0); devuelve el valor anterior o NO_ENCONTRADO
+    @Override
+    public int put(int clave, int valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("valor debe ser mayor o igual a 0");
+        }
+        // Si se supera el factor de carga, duplicamos la tabla antes de insertar
+        if ((size + 1) * 2 > claves.length) {
+            redimensionar(claves.length << 1);
+        }
+        int mask = claves.length - 1;
+        int i = hash(clave) & mask;
+        while (valores[i] != 0) {
+            if (claves[i] == clave) {
+                int anterior = valores[i] - 1;
+                valores[i] = valor + 1;
+                return anterior;
+            }
+            i = (i + 1) & mask;
+        }
+        claves[i] = clave;
+        valores[i] = valor + 1;
+        size++;
+        return NO_ENCONTRADO;
+    }
+
+    // Elimina la clave; devuelve su valor o NO_ENCONTRADO si no existía
+    @Override
+    public int remove(int clave) {
+        int mask = claves.length - 1;
+        int i = hash(clave) & mask;
+        while (valores[i] != 0) {
+            if (claves[i] == clave) {
+                int anterior = valores[i] - 1;
+                borrarCasilla(i);
+                size--;
+                return anterior;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_ENCONTRADO;
+    }
+
+    // Borrado con corrimiento hacia atrás: en lugar de dejar "lápidas",
+    // movemos las claves siguientes del mismo grupo para que las búsquedas no se corten
+    private void borrarCasilla(int hueco) {
+        int mask = claves.length - 1;
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mask;
+            if (valores[i] == 0) {
+                break;
+            }
+            int ideal = hash(claves[i]) & mask;
+            // La clave en "i" puede ocupar el hueco si su posición ideal no está entre (hueco, i]
+            boolean puedeMoverse = hueco <= i
+                    ? (ideal <= hueco || ideal > i)
+                    : (ideal <= hueco && ideal > i);
+            if (puedeMoverse) {
+                claves[hueco] = claves[i];
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        claves[hueco] = 0;
+        valores[hueco] = 0;
+    }
+
+    private void redimensionar(int nuevaCapacidad) {
+        int[] viejasClaves = claves;
+        int[] viejosValores = valores;
+        claves = new int[nuevaCapacidad];
+        valores = new int[nuevaCapacidad];
+        int mask = nuevaCapacidad - 1;
+        // Reinsertamos cada clave en su nueva posición
+        for (int j = 0; j < viejasClaves.length; j++) {
+            if (viejosValores[j] != 0) {
+                int i = hash(viejasClaves[j]) & mask;
+                while (valores[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                claves[i] = viejasClaves[j];
+                valores[i] = viejosValores[j];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(claves, 0);
+        Arrays.fill(valores, 0);
+        size = 0;
+    }
+}
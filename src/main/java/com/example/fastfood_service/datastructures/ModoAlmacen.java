@@ -0,0 +1,10 @@
+package com.example.fastfood_service.datastructures;
+
+// Cómo se guardan los pedidos en memoria
+// - OBJETOS: un objeto Pedido por pedido (IndexedPedidoList)
+// - COLUMNAR: columnas de primitivos y textos en diccionario (ColumnarPedidoStore);
+//   ocupa varias veces menos memoria por pedido, a cambio de armar los Pedido al leerlos
+public enum ModoAlmacen {
+    OBJETOS,
+    COLUMNAR
+}
@@ -0,0 +1,33 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.Pedido;
+
+// Nodo de PedidoQueue: es a la vez el elemento del carril y el "asa" que guarda el índice por id
+// Quitar un pedido de la cola es anular "data" con CAS; el carril lo descarta después
+final class NodoCola {
+
+    volatile Pedido data;
+    volatile NodoCola next;
+
+    // Claves de orden copiadas al crear el nodo (el pedido puede anularse mientras está en un montículo)
+    final int id;
+    final double monto;
+
+    // Carril donde quedó el nodo (null: pila de devueltos al frente)
+    final Carril carril;
+
+    // Posición en el montículo del carril (-1 si no está en uno); solo se toca con el monitor del carril
+    int posicion = -1;
+
+    NodoCola(Pedido data, Carril carril) {
+        this.data = data;
+        this.carril = carril;
+        if (data == null) {
+            this.id = 0;
+            this.monto = 0.0;
+        } else {
+            this.id = data.getId();
+            this.monto = data.getMonto();
+        }
+    }
+}
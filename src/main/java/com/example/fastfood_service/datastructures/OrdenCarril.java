@@ -0,0 +1,11 @@
+package com.example.fastfood_service.datastructures;
+
+// Orden en que salen los pedidos de un carril de la cola
+// - FIFO: por orden de llegada al carril (cola sin candados)
+// - MONTO: primero el de mayor monto (montículo)
+// - ANTIGUEDAD: primero el pedido más antiguo, aunque haya vuelto a la cola después (montículo por id)
+public enum OrdenCarril {
+    FIFO,
+    MONTO,
+    ANTIGUEDAD
+}
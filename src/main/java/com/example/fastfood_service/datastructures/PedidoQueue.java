@@ -1,97 +1,268 @@
 package com.example.fastfood_service.datastructures;
 import com.example.fastfood_service.model.Pedido;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cola de despacho de pedidos pendientes, segura para varios productores y consumidores
+//
+// - Los pedidos se reparten en carriles según su canal (por ejemplo EXPRESS, DELIVERY, MOSTRADOR).
+//   Cada carril es FIFO sin candados o un montículo por monto/antigüedad (ver OrdenCarril)
+// - dequeue reparte los turnos entre carriles según su peso (round-robin ponderado "suave"):
+//   con pesos 3/2/1 salen 3 EXPRESS, 2 DELIVERY y 1 MOSTRADOR cada 6 turnos, intercalados.
+//   Si al carril le toca el turno pero está vacío, el turno pasa al siguiente
+// - enqueueFront apila en una pila de Treiber que se atiende antes que cualquier carril
+// - removeById es O(1) (O(log n) en carriles con montículo): el índice id -> nodo encuentra el nodo,
+//   se "reclama" su pedido con CAS y el carril lo suelta
 public class PedidoQueue {
 
+    // Carril que se usa si no se configura ninguno
+    public static final String CARRIL_POR_DEFECTO = "MOSTRADOR";
+
+    // Como máximo 64 carriles: los probados en un dequeue se marcan en un long
+    private static final int MAXIMO_CARRILES = 64;
 
-    private static class Node {
-        Pedido data;
-        Node next;
+    private static final VarHandle DATA;
+    private static final VarHandle TOP;
 
-        Node(Pedido data) {
-            this.data = data;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            DATA = lookup.findVarHandle(NodoCola.class, "data", Pedido.class);
+            TOP = lookup.findVarHandle(PedidoQueue.class, "top", NodoCola.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
         }
     }
 
-    // Puntero al primer elemento de la cola (el siguiente en salir)
-    private Node front;
+    // Carriles en el orden en que se configuraron (el primero recibe los pedidos sin canal)
+    private final Carril[] carriles;
 
-    // Puntero al último elemento de la cola (el último que entró)
-    private Node rear;
+    // Nombre del canal -> carril
+    private final Map<String, Carril> carrilPorNombre = new HashMap<>();
 
-    // Encolar al final: agrega un pedido al final de la cola (comportamiento FIFO normal)
-    public void enqueue(Pedido pedido) {
-        Node nuevo = new Node(pedido);
-        if (rear == null) {
-            // Si la cola está vacía, front y rear apuntan al mismo nodo
-            front = rear = nuevo;
-        } else {
-            // La cola ya tiene elementos, se enlaza al final
-            rear.next = nuevo;
-            rear = nuevo;
+    // Secuencia de turnos ponderada (largo = suma de pesos) y el próximo turno
+    private final int[] turnos;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    // Tope de la pila de pedidos devueltos al frente (rollback de DESPACHAR)
+    private volatile NodoCola top;
+
+    // Nodo actual de cada pedido encolado, para poder quitarlo sin recorrer la cola
+    private final ConcurrentHashMap<Integer, NodoCola> nodosPorId = new ConcurrentHashMap<>();
+
+    // Cantidad de pedidos vivos en la cola
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Un solo carril FIFO (comportamiento de cola simple)
+    public PedidoQueue() {
+        this(List.of(new DefinicionCarril(CARRIL_POR_DEFECTO, 1, OrdenCarril.FIFO)));
+    }
+
+    public PedidoQueue(List<DefinicionCarril> definiciones) {
+        if (definiciones.isEmpty() || definiciones.size() > MAXIMO_CARRILES) {
+            throw new IllegalArgumentException("La cola necesita entre 1 y " + MAXIMO_CARRILES + " carriles");
         }
+        carriles = new Carril[definiciones.size()];
+        for (int i = 0; i < carriles.length; i++) {
+            carriles[i] = Carril.crear(definiciones.get(i));
+            if (carrilPorNombre.put(carriles[i].nombre, carriles[i]) != null) {
+                throw new IllegalArgumentException("Carril repetido: " + carriles[i].nombre);
+            }
+        }
+        turnos = secuenciaPonderada(carriles);
+    }
+
+    // Nombres de los carriles, en orden de configuración
+    public List<String> carriles() {
+        List<String> nombres = new ArrayList<>(carriles.length);
+        for (Carril c : carriles) {
+            nombres.add(c.nombre);
+        }
+        return Collections.unmodifiableList(nombres);
+    }
+
+    public boolean tieneCarril(String canal) {
+        return carrilPorNombre.containsKey(canal);
     }
 
-    // Desencolar: saca y devuelve el pedido que está al frente de la cola
+    // Carril que recibe los pedidos sin canal (o con un canal que ya no existe)
+    public String carrilPorDefecto() {
+        return carriles[0].nombre;
+    }
+
+    // Encolar al final del carril que corresponde al canal del pedido
+    public void enqueue(Pedido pedido) {
+        Carril carril = carrilPorNombre.getOrDefault(pedido.getCanal(), carriles[0]);
+        carril.agregar(registrar(pedido, carril));
+    }
+
+    // Desencolar: saca el próximo pedido según los turnos de los carriles (null si la cola está vacía)
     public Pedido dequeue() {
-        if (front == null) {
-            // Cola vacía
-            return null;
-        }
-        // Guardamos el pedido del nodo de adelante
-        Pedido p = front.data;
-        // Avanzamos el puntero front al siguiente nodo
-        front = front.next;
-        // Si después de avanzar ya no hay nodos, también actualizamos rear
-        if (front == null) {
-            rear = null;
+        // Primero se atienden los pedidos devueltos al frente
+        Pedido p = sacarDelFrente();
+        if (p != null) {
+            return p;
         }
-        return p;
+        int inicio = Math.floorMod(turno.getAndIncrement(), turnos.length);
+        long probados = 0;
+        for (int k = 0; k < turnos.length; k++) {
+            int i = turnos[(inicio + k) % turnos.length];
+            if ((probados & (1L << i)) != 0) {
+                continue;
+            }
+            probados |= 1L << i;
+            // Los nodos anulados con removeById se descartan al salir
+            for (NodoCola nodo = carriles[i].sacar(); nodo != null; nodo = carriles[i].sacar()) {
+                p = reclamar(nodo);
+                if (p != null) {
+                    return p;
+                }
+            }
+        }
+        return null;
     }
 
     // Indica si la cola está vacía (no hay elementos)
     public boolean isEmpty() {
-        return front == null;
+        return size.get() == 0;
+    }
+
+    // Cantidad de pedidos en la cola
+    public int size() {
+        return size.get();
     }
 
     // Elimina un pedido de la cola buscando por id
     // Se usa al cancelar o al hacer rollback de una creación
-    public void removeById(int id) {
-        Node actual = front;
-        Node anterior = null;
-
-        while (actual != null) {
-            if (actual.data.getId() == id) {
-                // Caso: el nodo a eliminar es el primero
-                if (anterior == null) {
-                    front = actual.next;
-                } else {
-                    // Saltamos el nodo actual
-                    anterior.next = actual.next;
-                }
-                // Si el nodo eliminado era el último, actualizamos rear
-                if (actual == rear) {
-                    rear = anterior;
-                }
-                return;
+    public boolean removeById(int id) {
+        NodoCola nodo = nodosPorId.remove(id);
+        if (nodo == null) {
+            return false;
+        }
+        if (DATA.getAndSet(nodo, (Pedido) null) == null) {
+            // Otro hilo lo desencoló primero
+            return false;
+        }
+        size.decrementAndGet();
+        descartar(nodo);
+        return true;
+    }
+
+    // Ids de los pedidos devueltos al frente, del próximo en salir al último
+    // Junto con idsEnCarriles describe el orden de la cola (para las instantáneas del estado)
+    public int[] idsAlFrente() {
+        List<Integer> ids = new ArrayList<>();
+        for (NodoCola nodo = top; nodo != null; nodo = nodo.next) {
+            agregarSiVivo(nodo, ids);
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Ids de los pedidos en los carriles, carril por carril y en el orden de cada uno
+    // Volver a encolarlos en este orden (con enqueue) deja cada carril como estaba
+    public int[] idsEnCarriles() {
+        List<Integer> ids = new ArrayList<>();
+        for (Carril carril : carriles) {
+            for (NodoCola nodo : carril.nodos()) {
+                agregarSiVivo(nodo, ids);
             }
-            // Avanzamos en la lista
-            anterior = actual;
-            actual = actual.next;
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void agregarSiVivo(NodoCola nodo, List<Integer> ids) {
+        Pedido p = nodo.data;
+        if (p != null) {
+            ids.add(p.getId());
         }
     }
 
-    // Encolar al frente: agrega un pedido al inicio de la cola
-    // Se usa en el rollback de DESPACHAR para que el pedido vuelva a estar primero en la fila
+    // Encolar al frente: agrega un pedido antes que todos los carriles
+    // Se usa en el rollback de DESPACHAR para que el pedido vuelva a ser el próximo en salir
     public void enqueueFront(Pedido pedido) {
-        Node nuevo = new Node(pedido);
-        if (front == null) {
-            // Cola vacía: front y rear apuntan al mismo nodo
-            front = rear = nuevo;
-        } else {
-            // Insertamos el nuevo nodo antes del actual front
-            nuevo.next = front;
-            front = nuevo;
+        NodoCola nuevo = registrar(pedido, null);
+        while (true) {
+            NodoCola tope = top;
+            nuevo.next = tope;
+            if (TOP.compareAndSet(this, tope, nuevo)) {
+                return;
+            }
+        }
+    }
+
+    // Saca el primer pedido vivo de la pila de devueltos al frente
+    private Pedido sacarDelFrente() {
+        while (true) {
+            NodoCola tope = top;
+            if (tope == null) {
+                return null;
+            }
+            if (TOP.compareAndSet(this, tope, tope.next)) {
+                Pedido p = reclamar(tope);
+                if (p != null) {
+                    return p;
+                }
+            }
+        }
+    }
+
+    // Crea el nodo del pedido y lo registra en el índice por id
+    private NodoCola registrar(Pedido pedido, Carril carril) {
+        NodoCola nuevo = new NodoCola(pedido, carril);
+        NodoCola anterior = nodosPorId.put(pedido.getId(), nuevo);
+        if (anterior != null && DATA.getAndSet(anterior, (Pedido) null) != null) {
+            // El mismo pedido no puede quedar dos veces en la cola
+            size.decrementAndGet();
+            descartar(anterior);
+        }
+        size.incrementAndGet();
+        return nuevo;
+    }
+
+    // Toma el pedido del nodo si nadie lo quitó antes
+    private Pedido reclamar(NodoCola nodo) {
+        Pedido p = (Pedido) DATA.getAndSet(nodo, (Pedido) null);
+        if (p != null) {
+            nodosPorId.remove(p.getId(), nodo);
+            size.decrementAndGet();
+        }
+        return p;
+    }
+
+    private static void descartar(NodoCola nodo) {
+        if (nodo.carril != null) {
+            nodo.carril.descartar(nodo);
+        }
+    }
+
+    // Round-robin ponderado "suave": en cada turno gana el carril con más crédito acumulado
+    // y paga la suma de los pesos, así los carriles quedan intercalados y no en ráfagas
+    private static int[] secuenciaPonderada(Carril[] carriles) {
+        int total = 0;
+        for (Carril c : carriles) {
+            total += c.peso;
+        }
+        int[] secuencia = new int[total];
+        int[] credito = new int[carriles.length];
+        for (int k = 0; k < total; k++) {
+            int elegido = 0;
+            for (int i = 0; i < carriles.length; i++) {
+                credito[i] += carriles[i].peso;
+                if (credito[i] > credito[elegido]) {
+                    elegido = i;
+                }
+            }
+            credito[elegido] -= total;
+            secuencia[k] = elegido;
         }
+        return secuencia;
     }
 }
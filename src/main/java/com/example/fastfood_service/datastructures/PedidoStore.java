@@ -0,0 +1,981 @@
+package com.example.fastfood_service.datastructures;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Almacén de pedidos con índice por id, ordenados por id (el orden de creación)
+// add, findById y removeById cuestan O(1)
+//
+// Los nodos no son objetos: cada pedido ocupa una "casilla" en arreglos paralelos
+// y los enlaces anterior/siguiente son índices de casilla. Las casillas liberadas se reutilizan.
+//
+// Cada casilla está además en dos índices secundarios "intrusivos" (sus enlaces viven en
+// arreglos paralelos, sin nodos extra):
+// - una cadena por estado, en el orden en que los pedidos entraron a ese estado
+// - una cadena por cliente (mapa nombre -> cadena), ordenada por id
+// Así "todos los REGISTRADO" o "todos los pedidos de Ana" cuestan lo que mide el resultado.
+//
+// Las subclases deciden cómo se guardan los datos de cada casilla:
+// - IndexedPedidoList: un objeto Pedido por casilla
+// - ColumnarPedidoStore: columnas de primitivos; los Pedido se arman solo al leer
+//
+// Es segura entre hilos: las escrituras toman un candado exclusivo muy corto (O(1))
+// y las lecturas por id intentan primero una lectura optimista sin bloquear.
+//
+// Con el archivo en frío habilitado, archivar() saca del heap los pedidos DESPACHADO y CANCELADO
+// que terminaron hace rato y los pasa a segmentos mapeados en memoria (AlmacenFrio). Buscar, listar,
+// contar y sumar los siguen viendo igual; si un pedido archivado cambia de estado (rollback,
+// cancelación) vuelve a memoria en su lugar por id. Así el heap crece con los pedidos activos,
+// no con todos los que hubo.
+//
+// Para las instantáneas, nuevoCorte() da una foto de todos los pedidos que se recorre sin frenar
+// las escrituras (ver Corte).
+public abstract class PedidoStore {
+
+    // Marca de "sin casilla" para los enlaces
+    static final int NINGUNO = -1;
+
+    static final int CAPACIDAD_INICIAL = 16;
+
+    // Primera y última casilla de una cadena, y cuántas casillas tiene
+    private static final class Cadena {
+        int cabeza = NINGUNO;
+        int cola = NINGUNO;
+        int size;
+    }
+
+    // Enlace a la casilla siguiente por id (en casillas libres: siguiente libre)
+    private int[] siguiente;
+
+    // Enlace a la casilla anterior por id
+    private int[] anterior;
+
+    // Código de estado de cada casilla y enlaces de su cadena de estado
+    byte[] estado;
+    private int[] siguienteEstado;
+    private int[] anteriorEstado;
+
+    // Enlaces de la cadena del cliente de cada casilla
+    private int[] siguienteCliente;
+    private int[] anteriorCliente;
+
+    // Cadena con todos los pedidos, ordenada por id
+    private final Cadena todos = new Cadena();
+
+    // Una cadena por estado
+    private final Cadena[] porEstado = new Cadena[EstadoPedido.CODIGOS];
+
+    // Índice cliente -> cadena de sus pedidos (se borra la entrada cuando queda vacía)
+    private final Map<String, Cadena> porCliente = new HashMap<>();
+
+    // Pila de casillas libres (reutiliza el arreglo "siguiente")
+    private int libre = NINGUNO;
+
+    // Cantidad de casillas usadas alguna vez (las siguientes nunca se han tocado)
+    int usadas;
+
+    // Índice id -> casilla (cada subclase elige el suyo)
+    private final IndiceIds indice;
+
+    // Cantidad de elementos almacenados
+    private volatile int size;
+
+    // Candado del almacén (no del servicio): protege arreglos, enlaces e índices
+    final StampedLock lock = new StampedLock();
+
+    // Nivel frío (null si el archivo en frío no está habilitado)
+    private volatile AlmacenFrio frio;
+
+    // Una sola pasada de archivo a la vez
+    private final ReentrantLock archivando = new ReentrantLock();
+
+    // Pedidos que se mueven al nivel frío como máximo en cada pasada
+    private static final int MAXIMO_POR_PASADA = 1 << 20;
+
+    // Corte abierto para una instantánea (null si no hay); con el candado
+    private Corte corte;
+
+    // Pedidos que entrega un corte por cada toma del candado de lectura
+    private static final int PAGINA_CORTE = 1024;
+
+    PedidoStore(int capacidadInicial, IndiceIds indice) {
+        int capacidad = Math.max(capacidadInicial, 1);
+        siguiente = new int[capacidad];
+        anterior = new int[capacidad];
+        estado = new byte[capacidad];
+        siguienteEstado = new int[capacidad];
+        anteriorEstado = new int[capacidad];
+        siguienteCliente = new int[capacidad];
+        anteriorCliente = new int[capacidad];
+        for (int e = 0; e < porEstado.length; e++) {
+            porEstado[e] = new Cadena();
+        }
+        this.indice = indice;
+    }
+
+    public static PedidoStore crear(ModoAlmacen modo) {
+        return modo == ModoAlmacen.COLUMNAR ? new ColumnarPedidoStore() : new IndexedPedidoList();
+    }
+
+    // Lo que cada subclase guarda por casilla (siempre con el candado de escritura tomado,
+    // salvo leer/idEn/clienteEn que también se usan con candado de lectura u optimista)
+
+    // Capacidad actual de sus arreglos
+    abstract int capacidad();
+
+    // Copia sus arreglos a la nueva capacidad
+    abstract void crecer(int nuevaCapacidad);
+
+    abstract void guardar(int casilla, Pedido pedido);
+
+    // Suelta lo que guarda la casilla (para que el GC lo recolecte)
+    abstract void soltar(int casilla);
+
+    // El pedido de la casilla: el objeto guardado o uno recién armado
+    abstract Pedido leer(int casilla);
+
+    abstract int idEn(int casilla);
+
+    abstract String clienteEn(int casilla);
+
+    // Se cambió el estado de la casilla (ya enlazada en su nueva cadena)
+    abstract void alCambiarEstado(int casilla, EstadoPedido nuevo);
+
+    // Guarda los momentos de despacho y cancelación de la casilla (null = no pasó)
+    abstract void marcarTiempos(int casilla, Instant despachadoEn, Instant canceladoEn);
+
+    // Suma de los montos de los pedidos en memoria (con el candado de lectura tomado)
+    abstract double sumarMontosEnMemoria();
+
+    // Habilita el nivel frío con sus segmentos en el directorio (borra los que hubiera de antes)
+    public void habilitarArchivo(Path directorio) {
+        long stamp = lock.writeLock();
+        try {
+            if (frio != null) {
+                throw new IllegalStateException("El archivo en frío ya está habilitado");
+            }
+            frio = new AlmacenFrio(directorio);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Cuántos pedidos están en el nivel frío
+    public int archivados() {
+        AlmacenFrio almacen = frio;
+        return almacen == null ? 0 : almacen.size();
+    }
+
+    int segmentosFrios() {
+        AlmacenFrio almacen = frio;
+        return almacen == null ? 0 : almacen.cantidadSegmentos();
+    }
+
+    // Agregar un pedido en su lugar por id, casi siempre al final (no se permiten ids repetidos)
+    public void add(Pedido pedido) {
+        long stamp = lock.writeLock();
+        try {
+            agregar(pedido);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Agregar varios pedidos con una sola toma del candado (ingesta por lotes)
+    // Si algún id ya existe no se agrega ninguno
+    public void addTodos(List<Pedido> nuevos) {
+        long stamp = lock.writeLock();
+        try {
+            for (Pedido p : nuevos) {
+                if (existe(p.getId())) {
+                    throw new IllegalArgumentException("Ya existe un pedido con id " + p.getId());
+                }
+            }
+            for (Pedido p : nuevos) {
+                agregar(p);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void agregar(Pedido pedido) {
+        if (existe(pedido.getId())) {
+            throw new IllegalArgumentException("Ya existe un pedido con id " + pedido.getId());
+        }
+        if (corte != null) {
+            corte.alAgregar(pedido.getId());
+        }
+        byte codigo = EstadoPedido.desde(pedido.getEstado()).codigo();
+        int casilla = tomarCasilla();
+        guardar(casilla, pedido);
+        estado[casilla] = codigo;
+        // La cadena de todos y la de su cliente van ordenadas por id (las páginas con cursor y la mezcla
+        // con el nivel frío lo necesitan): el servicio toma el id antes que el candado, así que dos
+        // creaciones simultáneas pueden llegar con los ids invertidos. La de su estado, por llegada.
+        enlazarPorId(todos, siguiente, anterior, casilla, pedido.getId());
+        enlazar(porEstado[codigo], siguienteEstado, anteriorEstado, casilla);
+        enlazarPorId(porCliente.computeIfAbsent(pedido.getNombreCliente(), k -> new Cadena()),
+                siguienteCliente, anteriorCliente, casilla, pedido.getId());
+        indice.put(pedido.getId(), casilla);
+        size++;
+    }
+
+    // El id está en memoria o en el nivel frío (con algún candado tomado)
+    private boolean existe(int id) {
+        AlmacenFrio almacen = frio;
+        return indice.containsKey(id) || (almacen != null && almacen.contiene(id));
+    }
+
+    // Buscar un pedido por su id (null si no existe)
+    public Pedido findById(int id) {
+        // Lectura optimista: si ninguna escritura ocurrió mientras leíamos, el resultado es válido
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Pedido p = buscar(id);
+                if (lock.validate(stamp)) {
+                    return p;
+                }
+            } catch (RuntimeException e) {
+                // Leímos arreglos a medio modificar; se repite con candado de lectura
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return buscar(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Pedido buscar(int id) {
+        int casilla = indice.get(id);
+        if (casilla != IndiceIds.NO_ENCONTRADO) {
+            return leer(casilla);
+        }
+        AlmacenFrio almacen = frio;
+        return almacen == null ? null : almacen.buscar(id);
+    }
+
+    // Estado actual de un pedido sin armarlo (null si no existe)
+    public EstadoPedido estadoDe(int id) {
+        long stamp = lock.readLock();
+        try {
+            int casilla = indice.get(id);
+            if (casilla != IndiceIds.NO_ENCONTRADO) {
+                return EstadoPedido.deCodigo(estado[casilla]);
+            }
+            Pedido archivado = buscar(id);
+            return archivado == null ? null : EstadoPedido.desde(archivado.getEstado());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Eliminar un pedido por id
+    public boolean removeById(int id) {
+        long stamp = lock.writeLock();
+        try {
+            antesDeCambiar(id);
+            AlmacenFrio almacen = frio;
+            return eliminar(id) || (almacen != null && almacen.retirar(id) != null);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean eliminar(int id) {
+        int casilla = indice.remove(id);
+        if (casilla == IndiceIds.NO_ENCONTRADO) {
+            return false;
+        }
+        // Desenlazamos la casilla de todas sus cadenas
+        desenlazar(todos, siguiente, anterior, casilla);
+        desenlazar(porEstado[estado[casilla]], siguienteEstado, anteriorEstado, casilla);
+        String cliente = clienteEn(casilla);
+        Cadena delCliente = porCliente.get(cliente);
+        desenlazar(delCliente, siguienteCliente, anteriorCliente, casilla);
+        if (delCliente.size == 0) {
+            porCliente.remove(cliente);
+        }
+        liberarCasilla(casilla);
+        size--;
+        return true;
+    }
+
+    // Cambia el estado de un pedido guardado y lo mueve al final de la cadena de su nuevo estado
+    // Todo cambio de estado debe pasar por aquí para que el índice por estado no se desfase
+    // Devuelve false si el pedido no existe
+    public boolean cambiarEstado(int id, EstadoPedido nuevo) {
+        long stamp = lock.writeLock();
+        try {
+            antesDeCambiar(id);
+            int casilla = casillaParaCambiar(id);
+            if (casilla == IndiceIds.NO_ENCONTRADO) {
+                return false;
+            }
+            moverDeEstado(casilla, nuevo);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Igual, guardando además los momentos de despacho y cancelación que quedan después del cambio
+    public boolean cambiarEstado(int id, EstadoPedido nuevo, Instant despachadoEn, Instant canceladoEn) {
+        long stamp = lock.writeLock();
+        try {
+            antesDeCambiar(id);
+            int casilla = casillaParaCambiar(id);
+            if (casilla == IndiceIds.NO_ENCONTRADO) {
+                return false;
+            }
+            moverDeEstado(casilla, nuevo);
+            marcarTiempos(casilla, despachadoEn, canceladoEn);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Antes de cambiar o quitar un pedido (con el candado de escritura): si un corte abierto todavía
+    // no lo recorrió, le guarda cómo estaba
+    void antesDeCambiar(int id) {
+        if (corte != null) {
+            corte.antesDeCambiar(id);
+        }
+    }
+
+    // Casilla del pedido para cambiarlo; si está archivado lo trae de vuelta a memoria
+    // (con el candado de escritura tomado)
+    private int casillaParaCambiar(int id) {
+        int casilla = indice.get(id);
+        AlmacenFrio almacen = frio;
+        if (casilla != IndiceIds.NO_ENCONTRADO || almacen == null) {
+            return casilla;
+        }
+        Pedido archivado = almacen.retirar(id);
+        return archivado == null ? IndiceIds.NO_ENCONTRADO : insertarEnOrden(archivado);
+    }
+
+    // Agrega un pedido que vuelve del nivel frío: en la cadena de todos y en la de su cliente
+    // queda en su lugar por id, como cualquier otro; en la de su estado, al final
+    // Puede recorrer la cadena en memoria (O(pedidos activos)), pero solo pasa al revertir o cancelar un archivado
+    private int insertarEnOrden(Pedido pedido) {
+        byte codigo = EstadoPedido.desde(pedido.getEstado()).codigo();
+        int casilla = tomarCasilla();
+        guardar(casilla, pedido);
+        estado[casilla] = codigo;
+        enlazarPorId(todos, siguiente, anterior, casilla, pedido.getId());
+        enlazar(porEstado[codigo], siguienteEstado, anteriorEstado, casilla);
+        enlazarPorId(porCliente.computeIfAbsent(pedido.getNombreCliente(), k -> new Cadena()),
+                siguienteCliente, anteriorCliente, casilla, pedido.getId());
+        indice.put(pedido.getId(), casilla);
+        size++;
+        return casilla;
+    }
+
+    // Con el candado de escritura tomado
+    void moverDeEstado(int casilla, EstadoPedido nuevo) {
+        byte codigo = nuevo.codigo();
+        if (estado[casilla] != codigo) {
+            desenlazar(porEstado[estado[casilla]], siguienteEstado, anteriorEstado, casilla);
+            estado[casilla] = codigo;
+            enlazar(porEstado[codigo], siguienteEstado, anteriorEstado, casilla);
+        }
+        alCambiarEstado(casilla, nuevo);
+    }
+
+    // Casilla de un id, o NO_ENCONTRADO (con algún candado tomado)
+    int casillaDe(int id) {
+        return indice.get(id);
+    }
+
+    // Devuelve el número de pedidos guardados (en memoria y archivados)
+    public int size() {
+        return size + archivados();
+    }
+
+    // Cantidad de pedidos en un estado, en O(1) (más un contador por segmento frío)
+    public int contarPorEstado(EstadoPedido estadoBuscado) {
+        long stamp = lock.readLock();
+        try {
+            AlmacenFrio almacen = frio;
+            int frios = almacen == null ? 0 : almacen.contar(estadoBuscado);
+            return porEstado[estadoBuscado.codigo()].size + frios;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Convierte el almacén en un arreglo de pedidos (ordenados por id)
+    public Pedido[] toArray() {
+        long stamp = lock.readLock();
+        try {
+            Pedido[] arr = new Pedido[size];
+            int i = 0;
+            for (int c = todos.cabeza; c != NINGUNO; c = siguiente[c]) {
+                arr[i++] = leer(c);
+            }
+            AlmacenFrio almacen = frio;
+            if (almacen == null || almacen.size() == 0) {
+                return arr;
+            }
+            List<Pedido> frios = almacen.pagina(null, Integer.MAX_VALUE, null, null);
+            return mezclarPorId(Arrays.asList(arr), frios, Integer.MAX_VALUE).toArray(new Pedido[0]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Devuelve hasta "limite" pedidos en el estado indicado (null = todos), ordenados por id,
+    // empezando justo después del pedido "despuesDeId" (null = desde el principio)
+    // El filtro mira el código de estado de la casilla: solo se arman los pedidos que van en la página
+    // Los archivados se mezclan por id con los de memoria
+    public List<Pedido> pagina(Integer despuesDeId, int limite, EstadoPedido filtro) {
+        if (frio == null) {
+            return paginaFiltrada(despuesDeId, limite, filtroEstado(filtro));
+        }
+        long stamp = lock.readLock();
+        try {
+            List<Pedido> calientes = recorrer(todos, siguiente, despuesDeId, limite, filtroEstado(filtro));
+            return conArchivados(calientes, despuesDeId, limite, filtro, null);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Igual que pagina, pero recorriendo solo la cadena del cliente (índice por cliente)
+    // En el nivel frío no hay índice por cliente: se recorren sus segmentos
+    public List<Pedido> paginaDeCliente(String nombreCliente, Integer despuesDeId, int limite, EstadoPedido filtro) {
+        if (frio == null) {
+            return paginaDeClienteFiltrada(nombreCliente, despuesDeId, limite, filtroEstado(filtro));
+        }
+        long stamp = lock.readLock();
+        try {
+            Cadena delCliente = porCliente.get(nombreCliente);
+            List<Pedido> calientes = delCliente == null ? new ArrayList<>()
+                    : recorrer(delCliente, siguienteCliente, despuesDeId, limite, filtroEstado(filtro));
+            return conArchivados(calientes, despuesDeId, limite, filtro, nombreCliente);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Mezcla una página de memoria con la misma página del nivel frío (con el candado de lectura)
+    private List<Pedido> conArchivados(List<Pedido> calientes, Integer despuesDeId, int limite,
+                                       EstadoPedido filtro, String cliente) {
+        AlmacenFrio almacen = frio;
+        // En el nivel frío solo hay pedidos terminados
+        if (almacen == null || almacen.size() == 0 || (filtro != null && filtro.esPendiente())) {
+            return calientes;
+        }
+        return mezclarPorId(calientes, almacen.pagina(despuesDeId, limite, filtro, cliente), limite);
+    }
+
+    // Une dos listas ordenadas por id en una, hasta "limite" pedidos
+    private static List<Pedido> mezclarPorId(List<Pedido> a, List<Pedido> b, int limite) {
+        List<Pedido> resultado = new ArrayList<>((int) Math.min(limite, (long) a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (resultado.size() < limite && (i < a.size() || j < b.size())) {
+            if (j >= b.size() || (i < a.size() && a.get(i).getId() <= b.get(j).getId())) {
+                resultado.add(a.get(i++));
+            } else {
+                resultado.add(b.get(j++));
+            }
+        }
+        return resultado;
+    }
+
+    // Versiones con filtro por casilla, para las subclases
+    List<Pedido> paginaFiltrada(Integer despuesDeId, int limite, IntPredicate filtro) {
+        long stamp = lock.readLock();
+        try {
+            return recorrer(todos, siguiente, despuesDeId, limite, filtro);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    List<Pedido> paginaDeClienteFiltrada(String nombreCliente, Integer despuesDeId, int limite, IntPredicate filtro) {
+        long stamp = lock.readLock();
+        try {
+            Cadena delCliente = porCliente.get(nombreCliente);
+            if (delCliente == null) {
+                return new ArrayList<>();
+            }
+            return recorrer(delCliente, siguienteCliente, despuesDeId, limite, filtro);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private IntPredicate filtroEstado(EstadoPedido filtro) {
+        if (filtro == null) {
+            return c -> true;
+        }
+        byte codigo = filtro.codigo();
+        return c -> estado[c] == codigo;
+    }
+
+    // Hasta "limite" pedidos en un estado, en el orden en que entraron a ese estado (índice por estado)
+    // Los archivados terminaron antes que los que siguen en memoria, así que van primero (por id)
+    public List<Pedido> listarPorEstado(EstadoPedido estadoBuscado, int limite) {
+        long stamp = lock.readLock();
+        try {
+            Cadena cadena = porEstado[estadoBuscado.codigo()];
+            AlmacenFrio almacen = frio;
+            List<Pedido> resultado = almacen == null || almacen.size() == 0 || estadoBuscado.esPendiente()
+                    ? new ArrayList<>(Math.min(limite, cadena.size))
+                    : almacen.pagina(null, limite, estadoBuscado, null);
+            for (int c = cadena.cabeza; c != NINGUNO && resultado.size() < limite; c = siguienteEstado[c]) {
+                resultado.add(leer(c));
+            }
+            return resultado;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // "filtro" recibe la casilla
+    private List<Pedido> recorrer(Cadena cadena, int[] enlaces, Integer despuesDeId, int limite, IntPredicate filtro) {
+        List<Pedido> resultado = new ArrayList<>(Math.min(limite, cadena.size));
+        for (int c = inicioPagina(cadena, enlaces, despuesDeId); c != NINGUNO && resultado.size() < limite; c = enlaces[c]) {
+            if (filtro.test(c)) {
+                resultado.add(leer(c));
+            }
+        }
+        return resultado;
+    }
+
+    // Casilla donde empieza la página dentro de una cadena ordenada por id
+    private int inicioPagina(Cadena cadena, int[] enlaces, Integer despuesDeId) {
+        if (despuesDeId == null) {
+            return cadena.cabeza;
+        }
+        int casilla = indice.get(despuesDeId);
+        if (casilla != IndiceIds.NO_ENCONTRADO && perteneceA(cadena, casilla)) {
+            return enlaces[casilla];
+        }
+        // El pedido del cursor ya no está en la cadena (rollback de su creación, o se archivó):
+        // seguimos desde el primero con id mayor
+        for (int c = cadena.cabeza; c != NINGUNO; c = enlaces[c]) {
+            if (idEn(c) > despuesDeId) {
+                return c;
+            }
+        }
+        return NINGUNO;
+    }
+
+    private boolean perteneceA(Cadena cadena, int casilla) {
+        return cadena == todos || porCliente.get(clienteEn(casilla)) == cadena;
+    }
+
+    // Suma de los montos de todos los pedidos (en memoria y archivados)
+    public double sumarMontos() {
+        long stamp = lock.readLock();
+        try {
+            AlmacenFrio almacen = frio;
+            double frios = almacen == null ? 0.0 : almacen.sumarMontos();
+            return sumarMontosEnMemoria() + frios;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Archivo en frío
+    // Pasa al nivel frío los pedidos DESPACHADO y CANCELADO que terminaron antes de "terminadosAntesDeMs"
+    // (o sin momento de fin, de logs viejos). Devuelve cuántos salieron del heap.
+    // 1. Con el candado de lectura copia los candidatos: recorre la cadena de cada estado desde el
+    //    principio (orden en que terminaron) hasta el primero que terminó después del límite.
+    // 2. Sin candado escribe el segmento.
+    // 3. Con el candado de escritura lo publica y quita de memoria los que no cambiaron entretanto
+    //    (los que cambiaron quedan retirados del segmento). Los lectores ven cada pedido en un solo nivel.
+    // Después fusiona segmentos si corresponde.
+    public int archivar(long terminadosAntesDeMs) {
+        AlmacenFrio almacen = frio;
+        if (almacen == null) {
+            throw new IllegalStateException("El archivo en frío no está habilitado");
+        }
+        archivando.lock();
+        try {
+            List<Pedido> candidatos = new ArrayList<>();
+            long stamp = lock.readLock();
+            try {
+                juntarTerminados(EstadoPedido.DESPACHADO, terminadosAntesDeMs, candidatos);
+                juntarTerminados(EstadoPedido.CANCELADO, terminadosAntesDeMs, candidatos);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            if (candidatos.isEmpty()) {
+                return 0;
+            }
+            candidatos.sort(Comparator.comparingInt(Pedido::getId));
+            SegmentoFrio segmento = almacen.escribir(candidatos);
+
+            int movidos = 0;
+            stamp = lock.writeLock();
+            try {
+                for (Pedido candidato : candidatos) {
+                    int casilla = indice.get(candidato.getId());
+                    if (casilla != IndiceIds.NO_ENCONTRADO && sinCambios(casilla, candidato)) {
+                        eliminar(candidato.getId());
+                        movidos++;
+                    } else {
+                        segmento.retirar(candidato.getId());
+                    }
+                }
+                almacen.publicar(segmento);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            compactar(almacen);
+            return movidos;
+        } finally {
+            archivando.unlock();
+        }
+    }
+
+    // Copia los pedidos del estado que terminaron antes del límite (con el candado de lectura)
+    private void juntarTerminados(EstadoPedido terminal, long antesDeMs, List<Pedido> candidatos) {
+        Cadena cadena = porEstado[terminal.codigo()];
+        for (int c = cadena.cabeza; c != NINGUNO && candidatos.size() < MAXIMO_POR_PASADA; c = siguienteEstado[c]) {
+            Pedido pedido = leer(c);
+            Instant fin = terminal == EstadoPedido.DESPACHADO ? pedido.getDespachadoEn() : pedido.getCanceladoEn();
+            if (fin != null && fin.toEpochMilli() >= antesDeMs) {
+                return;
+            }
+            // Copia: con IndexedPedidoList "leer" devuelve el objeto guardado
+            candidatos.add(new Pedido(pedido));
+        }
+    }
+
+    // La casilla sigue teniendo el estado y los momentos con que se copió el pedido
+    private boolean sinCambios(int casilla, Pedido copia) {
+        Pedido actual = leer(casilla);
+        return estado[casilla] == EstadoPedido.desde(copia.getEstado()).codigo()
+                && Objects.equals(actual.getDespachadoEn(), copia.getDespachadoEn())
+                && Objects.equals(actual.getCanceladoEn(), copia.getCanceladoEn());
+    }
+
+    // Fusiona los últimos segmentos mientras convenga (la escritura, sin candado)
+    private void compactar(AlmacenFrio almacen) {
+        while (true) {
+            SegmentoFrio[] par;
+            Set<Integer> retiradosA;
+            Set<Integer> retiradosB;
+            long stamp = lock.readLock();
+            try {
+                par = almacen.paraFusionar();
+                if (par == null) {
+                    return;
+                }
+                retiradosA = par[0].copiaRetirados();
+                retiradosB = par[1].copiaRetirados();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            SegmentoFrio fusion = almacen.fusionar(par[0], retiradosA, par[1], retiradosB);
+            stamp = lock.writeLock();
+            try {
+                if (!almacen.reemplazar(par[0], retiradosA, par[1], retiradosB, fusion)) {
+                    return;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // Instantáneas
+    // Abre un corte de todos los pedidos; frena las pasadas de archivo (los segmentos fríos quedan
+    // fijos) hasta close(), que se llama desde el mismo hilo
+    public Corte nuevoCorte() {
+        archivando.lock();
+        return new Corte();
+    }
+
+    // Foto consistente de los pedidos para una instantánea, sin copiarlos con el servicio frenado:
+    // - fijar(), con el servicio frenado, solo anota cuántos pedidos hay y qué segmentos fríos.
+    // - recorrer() los entrega después por id, de a páginas con el candado de lectura y sin frenar a
+    //   nadie, tal como estaban al fijarlo: una escritura a un pedido que el corte todavía no recorrió
+    //   le guarda antes una copia de cómo estaba (copia al escribir). Lo que el corte junta en memoria
+    //   es proporcional a lo que cambia mientras se recorre, no a todos los pedidos.
+    // - Los archivados se entregan como el registro de su segmento, sin armar el pedido.
+    public final class Corte implements AutoCloseable {
+
+        private int cantidad;
+        private SegmentoFrio[] segmentos = new SegmentoFrio[0];
+
+        // Cómo estaban al fijar el corte los pedidos que cambiaron después (null = todavía no existía)
+        private final TreeMap<Integer, Pedido> previos = new TreeMap<>();
+
+        // Id del último pedido recorrido: los cambios a pedidos ya entregados no se copian
+        private int recorridoHasta = Integer.MIN_VALUE;
+
+        private Corte() {
+        }
+
+        // Con el servicio frenado (ninguna escritura a medias)
+        public void fijar() {
+            long stamp = lock.writeLock();
+            try {
+                AlmacenFrio almacen = frio;
+                segmentos = almacen == null ? new SegmentoFrio[0] : almacen.segmentos();
+                cantidad = size + (almacen == null ? 0 : almacen.size());
+                corte = this;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // Pedidos que había al fijarlo (los que entrega recorrer)
+        public int cantidad() {
+            return cantidad;
+        }
+
+        // Con el candado de escritura
+        private void antesDeCambiar(int id) {
+            if (id > recorridoHasta && !previos.containsKey(id)) {
+                Pedido actual = buscar(id);
+                previos.put(id, actual == null ? null : new Pedido(actual));
+            }
+        }
+
+        // Con el candado de escritura; un id que ya tenía copia (se quitó y vuelve) la conserva
+        private void alAgregar(int id) {
+            if (id > recorridoHasta) {
+                previos.putIfAbsent(id, null);
+            }
+        }
+
+        // Entrega cada pedido del corte una vez, en orden de id: los de memoria armados (copias) y los
+        // archivados como su registro en el segmento (ver SegmentoFrio). Las entregas van sin candado.
+        public void recorrer(Consumer<Pedido> pedidos, Consumer<ByteBuffer> archivados) {
+            int[] posiciones = new int[segmentos.length];
+            for (int i = 0; i < segmentos.length; i++) {
+                posiciones[i] = segmentos[i].inicioDespuesDe(null);
+            }
+            // Id del próximo pedido en memoria por recorrer (null = no quedan); su casilla se vuelve a
+            // buscar en cada página. Lo que se agrega a memoria después del corte ya está en "previos".
+            Integer proximoCaliente = null;
+            boolean primera = true;
+            List<Object> pagina = new ArrayList<>(PAGINA_CORTE);
+            while (true) {
+                boolean quedan = true;
+                long stamp = lock.readLock();
+                try {
+                    int c;
+                    if (primera) {
+                        c = todos.cabeza;
+                        primera = false;
+                    } else if (proximoCaliente == null) {
+                        c = NINGUNO;
+                    } else {
+                        c = indice.get(proximoCaliente);
+                        if (c == IndiceIds.NO_ENCONTRADO) {
+                            c = primeraDespuesDe(proximoCaliente);
+                        }
+                    }
+                    int ultimo = recorridoHasta;
+                    while (pagina.size() < PAGINA_CORTE) {
+                        // El menor id pendiente entre memoria, cada segmento y las copias
+                        long menor = c == NINGUNO ? Long.MAX_VALUE : idEn(c);
+                        for (int i = 0; i < segmentos.length; i++) {
+                            if (posiciones[i] < segmentos[i].fin()) {
+                                menor = Math.min(menor, segmentos[i].idEn(posiciones[i]));
+                            }
+                        }
+                        Map.Entry<Integer, Pedido> previo = previos.higherEntry(ultimo);
+                        if (previo != null) {
+                            menor = Math.min(menor, previo.getKey());
+                        }
+                        if (menor == Long.MAX_VALUE) {
+                            quedan = false;
+                            break;
+                        }
+                        int id = (int) menor;
+                        // La copia manda; si no la hay, el pedido no cambió desde el corte y está en un solo nivel
+                        boolean cambio = previo != null && previo.getKey() == id;
+                        Object entrega = cambio ? previo.getValue() : null;
+                        if (c != NINGUNO && idEn(c) == id) {
+                            if (!cambio) {
+                                entrega = new Pedido(leer(c));
+                            }
+                            c = siguiente[c];
+                        }
+                        for (int i = 0; i < segmentos.length; i++) {
+                            SegmentoFrio segmento = segmentos[i];
+                            if (posiciones[i] < segmento.fin() && segmento.idEn(posiciones[i]) == id) {
+                                if (!cambio && !segmento.retirado(id)) {
+                                    entrega = segmento.registro(posiciones[i]);
+                                }
+                                posiciones[i] = segmento.siguiente(posiciones[i]);
+                            }
+                        }
+                        if (entrega != null) {
+                            pagina.add(entrega);
+                        }
+                        ultimo = id;
+                    }
+                    recorridoHasta = ultimo;
+                    proximoCaliente = c == NINGUNO ? null : idEn(c);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+                for (Object entrega : pagina) {
+                    if (entrega instanceof Pedido pedido) {
+                        pedidos.accept(pedido);
+                    } else {
+                        archivados.accept((ByteBuffer) entrega);
+                    }
+                }
+                pagina.clear();
+                if (!quedan) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            long stamp = lock.writeLock();
+            try {
+                if (corte == this) {
+                    corte = null;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            archivando.unlock();
+        }
+    }
+
+    // Primera casilla de la cadena de todos con id mayor a "despuesDeId" (con algún candado tomado),
+    // buscando desde la punta más cercana por id
+    private int primeraDespuesDe(int despuesDeId) {
+        if (todos.cola == NINGUNO || idEn(todos.cola) <= despuesDeId) {
+            return NINGUNO;
+        }
+        if ((long) despuesDeId - idEn(todos.cabeza) <= (long) idEn(todos.cola) - despuesDeId) {
+            int c = todos.cabeza;
+            while (idEn(c) <= despuesDeId) {
+                c = siguiente[c];
+            }
+            return c;
+        }
+        int c = todos.cola;
+        while (anterior[c] != NINGUNO && idEn(anterior[c]) > despuesDeId) {
+            c = anterior[c];
+        }
+        return c;
+    }
+
+    // Enlaza la casilla en una cadena ordenada por id, antes del primer pedido con id mayor
+    // Busca desde la punta más cercana por id: un pedido nuevo va al final o a pocos lugares de él
+    // (O(1) en la práctica) y uno que vuelve del nivel frío suele ir cerca del principio
+    private void enlazarPorId(Cadena cadena, int[] sig, int[] ant, int casilla, int id) {
+        if (cadena.cola == NINGUNO || idEn(cadena.cola) < id) {
+            enlazar(cadena, sig, ant, casilla);
+            return;
+        }
+        int despues;
+        if ((long) id - idEn(cadena.cabeza) <= (long) idEn(cadena.cola) - id) {
+            despues = cadena.cabeza;
+            while (idEn(despues) < id) {
+                despues = sig[despues];
+            }
+        } else {
+            despues = cadena.cola;
+            while (ant[despues] != NINGUNO && idEn(ant[despues]) > id) {
+                despues = ant[despues];
+            }
+        }
+        int antes = ant[despues];
+        sig[casilla] = despues;
+        ant[casilla] = antes;
+        ant[despues] = casilla;
+        if (antes == NINGUNO) {
+            cadena.cabeza = casilla;
+        } else {
+            sig[antes] = casilla;
+        }
+        cadena.size++;
+    }
+
+    // Enlaza la casilla al final de una cadena
+    private static void enlazar(Cadena cadena, int[] sig, int[] ant, int casilla) {
+        sig[casilla] = NINGUNO;
+        ant[casilla] = cadena.cola;
+        if (cadena.cola == NINGUNO) {
+            cadena.cabeza = casilla;
+        } else {
+            sig[cadena.cola] = casilla;
+        }
+        cadena.cola = casilla;
+        cadena.size++;
+    }
+
+    // Saca la casilla de una cadena uniendo a sus vecinos
+    private static void desenlazar(Cadena cadena, int[] sig, int[] ant, int casilla) {
+        int a = ant[casilla];
+        int s = sig[casilla];
+        if (a == NINGUNO) {
+            cadena.cabeza = s;
+        } else {
+            sig[a] = s;
+        }
+        if (s == NINGUNO) {
+            cadena.cola = a;
+        } else {
+            ant[s] = a;
+        }
+        cadena.size--;
+    }
+
+    // Obtiene una casilla libre, reutilizando las liberadas o creciendo los arreglos
+    private int tomarCasilla() {
+        if (libre != NINGUNO) {
+            int casilla = libre;
+            libre = siguiente[casilla];
+            return casilla;
+        }
+        if (usadas == capacidad()) {
+            int nuevaCapacidad = capacidad() + (capacidad() >> 1) + 1;
+            crecer(nuevaCapacidad);
+            siguiente = Arrays.copyOf(siguiente, nuevaCapacidad);
+            anterior = Arrays.copyOf(anterior, nuevaCapacidad);
+            estado = Arrays.copyOf(estado, nuevaCapacidad);
+            siguienteEstado = Arrays.copyOf(siguienteEstado, nuevaCapacidad);
+            anteriorEstado = Arrays.copyOf(anteriorEstado, nuevaCapacidad);
+            siguienteCliente = Arrays.copyOf(siguienteCliente, nuevaCapacidad);
+            anteriorCliente = Arrays.copyOf(anteriorCliente, nuevaCapacidad);
+        }
+        return usadas++;
+    }
+
+    private void liberarCasilla(int casilla) {
+        soltar(casilla);
+        anterior[casilla] = NINGUNO;
+        siguiente[casilla] = libre;
+        libre = casilla;
+    }
+}
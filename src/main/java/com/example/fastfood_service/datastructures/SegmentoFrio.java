@@ -0,0 +1,289 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Un segmento del almacén frío: pedidos terminados en un archivo inmutable, mapeado en memoria
+// y ordenado por id
+//
+// Formato: [int "PFR1"][int cantidad] y un registro por pedido:
+//   [int id][byte estado][double monto][long creadoEn][long despachadoEn][long canceladoEn]
+//   [int largo + UTF-8 nombreCliente][int largo + UTF-8 descripcion][int largo (-1 = null) + UTF-8 canal]
+// (instantes en milisegundos desde la época, 0 = null)
+//
+// En el heap queda solo un índice disperso (id y posición de uno de cada PASO_INDICE registros):
+// buscar un id es una búsqueda binaria en él y recorrer como mucho PASO_INDICE registros del archivo.
+// Las lecturas usan posiciones absolutas, así que varios hilos leen el mismo mapeo a la vez.
+//
+// El archivo no cambia nunca; un pedido que deja el segmento (vuelve a memoria o se borra) queda
+// marcado como retirado. Los retirados se cambian con el candado de escritura de PedidoStore.
+final class SegmentoFrio {
+
+    private static final int MAGICO = 0x50465231;
+    private static final int CABECERA = 8;
+
+    // Bytes de la parte fija de un registro (hasta los textos)
+    private static final int FIJO = 4 + 1 + 8 + 8 + 8 + 8;
+
+    // Cada cuántos registros se guarda una entrada del índice disperso
+    static final int PASO_INDICE = 32;
+
+    private final Path archivo;
+    private final MappedByteBuffer datos;
+    private final int cantidad;
+    private final int fin;
+
+    // Índice disperso: id y posición de los registros 0, PASO_INDICE, 2 * PASO_INDICE...
+    private final int[] idsIndice;
+    private final int[] posicionesIndice;
+    private final int ultimoId;
+
+    // Registros por código de estado, y cuántos de ellos están retirados
+    private final int[] porEstado;
+    private final int[] retiradosPorEstado;
+
+    // Ids de los registros que ya no valen
+    private final Set<Integer> retirados = new HashSet<>();
+
+    private SegmentoFrio(Path archivo, MappedByteBuffer datos, int cantidad, int[] idsIndice,
+                         int[] posicionesIndice, int ultimoId, int[] porEstado) {
+        this.archivo = archivo;
+        this.datos = datos;
+        this.cantidad = cantidad;
+        this.fin = datos.capacity();
+        this.idsIndice = idsIndice;
+        this.posicionesIndice = posicionesIndice;
+        this.ultimoId = ultimoId;
+        this.porEstado = porEstado;
+        this.retiradosPorEstado = new int[porEstado.length];
+    }
+
+    // Escribe los pedidos (ordenados por id, sin repetidos) en un archivo nuevo y lo mapea
+    static SegmentoFrio escribir(Path archivo, List<Pedido> pedidos) {
+        int bloques = (pedidos.size() + PASO_INDICE - 1) / PASO_INDICE;
+        int[] idsIndice = new int[bloques];
+        int[] posicionesIndice = new int[bloques];
+        int[] porEstado = new int[EstadoPedido.CODIGOS];
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+            salida.writeInt(MAGICO);
+            salida.writeInt(pedidos.size());
+            for (int i = 0; i < pedidos.size(); i++) {
+                Pedido p = pedidos.get(i);
+                if (i % PASO_INDICE == 0) {
+                    idsIndice[i / PASO_INDICE] = p.getId();
+                    posicionesIndice[i / PASO_INDICE] = salida.size();
+                }
+                byte estado = EstadoPedido.desde(p.getEstado()).codigo();
+                porEstado[estado]++;
+                salida.writeInt(p.getId());
+                salida.writeByte(estado);
+                salida.writeDouble(p.getMonto());
+                salida.writeLong(milis(p.getCreadoEn()));
+                salida.writeLong(milis(p.getDespachadoEn()));
+                salida.writeLong(milis(p.getCanceladoEn()));
+                escribirTexto(salida, p.getNombreCliente());
+                escribirTexto(salida, p.getDescripcion());
+                escribirTexto(salida, p.getCanal());
+                // DataOutputStream cuenta en un int: pasado el máximo el conteo da negativo
+                if (salida.size() < 0) {
+                    throw new IllegalStateException("Segmento frío de más de 2 GB");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int ultimoId = pedidos.isEmpty() ? Integer.MIN_VALUE : pedidos.get(pedidos.size() - 1).getId();
+        return new SegmentoFrio(archivo, mapear(archivo), pedidos.size(), idsIndice, posicionesIndice,
+                ultimoId, porEstado);
+    }
+
+    private static MappedByteBuffer mapear(Path archivo) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            // El mapeo sigue siendo válido después de cerrar el canal
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static long milis(Instant instante) {
+        return instante == null ? 0 : instante.toEpochMilli();
+    }
+
+    private static Instant instante(long milis) {
+        return milis == 0 ? null : Instant.ofEpochMilli(milis);
+    }
+
+    Path archivo() {
+        return archivo;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    // Registros que todavía valen
+    int vigentes() {
+        return cantidad - retirados.size();
+    }
+
+    int contar(EstadoPedido estado) {
+        return porEstado[estado.codigo()] - retiradosPorEstado[estado.codigo()];
+    }
+
+    // Posición del registro vigente con ese id, o -1
+    int buscar(int id) {
+        if (cantidad == 0 || id < idsIndice[0] || id > ultimoId || retirados.contains(id)) {
+            return -1;
+        }
+        int bloque = Arrays.binarySearch(idsIndice, id);
+        if (bloque >= 0) {
+            return posicionesIndice[bloque];
+        }
+        // El bloque cuyo primer id es el mayor menor a "id"
+        bloque = -bloque - 2;
+        int posicion = posicionesIndice[bloque];
+        for (int k = 0; k < PASO_INDICE && posicion < fin; k++) {
+            int actual = idEn(posicion);
+            if (actual == id) {
+                return posicion;
+            }
+            if (actual > id) {
+                return -1;
+            }
+            posicion = siguiente(posicion);
+        }
+        return -1;
+    }
+
+    // Posición del primer registro con id mayor a "despuesDeId" (null = el primero); fin() si no hay
+    int inicioDespuesDe(Integer despuesDeId) {
+        if (cantidad == 0) {
+            return fin;
+        }
+        if (despuesDeId == null || despuesDeId < idsIndice[0]) {
+            return CABECERA;
+        }
+        int bloque = Arrays.binarySearch(idsIndice, despuesDeId);
+        bloque = bloque >= 0 ? bloque : -bloque - 2;
+        int posicion = posicionesIndice[bloque];
+        while (posicion < fin && idEn(posicion) <= despuesDeId) {
+            posicion = siguiente(posicion);
+        }
+        return posicion;
+    }
+
+    // Posición después del último registro
+    int fin() {
+        return fin;
+    }
+
+    int idEn(int posicion) {
+        return datos.getInt(posicion);
+    }
+
+    boolean retirado(int id) {
+        return retirados.contains(id);
+    }
+
+    EstadoPedido estadoEn(int posicion) {
+        return EstadoPedido.deCodigo(datos.get(posicion + 4));
+    }
+
+    double montoEn(int posicion) {
+        return datos.getDouble(posicion + 5);
+    }
+
+    String clienteEn(int posicion) {
+        return leerTexto(posicion + FIJO);
+    }
+
+    // Posición del registro siguiente
+    int siguiente(int posicion) {
+        int p = posicion + FIJO;
+        for (int texto = 0; texto < 3; texto++) {
+            p += 4 + Math.max(datos.getInt(p), 0);
+        }
+        return p;
+    }
+
+    // Arma el pedido del registro
+    Pedido leer(int posicion) {
+        int p = posicion + FIJO;
+        String nombreCliente = leerTexto(p);
+        p += 4 + Math.max(datos.getInt(p), 0);
+        String descripcion = leerTexto(p);
+        p += 4 + Math.max(datos.getInt(p), 0);
+        String canal = leerTexto(p);
+        Pedido pedido = new Pedido(idEn(posicion), nombreCliente, descripcion, montoEn(posicion),
+                estadoEn(posicion).name());
+        pedido.setCanal(canal);
+        pedido.setCreadoEn(instante(datos.getLong(posicion + 13)));
+        pedido.setDespachadoEn(instante(datos.getLong(posicion + 21)));
+        pedido.setCanceladoEn(instante(datos.getLong(posicion + 29)));
+        return pedido;
+    }
+
+    // El registro tal como está en el archivo (una vista del mapeo, sin copiarlo)
+    ByteBuffer registro(int posicion) {
+        return datos.slice(posicion, siguiente(posicion) - posicion);
+    }
+
+    private String leerTexto(int posicion) {
+        int largo = datos.getInt(posicion);
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        datos.get(posicion + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Marca el registro como retirado (con el candado de escritura del almacén)
+    // Devuelve false si no estaba vigente
+    boolean retirar(int id) {
+        int posicion = buscar(id);
+        if (posicion < 0) {
+            return false;
+        }
+        retirados.add(id);
+        retiradosPorEstado[datos.get(posicion + 4)]++;
+        return true;
+    }
+
+    // Copia de los retirados (para fusionar sin el candado)
+    Set<Integer> copiaRetirados() {
+        return new HashSet<>(retirados);
+    }
+
+    Set<Integer> retirados() {
+        return retirados;
+    }
+}
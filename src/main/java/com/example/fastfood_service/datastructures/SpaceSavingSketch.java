@@ -0,0 +1,217 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Las K claves más frecuentes de un flujo (algoritmo Space-Saving) en memoria acotada
+//
+// Se siguen como mucho "capacidad" claves. Cuando llega una clave nueva con la tabla llena, entra
+// solo si su frecuencia estimada por el Count-Min sketch supera a la menor seguida, y la reemplaza.
+// Cada clave seguida guarda:
+// - conteo: estimado al entrar + lo exacto desde entonces (nunca menor que el real)
+// - error: cuánto de ese conteo es estimado (0 = se siguió desde su primera aparición)
+// - peso: suma exacta de los pesos (montos) desde que se sigue
+//
+// Las claves seguidas están en "baldes" ordenados por conteo (stream-summary): sumar o restar 1
+// mueve la clave al balde vecino en O(1), y leer las K mayores es recorrer desde el último balde, O(K).
+// Sumar varias apariciones juntas mueve la clave recorriendo los baldes que salta.
+//
+// Es segura entre hilos: cada operación toma el candado del sketch (todas son O(1) salvo la
+// entrada de una clave nueva, que busca su balde desde el menor).
+public class SpaceSavingSketch {
+
+    // Una clave seguida con sus contadores
+    public record Elemento(String clave, long conteo, long error, double peso) {
+    }
+
+    private static final class Entrada {
+        final String clave;
+        long conteo;
+        final long error;
+        double peso;
+        Balde balde;
+        Entrada anterior;
+        Entrada siguiente;
+
+        Entrada(String clave, long conteo, long error, double peso) {
+            this.clave = clave;
+            this.conteo = conteo;
+            this.error = error;
+            this.peso = peso;
+        }
+    }
+
+    // Claves con el mismo conteo; los baldes forman una lista en orden creciente de conteo
+    private static final class Balde {
+        final long valor;
+        Entrada primera;
+        Balde anterior;
+        Balde siguiente;
+
+        Balde(long valor) {
+            this.valor = valor;
+        }
+    }
+
+    private final int capacidad;
+    private final CountMinSketch frecuencias;
+    private final Map<String, Entrada> entradas = new HashMap<>();
+
+    // Balde de menor y de mayor conteo
+    private Balde menor;
+    private Balde mayor;
+
+    public SpaceSavingSketch(int capacidad, int ancho, int profundidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("capacidad debe ser mayor a 0");
+        }
+        this.capacidad = capacidad;
+        this.frecuencias = new CountMinSketch(ancho, profundidad);
+    }
+
+    public int capacidad() {
+        return capacidad;
+    }
+
+    // Suma "delta" apariciones de la clave (delta > 0) o resta una (delta = -1); "peso" es el de
+    // todas ellas juntas. Las restas de claves que no se siguen solo actualizan el Count-Min
+    public synchronized void sumar(String clave, int delta, double peso) {
+        if (delta < 1 && delta != -1) {
+            throw new IllegalArgumentException("delta debe ser positivo o -1");
+        }
+        long estimada = frecuencias.sumar(clave, delta);
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null) {
+            entrada.peso += delta > 0 ? peso : -peso;
+            mover(entrada, entrada.conteo + delta);
+            return;
+        }
+        if (delta < 0) {
+            return;
+        }
+        if (entradas.size() == capacidad) {
+            if (estimada <= menor.valor) {
+                return;
+            }
+            // Sale la clave de menor conteo
+            Entrada desplazada = menor.primera;
+            sacarDeBalde(desplazada);
+            entradas.remove(desplazada.clave);
+        }
+        // Lo que el Count-Min ya tenía antes de estas apariciones es el error de la clave
+        Entrada nueva = new Entrada(clave, estimada, estimada - delta, peso);
+        entradas.put(clave, nueva);
+        ubicar(nueva, menor);
+    }
+
+    // Las "k" claves de mayor conteo, de mayor a menor, en O(k)
+    public synchronized List<Elemento> top(int k) {
+        List<Elemento> resultado = new ArrayList<>(Math.min(k, entradas.size()));
+        for (Balde b = mayor; b != null && resultado.size() < k; b = b.anterior) {
+            for (Entrada e = b.primera; e != null && resultado.size() < k; e = e.siguiente) {
+                resultado.add(new Elemento(e.clave, e.conteo, e.error, e.peso));
+            }
+        }
+        return resultado;
+    }
+
+    // Estimación del Count-Min para cualquier clave, seguida o no
+    public synchronized long estimar(String clave) {
+        return frecuencias.estimar(clave);
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    // Cambia el conteo de una entrada y la pasa al balde que le corresponde (el vecino, si cambió en 1)
+    private void mover(Entrada entrada, long nuevoConteo) {
+        Balde actual = entrada.balde;
+        // Buscamos desde un balde que siga existiendo después de sacar la entrada: si su balde
+        // se vacía, el anterior (con valor menor, así que el destino está a un paso)
+        Balde desde = actual.primera == entrada && entrada.siguiente == null ? actual.anterior : actual;
+        sacarDeBalde(entrada);
+        entrada.conteo = nuevoConteo;
+        ubicar(entrada, desde);
+    }
+
+    // Pone la entrada en el balde de su conteo, creándolo si hace falta, buscando desde "desde"
+    private void ubicar(Entrada entrada, Balde desde) {
+        long valor = entrada.conteo;
+        Balde b = desde;
+        // "antes" es el último balde con valor menor (null = va al principio)
+        Balde antes;
+        if (b == null) {
+            b = menor;
+        }
+        if (b == null) {
+            antes = null;
+        } else if (b.valor <= valor) {
+            while (b.siguiente != null && b.siguiente.valor <= valor) {
+                b = b.siguiente;
+            }
+            antes = b;
+        } else {
+            while (b != null && b.valor > valor) {
+                b = b.anterior;
+            }
+            antes = b;
+        }
+        Balde destino;
+        if (antes != null && antes.valor == valor) {
+            destino = antes;
+        } else {
+            destino = new Balde(valor);
+            Balde despues = antes == null ? menor : antes.siguiente;
+            destino.anterior = antes;
+            destino.siguiente = despues;
+            if (antes == null) {
+                menor = destino;
+            } else {
+                antes.siguiente = destino;
+            }
+            if (despues == null) {
+                mayor = destino;
+            } else {
+                despues.anterior = destino;
+            }
+        }
+        entrada.balde = destino;
+        entrada.anterior = null;
+        entrada.siguiente = destino.primera;
+        if (destino.primera != null) {
+            destino.primera.anterior = entrada;
+        }
+        destino.primera = entrada;
+    }
+
+    // Saca la entrada de su balde y borra el balde si queda vacío
+    private void sacarDeBalde(Entrada entrada) {
+        Balde balde = entrada.balde;
+        if (entrada.anterior == null) {
+            balde.primera = entrada.siguiente;
+        } else {
+            entrada.anterior.siguiente = entrada.siguiente;
+        }
+        if (entrada.siguiente != null) {
+            entrada.siguiente.anterior = entrada.anterior;
+        }
+        entrada.balde = null;
+        entrada.anterior = null;
+        entrada.siguiente = null;
+        if (balde.primera == null) {
+            if (balde.anterior == null) {
+                menor = balde.siguiente;
+            } else {
+                balde.anterior.siguiente = balde.siguiente;
+            }
+            if (balde.siguiente == null) {
+                mayor = balde.anterior;
+            } else {
+                balde.siguiente.anterior = balde.anterior;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Diccionario de textos: cada texto distinto se guarda una sola vez y se representa con un código int
+// Los nombres de cliente, descripciones y canales se repiten muchísimo entre pedidos,
+// así que guardar el código en lugar del String ahorra la mayor parte de la memoria
+//
+// No es seguro entre hilos por sí solo: ColumnarPedidoStore lo usa bajo su candado.
+// Cada código cuenta cuántas casillas lo usan: cuando los pedidos que lo tenían se archivan o se
+// borran, el texto sale del diccionario y su código se reutiliza para el próximo texto nuevo.
+// Así el diccionario crece con los textos de los pedidos en memoria, no con todos los que hubo.
+class StringDictionary {
+
+    // Código de null
+    static final int NULO = -1;
+
+    private final Map<String, Integer> codigos = new HashMap<>();
+
+    // Texto de cada código (null si el código está libre)
+    private String[] textos = new String[16];
+
+    // Casillas que usan cada código
+    private int[] referencias = new int[16];
+
+    // Códigos libres para reutilizar (una pila)
+    private int[] libres = new int[16];
+    private int cantidadLibres;
+
+    // Códigos entregados alguna vez (los siguientes nunca se han usado)
+    private int usados;
+
+    // Código del texto, agregándolo si es nuevo; cuenta una referencia más que se devuelve con soltar()
+    int codificar(String texto) {
+        if (texto == null) {
+            return NULO;
+        }
+        Integer codigo = codigos.get(texto);
+        if (codigo != null) {
+            referencias[codigo]++;
+            return codigo;
+        }
+        int nuevo = cantidadLibres > 0 ? libres[--cantidadLibres] : tomarNuevo();
+        textos[nuevo] = texto;
+        referencias[nuevo] = 1;
+        codigos.put(texto, nuevo);
+        return nuevo;
+    }
+
+    private int tomarNuevo() {
+        if (usados == textos.length) {
+            textos = Arrays.copyOf(textos, usados * 2);
+            referencias = Arrays.copyOf(referencias, usados * 2);
+        }
+        return usados++;
+    }
+
+    // Una casilla dejó de usar el código; con la última, el texto sale del diccionario
+    void soltar(int codigo) {
+        if (codigo == NULO || --referencias[codigo] > 0) {
+            return;
+        }
+        codigos.remove(textos[codigo]);
+        textos[codigo] = null;
+        if (cantidadLibres == libres.length) {
+            libres = Arrays.copyOf(libres, cantidadLibres * 2);
+        }
+        libres[cantidadLibres++] = codigo;
+    }
+
+    String texto(int codigo) {
+        return codigo == NULO ? null : textos[codigo];
+    }
+
+    // Textos distintos en uso
+    int size() {
+        return codigos.size();
+    }
+}
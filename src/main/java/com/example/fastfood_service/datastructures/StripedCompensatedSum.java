@@ -0,0 +1,74 @@
+package com.example.fastfood_service.datastructures;
+
+// Acumulador de montos repartido en celdas (como LongAdder, pero para double)
+// - Cada hilo suma en "su" celda, así varios hilos no compiten por la misma variable
+// - Cada celda usa suma compensada (Kahan-Neumaier) para que sumar y restar montos
+//   durante todo el día no acumule error de redondeo
+public class StripedCompensatedSum {
+
+    private static final class Celda {
+        double suma;
+        double compensacion;
+
+        synchronized void add(double x) {
+            double t = suma + x;
+            // Guardamos la parte de x (o de suma) que se perdió al redondear
+            if (Math.abs(suma) >= Math.abs(x)) {
+                compensacion += (suma - t) + x;
+            } else {
+                compensacion += (x - t) + suma;
+            }
+            suma = t;
+        }
+
+        synchronized void reset() {
+            suma = 0.0;
+            compensacion = 0.0;
+        }
+    }
+
+    private final Celda[] celdas;
+
+    public StripedCompensatedSum() {
+        // Potencia de 2 cercana al doble de procesadores
+        int n = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 2 - 1, 1)) << 1;
+        celdas = new Celda[n];
+        for (int i = 0; i < n; i++) {
+            celdas[i] = new Celda();
+        }
+    }
+
+    public void add(double x) {
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        celdas[(int) (h >>> 32) & (celdas.length - 1)].add(x);
+    }
+
+    // Suma total de todas las celdas, también con compensación
+    public double sum() {
+        double suma = 0.0;
+        double compensacion = 0.0;
+        for (Celda celda : celdas) {
+            double s;
+            double c;
+            synchronized (celda) {
+                s = celda.suma;
+                c = celda.compensacion;
+            }
+            double t = suma + s;
+            if (Math.abs(suma) >= Math.abs(s)) {
+                compensacion += (suma - t) + s;
+            } else {
+                compensacion += (s - t) + suma;
+            }
+            suma = t;
+            compensacion += c;
+        }
+        return suma + compensacion;
+    }
+
+    public void reset() {
+        for (Celda celda : celdas) {
+            celda.reset();
+        }
+    }
+}
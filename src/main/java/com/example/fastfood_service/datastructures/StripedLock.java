@@ -0,0 +1,65 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Candados repartidos por id ("striping"): dos pedidos distintos casi nunca comparten candado,
+// así las operaciones sobre pedidos diferentes avanzan en paralelo sin un candado global
+public class StripedLock {
+
+    private final ReentrantLock[] candados;
+
+    public StripedLock(int franjas) {
+        // Redondeamos a potencia de 2 para elegir la franja con una máscara
+        int n = Integer.highestOneBit(Math.max(franjas - 1, 1)) << 1;
+        candados = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    // Franja que le toca a un id
+    public int franja(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (candados.length - 1);
+    }
+
+    public void lock(int id) {
+        candados[franja(id)].lock();
+    }
+
+    public void unlock(int id) {
+        candados[franja(id)].unlock();
+    }
+
+    // Bloquea las franjas de varios ids a la vez, siempre en orden ascendente para evitar interbloqueos
+    // Devuelve las franjas tomadas, que se pasan luego a unlockTodas
+    public int[] lockTodas(int[] ids) {
+        int[] franjas = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            franjas[i] = franja(ids[i]);
+        }
+        franjas = Arrays.stream(franjas).sorted().distinct().toArray();
+        for (int f : franjas) {
+            candados[f].lock();
+        }
+        return franjas;
+    }
+
+    // Bloquea todas las franjas (en orden ascendente): mientras se tienen, ninguna operación sobre
+    // pedidos avanza. Se usa para tomar una foto consistente del estado; devuelve lo mismo que lockTodas(ids)
+    public int[] lockTodas() {
+        int[] franjas = new int[candados.length];
+        for (int f = 0; f < candados.length; f++) {
+            franjas[f] = f;
+            candados[f].lock();
+        }
+        return franjas;
+    }
+
+    public void unlockTodas(int[] franjas) {
+        for (int i = franjas.length - 1; i >= 0; i--) {
+            candados[franjas[i]].unlock();
+        }
+    }
+}
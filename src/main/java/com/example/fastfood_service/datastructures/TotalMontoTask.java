@@ -0,0 +1,102 @@
+package com.example.fastfood_service.datastructures;
+import com.example.fastfood_service.model.Pedido;
+
+import java.io.Serial;
+import java.util.concurrent.RecursiveTask;
+
+// Suma de montos "divide y vencerás" para el ForkJoinPool
+// - Parte el rango a la mitad hasta que queda por debajo del umbral, así la profundidad
+//   de recursión es log2(n / UMBRAL) y no n como en la versión recursiva de un elemento por llamada
+// - Cada hoja suma con Kahan y las mitades se combinan con suma compensada (suma por pares),
+//   por eso el total no se desvía aunque se sumen millones de montos
+// - Las casillas null (libres) se ignoran
+// - También suma directamente una columna de montos (ColumnarPedidoStore, casillas libres en 0)
+public class TotalMontoTask extends RecursiveTask<TotalMontoTask.SumaParcial> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Debajo de este tamaño conviene sumar secuencialmente: dividir más solo agrega costo de tareas
+    static final int UMBRAL = 8192;
+
+    // Resultado parcial: suma y error de redondeo acumulado
+    public record SumaParcial(double suma, double compensacion) {
+
+        static final SumaParcial CERO = new SumaParcial(0.0, 0.0);
+
+        public double total() {
+            return suma + compensacion;
+        }
+
+        // Combina dos resultados parciales sin perder los bits bajos
+        SumaParcial mas(SumaParcial otra) {
+            double t = suma + otra.suma;
+            double error = Math.abs(suma) >= Math.abs(otra.suma)
+                    ? (suma - t) + otra.suma
+                    : (otra.suma - t) + suma;
+            return new SumaParcial(t, compensacion + otra.compensacion + error);
+        }
+    }
+
+    // Se usa uno de los dos: los pedidos o la columna de montos
+    // La tarea es Serializable por heredar de ForkJoinTask, pero nunca se serializa: los arreglos
+    // son vistas de la lista viva y no se copian
+    private final transient Pedido[] casillas;
+    private final transient double[] montos;
+    private final int desde;
+    private final int hasta;
+
+    public TotalMontoTask(Pedido[] casillas, int desde, int hasta) {
+        this(casillas, null, desde, hasta);
+    }
+
+    public TotalMontoTask(double[] montos, int desde, int hasta) {
+        this(null, montos, desde, hasta);
+    }
+
+    private TotalMontoTask(Pedido[] casillas, double[] montos, int desde, int hasta) {
+        this.casillas = casillas;
+        this.montos = montos;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    @Override
+    protected SumaParcial compute() {
+        if (hasta - desde <= UMBRAL) {
+            return sumarSecuencial();
+        }
+        int mitad = (desde + hasta) >>> 1;
+        TotalMontoTask izquierda = new TotalMontoTask(casillas, montos, desde, mitad);
+        TotalMontoTask derecha = new TotalMontoTask(casillas, montos, mitad, hasta);
+        // La mitad izquierda se entrega a otro hilo y la derecha la calculamos nosotros
+        izquierda.fork();
+        SumaParcial sumaDerecha = derecha.compute();
+        return izquierda.join().mas(sumaDerecha);
+    }
+
+    // Suma de Kahan sobre el rango de la hoja
+    private SumaParcial sumarSecuencial() {
+        if (desde >= hasta) {
+            return SumaParcial.CERO;
+        }
+        double suma = 0.0;
+        double compensacion = 0.0;
+        for (int i = desde; i < hasta; i++) {
+            double monto;
+            if (montos != null) {
+                monto = montos[i];
+            } else if (casillas[i] != null) {
+                monto = casillas[i].getMonto();
+            } else {
+                continue;
+            }
+            double y = monto - compensacion;
+            double t = suma + y;
+            compensacion = (t - suma) - y;
+            suma = t;
+        }
+        // Kahan guarda el error con signo opuesto
+        return new SumaParcial(suma, -compensacion);
+    }
+}
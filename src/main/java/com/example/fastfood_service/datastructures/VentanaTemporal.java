@@ -0,0 +1,158 @@
+package com.example.fastfood_service.datastructures;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Actividad de los últimos minutos: un anillo de baldes de un minuto, cada uno con los pedidos
+// creados, despachados y cancelados en ese minuto y un histograma log-lineal del tiempo hasta el
+// despacho de los que se despacharon en él
+//
+// - Registrar es O(1): se elige el balde por el minuto (minuto % capacidad) y se incrementan dos
+//   contadores atómicos, sin candados. Solo el primer registro de un minuto nuevo reinicia el balde
+//   (el que tenía ese lugar hace "capacidad" minutos), bajo el candado de ese balde.
+// - La memoria es fija: capacidad x (3 + HistogramaLogLineal.BALDES) longs, sin importar el volumen.
+// - Leer los últimos N minutos suma N baldes (los que sigan siendo de esos minutos).
+//
+// Las lecturas no se sincronizan con las escrituras: un resumen puede incluir o no un registro que
+// ocurre mientras se arma. Las operaciones que se revierten con rollback no se descuentan: la ventana
+// mide actividad, no el estado actual de los pedidos.
+public class VentanaTemporal {
+
+    public static final long MS_POR_MINUTO = 60_000L;
+
+    // Posiciones en el arreglo de cada balde: tres contadores y después el histograma
+    private static final int CREADOS = 0;
+    private static final int DESPACHADOS = 1;
+    private static final int CANCELADOS = 2;
+    private static final int HISTOGRAMA = 3;
+
+    private static final class Balde {
+        // Minuto (desde la época) al que pertenecen los datos; -1 = nunca se usó
+        volatile long minuto = -1;
+        final AtomicLongArray datos = new AtomicLongArray(HISTOGRAMA + HistogramaLogLineal.BALDES);
+    }
+
+    private final Balde[] baldes;
+
+    public VentanaTemporal(int capacidadMinutos) {
+        if (capacidadMinutos < 1) {
+            throw new IllegalArgumentException("capacidadMinutos debe ser mayor a 0");
+        }
+        baldes = new Balde[capacidadMinutos];
+        for (int i = 0; i < baldes.length; i++) {
+            baldes[i] = new Balde();
+        }
+    }
+
+    // Cuántos minutos hacia atrás se pueden consultar
+    public int capacidad() {
+        return baldes.length;
+    }
+
+    public void alCrear(long instanteMs) {
+        sumar(instanteMs, CREADOS);
+    }
+
+    public void alCancelar(long instanteMs) {
+        sumar(instanteMs, CANCELADOS);
+    }
+
+    // Despacho en "instanteMs" de un pedido que esperó "esperaMs"
+    public void alDespachar(long instanteMs, long esperaMs) {
+        AtomicLongArray datos = datosDe(instanteMs);
+        if (datos != null) {
+            datos.incrementAndGet(DESPACHADOS);
+            datos.incrementAndGet(HISTOGRAMA + HistogramaLogLineal.balde(esperaMs));
+        }
+    }
+
+    private void sumar(long instanteMs, int contador) {
+        AtomicLongArray datos = datosDe(instanteMs);
+        if (datos != null) {
+            datos.incrementAndGet(contador);
+        }
+    }
+
+    // Datos del balde del minuto del instante, reiniciándolo si todavía tiene los de un minuto
+    // anterior; null si el instante es más viejo que lo que el anillo guarda en ese lugar
+    private AtomicLongArray datosDe(long instanteMs) {
+        long minuto = Math.floorDiv(instanteMs, MS_POR_MINUTO);
+        Balde balde = baldes[(int) Math.floorMod(minuto, (long) baldes.length)];
+        if (balde.minuto != minuto) {
+            synchronized (balde) {
+                if (balde.minuto > minuto) {
+                    return null;
+                }
+                if (balde.minuto < minuto) {
+                    for (int i = 0; i < balde.datos.length(); i++) {
+                        balde.datos.set(i, 0);
+                    }
+                    // Recién ahora los demás hilos ven el minuto nuevo y escriben sin el candado
+                    balde.minuto = minuto;
+                }
+            }
+        }
+        return balde.datos;
+    }
+
+    // Lo registrado en los últimos "minutos" minutos, contando el minuto en curso de "ahoraMs"
+    public Resumen resumen(long ahoraMs, int minutos) {
+        if (minutos < 1 || minutos > baldes.length) {
+            throw new IllegalArgumentException("minutos debe estar entre 1 y " + baldes.length);
+        }
+        long actual = Math.floorDiv(ahoraMs, MS_POR_MINUTO);
+        long creados = 0;
+        long despachados = 0;
+        long cancelados = 0;
+        HistogramaLogLineal esperas = new HistogramaLogLineal();
+        for (long minuto = actual - minutos + 1; minuto <= actual; minuto++) {
+            Balde balde = baldes[(int) Math.floorMod(minuto, (long) baldes.length)];
+            if (balde.minuto != minuto) {
+                // Sin actividad en ese minuto (o ya lo ocupa otro)
+                continue;
+            }
+            AtomicLongArray datos = balde.datos;
+            creados += datos.get(CREADOS);
+            despachados += datos.get(DESPACHADOS);
+            cancelados += datos.get(CANCELADOS);
+            for (int i = 0; i < HistogramaLogLineal.BALDES; i++) {
+                long conteo = datos.get(HISTOGRAMA + i);
+                if (conteo != 0) {
+                    esperas.agregarEnBalde(i, conteo);
+                }
+            }
+        }
+        return new Resumen(minutos, creados, despachados, cancelados, esperas);
+    }
+
+    // Actividad de una ventana; los de la misma ventana en distintas particiones se suman
+    public static class Resumen {
+        private final int minutos;
+        private final long creados;
+        private final long despachados;
+        private final long cancelados;
+        private final HistogramaLogLineal esperas;
+
+        public Resumen(int minutos, long creados, long despachados, long cancelados, HistogramaLogLineal esperas) {
+            this.minutos = minutos;
+            this.creados = creados;
+            this.despachados = despachados;
+            this.cancelados = cancelados;
+            this.esperas = esperas;
+        }
+
+        public int minutos() { return minutos; }
+        public long creados() { return creados; }
+        public long despachados() { return despachados; }
+        public long cancelados() { return cancelados; }
+        // Tiempos hasta el despacho (ms) de los pedidos despachados en la ventana
+        public HistogramaLogLineal esperas() { return esperas; }
+
+        public Resumen sumar(Resumen otro) {
+            HistogramaLogLineal juntas = new HistogramaLogLineal();
+            juntas.sumar(esperas);
+            juntas.sumar(otro.esperas);
+            return new Resumen(minutos, creados + otro.creados, despachados + otro.despachados,
+                    cancelados + otro.cancelados, juntas);
+        }
+    }
+}
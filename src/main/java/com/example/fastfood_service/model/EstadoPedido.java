@@ -0,0 +1,68 @@
+package com.example.fastfood_service.model;
+
+import java.util.Arrays;
+
+// Estados de un pedido
+// Internamente se guardan como código de un byte; hacia afuera (JSON, log, parámetros) se usa el nombre
+// Los códigos quedan escritos en las instantáneas y en el archivo en frío, por eso son fijos
+public enum EstadoPedido {
+    REGISTRADO(0),
+    EN_PREPARACION(1),
+    DESPACHADO(2),
+    CANCELADO(3);
+
+    // Tamaño de las tablas indexadas por código (código más alto + 1)
+    public static final int CODIGOS = 4;
+
+    private static final EstadoPedido[] VALORES = values();
+    private static final EstadoPedido[] POR_CODIGO = new EstadoPedido[CODIGOS];
+
+    static {
+        for (EstadoPedido e : VALORES) {
+            POR_CODIGO[e.codigo] = e;
+        }
+    }
+
+    private final byte codigo;
+
+    EstadoPedido(int codigo) {
+        this.codigo = (byte) codigo;
+    }
+
+    // Un pedido pendiente es el que todavía debe estar en la cola
+    public boolean esPendiente() {
+        return this == REGISTRADO || this == EN_PREPARACION;
+    }
+
+    // Máquina de estados del pedido: REGISTRADO -> EN_PREPARACION -> DESPACHADO, y cualquier pendiente
+    // -> CANCELADO. DESPACHADO y CANCELADO son finales. (El rollback no pasa por aquí: deshace un paso.)
+    public boolean puedePasarA(EstadoPedido destino) {
+        return switch (this) {
+            case REGISTRADO -> destino != REGISTRADO;
+            case EN_PREPARACION -> destino == DESPACHADO || destino == CANCELADO;
+            case DESPACHADO, CANCELADO -> false;
+        };
+    }
+
+    public byte codigo() {
+        return codigo;
+    }
+
+    public static EstadoPedido deCodigo(byte codigo) {
+        EstadoPedido estado = codigo >= 0 && codigo < CODIGOS ? POR_CODIGO[codigo] : null;
+        if (estado == null) {
+            throw new IllegalArgumentException("Código de estado desconocido: " + codigo);
+        }
+        return estado;
+    }
+
+    // Convierte el nombre recibido; si no es un estado válido lanza IllegalArgumentException
+    public static EstadoPedido desde(String nombre) {
+        for (EstadoPedido e : VALORES) {
+            if (e.name().equals(nombre)) {
+                return e;
+            }
+        }
+        throw new IllegalArgumentException("estado debe ser uno de " + Arrays.toString(VALORES));
+    }
+}
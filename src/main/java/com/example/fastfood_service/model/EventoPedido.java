@@ -0,0 +1,17 @@
+package com.example.fastfood_service.model;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Evento de cambio de estado de un pedido, tal como se envía a las pantallas (SSE)
+// - id: número de secuencia dentro del arranque del servidor; el id SSE que sirve como Last-Event-ID
+//   para retomar le agrega la época del arranque adelante (EventosPedidos.idEvento)
+// - tipo: CREADO, EN_PREPARACION, CANCELADO, DESPACHADO, REVERTIDO o REINICIO (el cliente perdió eventos y debe recargar)
+// - operacionRevertida: solo en REVERTIDO (CREAR, PREPARAR, CANCELAR o DESPACHAR)
+// - pedido: copia del pedido en el momento del evento
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EventoPedido(
+        long id,
+        String tipo,
+        String operacionRevertida,
+        Pedido pedido
+) {
+}
@@ -1,27 +1,84 @@
 package com.example.fastfood_service.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
-// Se usa para poder deshacer (rollback) cambios, guardando el "antes" y el "después"
+import java.time.Instant;
+
+// Se usa para poder deshacer (rollback) cambios
+// Guarda solo lo que la operación cambió, no copias del pedido:
+// - CREAR: el id (deshacerla es quitar el pedido)
+// - CANCELAR y DESPACHAR: el id, el estado antes y después, y el valor que tenía el campo de tiempo
+//   que la operación pisó (canceladoEn o despachadoEn); el resto del pedido no cambia
+// - PREPARAR: el id y los estados (no pisa ningún campo de tiempo)
+// Tipo, id y estados van empaquetados en un solo long:
+//   [bits 0-31 id][32-39 estado antes][40-47 estado después][48-55 tipo]
+@JsonPropertyOrder({ "tipoOperacion", "idPedido", "estadoAntes", "estadoDespues", "partes" })
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class HistorialOperacion {
 
-    // Tipo de operación realizada: CREAR, CANCELAR, DESPACHAR
-    private String tipoOperacion;
+    // Tipos de operación, en el orden de su código
+    private static final String[] TIPOS = { "CREAR", "CANCELAR", "DESPACHAR", "DESPACHAR_LOTE", "PREPARAR" };
+
+    // Código de "sin estado" (el estado antes de CREAR)
+    private static final int SIN_ESTADO = 0xFF;
+
+    private final long datos;
+
+    // Milisegundos del tiempo pisado (0 = era null)
+    private final long instanteAnterior;
+
+    // Solo en operaciones compuestas (DESPACHAR_LOTE): los DESPACHAR que la forman, en orden de despacho
+    // Se revierten juntas en un solo rollback
+    private final HistorialOperacion[] partes;
+
+    // Operación simple sobre un pedido ("antes" es null en CREAR; "instanteAnterior" es el valor previo
+    // de canceladoEn en CANCELAR o de despachadoEn en DESPACHAR)
+    public HistorialOperacion(String tipoOperacion, int idPedido, EstadoPedido antes, EstadoPedido despues,
+                              Instant instanteAnterior) {
+        this.datos = empaquetar(codigo(tipoOperacion), idPedido, antes == null ? SIN_ESTADO : antes.codigo(),
+                despues.codigo());
+        this.instanteAnterior = instanteAnterior == null ? 0 : instanteAnterior.toEpochMilli();
+        this.partes = null;
+    }
 
-    private Pedido pedidoAntes;
+    // Operación compuesta por varias operaciones simples (su id es el de la primera)
+    public HistorialOperacion(String tipoOperacion, HistorialOperacion[] partes) {
+        this.datos = empaquetar(codigo(tipoOperacion), partes[0].getIdPedido(), SIN_ESTADO, SIN_ESTADO);
+        this.instanteAnterior = 0;
+        this.partes = partes;
+    }
 
-    private Pedido pedidoDespues;
+    private static long empaquetar(int tipo, int id, int antes, int despues) {
+        return (id & 0xFFFFFFFFL) | (long) (antes & 0xFF) << 32 | (long) (despues & 0xFF) << 40 | (long) tipo << 48;
+    }
 
-    public HistorialOperacion(String tipoOperacion, Pedido pedidoAntes, Pedido pedidoDespues) {
-        this.tipoOperacion = tipoOperacion;
-        this.pedidoAntes = pedidoAntes;
-        this.pedidoDespues = pedidoDespues;
+    private static int codigo(String tipoOperacion) {
+        for (int i = 0; i < TIPOS.length; i++) {
+            if (TIPOS[i].equals(tipoOperacion)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Tipo de operación desconocido: " + tipoOperacion);
     }
 
-    public String getTipoOperacion() { return tipoOperacion; }
-    public void setTipoOperacion(String tipoOperacion) { this.tipoOperacion = tipoOperacion; }
+    // Tipo de operación realizada: CREAR, CANCELAR, DESPACHAR, DESPACHAR_LOTE o PREPARAR
+    public String getTipoOperacion() { return TIPOS[(int) (datos >>> 48) & 0xFF]; }
+
+    public int getIdPedido() { return (int) datos; }
+
+    // null en CREAR y en las compuestas
+    public EstadoPedido getEstadoAntes() { return estado((int) (datos >>> 32) & 0xFF); }
 
-    public Pedido getPedidoAntes() { return pedidoAntes; }
-    public void setPedidoAntes(Pedido pedidoAntes) { this.pedidoAntes = pedidoAntes; }
+    // null en las compuestas
+    public EstadoPedido getEstadoDespues() { return estado((int) (datos >>> 40) & 0xFF); }
 
-    public Pedido getPedidoDespues() { return pedidoDespues; }
-    public void setPedidoDespues(Pedido pedidoDespues) { this.pedidoDespues = pedidoDespues; }
+    @JsonIgnore
+    public Instant getInstanteAnterior() { return instanteAnterior == 0 ? null : Instant.ofEpochMilli(instanteAnterior); }
+
+    public HistorialOperacion[] getPartes() { return partes; }
+
+    private static EstadoPedido estado(int codigo) {
+        return codigo == SIN_ESTADO ? null : EstadoPedido.deCodigo((byte) codigo);
+    }
 }
@@ -1,8 +1,10 @@
 package com.example.fastfood_service.model;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.time.Instant;
+
 // Indicamos el orden en que queremos que salgan los campos cuando se convierta a JSON
-@JsonPropertyOrder({ "id", "nombreCliente", "descripcion", "monto", "estado" })
+@JsonPropertyOrder({ "id", "nombreCliente", "descripcion", "monto", "canal", "estado", "creadoEn", "despachadoEn", "canceladoEn" })
 public class Pedido {
 
     private int id;
@@ -13,7 +15,17 @@ public class Pedido {
 
     private double monto;
 
-    private String estado;
+    // Canal de atención (EXPRESS, DELIVERY, MOSTRADOR...): decide en qué carril de la cola espera
+    private String canal;
+
+    // volatile: el estado se cambia bajo el candado del pedido pero se lee sin candado al listar
+    private volatile String estado;
+
+    // Cuándo se registró, despachó y canceló (null si todavía no pasó); los pone el servicio, con precisión
+    // de milisegundos. Un rollback devuelve también estos tiempos a como estaban.
+    private Instant creadoEn;
+    private volatile Instant despachadoEn;
+    private volatile Instant canceladoEn;
 
     public Pedido() {
     }
@@ -32,7 +44,11 @@ public class Pedido {
         this.nombreCliente = other.nombreCliente;
         this.descripcion = other.descripcion;
         this.monto = other.monto;
+        this.canal = other.canal;
         this.estado = other.estado;
+        this.creadoEn = other.creadoEn;
+        this.despachadoEn = other.despachadoEn;
+        this.canceladoEn = other.canceladoEn;
     }
 
     public int getId() { return id; }
@@ -47,6 +63,18 @@ public class Pedido {
     public double getMonto() { return monto; }
     public void setMonto(double monto) { this.monto = monto; }
 
+    public String getCanal() { return canal; }
+    public void setCanal(String canal) { this.canal = canal; }
+
     public String getEstado() { return estado; }
     public void setEstado(String estado) { this.estado = estado; }
+
+    public Instant getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(Instant creadoEn) { this.creadoEn = creadoEn; }
+
+    public Instant getDespachadoEn() { return despachadoEn; }
+    public void setDespachadoEn(Instant despachadoEn) { this.despachadoEn = despachadoEn; }
+
+    public Instant getCanceladoEn() { return canceladoEn; }
+    public void setCanceladoEn(Instant canceladoEn) { this.canceladoEn = canceladoEn; }
 }
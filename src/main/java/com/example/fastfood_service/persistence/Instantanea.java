@@ -0,0 +1,680 @@
+package com.example.fastfood_service.persistence;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.HistorialOperacion;
+import com.example.fastfood_service.model.Pedido;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Foto del estado completo de una partición en un momento dado: pedidos, orden de la cola, historial
+// y el próximo id, junto con la posición del log hasta la que llega. Al arrancar se carga la última
+// y solo se reproduce el log posterior, en vez de todo el log desde el principio.
+//
+// Para guardarla no se copian los pedidos: se recibe su cantidad y un recorrido que los entrega en
+// orden de id mientras se escribe (con el almacén, un PedidoStore.Corte, que los da tal como estaban
+// al tomarla). Al leerla los pedidos quedan en columnas.
+//
+// Formato del archivo "instantanea-{posición del log en hexadecimal}.snap":
+//   [int "PSN1"][int versión]
+//   cuerpo:
+//     [long posicionLog][int nextId][int cantidad]
+//     por pedido: [int id][byte estado][double monto][long creadoEn][long despachadoEn][long canceladoEn]
+//                 [texto nombreCliente][texto descripcion][texto canal]
+//       Con el bit 0x80 del estado (versión 2) es el registro de un segmento frío copiado tal cual: sus
+//       textos son literales, [int n] y n bytes UTF-8 (-1 = null), y no se numeran para repetirlos.
+//     [int n][n ids al frente de la cola][int n][n ids en los carriles]
+//     [int n][n operaciones del historial, de la más antigua a la más reciente]
+//       simple:    [byte tipo][int id][byte estado antes (-1 = ninguno)][byte estado después][long instanteAnterior]
+//       compuesta: [byte tipo][int partes][partes simples...]
+//   [long largo del cuerpo][int crc32c del cuerpo]
+// Instantes en milisegundos desde 1970 (0 = null). Un texto es [int n]: con n >= 0 siguen n bytes UTF-8
+// de un texto nuevo, -1 es null y n <= -2 repite el texto nuevo número -n-2 (los clientes y artículos
+// se repiten mucho: se decodifican una vez y los pedidos restaurados comparten el String)
+//
+// Se escribe con un canal a un archivo temporal que, ya sincronizado, se renombra: una instantánea
+// a medio escribir nunca tiene el nombre definitivo. Al leerla primero se verifica el CRC del cuerpo.
+public final class Instantanea {
+
+    private static final int MAGICO = 0x50534E31;
+    private static final int VERSION = 2;
+
+    // Marca en el estado de un registro copiado de un segmento frío
+    private static final int ARCHIVADO = 0x80;
+
+    // Instantáneas que se conservan: si la última no se puede leer se usa la anterior
+    // (el log se conserva desde la posición de la más vieja)
+    private static final int CONSERVADAS = 2;
+
+    private static final int TAMANO_BUFFER = 1 << 20;
+
+    // Textos distintos que se numeran para repetirlos (los demás se escriben completos cada vez)
+    private static final int TEXTOS_NUMERADOS = 1 << 16;
+
+    private static final String[] TIPOS = { "CREAR", "CANCELAR", "DESPACHAR", "DESPACHAR_LOTE", "PREPARAR" };
+
+    private final long posicionLog;
+    private final int nextId;
+    private final int cantidad;
+
+    // Al guardarla: los pedidos por escribir (null en una leída)
+    private final Recorrido recorrido;
+
+    // Al leerla: los pedidos en columnas, en el orden del archivo (null en una por guardar)
+    private final int[] ids;
+    private final byte[] estados;
+    private final double[] montos;
+    private final long[] creados;
+    private final long[] despachados;
+    private final long[] cancelados;
+    private final String[] clientes;
+    private final String[] descripciones;
+    private final String[] canales;
+
+    private final int[] alFrente;
+    private final int[] enCarriles;
+
+    // De la más antigua a la más reciente (las operaciones son inmutables: se comparten)
+    private final HistorialOperacion[] historial;
+
+    // Entrega los pedidos en orden de id, cada uno una vez: armados, o como el registro de un segmento
+    // frío (ver SegmentoFrio) para copiarlo sin decodificarlo
+    @FunctionalInterface
+    public interface Recorrido {
+        void recorrer(Consumer<Pedido> pedidos, Consumer<ByteBuffer> archivados);
+    }
+
+    // Para guardarla: "recorrido" tiene que entregar exactamente "cantidad" pedidos
+    // "historial" va de la más reciente a la más antigua, como lo devuelve HistorialStack.recientes
+    public Instantanea(long posicionLog, int nextId, int cantidad, Recorrido recorrido, int[] alFrente,
+                       int[] enCarriles, HistorialOperacion[] historial) {
+        this.posicionLog = posicionLog;
+        this.nextId = nextId;
+        this.cantidad = cantidad;
+        this.recorrido = recorrido;
+        this.ids = null;
+        this.estados = null;
+        this.montos = null;
+        this.creados = null;
+        this.despachados = null;
+        this.cancelados = null;
+        this.clientes = null;
+        this.descripciones = null;
+        this.canales = null;
+        this.alFrente = alFrente;
+        this.enCarriles = enCarriles;
+        this.historial = invertir(historial);
+    }
+
+    // Leída: las columnas ya cargadas
+    private Instantanea(long posicionLog, int nextId, Columnas columnas, int[] alFrente, int[] enCarriles,
+                        HistorialOperacion[] historial) {
+        this.posicionLog = posicionLog;
+        this.nextId = nextId;
+        this.cantidad = columnas.ids.length;
+        this.recorrido = null;
+        this.ids = columnas.ids;
+        this.estados = columnas.estados;
+        this.montos = columnas.montos;
+        this.creados = columnas.creados;
+        this.despachados = columnas.despachados;
+        this.cancelados = columnas.cancelados;
+        this.clientes = columnas.clientes;
+        this.descripciones = columnas.descripciones;
+        this.canales = columnas.canales;
+        this.alFrente = alFrente;
+        this.enCarriles = enCarriles;
+        this.historial = historial;
+    }
+
+    // Columnas de los pedidos mientras se leen
+    private static final class Columnas {
+        final int[] ids;
+        final byte[] estados;
+        final double[] montos;
+        final long[] creados;
+        final long[] despachados;
+        final long[] cancelados;
+        final String[] clientes;
+        final String[] descripciones;
+        final String[] canales;
+
+        Columnas(int cantidad) {
+            ids = new int[cantidad];
+            estados = new byte[cantidad];
+            montos = new double[cantidad];
+            creados = new long[cantidad];
+            despachados = new long[cantidad];
+            cancelados = new long[cantidad];
+            clientes = new String[cantidad];
+            descripciones = new String[cantidad];
+            canales = new String[cantidad];
+        }
+    }
+
+    private static HistorialOperacion[] invertir(HistorialOperacion[] ops) {
+        HistorialOperacion[] invertidas = new HistorialOperacion[ops.length];
+        for (int i = 0; i < ops.length; i++) {
+            invertidas[ops.length - 1 - i] = ops[i];
+        }
+        return invertidas;
+    }
+
+    // Posición del log hasta la que llega: al arrancar se reproduce solo lo posterior
+    public long posicionLog() {
+        return posicionLog;
+    }
+
+    public int nextId() {
+        return nextId;
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    // Arma el pedido i de una instantánea leída (un objeto nuevo en cada llamada)
+    public Pedido pedido(int i) {
+        Pedido p = new Pedido(ids[i], clientes[i], descripciones[i], montos[i], EstadoPedido.deCodigo(estados[i]).name());
+        p.setCanal(canales[i]);
+        p.setCreadoEn(instante(creados[i]));
+        p.setDespachadoEn(instante(despachados[i]));
+        p.setCanceladoEn(instante(cancelados[i]));
+        return p;
+    }
+
+    // Ids devueltos al frente de la cola, del próximo en salir al último
+    public int[] alFrente() {
+        return alFrente;
+    }
+
+    // Ids en los carriles, carril por carril en su orden
+    public int[] enCarriles() {
+        return enCarriles;
+    }
+
+    // Operaciones del historial, de la más antigua a la más reciente (en el orden en que se apilan)
+    public HistorialOperacion[] historial() {
+        return historial;
+    }
+
+    private static long milis(Instant instante) {
+        return instante == null ? 0 : instante.toEpochMilli();
+    }
+
+    private static Instant instante(long milis) {
+        return milis == 0 ? null : Instant.ofEpochMilli(milis);
+    }
+
+    // Guardar y cargar
+
+    // Escribe la instantánea en el directorio y borra las que ya no se conservan
+    // Devuelve la posición del log desde la que hay que conservarlo (la de la instantánea más vieja
+    // que quedó); lo anterior se puede borrar
+    public static long guardar(Path directorio, Instantanea instantanea) {
+        try {
+            Files.createDirectories(directorio);
+            Path destino = directorio.resolve(nombre(instantanea.posicionLog));
+            Path temporal = directorio.resolve(nombre(instantanea.posicionLog) + ".tmp");
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                instantanea.escribir(canal);
+                canal.force(true);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporal);
+                throw e;
+            }
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            List<Path> existentes = listar(directorio);
+            for (int i = CONSERVADAS; i < existentes.size(); i++) {
+                Files.deleteIfExists(existentes.get(i));
+            }
+            return posicionDe(existentes.get(Math.min(CONSERVADAS, existentes.size()) - 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // La instantánea más reciente que se pueda leer (null si no hay ninguna)
+    // Si hay instantáneas pero ninguna se puede leer, el log ya pudo haberse recortado: no se arranca
+    public static Instantanea cargarUltima(Path directorio) {
+        if (!Files.isDirectory(directorio)) {
+            return null;
+        }
+        List<Path> existentes;
+        try {
+            existentes = listar(directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Path archivo : existentes) {
+            try {
+                return leer(archivo);
+            } catch (IllegalStateException | UncheckedIOException e) {
+                System.getLogger(Instantanea.class.getName())
+                        .log(System.Logger.Level.WARNING, "No se pudo leer la instantánea " + archivo, e);
+            }
+        }
+        if (!existentes.isEmpty()) {
+            throw new IllegalStateException("No se pudo leer ninguna instantánea en " + directorio);
+        }
+        return null;
+    }
+
+    // Instantáneas del directorio, de la más reciente a la más vieja
+    private static List<Path> listar(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(p -> p.getFileName().toString().matches("instantanea-[0-9a-f]{16}\\.snap"))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        }
+    }
+
+    private static String nombre(long posicionLog) {
+        return String.format("instantanea-%016x.snap", posicionLog);
+    }
+
+    private static long posicionDe(Path archivo) {
+        return Long.parseUnsignedLong(archivo.getFileName().toString().substring(12, 28), 16);
+    }
+
+    private void escribir(FileChannel canal) throws IOException {
+        Escritor salida = new Escritor(canal);
+        salida.buffer.putInt(MAGICO);
+        salida.buffer.putInt(VERSION);
+        salida.empezarCuerpo();
+        salida.putLong(posicionLog);
+        salida.putInt(nextId);
+        salida.putInt(cantidad);
+        recorrido.recorrer(pedido -> {
+            try {
+                salida.putPedido(pedido);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, registro -> {
+            try {
+                salida.putRegistro(registro);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (salida.pedidos != cantidad) {
+            throw new IllegalStateException("La instantánea tenía " + cantidad + " pedidos y se recorrieron "
+                    + salida.pedidos);
+        }
+        salida.putIds(alFrente);
+        salida.putIds(enCarriles);
+        salida.putInt(historial.length);
+        for (HistorialOperacion op : historial) {
+            escribirOperacion(salida, op);
+        }
+        salida.terminar();
+    }
+
+    private static void escribirOperacion(Escritor salida, HistorialOperacion op) throws IOException {
+        salida.put(codigo(op.getTipoOperacion()));
+        if (op.getPartes() != null) {
+            salida.putInt(op.getPartes().length);
+            for (HistorialOperacion parte : op.getPartes()) {
+                escribirOperacion(salida, parte);
+            }
+            return;
+        }
+        salida.putInt(op.getIdPedido());
+        salida.put(op.getEstadoAntes() == null ? -1 : op.getEstadoAntes().codigo());
+        salida.put(op.getEstadoDespues().codigo());
+        salida.putLong(milis(op.getInstanteAnterior()));
+    }
+
+    static Instantanea leer(Path archivo) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            verificar(canal);
+            canal.position(0);
+            Lector entrada = new Lector(canal);
+            entrada.getInt();
+            entrada.getInt();
+            long posicionLog = entrada.getLong();
+            int nextId = entrada.getInt();
+            Columnas leidos = new Columnas(entrada.getInt());
+            for (int i = 0; i < leidos.ids.length; i++) {
+                leidos.ids[i] = entrada.getInt();
+                byte estado = entrada.get();
+                boolean literales = (estado & ARCHIVADO) != 0;
+                leidos.estados[i] = (byte) (estado & ~ARCHIVADO);
+                leidos.montos[i] = entrada.getDouble();
+                leidos.creados[i] = entrada.getLong();
+                leidos.despachados[i] = entrada.getLong();
+                leidos.cancelados[i] = entrada.getLong();
+                leidos.clientes[i] = literales ? entrada.getTextoLiteral() : entrada.getTexto();
+                leidos.descripciones[i] = literales ? entrada.getTextoLiteral() : entrada.getTexto();
+                leidos.canales[i] = literales ? entrada.getTextoLiteral() : entrada.getTexto();
+            }
+            int[] alFrente = entrada.getIds();
+            int[] enCarriles = entrada.getIds();
+            HistorialOperacion[] historial = new HistorialOperacion[entrada.getInt()];
+            for (int i = 0; i < historial.length; i++) {
+                historial[i] = leerOperacion(entrada);
+            }
+            return new Instantanea(posicionLog, nextId, leidos, alFrente, enCarriles, historial);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HistorialOperacion leerOperacion(Lector entrada) throws IOException {
+        String tipo = tipo(entrada.get());
+        if (tipo.equals("DESPACHAR_LOTE")) {
+            HistorialOperacion[] partes = new HistorialOperacion[entrada.getInt()];
+            for (int i = 0; i < partes.length; i++) {
+                partes[i] = leerOperacion(entrada);
+            }
+            return new HistorialOperacion(tipo, partes);
+        }
+        int id = entrada.getInt();
+        byte antes = entrada.get();
+        byte despues = entrada.get();
+        Instant instanteAnterior = instante(entrada.getLong());
+        return new HistorialOperacion(tipo, id, antes < 0 ? null : EstadoPedido.deCodigo(antes),
+                EstadoPedido.deCodigo(despues), instanteAnterior);
+    }
+
+    // Revisa cabecera, versión, largo y CRC antes de decodificar nada
+    private static void verificar(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        if (tamano < 8 + 8 + 12) {
+            throw new IllegalStateException("Instantánea incompleta");
+        }
+        ByteBuffer cabecera = ByteBuffer.allocate(8);
+        leerCompleto(canal, cabecera, 0);
+        if (cabecera.getInt(0) != MAGICO) {
+            throw new IllegalStateException("No es un archivo de instantánea");
+        }
+        // La versión 1 no tiene registros copiados de segmentos fríos: se lee igual
+        if (cabecera.getInt(4) != VERSION && cabecera.getInt(4) != 1) {
+            throw new IllegalStateException("Versión de instantánea no soportada: " + cabecera.getInt(4));
+        }
+        ByteBuffer cola = ByteBuffer.allocate(12);
+        leerCompleto(canal, cola, tamano - 12);
+        long largo = cola.getLong(0);
+        if (largo != tamano - 8 - 12) {
+            throw new IllegalStateException("Instantánea incompleta");
+        }
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        for (long posicion = 8; posicion < 8 + largo; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), 8 + largo - posicion));
+            leerCompleto(canal, buffer, posicion);
+            posicion += buffer.limit();
+            crc.update(buffer);
+        }
+        if ((int) crc.getValue() != cola.getInt(8)) {
+            throw new IllegalStateException("CRC inválido en la instantánea");
+        }
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            int leidos = canal.read(buffer, posicion);
+            if (leidos < 0) {
+                throw new IllegalStateException("Instantánea incompleta");
+            }
+            posicion += leidos;
+        }
+        buffer.flip();
+    }
+
+    private static byte codigo(String tipo) {
+        for (int i = 0; i < TIPOS.length; i++) {
+            if (TIPOS[i].equals(tipo)) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Tipo de operación desconocido: " + tipo);
+    }
+
+    private static String tipo(byte codigo) {
+        if (codigo < 0 || codigo >= TIPOS.length) {
+            throw new IllegalStateException("Tipo de operación desconocido en la instantánea: " + codigo);
+        }
+        return TIPOS[codigo];
+    }
+
+    // Escritura con un buffer: el CRC se calcula sobre lo que se va bajando al canal
+    private static final class Escritor {
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> textos = new HashMap<>();
+
+        // Dónde empieza el cuerpo dentro del buffer actual (-1 si todavía no empezó) y cuánto lleva
+        private int inicioCuerpo = -1;
+        private long largoCuerpo;
+
+        // Pedidos escritos
+        private int pedidos;
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void empezarCuerpo() {
+            inicioCuerpo = buffer.position();
+        }
+
+        void put(byte b) throws IOException {
+            asegurar(1);
+            buffer.put(b);
+        }
+
+        void putInt(int v) throws IOException {
+            asegurar(4);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            asegurar(8);
+            buffer.putLong(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            asegurar(8);
+            buffer.putDouble(v);
+        }
+
+        void putTexto(String texto) throws IOException {
+            if (texto == null) {
+                putInt(-1);
+                return;
+            }
+            Integer numero = textos.get(texto);
+            if (numero != null) {
+                putInt(-2 - numero);
+                return;
+            }
+            if (textos.size() < TEXTOS_NUMERADOS) {
+                textos.put(texto, textos.size());
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int escritos = 0; escritos < bytes.length; ) {
+                asegurar(1);
+                int n = Math.min(buffer.remaining(), bytes.length - escritos);
+                buffer.put(bytes, escritos, n);
+                escritos += n;
+            }
+        }
+
+        void putPedido(Pedido p) throws IOException {
+            putInt(p.getId());
+            put(EstadoPedido.desde(p.getEstado()).codigo());
+            putDouble(p.getMonto());
+            putLong(milis(p.getCreadoEn()));
+            putLong(milis(p.getDespachadoEn()));
+            putLong(milis(p.getCanceladoEn()));
+            putTexto(p.getNombreCliente());
+            putTexto(p.getDescripcion());
+            putTexto(p.getCanal());
+            pedidos++;
+        }
+
+        // El registro de un segmento frío tal cual (mismo formato, textos literales), marcado en el estado
+        void putRegistro(ByteBuffer registro) throws IOException {
+            putInt(registro.getInt(0));
+            put((byte) (registro.get(4) | ARCHIVADO));
+            for (int escritos = 5; escritos < registro.limit(); ) {
+                asegurar(1);
+                int n = Math.min(buffer.remaining(), registro.limit() - escritos);
+                buffer.put(registro.slice(escritos, n));
+                escritos += n;
+            }
+            pedidos++;
+        }
+
+        void putIds(int[] ids) throws IOException {
+            putInt(ids.length);
+            for (int id : ids) {
+                putInt(id);
+            }
+        }
+
+        // Cierra el cuerpo y escribe el largo y el CRC
+        void terminar() throws IOException {
+            bajar();
+            inicioCuerpo = -1;
+            buffer.putLong(largoCuerpo);
+            buffer.putInt((int) crc.getValue());
+            bajar();
+        }
+
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                bajar();
+            }
+        }
+
+        // Baja el buffer al canal, sumando al CRC la parte que es cuerpo
+        private void bajar() throws IOException {
+            buffer.flip();
+            if (inicioCuerpo >= 0) {
+                ByteBuffer cuerpo = buffer.duplicate().position(inicioCuerpo);
+                largoCuerpo += cuerpo.remaining();
+                crc.update(cuerpo);
+                inicioCuerpo = 0;
+            }
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Lectura con un buffer que se rellena del canal (el CRC ya se verificó)
+    private static final class Lector {
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        private final List<String> textos = new ArrayList<>();
+
+        Lector(FileChannel canal) {
+            this.canal = canal;
+            buffer.limit(0);
+        }
+
+        byte get() throws IOException {
+            asegurar(1);
+            return buffer.get();
+        }
+
+        int getInt() throws IOException {
+            asegurar(4);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            asegurar(8);
+            return buffer.getLong();
+        }
+
+        double getDouble() throws IOException {
+            asegurar(8);
+            return buffer.getDouble();
+        }
+
+        String getTexto() throws IOException {
+            int largo = getInt();
+            if (largo == -1) {
+                return null;
+            }
+            if (largo < -1) {
+                int numero = -largo - 2;
+                if (numero >= textos.size()) {
+                    throw new IllegalStateException("Texto repetido inexistente en la instantánea");
+                }
+                return textos.get(numero);
+            }
+            String texto = getTexto(largo);
+            if (textos.size() < TEXTOS_NUMERADOS) {
+                textos.add(texto);
+            }
+            return texto;
+        }
+
+        // Un texto de un registro copiado de un segmento frío: no lleva número
+        String getTextoLiteral() throws IOException {
+            int largo = getInt();
+            return largo < 0 ? null : getTexto(largo);
+        }
+
+        private String getTexto(int largo) throws IOException {
+            byte[] bytes = new byte[largo];
+            for (int leidos = 0; leidos < largo; ) {
+                asegurar(1);
+                int n = Math.min(buffer.remaining(), largo - leidos);
+                buffer.get(bytes, leidos, n);
+                leidos += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int[] getIds() throws IOException {
+            int[] ids = new int[getInt()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = getInt();
+            }
+            return ids;
+        }
+
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (canal.read(buffer) < 0) {
+                    throw new IllegalStateException("Instantánea incompleta");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.fastfood_service.persistence;
+
+// Cuándo se considera escrita una operación del log
+public enum ModoDurabilidad {
+
+    // Solo se copia al archivo mapeado: sobrevive a una caída del proceso, no a un corte de energía
+    NINGUNO,
+
+    // Commit en grupo: la petición espera a que un fsync cubra su registro, pero un solo fsync
+    // sirve a todas las peticiones que escribieron mientras el anterior estaba en curso
+    GRUPO,
+
+    // Cada operación hace su propio fsync antes de responder
+    SINCRONO
+}
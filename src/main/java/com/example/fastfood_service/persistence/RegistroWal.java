@@ -0,0 +1,20 @@
+package com.example.fastfood_service.persistence;
+
+// Un registro leído del log: qué operación fue y sobre qué pedido
+// - CREAR trae todos los datos del pedido
+// - DESPACHAR_LOTE trae en "lote" los ids despachados, en orden (id es el primero)
+// - ROLLBACK trae en "tipoRevertido" la operación que se deshizo
+// - CREAR, PREPARAR, CANCELAR, DESPACHAR y DESPACHAR_LOTE traen en "instante" cuándo ocurrieron (milisegundos
+//   desde 1970; 0 en los registros escritos antes de que se guardara)
+public record RegistroWal(
+        String tipo,
+        int id,
+        String nombreCliente,
+        String descripcion,
+        double monto,
+        String canal,
+        String tipoRevertido,
+        int[] lote,
+        long instante
+) {
+}
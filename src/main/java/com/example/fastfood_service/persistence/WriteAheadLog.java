@@ -0,0 +1,463 @@
+package com.example.fastfood_service.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Log de operaciones de solo-agregar (write-ahead log) en segmentos mapeados en memoria
+//
+// Cada segmento es un archivo de tamaño fijo "wal-00000001.seg". Los registros se escriben uno tras otro:
+//   [int longitud][int crc32c][byte tipo][datos...]
+// (CREAR: id, monto, cliente, descripción, canal e instante; los textos van como [int largo][bytes UTF-8])
+// Los campos nuevos se agregan siempre al final del registro: al leer, un registro más corto es de una
+// versión anterior y lo que le falta toma su valor por defecto.
+// Una longitud 0 marca el final (los archivos nuevos vienen llenos de ceros). Si un registro no cabe
+// en el segmento actual, se sincroniza ese segmento y se abre el siguiente.
+//
+// Al arrancar se leen todos los segmentos en orden; un registro con CRC inválido (escritura cortada
+// por una caída) marca el final del log y lo que sigue se descarta.
+// Con instantáneas (ver Instantanea) solo se reproduce lo posterior a la última, y los segmentos que
+// quedaron completamente antes de ella se borran.
+public class WriteAheadLog implements Closeable {
+
+    private static final byte CREAR = 1;
+    private static final byte CANCELAR = 2;
+    private static final byte DESPACHAR = 3;
+    private static final byte ROLLBACK = 4;
+    private static final byte DESPACHAR_LOTE = 5;
+    private static final byte PREPARAR = 6;
+
+    // longitud + crc
+    private static final int CABECERA = 8;
+
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final ModoDurabilidad modo;
+
+    // Candado de escritura: solo protege copiar bytes al segmento (muy corto)
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    // Número y contenido del segmento donde se está escribiendo
+    private int numeroSegmento;
+    private FileChannel canal;
+    private volatile MappedByteBuffer segmento;
+    private int offset;
+
+    // Posición lógica (segmento * tamaño + offset) del final del último registro escrito
+    private volatile long posicionEscrita;
+
+    // Commit en grupo: hasta dónde está sincronizado y si ya hay un hilo haciendo fsync
+    private final ReentrantLock durabilidad = new ReentrantLock();
+    private final Condition sincronizado = durabilidad.newCondition();
+    private long posicionDurable;
+    private boolean sincronizando;
+
+    private final CRC32C crc = new CRC32C();
+
+    public WriteAheadLog(Path directorio, int tamanoSegmento, ModoDurabilidad modo) {
+        if (tamanoSegmento < 1024) {
+            throw new IllegalArgumentException("tamanoSegmento debe ser de al menos 1024 bytes");
+        }
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        this.modo = modo;
+        try {
+            Files.createDirectories(directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lee todos los registros válidos en orden y deja el log listo para seguir escribiendo al final
+    // Debe llamarse una vez, antes de la primera escritura
+    public void reproducir(Consumer<RegistroWal> consumidor) {
+        reproducir(0, consumidor);
+    }
+
+    // Igual, pero solo entrega los registros que terminan después de "desde" (la posición guardada
+    // en una instantánea: lo anterior ya está en ella)
+    public void reproducir(long desde, Consumer<RegistroWal> consumidor) {
+        try {
+            List<Path> segmentos = listarSegmentos();
+            boolean cortado = false;
+            for (Path archivo : segmentos) {
+                if (cortado) {
+                    // Después de un registro dañado nada es confiable
+                    Files.delete(archivo);
+                    continue;
+                }
+                if (canal != null) {
+                    canal.close();
+                }
+                abrirSegmento(numeroDe(archivo));
+                offset = 0;
+                while (true) {
+                    RegistroWal registro = leerSiguiente();
+                    if (registro == null) {
+                        break;
+                    }
+                    if (posicion() > desde) {
+                        consumidor.accept(registro);
+                    }
+                }
+                if (offset < tamanoSegmento && segmento.getInt(offset) != 0) {
+                    // Registro incompleto o con CRC inválido: limpiamos el resto del segmento
+                    cortado = true;
+                    for (int i = offset; i < tamanoSegmento; i++) {
+                        segmento.put(i, (byte) 0);
+                    }
+                    segmento.force();
+                }
+            }
+            if (segmento == null) {
+                abrirSegmento(1);
+                offset = 0;
+            }
+            if (posicion() < desde) {
+                // Se perdió la cola del log (corte de energía sin fsync) pero la instantánea ya la tenía:
+                // seguimos en un segmento nuevo, después de su posición, para no escribir registros que
+                // la próxima recuperación saltearía
+                canal.close();
+                abrirSegmento((int) (desde / tamanoSegmento) + 1);
+                offset = 0;
+            }
+            posicionEscrita = posicion();
+            posicionDurable = posicionEscrita;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // "instante" es cuándo ocurrió la operación, en milisegundos desde 1970
+    public long registrarCrear(int id, String nombreCliente, String descripcion, double monto, String canal,
+                               long instante) {
+        byte[] cliente = nombreCliente.getBytes(StandardCharsets.UTF_8);
+        byte[] desc = descripcion.getBytes(StandardCharsets.UTF_8);
+        byte[] carril = (canal == null ? "" : canal).getBytes(StandardCharsets.UTF_8);
+        int longitud = 1 + 4 + 8 + 4 + cliente.length + 4 + desc.length + 4 + carril.length + 8;
+        escritura.lock();
+        try {
+            int inicio = reservar(longitud);
+            segmento.put(inicio, CREAR);
+            segmento.putInt(inicio + 1, id);
+            segmento.putDouble(inicio + 5, monto);
+            segmento.putInt(inicio + 13, cliente.length);
+            segmento.put(inicio + 17, cliente);
+            segmento.putInt(inicio + 17 + cliente.length, desc.length);
+            segmento.put(inicio + 21 + cliente.length, desc);
+            segmento.putInt(inicio + 21 + cliente.length + desc.length, carril.length);
+            segmento.put(inicio + 25 + cliente.length + desc.length, carril);
+            segmento.putLong(inicio + 25 + cliente.length + desc.length + carril.length, instante);
+            return confirmar(inicio, longitud);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public long registrarCancelar(int id, long instante) {
+        return registrarSimple(CANCELAR, id, instante);
+    }
+
+    public long registrarPreparar(int id, long instante) {
+        return registrarSimple(PREPARAR, id, instante);
+    }
+
+    public long registrarDespachar(int id, long instante) {
+        return registrarSimple(DESPACHAR, id, instante);
+    }
+
+    // Un despacho por lotes es un solo registro con todos los ids, en orden de despacho
+    public long registrarDespacharLote(int[] ids, long instante) {
+        int longitud = 1 + 4 + 4 + 4 * ids.length + 8;
+        escritura.lock();
+        try {
+            int inicio = reservar(longitud);
+            segmento.put(inicio, DESPACHAR_LOTE);
+            segmento.putInt(inicio + 1, ids[0]);
+            segmento.putInt(inicio + 5, ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                segmento.putInt(inicio + 9 + 4 * i, ids[i]);
+            }
+            segmento.putLong(inicio + 9 + 4 * ids.length, instante);
+            return confirmar(inicio, longitud);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public long registrarRollback(String tipoRevertido, int id) {
+        escritura.lock();
+        try {
+            int inicio = reservar(6);
+            segmento.put(inicio, ROLLBACK);
+            segmento.putInt(inicio + 1, id);
+            segmento.put(inicio + 5, codigo(tipoRevertido));
+            return confirmar(inicio, 6);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private long registrarSimple(byte tipo, int id, long instante) {
+        escritura.lock();
+        try {
+            int inicio = reservar(13);
+            segmento.put(inicio, tipo);
+            segmento.putInt(inicio + 1, id);
+            segmento.putLong(inicio + 5, instante);
+            return confirmar(inicio, 13);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Espera (según el modo de durabilidad) a que el registro que termina en "posicion" esté en disco
+    // Se llama DESPUÉS de soltar los candados del pedido, para no bloquear a nadie durante el fsync
+    public void esperarDurable(long posicion) {
+        if (modo == ModoDurabilidad.NINGUNO) {
+            return;
+        }
+        if (modo == ModoDurabilidad.SINCRONO) {
+            sincronizar();
+            return;
+        }
+        durabilidad.lock();
+        try {
+            while (posicionDurable < posicion) {
+                if (sincronizando) {
+                    // Otro hilo está haciendo fsync; al terminar revisamos si también cubrió lo nuestro
+                    sincronizado.awaitUninterruptibly();
+                    continue;
+                }
+                // Nos toca ser el líder del grupo: un fsync para todo lo escrito hasta ahora
+                sincronizando = true;
+                long objetivo = posicionEscrita;
+                durabilidad.unlock();
+                try {
+                    sincronizar();
+                } finally {
+                    durabilidad.lock();
+                    sincronizando = false;
+                }
+                posicionDurable = Math.max(posicionDurable, objetivo);
+                sincronizado.signalAll();
+            }
+        } finally {
+            durabilidad.unlock();
+        }
+    }
+
+    // Posición del final del último registro escrito (lo que una instantánea tomada ahora ya incluye)
+    public long posicionActual() {
+        return posicionEscrita;
+    }
+
+    // Borra los segmentos que terminan antes de "posicion": todo lo que tienen ya está en una instantánea
+    public void descartarAntesDe(long posicion) {
+        long primero = posicion / tamanoSegmento;
+        int actual;
+        escritura.lock();
+        try {
+            actual = numeroSegmento;
+        } finally {
+            escritura.unlock();
+        }
+        try {
+            for (Path archivo : listarSegmentos()) {
+                int numero = numeroDe(archivo);
+                if (numero < primero && numero < actual) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Los segmentos anteriores ya se sincronizaron al cambiar de segmento,
+    // así que basta con sincronizar el actual
+    private void sincronizar() {
+        segmento.force();
+    }
+
+    @Override
+    public void close() {
+        escritura.lock();
+        try {
+            if (canal != null) {
+                segmento.force();
+                canal.close();
+                canal = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Reserva espacio para un registro y devuelve el offset donde empiezan sus datos
+    private int reservar(int longitud) {
+        if (CABECERA + longitud + 4 > tamanoSegmento) {
+            throw new IllegalArgumentException("Registro demasiado grande para el segmento del log");
+        }
+        // Dejamos siempre 4 bytes en cero al final para que la lectura encuentre el fin del segmento
+        if (offset + CABECERA + longitud + 4 > tamanoSegmento) {
+            try {
+                // El segmento lleno se sincroniza antes de pasar al siguiente
+                segmento.force();
+                canal.close();
+                abrirSegmento(numeroSegmento + 1);
+                offset = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return offset + CABECERA;
+    }
+
+    // Calcula el CRC de los datos y escribe la longitud al final, cuando el registro ya está completo
+    private long confirmar(int inicio, int longitud) {
+        crc.reset();
+        crc.update(segmento.slice(inicio, longitud));
+        segmento.putInt(offset + 4, (int) crc.getValue());
+        segmento.putInt(offset, longitud);
+        offset = inicio + longitud;
+        long posicion = posicion();
+        posicionEscrita = posicion;
+        return posicion;
+    }
+
+    private long posicion() {
+        return (long) numeroSegmento * tamanoSegmento + offset;
+    }
+
+    private RegistroWal leerSiguiente() {
+        if (offset + CABECERA > tamanoSegmento) {
+            return null;
+        }
+        int longitud = segmento.getInt(offset);
+        if (longitud <= 0 || offset + CABECERA + longitud > tamanoSegmento) {
+            return null;
+        }
+        int inicio = offset + CABECERA;
+        crc.reset();
+        crc.update(segmento.slice(inicio, longitud));
+        if ((int) crc.getValue() != segmento.getInt(offset + 4)) {
+            return null;
+        }
+        RegistroWal registro = decodificar(inicio, longitud);
+        offset = inicio + longitud;
+        return registro;
+    }
+
+    private RegistroWal decodificar(int inicio, int longitud) {
+        byte tipo = segmento.get(inicio);
+        int id = segmento.getInt(inicio + 1);
+        switch (tipo) {
+            case CREAR: {
+                double monto = segmento.getDouble(inicio + 5);
+                int largoCliente = segmento.getInt(inicio + 13);
+                String cliente = leerTexto(inicio + 17, largoCliente);
+                int largoDesc = segmento.getInt(inicio + 17 + largoCliente);
+                String desc = leerTexto(inicio + 21 + largoCliente, largoDesc);
+                // Los registros escritos antes de que existieran los canales terminan aquí
+                String canal = null;
+                long instante = 0;
+                int finDesc = 21 + largoCliente + largoDesc;
+                if (longitud > finDesc) {
+                    int largoCanal = segmento.getInt(inicio + finDesc);
+                    canal = largoCanal == 0 ? null : leerTexto(inicio + finDesc + 4, largoCanal);
+                    instante = leerInstante(inicio, longitud, finDesc + 4 + largoCanal);
+                }
+                return new RegistroWal("CREAR", id, cliente, desc, monto, canal, null, null, instante);
+            }
+            case CANCELAR:
+                return new RegistroWal("CANCELAR", id, null, null, 0.0, null, null, null, leerInstante(inicio, longitud, 5));
+            case DESPACHAR:
+                return new RegistroWal("DESPACHAR", id, null, null, 0.0, null, null, null, leerInstante(inicio, longitud, 5));
+            case PREPARAR:
+                return new RegistroWal("PREPARAR", id, null, null, 0.0, null, null, null, leerInstante(inicio, longitud, 5));
+            case DESPACHAR_LOTE: {
+                int[] lote = new int[segmento.getInt(inicio + 5)];
+                for (int i = 0; i < lote.length; i++) {
+                    lote[i] = segmento.getInt(inicio + 9 + 4 * i);
+                }
+                return new RegistroWal("DESPACHAR_LOTE", id, null, null, 0.0, null, null, lote,
+                        leerInstante(inicio, longitud, 9 + 4 * lote.length));
+            }
+            case ROLLBACK:
+                return new RegistroWal("ROLLBACK", id, null, null, 0.0, null, nombre(segmento.get(inicio + 5)), null, 0);
+            default:
+                throw new IllegalStateException("Tipo de registro desconocido en el log: " + tipo);
+        }
+    }
+
+    // El instante guardado en "desplazamiento" dentro del registro, o 0 si el registro termina antes
+    private long leerInstante(int inicio, int longitud, int desplazamiento) {
+        return longitud >= desplazamiento + 8 ? segmento.getLong(inicio + desplazamiento) : 0;
+    }
+
+    private String leerTexto(int desde, int largo) {
+        byte[] bytes = new byte[largo];
+        segmento.get(desde, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte codigo(String tipo) {
+        switch (tipo) {
+            case "CREAR": return CREAR;
+            case "CANCELAR": return CANCELAR;
+            case "DESPACHAR": return DESPACHAR;
+            case "DESPACHAR_LOTE": return DESPACHAR_LOTE;
+            case "PREPARAR": return PREPARAR;
+            default: throw new IllegalArgumentException("Tipo de operación desconocido: " + tipo);
+        }
+    }
+
+    private static String nombre(byte codigo) {
+        switch (codigo) {
+            case CREAR: return "CREAR";
+            case CANCELAR: return "CANCELAR";
+            case DESPACHAR: return "DESPACHAR";
+            case DESPACHAR_LOTE: return "DESPACHAR_LOTE";
+            case PREPARAR: return "PREPARAR";
+            default: throw new IllegalStateException("Tipo de operación desconocido en el log: " + codigo);
+        }
+    }
+
+    private void abrirSegmento(int numero) throws IOException {
+        Path archivo = directorio.resolve(String.format("wal-%08d.seg", numero));
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmento = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento);
+        numeroSegmento = numero;
+    }
+
+    private List<Path> listarSegmentos() throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.filter(p -> p.getFileName().toString().matches("wal-\\d{8}\\.seg"))
+                    .sorted()
+                    .forEach(segmentos::add);
+        }
+        return segmentos;
+    }
+
+    private static int numeroDe(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        return Integer.parseInt(nombre.substring(4, 12));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.datastructures.SpaceSavingSketch;
+import com.example.fastfood_service.service.PedidoService.ArticuloTop;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Artículos más vendidos, a partir del texto libre de "descripcion"
+// Cuenta los pedidos vigentes (los cancelados y las creaciones revertidas se restan) y su
+// monto, en memoria acotada: un Space-Saving con Count-Min en lugar de un mapa por descripción.
+class AnaliticaMenu {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Largo máximo de una descripción normalizada
+    private static final int LARGO_MAXIMO = 120;
+
+    private final SpaceSavingSketch vendidos;
+
+    AnaliticaMenu(int capacidad, int ancho, int profundidad) {
+        this.vendidos = new SpaceSavingSketch(capacidad, ancho, profundidad);
+    }
+
+    // Se vendió (o volvió a estar vigente) un pedido
+    void alVender(String descripcion, double monto) {
+        vendidos.sumar(normalizar(descripcion), 1, monto);
+    }
+
+    // Se vendieron "cantidad" pedidos de la misma descripción por "monto" en total (al restaurar
+    // una instantánea: se normaliza una vez por descripción y no una por pedido)
+    void alVender(String descripcion, int cantidad, double monto) {
+        vendidos.sumar(normalizar(descripcion), cantidad, monto);
+    }
+
+    // Se canceló un pedido o se revirtió su creación
+    void alAnular(String descripcion, double monto) {
+        vendidos.sumar(normalizar(descripcion), -1, monto);
+    }
+
+    int capacidad() {
+        return vendidos.capacidad();
+    }
+
+    // Los artículos que quedaron sin pedidos vigentes no se muestran
+    List<ArticuloTop> top(int k) {
+        return vendidos.top(k).stream()
+                .filter(e -> e.conteo() > 0)
+                .map(e -> new ArticuloTop(e.clave(), e.conteo(), e.error(), e.peso()))
+                .toList();
+    }
+
+    // "  Hamburguesa DOBLE, con papás!" -> "hamburguesa doble con papas"
+    static String normalizar(String descripcion) {
+        String sinAcentos = ACENTOS.matcher(Normalizer.normalize(descripcion, Normalizer.Form.NFD)).replaceAll("");
+        String texto = SEPARADORES.matcher(sinAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return texto.length() > LARGO_MAXIMO ? texto.substring(0, LARGO_MAXIMO) : texto;
+    }
+}
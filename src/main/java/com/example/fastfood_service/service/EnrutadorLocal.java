@@ -0,0 +1,84 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+// Todas las particiones en este proceso: la principal (el PedidoService de Spring) y un PedidoService
+// propio por cada sucursal de "pedidos.sucursales.ids"
+//
+// El mapa se arma al arrancar y después solo se lee, así que buscar una partición no toma candados.
+@Component
+public class EnrutadorLocal implements EnrutadorSucursales {
+
+    // Los ids también son nombres de carpeta (el log de cada sucursal) y parte de la URL
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Map<String, ParticionPedidos> particiones = new LinkedHashMap<>();
+
+    // Las que creamos acá (la principal la cierra Spring)
+    private final List<PedidoService> propias = new ArrayList<>();
+
+    public EnrutadorLocal(PedidoService principal, PedidosProperties propiedades, MeterRegistry registroMetricas) {
+        particiones.put(PedidoService.SUCURSAL_PRINCIPAL, principal);
+        try {
+            for (String id : propiedades.getSucursales().getIds()) {
+                if (id == null || !ID_VALIDO.matcher(id).matches()) {
+                    throw new IllegalArgumentException("Id de sucursal inválido: " + id);
+                }
+                if (particiones.containsKey(id)) {
+                    throw new IllegalArgumentException("Sucursal repetida: " + id);
+                }
+                PedidoService servicio = new PedidoService(propiedades, registroMetricas, id);
+                propias.add(servicio);
+                particiones.put(id, servicio);
+            }
+        } catch (RuntimeException e) {
+            // No dejamos logs abiertos si la configuración es inválida
+            cerrarPropias();
+            throw e;
+        }
+    }
+
+    // Las tareas periódicas de cada sucursal arrancan con el enrutador ya construido, como las de la principal
+    @PostConstruct
+    public void iniciar() {
+        for (PedidoService servicio : propias) {
+            servicio.iniciar();
+        }
+    }
+
+    @Override
+    public ParticionPedidos particion(String sucursal) {
+        ParticionPedidos particion = particiones.get(sucursal);
+        if (particion == null) {
+            throw new NoSuchElementException("Sucursal no encontrada");
+        }
+        return particion;
+    }
+
+    @Override
+    public List<String> sucursales() {
+        return List.copyOf(particiones.keySet());
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        cerrarPropias();
+    }
+
+    private void cerrarPropias() {
+        for (PedidoService servicio : propias) {
+            servicio.cerrar();
+        }
+    }
+}
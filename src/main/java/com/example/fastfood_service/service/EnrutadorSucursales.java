@@ -0,0 +1,17 @@
+package com.example.fastfood_service.service;
+
+import java.util.List;
+
+// Dice dónde está la partición de cada sucursal
+//
+// Los controllers y las estadísticas globales solo hablan con particiones a través de esta interfaz.
+// Hoy todas viven en este proceso (EnrutadorLocal); para repartirlas entre nodos alcanza con otra
+// implementación que devuelva, para las sucursales de otro nodo, una ParticionPedidos remota.
+public interface EnrutadorSucursales {
+
+    // La partición de la sucursal; si no existe lanza NoSuchElementException
+    ParticionPedidos particion(String sucursal);
+
+    // Todas las sucursales, empezando por la principal
+    List<String> sucursales();
+}
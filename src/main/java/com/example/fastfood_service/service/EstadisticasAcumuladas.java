@@ -0,0 +1,71 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.datastructures.StripedCompensatedSum;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Estadísticas que se actualizan en cada operación (crear, preparar, cancelar, despachar y rollbacks)
+// en lugar de recorrer todos los pedidos en cada consulta.
+// Los contadores son LongAdder y los montos sumas compensadas repartidas por hilo,
+// así que actualizar no compite entre cajas y leer cuesta lo mismo con 10 o con 1 millón de pedidos.
+class EstadisticasAcumuladas {
+
+    private final LongAdder totalPedidos = new LongAdder();
+    private final LongAdder registrados = new LongAdder();
+    private final LongAdder enPreparacion = new LongAdder();
+    private final LongAdder despachados = new LongAdder();
+    private final LongAdder cancelados = new LongAdder();
+    private final StripedCompensatedSum totalMonto = new StripedCompensatedSum();
+    private final StripedCompensatedSum totalMontoSinCancelados = new StripedCompensatedSum();
+
+    // Se agregó un pedido a la lista con el estado indicado
+    void alAgregar(double monto, EstadoPedido estado) {
+        totalPedidos.increment();
+        totalMonto.add(monto);
+        sumarEstado(monto, estado, 1);
+    }
+
+    // Se quitó un pedido de la lista (rollback de CREAR)
+    void alQuitar(double monto, EstadoPedido estado) {
+        totalPedidos.decrement();
+        totalMonto.add(-monto);
+        sumarEstado(monto, estado, -1);
+    }
+
+    // Un pedido pasó de un estado a otro
+    void alCambiarEstado(double monto, EstadoPedido antes, EstadoPedido despues) {
+        sumarEstado(monto, antes, -1);
+        sumarEstado(monto, despues, 1);
+    }
+
+    private void sumarEstado(double monto, EstadoPedido estado, int signo) {
+        if (estado != EstadoPedido.CANCELADO) {
+            totalMontoSinCancelados.add(signo * monto);
+        }
+        // Contamos según el estado
+        contadorDe(estado).add(signo);
+    }
+
+    private LongAdder contadorDe(EstadoPedido estado) {
+        return switch (estado) {
+            case REGISTRADO -> registrados;
+            case EN_PREPARACION -> enPreparacion;
+            case DESPACHADO -> despachados;
+            case CANCELADO -> cancelados;
+        };
+    }
+
+    EstadisticasPedidos leer() {
+        return new EstadisticasPedidos(
+                totalPedidos.intValue(),
+                totalMonto.sum(),
+                totalMontoSinCancelados.sum(),
+                registrados.intValue(),
+                enPreparacion.intValue(),
+                despachados.intValue(),
+                cancelados.intValue()
+        );
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.model.EventoPedido;
+import com.example.fastfood_service.model.Pedido;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Difusión de eventos de pedidos a muchos suscriptores (pantallas de cocina y de retiro)
+//
+// Los eventos se guardan una sola vez en un anillo compartido con número de secuencia; cada
+// suscriptor solo guarda su cursor (el último id que leyó). Así:
+// - publicar es O(1) y no depende de cuántos suscriptores haya
+// - el buffer de cada suscriptor está acotado: puede atrasarse hasta "maximoPendientes" eventos;
+//   si se atrasa más se aplica la política de desborde
+// - retomar con Last-Event-ID es mover el cursor, mientras ese evento siga en el anillo
+//
+// La secuencia vive en memoria y vuelve a 1 en cada arranque, por eso el id que ve el cliente
+// lleva adelante la época del arranque ("época-secuencia"): un id de otro arranque no se confunde
+// con uno de este aunque tenga el mismo número, y se contesta con un REINICIO.
+//
+// Los suscriptores esperan con ReentrantLock/Condition (no con wait/notify) para no fijar
+// los hilos virtuales a su hilo portador mientras esperan.
+public class EventosPedidos {
+
+    private final AtomicReferenceArray<EventoPedido> anillo;
+
+    // Distinta en cada arranque (y en cada partición): prefijo de los ids de evento
+    private final String epoca;
+
+    // Id del último evento publicado (el primero es 1)
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private final int maximoPendientes;
+    private final PoliticaDesborde politica;
+
+    // Suscriptores dormidos esperando eventos: solo si hay alguno se toma el candado para despertarlos
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayEventos = lock.newCondition();
+    private final AtomicInteger esperando = new AtomicInteger();
+
+    private final AtomicInteger suscriptores = new AtomicInteger();
+
+    public EventosPedidos(int capacidad, int maximoPendientes, PoliticaDesborde politica) {
+        this(capacidad, maximoPendientes, politica,
+                Long.toHexString(ThreadLocalRandom.current().nextLong(1L << 32, Long.MAX_VALUE)));
+    }
+
+    public EventosPedidos(int capacidad, int maximoPendientes, PoliticaDesborde politica, String epoca) {
+        if (epoca.isEmpty() || epoca.indexOf('-') >= 0) {
+            throw new IllegalArgumentException("epoca no puede ser vacía ni tener '-'");
+        }
+        this.epoca = epoca;
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("capacidad debe ser mayor a 0");
+        }
+        this.anillo = new AtomicReferenceArray<>(capacidad);
+        this.maximoPendientes = Math.max(1, Math.min(maximoPendientes, capacidad));
+        this.politica = politica;
+    }
+
+    // Publica un evento; se llama con el pedido bloqueado, así los eventos de un mismo pedido
+    // quedan en el mismo orden que sus cambios
+    public void publicar(String tipo, String operacionRevertida, Pedido pedido) {
+        long id = secuencia.incrementAndGet();
+        anillo.set(casilla(id), new EventoPedido(id, tipo, operacionRevertida, new Pedido(pedido)));
+        if (esperando.get() > 0) {
+            lock.lock();
+            try {
+                hayEventos.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Nueva suscripción: sin ultimoId recibe solo lo que pase desde ahora;
+    // con ultimoId (un id de evento, "época-secuencia") recibe lo que se perdió desde ese evento,
+    // o un REINICIO si ya no está, es de otro arranque o no tiene el formato esperado
+    public Suscripcion suscribir(String ultimoId) {
+        return new Suscripcion(ultimoId);
+    }
+
+    // Id del evento para el cliente (el id SSE que vuelve como Last-Event-ID)
+    public String idEvento(EventoPedido evento) {
+        return epoca + "-" + evento.id();
+    }
+
+    public String epoca() {
+        return epoca;
+    }
+
+    public int suscriptores() {
+        return suscriptores.get();
+    }
+
+    private int casilla(long id) {
+        return (int) (id % anillo.length());
+    }
+
+    // Secuencia de un id de evento de esta época; -1 si es de otra época o no se entiende
+    private long secuenciaDe(String idEvento) {
+        int guion = idEvento.lastIndexOf('-');
+        if (guion != epoca.length() || !idEvento.startsWith(epoca)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(idEvento, guion + 1, idEvento.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public final class Suscripcion implements AutoCloseable {
+
+        // Id del último evento entregado
+        private long cursor;
+
+        // REINICIO pendiente de entregar (al retomar desde un id que ya no está)
+        private boolean reiniciar;
+
+        private final AtomicBoolean cerrada = new AtomicBoolean();
+
+        private Suscripcion(String ultimoId) {
+            long actual = secuencia.get();
+            long desde = ultimoId == null ? -1 : secuenciaDe(ultimoId);
+            if (ultimoId == null) {
+                cursor = actual;
+            } else if (desde < 0 || desde > actual || actual - desde > maximoPendientes) {
+                // Id de antes de un reinicio del servidor (otra época), inválido o demasiado viejo
+                cursor = actual;
+                reiniciar = true;
+            } else {
+                cursor = desde;
+            }
+            suscriptores.incrementAndGet();
+        }
+
+        // Devuelve el siguiente evento, esperando hasta "espera"; null si no llegó ninguno
+        // Con la política DESCONECTAR lanza IllegalStateException si el suscriptor se atrasó demasiado
+        public EventoPedido siguiente(long espera, TimeUnit unidad) throws InterruptedException {
+            long limite = System.nanoTime() + unidad.toNanos(espera);
+            while (!cerrada.get()) {
+                if (reiniciar) {
+                    reiniciar = false;
+                    return new EventoPedido(cursor, "REINICIO", null, null);
+                }
+                long ultimo = secuencia.get();
+                if (ultimo - cursor > maximoPendientes) {
+                    desborde(ultimo);
+                    continue;
+                }
+                if (ultimo > cursor) {
+                    EventoPedido evento = anillo.get(casilla(cursor + 1));
+                    if (evento != null && evento.id() == cursor + 1) {
+                        cursor++;
+                        return evento;
+                    }
+                    if (evento != null && evento.id() > cursor + 1) {
+                        // Lo sobrescribió un evento más nuevo
+                        desborde(ultimo);
+                        continue;
+                    }
+                    // El id ya se asignó pero el publicador todavía no lo escribió: es cuestión de instantes
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    return null;
+                }
+                lock.lock();
+                esperando.incrementAndGet();
+                try {
+                    // Revisamos otra vez con el contador ya subido: si el evento llegó en el medio, no dormimos
+                    if (secuencia.get() == cursor && !cerrada.get()) {
+                        hayEventos.awaitNanos(restante);
+                    }
+                } finally {
+                    esperando.decrementAndGet();
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+
+        private void desborde(long ultimo) {
+            if (politica == PoliticaDesborde.DESCONECTAR) {
+                close();
+                throw new IllegalStateException("Suscriptor demasiado lento: se perdieron eventos");
+            }
+            cursor = ultimo;
+            reiniciar = true;
+        }
+
+        public long cursor() {
+            return cursor;
+        }
+
+        public boolean cerrada() {
+            return cerrada.get();
+        }
+
+        // Termina la suscripción; si está esperando, se despierta
+        @Override
+        public void close() {
+            if (!cerrada.compareAndSet(false, true)) {
+                return;
+            }
+            suscriptores.decrementAndGet();
+            lock.lock();
+            try {
+                hayEventos.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.datastructures.HistogramaLogLineal;
+import com.example.fastfood_service.datastructures.HistorialStack;
+import com.example.fastfood_service.datastructures.PedidoQueue;
+import com.example.fastfood_service.model.Pedido;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas de Micrometer del servicio (en /actuator/prometheus junto con las de cada endpoint)
+// Todas llevan la etiqueta "sucursal" con la partición a la que pertenecen
+// - pedidos.cola.pendientes: pedidos esperando en la cola de despacho
+// - pedidos.historial.operaciones: operaciones guardadas para rollback
+// - pedidos.tiempo.despacho: de REGISTRADO a DESPACHADO, por canal (cantidad y suma)
+// - pedidos.tiempo.despacho.baldes: por canal, cuántos despachos esperaron menos de "le" segundos
+//   (acumulado, de 1 ms a unas 2,3 h en potencias de dos), para histogram_quantile en Prometheus
+//
+// Todo se lee solo cuando alguien consulta las métricas. En el camino caliente (con el candado del
+// pedido tomado) despachar suma en dos contadores sin candados: el balde log-lineal de la espera
+// y la suma. Un Timer de Micrometer con histograma de percentiles costaba varias veces eso por
+// despacho (contador, suma, máximo por ventana y búsqueda del balde, cada uno con su reloj).
+class MetricasPedidos {
+
+    // Bordes "le" exportados: 2^0 .. 2^BORDES-1 ms (el último, ~2,3 h; lo que espera más va a +Inf)
+    private static final int BORDES = 24;
+
+    // Esperas de un carril desde que arrancó el servicio, en milisegundos
+    private static final class Esperas {
+        final AtomicLongArray baldes = new AtomicLongArray(HistogramaLogLineal.BALDES);
+        final LongAdder sumaMs = new LongAdder();
+
+        void registrar(long esperaMs) {
+            // Un reloj que retrocede no debe restar en la suma (el balde ya trata los negativos como 0)
+            long espera = Math.max(esperaMs, 0);
+            baldes.incrementAndGet(HistogramaLogLineal.balde(espera));
+            sumaMs.add(espera);
+        }
+
+        // Cuántas esperas cayeron en los baldes anteriores a "hasta"
+        long antesDe(int hasta) {
+            long total = 0;
+            for (int i = 0; i < hasta; i++) {
+                total += baldes.get(i);
+            }
+            return total;
+        }
+
+        long cantidad() {
+            return antesDe(HistogramaLogLineal.BALDES);
+        }
+    }
+
+    // Las esperas de cada carril, creadas de antemano (los canales no cambian mientras la aplicación corre)
+    private final Map<String, Esperas> tiemposDespacho = new HashMap<>();
+
+    MetricasPedidos(MeterRegistry registro, String sucursal, PedidoQueue cola, HistorialStack historial) {
+        Gauge.builder("pedidos.cola.pendientes", cola, PedidoQueue::size)
+                .description("Pedidos esperando en la cola de despacho")
+                .tag("sucursal", sucursal)
+                .register(registro);
+        Gauge.builder("pedidos.historial.operaciones", historial, HistorialStack::size)
+                .description("Operaciones guardadas en el historial para rollback")
+                .tag("sucursal", sucursal)
+                .register(registro);
+        for (String canal : cola.carriles()) {
+            Esperas esperas = new Esperas();
+            tiemposDespacho.put(canal, esperas);
+            FunctionTimer.builder("pedidos.tiempo.despacho", esperas,
+                            Esperas::cantidad, e -> e.sumaMs.sum(), TimeUnit.MILLISECONDS)
+                    .description("Tiempo desde que se registra un pedido hasta que se despacha")
+                    .tag("sucursal", sucursal)
+                    .tag("canal", canal)
+                    .register(registro);
+            for (int exponente = 0; exponente <= BORDES; exponente++) {
+                // Los tiempos son milisegundos enteros: "menos de 2^k ms" son exactamente los baldes
+                // anteriores al de 2^k (los primeros 16 baldes son de un valor cada uno)
+                boolean infinito = exponente == BORDES;
+                int hasta = infinito ? HistogramaLogLineal.BALDES : HistogramaLogLineal.balde(1L << exponente);
+                FunctionCounter.builder("pedidos.tiempo.despacho.baldes", esperas, e -> e.antesDe(hasta))
+                        .description("Despachos que esperaron menos de \"le\" segundos desde el registro")
+                        .tag("sucursal", sucursal)
+                        .tag("canal", canal)
+                        .tag("le", infinito ? "+Inf" : Double.toString((1L << exponente) / 1000.0))
+                        .register(registro);
+            }
+        }
+    }
+
+    // Se despachó un pedido (ya con su momento de despacho)
+    void alDespachar(Pedido pedido) {
+        Esperas esperas = tiemposDespacho.get(pedido.getCanal());
+        if (esperas == null || pedido.getCreadoEn() == null || pedido.getDespachadoEn() == null) {
+            return;
+        }
+        // Los momentos se guardan en milisegundos: la resta no pierde nada ni arma un Duration
+        esperas.registrar(pedido.getDespachadoEn().toEpochMilli() - pedido.getCreadoEn().toEpochMilli());
+    }
+}
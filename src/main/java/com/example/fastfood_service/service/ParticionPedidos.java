@@ -0,0 +1,49 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.datastructures.VentanaTemporal;
+import com.example.fastfood_service.model.HistorialOperacion;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import com.example.fastfood_service.service.PedidoService.PaginaPedidos;
+
+// Una partición de pedidos: la de una sucursal (o la principal), con su propia lista, cola e historial
+//
+// Es todo lo que se le pide a una sucursal desde afuera. Hoy cada partición es un PedidoService en
+// este mismo proceso; como nada más depende de eso, una partición puede pasar a otro nodo
+// implementando esta interfaz con llamadas remotas (ver EnrutadorSucursales).
+// Los errores son los mismos del servicio: IllegalArgumentException (datos inválidos),
+// NoSuchElementException (no existe) e IllegalStateException (no se puede en este estado).
+public interface ParticionPedidos {
+
+    Pedido crearPedido(Pedido body);
+
+    Pedido[] listarTodos();
+
+    PaginaPedidos listarPagina(Integer despuesDeId, int limite, String estado, String nombreCliente);
+
+    Pedido buscarPorId(int id);
+
+    Pedido prepararPedido(int id);
+
+    Pedido cancelarPedido(int id);
+
+    Pedido despacharSiguiente();
+
+    Pedido[] despacharLote(int maximo, Long presupuestoMs);
+
+    Pedido[] rollback(int pasos);
+
+    HistorialOperacion[] listarHistorial(int limite);
+
+    // Agregados de la partición: se combinan entre particiones para las estadísticas globales
+    EstadisticasPedidos obtenerEstadisticas();
+
+    double calcularTotalMontoRecursivo();
+
+    // Cuántas operaciones cambiaron pedidos en la partición (solo crece mientras el proceso vive):
+    // si no cambió, los listados y agregados tampoco
+    long version();
+
+    // Actividad de los últimos "minutos" minutos (conteos e histograma, sumables entre particiones)
+    VentanaTemporal.Resumen resumenVentana(int minutos);
+}
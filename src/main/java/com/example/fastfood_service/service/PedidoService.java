@@ -1,29 +1,389 @@
 package com.example.fastfood_service.service;
 
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.datastructures.DefinicionCarril;
 import com.example.fastfood_service.datastructures.HistorialStack;
 import com.example.fastfood_service.datastructures.PedidoQueue;
-import com.example.fastfood_service.datastructures.SinglyLinkedList;
+import com.example.fastfood_service.datastructures.PedidoStore;
+import com.example.fastfood_service.datastructures.StripedLock;
+import com.example.fastfood_service.datastructures.VentanaTemporal;
+import com.example.fastfood_service.model.EstadoPedido;
 import com.example.fastfood_service.model.HistorialOperacion;
 import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.persistence.Instantanea;
+import com.example.fastfood_service.persistence.RegistroWal;
+import com.example.fastfood_service.persistence.WriteAheadLog;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 // Aquí se usan las (lista, cola, pila)
+//
+// El servicio es un singleton de Spring, así que varios hilos lo usan a la vez:
+// - los ids salen de un contador atómico
+// - la lista, la cola y la pila son seguras entre hilos por sí mismas
+// - cada operación sobre un pedido toma el candado de SU franja (no uno global), para que
+//   el cambio de estado, la cola y el historial de ese pedido queden consistentes
+//
+// Si el log de operaciones (WAL) está habilitado, cada operación se escribe en él y al arrancar
+// se reproduce para reconstruir la lista, la cola y el historial. Con instantáneas periódicas se
+// carga la última y se reproduce solo el log posterior.
+//
+// Cada instancia es una partición: el bean de Spring es la principal (/api/pedidos) y cada sucursal
+// configurada tiene la suya (ver EnrutadorLocal), sin compartir estructuras ni candados con las demás.
 @Service
-public class PedidoService {
+public class PedidoService implements ParticionPedidos {
 
-    // Lista simplemente enlazada donde se almacenan TODOS los pedidos del sistema
-    private final SinglyLinkedList pedidos = new SinglyLinkedList();
+    // Nombre de la partición del bean de Spring (etiqueta de sus métricas)
+    public static final String SUCURSAL_PRINCIPAL = "principal";
 
-    // Cola de pedidos pendientes por despachar
-    private final PedidoQueue colaPendientes = new PedidoQueue();
+    // Almacén indexado por id donde están TODOS los pedidos del sistema (en orden de creación)
+    // Según la configuración guarda objetos Pedido o columnas de primitivos
+    private final PedidoStore pedidos;
 
-    // Pila de historial para poder hacer rollback de la última operación
-    private final HistorialStack historial = new HistorialStack();
+    // Cola de pedidos pendientes por despachar, con un carril por canal
+    private final PedidoQueue colaPendientes;
+
+    // Pila de historial (de capacidad fija) para poder hacer rollback de las últimas operaciones
+    private final HistorialStack historial;
 
     // Contador para generar IDs
-    private int nextId = 1;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    // Versión de los datos: sube después de cada operación que cambia pedidos (para los ETag)
+    private final AtomicLong version = new AtomicLong();
+
+    // Límites del listado por páginas
+    private static final int LIMITE_MAXIMO_PAGINA = 1000;
+    private static final int TAMANO_PAGINA_STREAMING = 512;
+
+    // Máximo de pedidos en un despacho por lotes
+    private static final int LIMITE_MAXIMO_LOTE = 1000;
+
+    // Descripciones distintas que se agrupan como mucho al restaurar una instantánea
+    private static final int MAXIMO_VENTAS_AGRUPADAS = 1 << 16;
+
+    // Candados por pedido (64 franjas; un pedido cae siempre en la misma)
+    // Las transiciones de estado se validan y aplican con el candado del pedido y no con un CAS sobre
+    // el estado: junto con el estado cambian la cola, los índices del almacén, las estadísticas, el
+    // historial, el log y el evento, y todo eso tiene que verse como un solo paso (y deshacerse entero
+    // con el rollback). Un CAS haría atómico solo el estado y dejaría lo demás a medio camino para quien
+    // lea entre medio. El candado se tiene por unos pocos pasos O(1); dos pedidos distintos solo se
+    // esperan si caen en la misma franja (1 en 64), nunca por todo el servicio.
+    private final StripedLock candados = new StripedLock(64);
+
+    // Estadísticas que se mantienen al día en cada operación
+    private final EstadisticasAcumuladas estadisticas = new EstadisticasAcumuladas();
+
+    // Artículos más vendidos según la descripción (memoria acotada)
+    private final AnaliticaMenu analitica;
+
+    // Si está activo, cada consulta de estadísticas se compara contra un recorrido completo
+    private final boolean verificarEstadisticas;
+
+    // Log de operaciones (null si está deshabilitado) y su carpeta, donde también van las instantáneas
+    private final WriteAheadLog wal;
+    private final Path directorioLog;
+
+    // Una instantánea a la vez (la periódica y una pedida a mano no se pisan)
+    private final ReentrantLock instantaneas = new ReentrantLock();
+
+    // Si se guarda una instantánea al apagar (cuando hay instantáneas periódicas)
+    private final boolean instantaneaAlCerrar;
+
+    // Eventos de cambio de estado para las pantallas (SSE)
+    private final EventosPedidos eventos;
+
+    // Métricas de Micrometer (cola, historial y tiempo hasta el despacho)
+    private final MetricasPedidos metricas;
+
+    // Tareas periódicas: pasadas del archivo en frío e instantáneas (null si no hay ninguna)
+    private final ScheduledExecutorService tareas;
+
+    // Cada cuánto corre cada tarea periódica (0 = no corre)
+    private final long intervaloArchivoMs;
+    private final long intervaloInstantaneasMs;
+
+    // Antigüedad desde el fin de un pedido para que pase a disco
+    private final long antiguedadArchivoMs;
+
+    // Actividad por minuto de la última hora (o lo configurado): creados, despachados, cancelados
+    // y tiempos hasta el despacho
+    private final VentanaTemporal ventana;
+
+    public PedidoService() {
+        this(new PedidosProperties());
+    }
+
+    // Sin registro de métricas de la aplicación (pruebas, benchmarks): se usa uno propio en memoria
+    public PedidoService(PedidosProperties propiedades) {
+        this(propiedades, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public PedidoService(PedidosProperties propiedades, MeterRegistry registroMetricas) {
+        this(propiedades, registroMetricas, SUCURSAL_PRINCIPAL);
+    }
+
+    // Partición de una sucursal: misma configuración, pero su log va en un subdirectorio propio
+    // (sucursales/{id} dentro del directorio del log) y sus métricas llevan la etiqueta de la sucursal
+    public PedidoService(PedidosProperties propiedades, MeterRegistry registroMetricas, String sucursal) {
+        this.verificarEstadisticas = propiedades.getEstadisticas().isVerificar();
+        this.pedidos = PedidoStore.crear(propiedades.getAlmacen().getModo());
+        this.historial = new HistorialStack(propiedades.getHistorial().getCapacidad());
+        this.colaPendientes = crearCola(propiedades.getCola());
+        PedidosProperties.Analitica configAnalitica = propiedades.getAnalitica();
+        this.analitica = new AnaliticaMenu(configAnalitica.getCapacidad(), configAnalitica.getAncho(),
+                configAnalitica.getProfundidad());
+        PedidosProperties.Eventos configEventos = propiedades.getEventos();
+        this.eventos = new EventosPedidos(configEventos.getCapacidad(), configEventos.getMaximoPendientes(),
+                configEventos.getPolitica());
+        this.metricas = new MetricasPedidos(registroMetricas, sucursal, colaPendientes, historial);
+        this.ventana = new VentanaTemporal(propiedades.getVentana().getMinutos());
+        PedidosProperties.Archivo configArchivo = propiedades.getArchivo();
+        this.antiguedadArchivoMs = configArchivo.getAntiguedadMs();
+        if (configArchivo.isHabilitado()) {
+            pedidos.habilitarArchivo(directorioDe(configArchivo.getDirectorio(), sucursal));
+        }
+        PedidosProperties.Wal config = propiedades.getWal();
+        if (config.isHabilitado()) {
+            this.directorioLog = directorioDe(config.getDirectorio(), sucursal);
+            this.wal = new WriteAheadLog(directorioLog, config.getTamanoSegmento(), config.getDurabilidad());
+            // Reconstruimos el estado antes de atender peticiones: la última instantánea (si hay)
+            // y lo que el log tiene después de ella
+            Instantanea instantanea = Instantanea.cargarUltima(directorioLog);
+            if (instantanea != null) {
+                restaurar(instantanea);
+            }
+            wal.reproducir(instantanea == null ? 0 : instantanea.posicionLog(), this::reproducir);
+        } else {
+            this.directorioLog = null;
+            this.wal = null;
+        }
+        boolean conInstantaneas = wal != null && config.getIntervaloInstantaneasMs() > 0;
+        this.instantaneaAlCerrar = conInstantaneas;
+        this.intervaloArchivoMs = configArchivo.isHabilitado() ? configArchivo.getIntervaloMs() : 0;
+        this.intervaloInstantaneasMs = conInstantaneas ? config.getIntervaloInstantaneasMs() : 0;
+        if (intervaloArchivoMs > 0 || intervaloInstantaneasMs > 0) {
+            this.tareas = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("tareas-" + sucursal).daemon().factory());
+        } else {
+            this.tareas = null;
+        }
+    }
+
+    // Programa las tareas periódicas (archivo en frío e instantáneas)
+    // No se hace en el constructor: el hilo de las tareas recibiría "this" antes de que el objeto
+    // termine de construirse. Spring la llama con el bean ya armado; quien crea el servicio a mano
+    // (otras particiones, pruebas) la llama si quiere las tareas.
+    @PostConstruct
+    public void iniciar() {
+        if (intervaloArchivoMs > 0) {
+            tareas.scheduleWithFixedDelay(() -> registrandoFallas("la pasada de archivo en frío", this::archivarTerminados),
+                    intervaloArchivoMs, intervaloArchivoMs, TimeUnit.MILLISECONDS);
+        }
+        if (intervaloInstantaneasMs > 0) {
+            tareas.scheduleWithFixedDelay(() -> registrandoFallas("la instantánea", this::tomarInstantanea),
+                    intervaloInstantaneasMs, intervaloInstantaneasMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Carpeta de la partición: la configurada para la principal, sucursales/{id} dentro de ella para las demás
+    private static Path directorioDe(String base, String sucursal) {
+        Path directorio = Path.of(base);
+        return SUCURSAL_PRINCIPAL.equals(sucursal) ? directorio : directorio.resolve("sucursales").resolve(sucursal);
+    }
+
+    // Archivo en frío
+    // Pasa a disco los pedidos despachados o cancelados hace más de la antigüedad configurada;
+    // devuelve cuántos salieron del heap. Siguen apareciendo en búsquedas, listados y estadísticas.
+    public int archivarTerminados() {
+        return pedidos.archivar(System.currentTimeMillis() - antiguedadArchivoMs);
+    }
+
+    // Pedidos que están en disco
+    public int cantidadArchivados() {
+        return pedidos.archivados();
+    }
+
+    // Instantáneas
+    // Guarda una foto del estado (pedidos, cola, historial y próximo id) y borra el log que quedó antes
+    // de ella. Devuelve la posición del log que cubre.
+    // Los pedidos se frenan solo mientras se toma un corte barato (con todas las franjas tomadas, así
+    // ninguna operación queda a medias): la posición del log, el próximo id, el corte del almacén (no
+    // copia pedidos), la cola y el historial. Los dos últimos miden lo pendiente y la capacidad del
+    // historial, no todos los pedidos. Recorrer los pedidos, escribirla y el fsync van sin candados;
+    // mientras tanto no corren pasadas de archivo.
+    public long tomarInstantanea() {
+        if (wal == null) {
+            throw new IllegalStateException("Las instantáneas necesitan el log de operaciones habilitado");
+        }
+        instantaneas.lock();
+        try (PedidoStore.Corte corte = pedidos.nuevoCorte()) {
+            Instantanea instantanea;
+            int[] franjas = candados.lockTodas();
+            try {
+                corte.fijar();
+                instantanea = new Instantanea(wal.posicionActual(), nextId.get(), corte.cantidad(), corte::recorrer,
+                        colaPendientes.idsAlFrente(), colaPendientes.idsEnCarriles(),
+                        historial.recientes(historial.capacidad()));
+            } finally {
+                candados.unlockTodas(franjas);
+            }
+            // La instantánea no puede quedar en disco antes que el log que cubre: al arrancar se
+            // reproduce desde su posición, y con el log cortado antes se perderían operaciones
+            wal.esperarDurable(instantanea.posicionLog());
+            long conservarDesde = Instantanea.guardar(directorioLog, instantanea);
+            wal.descartarAntesDe(conservarDesde);
+            return instantanea.posicionLog();
+        } finally {
+            instantaneas.unlock();
+        }
+    }
+
+    // Carga una instantánea en las estructuras vacías (al arrancar, antes de reproducir el log)
+    private void restaurar(Instantanea instantanea) {
+        List<Pedido> restaurados = new ArrayList<>(instantanea.cantidad());
+        // Ventas por descripción, para pasarlas juntas a la analítica (la instantánea comparte
+        // los textos repetidos, así que el mapa casi siempre compara por referencia)
+        Map<String, double[]> ventas = new HashMap<>();
+        for (int i = 0; i < instantanea.cantidad(); i++) {
+            Pedido pedido = instantanea.pedido(i);
+            // Si el canal ya no está configurado, el pedido espera en el primer carril
+            if (!colaPendientes.tieneCarril(pedido.getCanal())) {
+                pedido.setCanal(colaPendientes.carrilPorDefecto());
+            }
+            restaurados.add(pedido);
+            EstadoPedido estado = EstadoPedido.desde(pedido.getEstado());
+            estadisticas.alAgregar(pedido.getMonto(), estado);
+            if (estado != EstadoPedido.CANCELADO) {
+                double[] venta = ventas.computeIfAbsent(pedido.getDescripcion(), k -> new double[2]);
+                venta[0]++;
+                venta[1] += pedido.getMonto();
+                if (ventas.size() > MAXIMO_VENTAS_AGRUPADAS) {
+                    pasarVentas(ventas);
+                }
+            }
+            restaurarVentana(pedido);
+        }
+        pasarVentas(ventas);
+        pedidos.addTodos(restaurados);
+
+        // La cola en el mismo orden: primero los carriles y después los devueltos al frente
+        Set<Integer> encolados = new HashSet<>();
+        for (int id : instantanea.enCarriles()) {
+            colaPendientes.enqueue(pedidoDelLog(id));
+            encolados.add(id);
+        }
+        int[] alFrente = instantanea.alFrente();
+        for (int i = alFrente.length - 1; i >= 0; i--) {
+            colaPendientes.enqueueFront(pedidoDelLog(alFrente[i]));
+            encolados.add(alFrente[i]);
+        }
+        // Un pedido que un despacho ya había sacado de la cola pero todavía no había marcado (esperaba
+        // su candado) queda pendiente y fuera de la cola: vuelve al frente, donde estaba
+        List<Pedido> sacados = new ArrayList<>();
+        for (Pedido pedido : restaurados) {
+            if (EstadoPedido.desde(pedido.getEstado()).esPendiente() && !encolados.contains(pedido.getId())) {
+                sacados.add(pedido);
+            }
+        }
+        for (int i = sacados.size() - 1; i >= 0; i--) {
+            colaPendientes.enqueueFront(pedidoDelLog(sacados.get(i).getId()));
+        }
+
+        historial.pushTodas(instantanea.historial());
+        nextId.set(instantanea.nextId());
+    }
+
+    private void pasarVentas(Map<String, double[]> ventas) {
+        ventas.forEach((descripcion, venta) -> analitica.alVender(descripcion, (int) venta[0], venta[1]));
+        ventas.clear();
+    }
+
+    // Vuelve a contar en la ventana de actividad los momentos del pedido que sigan dentro de ella
+    private void restaurarVentana(Pedido pedido) {
+        if (pedido.getCreadoEn() != null) {
+            ventana.alCrear(pedido.getCreadoEn().toEpochMilli());
+        }
+        if (pedido.getDespachadoEn() != null && pedido.getCreadoEn() != null) {
+            long despachadoEn = pedido.getDespachadoEn().toEpochMilli();
+            ventana.alDespachar(despachadoEn, despachadoEn - pedido.getCreadoEn().toEpochMilli());
+        }
+        if (pedido.getCanceladoEn() != null) {
+            ventana.alCancelar(pedido.getCanceladoEn().toEpochMilli());
+        }
+    }
+
+    // Corre una tarea periódica; una excepción cancelaría las ejecuciones siguientes, así que se
+    // registra y se reintenta en la próxima
+    private static void registrandoFallas(String descripcion, Runnable tarea) {
+        try {
+            tarea.run();
+        } catch (RuntimeException e) {
+            System.getLogger(PedidoService.class.getName())
+                    .log(System.Logger.Level.WARNING, "Falló " + descripcion, e);
+        }
+    }
+
+    private static PedidoQueue crearCola(PedidosProperties.Cola config) {
+        if (config.getCarriles().isEmpty()) {
+            return new PedidoQueue();
+        }
+        List<DefinicionCarril> definiciones = config.getCarriles().stream()
+                .map(c -> new DefinicionCarril(c.getNombre(), c.getPeso(), c.getOrden()))
+                .toList();
+        return new PedidoQueue(definiciones);
+    }
+
+    // Eventos de cambio de estado de los pedidos (los de la recuperación del log no se publican)
+    public EventosPedidos eventos() {
+        return eventos;
+    }
+
+    // Detiene las tareas periódicas (esperando a la que esté en curso), guarda una última instantánea
+    // si están habilitadas (el próximo arranque casi no reproduce log) y sincroniza y cierra el log
+    @PreDestroy
+    public void cerrar() {
+        if (tareas != null) {
+            tareas.shutdown();
+            try {
+                tareas.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (instantaneaAlCerrar) {
+            registrandoFallas("la instantánea al cerrar", this::tomarInstantanea);
+        }
+        if (wal != null) {
+            wal.close();
+        }
+    }
 
     // Validación
     private void validar(Pedido pedido) {
@@ -39,49 +399,219 @@ public class PedidoService {
         if (pedido.getMonto() <= 0) {
             throw new IllegalArgumentException("monto debe ser mayor a 0");
         }
+        // Validar canal (opcional: sin canal va al primer carril)
+        if (pedido.getCanal() != null && !colaPendientes.tieneCarril(pedido.getCanal())) {
+            throw new IllegalArgumentException("canal debe ser uno de " + colaPendientes.carriles());
+        }
     }
 
     // Registrar pedido
+    @Override
     public Pedido crearPedido(Pedido body) {
         // Primero validamos la información recibida
         validar(body);
 
         // Creamos un nuevo objeto Pedido con:
         Pedido pedido = new Pedido(
-                nextId++,
+                nextId.getAndIncrement(),
                 body.getNombreCliente(),
                 body.getDescripcion(),
                 body.getMonto(),
-                "REGISTRADO"
+                EstadoPedido.REGISTRADO.name()
         );
+        // Sin canal, el pedido espera en el primer carril de la cola
+        pedido.setCanal(body.getCanal() == null ? colaPendientes.carrilPorDefecto() : body.getCanal());
+        pedido.setCreadoEn(ahora());
+
+        // Bloqueamos el pedido para que nadie lo cancele antes de que termine de encolarse
+        long posicionLog = 0;
+        candados.lock(pedido.getId());
+        try {
+            aplicarCrear(pedido);
+            version.incrementAndGet();
+            if (wal != null) {
+                posicionLog = wal.registrarCrear(pedido.getId(), pedido.getNombreCliente(),
+                        pedido.getDescripcion(), pedido.getMonto(), pedido.getCanal(), pedido.getCreadoEn().toEpochMilli());
+            }
+            eventos.publicar("CREADO", null, pedido);
+        } finally {
+            candados.unlock(pedido.getId());
+        }
+        // La espera del fsync ocurre sin candados
+        esperarLog(posicionLog);
+
+        // Devolvemos el pedido creado (se enviará al cliente como respuesta)
+        return pedido;
+    }
+
+    // Ingesta por lotes
+    // Valida cada pedido por separado y crea todos los válidos en una sola sección crítica:
+    // ids reservados de una vez, una toma del candado de la lista, un paso por el historial
+    // y una sola espera del log. "primerIndice" es la posición del primer pedido en la petición.
+    // Devuelve un resultado por pedido (id creado o error), en el mismo orden.
+    public ResultadoLote[] crearLote(List<Pedido> bodies, int primerIndice) {
+        ResultadoLote[] resultados = new ResultadoLote[bodies.size()];
+        List<Pedido> validos = new ArrayList<>(bodies.size());
+        int[] posiciones = new int[bodies.size()];
+        for (int i = 0; i < bodies.size(); i++) {
+            try {
+                validar(bodies.get(i));
+                posiciones[validos.size()] = i;
+                validos.add(bodies.get(i));
+            } catch (IllegalArgumentException e) {
+                resultados[i] = new ResultadoLote(primerIndice + i, null, e.getMessage());
+            }
+        }
+        if (validos.isEmpty()) {
+            return resultados;
+        }
+
+        // Reservamos un bloque de ids consecutivos
+        int primerId = nextId.getAndAdd(validos.size());
+        Instant creadoEn = ahora();
+        List<Pedido> nuevos = new ArrayList<>(validos.size());
+        HistorialOperacion[] ops = new HistorialOperacion[validos.size()];
+        int[] ids = new int[validos.size()];
+        for (int k = 0; k < validos.size(); k++) {
+            Pedido body = validos.get(k);
+            Pedido pedido = new Pedido(primerId + k, body.getNombreCliente(), body.getDescripcion(),
+                    body.getMonto(), EstadoPedido.REGISTRADO.name());
+            pedido.setCanal(body.getCanal() == null ? colaPendientes.carrilPorDefecto() : body.getCanal());
+            pedido.setCreadoEn(creadoEn);
+            nuevos.add(pedido);
+            ops[k] = new HistorialOperacion("CREAR", pedido.getId(), null, EstadoPedido.REGISTRADO, null);
+            ids[k] = pedido.getId();
+        }
+
+        long posicionLog = 0;
+        int[] franjas = candados.lockTodas(ids);
+        try {
+            pedidos.addTodos(nuevos);
+            for (Pedido pedido : nuevos) {
+                estadisticas.alAgregar(pedido.getMonto(), EstadoPedido.REGISTRADO);
+                analitica.alVender(pedido.getDescripcion(), pedido.getMonto());
+                ventana.alCrear(creadoEn.toEpochMilli());
+                colaPendientes.enqueue(pedido);
+                if (wal != null) {
+                    posicionLog = wal.registrarCrear(pedido.getId(), pedido.getNombreCliente(),
+                            pedido.getDescripcion(), pedido.getMonto(), pedido.getCanal(), creadoEn.toEpochMilli());
+                }
+                eventos.publicar("CREADO", null, pedido);
+            }
+            historial.pushTodas(ops);
+            version.incrementAndGet();
+        } finally {
+            candados.unlockTodas(franjas);
+        }
+        esperarLog(posicionLog);
+
+        for (int k = 0; k < nuevos.size(); k++) {
+            resultados[posiciones[k]] = new ResultadoLote(primerIndice + posiciones[k], nuevos.get(k).getId(), null);
+        }
+        return resultados;
+    }
 
-        // Agregamos el pedido a la lista simplemente enlazada
+    // Agrega el pedido a la lista, a la cola y al historial (con el pedido bloqueado)
+    private void aplicarCrear(Pedido pedido) {
+        // Agregamos el pedido a la lista indexada
         pedidos.add(pedido);
+        estadisticas.alAgregar(pedido.getMonto(), EstadoPedido.REGISTRADO);
+        analitica.alVender(pedido.getDescripcion(), pedido.getMonto());
+        if (pedido.getCreadoEn() != null) {
+            ventana.alCrear(pedido.getCreadoEn().toEpochMilli());
+        }
 
         // Encolamos el pedido en la cola de pendientes
         colaPendientes.enqueue(pedido);
 
-        // Guardamos la operación en el historial (pila)
-        // tipoOperacion = "CREAR"
-        // pedidoAntes = null (no existía antes)
-        // pedidoDespues = copia del pedido recién creado
-        historial.push(new HistorialOperacion("CREAR", null, new Pedido(pedido)));
+        // Guardamos la operación en el historial (pila): para deshacerla alcanza con el id
+        historial.push(new HistorialOperacion("CREAR", pedido.getId(), null, EstadoPedido.REGISTRADO, null));
+    }
 
-        // Devolvemos el pedido creado (se enviará al cliente como respuesta)
-        return pedido;
+    // Versión actual de los datos de la partición
+    @Override
+    public long version() {
+        return version.get();
     }
 
     // Listar todos
     // Devuelve todos los pedidos como un arreglo
+    @Override
     public Pedido[] listarTodos() {
-        // Convertimos la lista enlazada a un arreglo de Pedido y lo retornamos
+        // Convertimos la lista a un arreglo de Pedido y lo retornamos
         return pedidos.toArray();
     }
 
+    // Listar por páginas
+    // Devuelve hasta "limite" pedidos después del id "despuesDeId" (cursor), filtrando opcionalmente
+    // por estado y por nombre de cliente. "siguiente" es el cursor para pedir la próxima página.
+    @Override
+    public PaginaPedidos listarPagina(Integer despuesDeId, int limite, String estado, String nombreCliente) {
+        validarLimite(limite);
+        List<Pedido> pagina = pagina(despuesDeId, limite, estadoFiltro(estado), nombreCliente);
+        Integer siguiente = pagina.size() == limite ? pagina.get(pagina.size() - 1).getId() : null;
+        return new PaginaPedidos(pagina.toArray(new Pedido[0]), siguiente);
+    }
+
+    // Recorre todos los pedidos que cumplan el filtro, de a una página por vez,
+    // sin armar un arreglo con todos (se usa para el listado en streaming)
+    public void recorrerPedidos(String estado, String nombreCliente, Consumer<Pedido> accion) {
+        EstadoPedido filtro = estadoFiltro(estado);
+        Integer cursor = null;
+        while (true) {
+            List<Pedido> pagina = pagina(cursor, TAMANO_PAGINA_STREAMING, filtro, nombreCliente);
+            pagina.forEach(accion);
+            if (pagina.size() < TAMANO_PAGINA_STREAMING) {
+                return;
+            }
+            cursor = pagina.get(pagina.size() - 1).getId();
+        }
+    }
+
+    private static void validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA);
+        }
+    }
+
+    // Valida el filtro por estado (null = sin filtro)
+    public void validarEstado(String estado) {
+        estadoFiltro(estado);
+    }
+
+    private static EstadoPedido estadoFiltro(String estado) {
+        return estado == null ? null : EstadoPedido.desde(estado);
+    }
+
+    // Pedidos en un estado, usando el índice por estado (cuesta lo que mide el resultado, no la lista entera)
+    // Vienen en el orden en que entraron a ese estado
+    public Pedido[] listarPorEstado(String estado, int limite) {
+        if (estado == null) {
+            throw new IllegalArgumentException("estado es obligatorio");
+        }
+        validarLimite(limite);
+        return pedidos.listarPorEstado(EstadoPedido.desde(estado), limite).toArray(new Pedido[0]);
+    }
+
+    // Pedidos de un cliente por páginas, usando el índice por cliente (en orden de creación)
+    public PaginaPedidos listarPorCliente(String nombreCliente, Integer despuesDeId, int limite) {
+        return listarPagina(despuesDeId, limite, null, nombreCliente);
+    }
+
+    // Arma una página: si se filtra por cliente recorre solo su cadena en el índice,
+    // si no, la lista completa aplicando el filtro por estado (null no filtra)
+    private List<Pedido> pagina(Integer despuesDeId, int limite, EstadoPedido estado, String nombreCliente) {
+        if (nombreCliente != null) {
+            return pedidos.paginaDeCliente(nombreCliente, despuesDeId, limite, estado);
+        }
+        return pedidos.pagina(despuesDeId, limite, estado);
+    }
+
     //  Buscar por id
     // Busca un pedido por su id, si no existe lanza excepción
+    @Override
     public Pedido buscarPorId(int id) {
-        // Buscamos en la lista simplemente enlazada
+        // Buscamos en la lista por su índice de ids
         Pedido p = pedidos.findById(id);
         if (p == null) {
             // Si no se encontró, lanzamos una excepción que el controller transformará en 404
@@ -90,71 +620,295 @@ public class PedidoService {
         return p;
     }
 
+    // Preparar pedido
+    // Pasa un pedido REGISTRADO a EN_PREPARACION (la cocina lo empezó) y registra la operación
+    // El pedido sigue en la cola en el mismo lugar: todavía está pendiente y se despacha o cancela igual
+    // que uno registrado. Desde cualquier otro estado lanza IllegalStateException (409 en el controller).
+    @Override
+    public Pedido prepararPedido(int id) {
+        Pedido pedido;
+        long posicionLog = 0;
+        candados.lock(id);
+        try {
+            pedido = pedidos.findById(id);
+            if (pedido == null) {
+                throw new NoSuchElementException("Pedido no encontrado");
+            }
+            validarTransicion(pedido, EstadoPedido.EN_PREPARACION);
+            aplicarPreparar(pedido);
+            version.incrementAndGet();
+            if (wal != null) {
+                posicionLog = wal.registrarPreparar(id, System.currentTimeMillis());
+            }
+            eventos.publicar("EN_PREPARACION", null, pedido);
+        } finally {
+            candados.unlock(id);
+        }
+        esperarLog(posicionLog);
+        return pedido;
+    }
+
+    // Marca el pedido como EN_PREPARACION y registra la operación (con el pedido bloqueado)
+    private void aplicarPreparar(Pedido pedido) {
+        EstadoPedido antes = EstadoPedido.desde(pedido.getEstado());
+        cambiarEstado(pedido, EstadoPedido.EN_PREPARACION, pedido.getDespachadoEn(), pedido.getCanceladoEn());
+        historial.push(new HistorialOperacion("PREPARAR", pedido.getId(), antes, EstadoPedido.EN_PREPARACION, null));
+    }
+
     // Cancelar pedido
     // Cambia el estado de un pedido a CANCELADO, lo saca de la cola y registra la operación
+    // Solo se cancela un pedido pendiente: si ya fue despachado o cancelado (por ejemplo, porque otra
+    // caja lo despachó justo antes) lanza IllegalStateException, que el controller responde con 409.
+    // El estado se lee y se cambia con el candado del pedido, el mismo que toma el despacho: de una
+    // cancelación y un despacho simultáneos gana uno solo (ver "candados" sobre por qué no es un CAS).
+    @Override
     public Pedido cancelarPedido(int id) {
-        // Buscamos el pedido en la lista principal
-        Pedido pedido = pedidos.findById(id);
-        if (pedido == null) {
-            throw new NoSuchElementException("Pedido no encontrado");
+        Pedido pedido;
+        long posicionLog = 0;
+        candados.lock(id);
+        try {
+            // Buscamos el pedido en la lista principal
+            pedido = pedidos.findById(id);
+            if (pedido == null) {
+                throw new NoSuchElementException("Pedido no encontrado");
+            }
+            validarTransicion(pedido, EstadoPedido.CANCELADO);
+            Instant canceladoEn = ahora();
+            aplicarCancelar(pedido, canceladoEn);
+            version.incrementAndGet();
+            if (wal != null) {
+                posicionLog = wal.registrarCancelar(id, canceladoEn.toEpochMilli());
+            }
+            eventos.publicar("CANCELADO", null, pedido);
+        } finally {
+            candados.unlock(id);
         }
+        esperarLog(posicionLog);
 
-        // Creamos una copia del estado ANTES de cancelar (para rollback)
-        Pedido antes = new Pedido(pedido);
+        // Devolvemos el pedido en su estado actual (CANCELADO)
+        return pedido;
+    }
 
-        // Cambiamos el estado a CANCELADO
-        pedido.setEstado("CANCELADO");
+    // Lanza IllegalStateException si el pedido no puede pasar a "destino" (con el pedido bloqueado:
+    // mientras se tenga el candado nadie más cambia su estado, así que lo validado sigue valiendo al aplicarlo)
+    private static void validarTransicion(Pedido pedido, EstadoPedido destino) {
+        EstadoPedido actual = EstadoPedido.desde(pedido.getEstado());
+        if (!actual.puedePasarA(destino)) {
+            throw new IllegalStateException("El pedido " + pedido.getId() + " está " + actual
+                    + " y no puede pasar a " + destino);
+        }
+    }
 
-        // Creamos otra copia del estado DESPUÉS de cancelar
-        Pedido despues = new Pedido(pedido);
+    // Marca el pedido como CANCELADO, lo saca de la cola y registra la operación (con el pedido bloqueado)
+    private void aplicarCancelar(Pedido pedido, Instant canceladoEn) {
+        // Guardamos lo que la cancelación pisa (para rollback): el estado y el canceladoEn previos
+        EstadoPedido antes = EstadoPedido.desde(pedido.getEstado());
+        Instant canceladoAntes = pedido.getCanceladoEn();
 
-        // Quitamos el pedido de la cola de pendientes (si estaba ahí)
-        colaPendientes.removeById(id);
+        // Cambiamos el estado a CANCELADO
+        cambiarEstado(pedido, EstadoPedido.CANCELADO, pedido.getDespachadoEn(), canceladoEn);
+        if (canceladoEn != null) {
+            ventana.alCancelar(canceladoEn.toEpochMilli());
+        }
 
-        // Registramos la operación en el historial:
-        // tipoOperacion = "CANCELAR"
-        // pedidoAntes = antes (estado previo)
-        // pedidoDespues = despues (ya cancelado)
-        historial.push(new HistorialOperacion("CANCELAR", antes, despues));
+        // Quitamos el pedido de la cola de pendientes (si estaba ahí)
+        colaPendientes.removeById(pedido.getId());
 
-        // Devolvemos el pedido en su estado actual (CANCELADO)
-        return pedido;
+        // Registramos la operación en el historial
+        historial.push(new HistorialOperacion("CANCELAR", pedido.getId(), antes, EstadoPedido.CANCELADO, canceladoAntes));
     }
 
     //Despachar siguiente
     // Toma el siguiente pedido en la cola, lo marca como DESPACHADO y lo registra en el historial
+    @Override
     public Pedido despacharSiguiente() {
-        // Si la cola está vacía, no hay nada que despachar
-        if (colaPendientes.isEmpty()) {
-            throw new IllegalStateException("No hay pedidos por despachar");
+        while (true) {
+            // Sacamos el siguiente pedido en la cola (el primero en entrar)
+            Pedido sacado = colaPendientes.dequeue();
+            if (sacado == null) {
+                // Si la cola está vacía, no hay nada que despachar
+                throw new IllegalStateException("No hay pedidos por despachar");
+            }
+
+            Pedido pedido;
+            long posicionLog = 0;
+            candados.lock(sacado.getId());
+            try {
+                // Entre el dequeue y el candado otro hilo pudo cancelarlo o revertir su creación
+                pedido = pendienteGuardado(sacado.getId());
+                if (pedido == null) {
+                    continue;
+                }
+                Instant despachadoEn = ahora();
+                aplicarDespacho(pedido, despachadoEn);
+                version.incrementAndGet();
+                if (wal != null) {
+                    posicionLog = wal.registrarDespachar(pedido.getId(), despachadoEn.toEpochMilli());
+                }
+                eventos.publicar("DESPACHADO", null, pedido);
+                metricas.alDespachar(pedido);
+            } finally {
+                candados.unlock(sacado.getId());
+            }
+            esperarLog(posicionLog);
+
+            // Devolvemos el pedido ya despachado
+            return pedido;
         }
+    }
 
-        // Sacamos el siguiente pedido en la cola (el primero en entrar)
-        Pedido pedido = colaPendientes.dequeue();
-        if (pedido == null) {
-            // Revisión adicional: en caso de inconsistencia
-            throw new IllegalStateException("No hay pedidos por despachar");
+    // Despacho por lotes
+    // Saca de la cola hasta "maximo" pedidos (o los que alcancen dentro de "presupuestoMs", si viene)
+    // y los despacha juntos: un solo paso por los candados, un solo registro en el log
+    // y una sola operación DESPACHAR_LOTE en el historial, que un rollback deshace entera
+    @Override
+    public Pedido[] despacharLote(int maximo, Long presupuestoMs) {
+        if (maximo < 1 || maximo > LIMITE_MAXIMO_LOTE) {
+            throw new IllegalArgumentException("n debe estar entre 1 y " + LIMITE_MAXIMO_LOTE);
+        }
+        if (presupuestoMs != null && presupuestoMs < 0) {
+            throw new IllegalArgumentException("maxMs no puede ser negativo");
+        }
+        long limite = presupuestoMs == null ? 0 : System.nanoTime() + presupuestoMs * 1_000_000L;
+        while (true) {
+            // Primero vaciamos la cola sin candados (siempre al menos un pedido si hay)
+            List<Pedido> sacados = new ArrayList<>(Math.min(maximo, colaPendientes.size() + 1));
+            while (sacados.size() < maximo
+                    && (sacados.isEmpty() || presupuestoMs == null || System.nanoTime() - limite < 0)) {
+                Pedido pedido = colaPendientes.dequeue();
+                if (pedido == null) {
+                    break;
+                }
+                sacados.add(pedido);
+            }
+            if (sacados.isEmpty()) {
+                throw new IllegalStateException("No hay pedidos por despachar");
+            }
+
+            int[] ids = sacados.stream().mapToInt(Pedido::getId).toArray();
+            List<Pedido> despachados = new ArrayList<>(sacados.size());
+            Instant despachadoEn = ahora();
+            long posicionLog = 0;
+            int[] franjas = candados.lockTodas(ids);
+            try {
+                HistorialOperacion[] partes = new HistorialOperacion[sacados.size()];
+                for (Pedido sacado : sacados) {
+                    // Entre el dequeue y el candado otro hilo pudo cancelarlo o revertir su creación
+                    Pedido pedido = pendienteGuardado(sacado.getId());
+                    if (pedido != null) {
+                        partes[despachados.size()] = marcarDespachado(pedido, despachadoEn);
+                        despachados.add(pedido);
+                        eventos.publicar("DESPACHADO", null, pedido);
+                        metricas.alDespachar(pedido);
+                    }
+                }
+                if (!despachados.isEmpty()) {
+                    version.incrementAndGet();
+                }
+                if (despachados.size() == 1) {
+                    // Un lote de uno es un despacho normal
+                    historial.push(partes[0]);
+                    if (wal != null) {
+                        posicionLog = wal.registrarDespachar(despachados.get(0).getId(), despachadoEn.toEpochMilli());
+                    }
+                } else if (despachados.size() > 1) {
+                    historial.push(new HistorialOperacion("DESPACHAR_LOTE", Arrays.copyOf(partes, despachados.size())));
+                    if (wal != null) {
+                        posicionLog = wal.registrarDespacharLote(despachados.stream().mapToInt(Pedido::getId).toArray(),
+                                despachadoEn.toEpochMilli());
+                    }
+                }
+            } finally {
+                candados.unlockTodas(franjas);
+            }
+            if (despachados.isEmpty()) {
+                // Todos los sacados ya no estaban pendientes: probamos con los siguientes
+                continue;
+            }
+            esperarLog(posicionLog);
+            return despachados.toArray(new Pedido[0]);
         }
+    }
 
-        // Copiamos el estado antes de despachar
-        Pedido antes = new Pedido(pedido);
+    // Marca como DESPACHADO un pedido ya sacado de la cola y lo registra en el historial
+    private void aplicarDespacho(Pedido pedido, Instant despachadoEn) {
+        // Registramos la operación DESPACHAR en el historial
+        historial.push(marcarDespachado(pedido, despachadoEn));
+    }
 
-        // Cambiamos su estado a DESPACHADO
-        pedido.setEstado("DESPACHADO");
+    // Cambia el estado a DESPACHADO y devuelve la operación para el historial (sin apilarla)
+    private HistorialOperacion marcarDespachado(Pedido pedido, Instant despachadoEn) {
+        // Guardamos lo que el despacho pisa: el estado y el despachadoEn previos
+        EstadoPedido antes = EstadoPedido.desde(pedido.getEstado());
+        Instant despachadoAntes = pedido.getDespachadoEn();
 
-        // Copiamos el estado después de despachar
-        Pedido despues = new Pedido(pedido);
+        // Cambiamos su estado a DESPACHADO
+        cambiarEstado(pedido, EstadoPedido.DESPACHADO, despachadoEn, pedido.getCanceladoEn());
+        if (despachadoEn != null && pedido.getCreadoEn() != null) {
+            ventana.alDespachar(despachadoEn.toEpochMilli(), despachadoEn.toEpochMilli() - pedido.getCreadoEn().toEpochMilli());
+        }
 
-        // Registramos la operación DESPACHAR en el historial
-        historial.push(new HistorialOperacion("DESPACHAR", antes, despues));
+        return new HistorialOperacion("DESPACHAR", pedido.getId(), antes, EstadoPedido.DESPACHADO, despachadoAntes);
+    }
 
-        // Devolvemos el pedido ya despachado
+    // El pedido tal como está guardado, si sigue existiendo y se puede despachar (null si no: se
+    // canceló o se revirtió su creación entre el dequeue y el candado, y el despacho lo saltea)
+    // Lo que sale de la cola no se usa directamente: con el almacén columnar es una copia
+    private Pedido pendienteGuardado(int id) {
+        Pedido pedido = pedidos.findById(id);
+        if (pedido == null || !EstadoPedido.desde(pedido.getEstado()).puedePasarA(EstadoPedido.DESPACHADO)) {
+            return null;
+        }
         return pedido;
     }
 
+    // Cambia el estado y los momentos de despacho y cancelación en el almacén (índices incluidos),
+    // en las estadísticas y en el pedido leído (con el almacén de objetos es el mismo objeto; con el
+    // columnar, su copia)
+    private void cambiarEstado(Pedido pedido, EstadoPedido nuevo, Instant despachadoEn, Instant canceladoEn) {
+        EstadoPedido anterior = EstadoPedido.desde(pedido.getEstado());
+        pedidos.cambiarEstado(pedido.getId(), nuevo, despachadoEn, canceladoEn);
+        estadisticas.alCambiarEstado(pedido.getMonto(), anterior, nuevo);
+        // Un pedido cancelado deja de contar como venta (y vuelve a contar si se revierte la cancelación)
+        if (nuevo == EstadoPedido.CANCELADO && anterior != EstadoPedido.CANCELADO) {
+            analitica.alAnular(pedido.getDescripcion(), pedido.getMonto());
+        } else if (anterior == EstadoPedido.CANCELADO && nuevo != EstadoPedido.CANCELADO) {
+            analitica.alVender(pedido.getDescripcion(), pedido.getMonto());
+        }
+        pedido.setEstado(nuevo.name());
+        pedido.setDespachadoEn(despachadoEn);
+        pedido.setCanceladoEn(canceladoEn);
+    }
+
+    // Momento actual con la precisión que se guarda (milisegundos)
+    private static Instant ahora() {
+        return Instant.ofEpochMilli(System.currentTimeMillis());
+    }
+
     //  Estadísticas
-    // Calcula estadísticas básicas sobre los pedidos
+    // Devuelve las estadísticas acumuladas: no recorre los pedidos
+    @Override
     public EstadisticasPedidos obtenerEstadisticas() {
+        if (!verificarEstadisticas) {
+            return estadisticas.leer();
+        }
+        // Cada operación cambia los pedidos y los acumulados con sus franjas tomadas, así que con
+        // todas las franjas las dos lecturas ven el mismo corte (archivar no cambia estadísticas)
+        EstadisticasPedidos actuales;
+        EstadisticasPedidos recalculadas;
+        int[] franjas = candados.lockTodas();
+        try {
+            actuales = estadisticas.leer();
+            recalculadas = recalcularEstadisticas();
+        } finally {
+            candados.unlockTodas(franjas);
+        }
+        verificar(actuales, recalculadas);
+        return actuales;
+    }
+
+    // Calcula las estadísticas recorriendo todos los pedidos (se usa para verificar las acumuladas)
+    EstadisticasPedidos recalcularEstadisticas() {
         // Obtenemos todos los pedidos como arreglo
         Pedido[] arr = pedidos.toArray();
 
@@ -162,28 +916,31 @@ public class PedidoService {
         double totalMonto = 0.0;
         double totalMontoSinCancelados = 0.0;
         int registrados = 0;
+        int enPreparacion = 0;
         int despachados = 0;
         int cancelados = 0;
 
         // Recorremos todos los pedidos
         for (Pedido p : arr) {
             double monto = p.getMonto();
-            String estado = p.getEstado();
+            EstadoPedido estado = EstadoPedido.desde(p.getEstado());
 
             // Sumamos siempre al totalMonto
             totalMonto += monto;
 
             // Solo sumamos al totalMontoSinCancelados si el estado NO es CANCELADO
-            if (!"CANCELADO".equals(estado)) {
+            if (estado != EstadoPedido.CANCELADO) {
                 totalMontoSinCancelados += monto;
             }
 
             // Contamos según el estado
-            if ("REGISTRADO".equals(estado)) {
+            if (estado == EstadoPedido.REGISTRADO) {
                 registrados++;
-            } else if ("DESPACHADO".equals(estado)) {
+            } else if (estado == EstadoPedido.EN_PREPARACION) {
+                enPreparacion++;
+            } else if (estado == EstadoPedido.DESPACHADO) {
                 despachados++;
-            } else if ("CANCELADO".equals(estado)) {
+            } else if (estado == EstadoPedido.CANCELADO) {
                 cancelados++;
             }
         }
@@ -194,17 +951,62 @@ public class PedidoService {
                 totalMonto,
                 totalMontoSinCancelados,
                 registrados,
+                enPreparacion,
                 despachados,
                 cancelados
         );
     }
 
+    // Ventana de actividad
+    // Lo ocurrido en los últimos "minutos" minutos (contando el minuto en curso); suma como mucho
+    // un balde por minuto, no depende de cuántos pedidos haya
+    @Override
+    public VentanaTemporal.Resumen resumenVentana(int minutos) {
+        return ventana.resumen(System.currentTimeMillis(), minutos);
+    }
+
+    // Artículos más vendidos
+    // Los "k" artículos (descripción normalizada) con más pedidos vigentes, de mayor a menor, con su monto
+    // Lee directamente el resumen acotado: cuesta O(k), no depende de cuántos pedidos haya
+    public List<ArticuloTop> topArticulos(int k) {
+        if (k < 1 || k > analitica.capacidad()) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + analitica.capacidad());
+        }
+        return analitica.top(k);
+    }
+
+    // Compara las estadísticas acumuladas con las recalculadas; si no coinciden es un error de programación
+    private static void verificar(EstadisticasPedidos acumuladas, EstadisticasPedidos recalculadas) {
+        boolean iguales = acumuladas.getTotalPedidos() == recalculadas.getTotalPedidos()
+                && acumuladas.getTotalRegistrados() == recalculadas.getTotalRegistrados()
+                && acumuladas.getTotalEnPreparacion() == recalculadas.getTotalEnPreparacion()
+                && acumuladas.getTotalDespachados() == recalculadas.getTotalDespachados()
+                && acumuladas.getTotalCancelados() == recalculadas.getTotalCancelados()
+                && montosIguales(acumuladas.getTotalMonto(), recalculadas.getTotalMonto())
+                && montosIguales(acumuladas.getTotalMontoSinCancelados(), recalculadas.getTotalMontoSinCancelados());
+        if (!iguales) {
+            throw new IllegalStateException("Estadísticas incrementales inconsistentes: acumuladas="
+                    + describir(acumuladas) + " recalculadas=" + describir(recalculadas));
+        }
+    }
+
+    private static boolean montosIguales(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.max(1.0, Math.max(Math.abs(a), Math.abs(b)));
+    }
+
+    private static String describir(EstadisticasPedidos e) {
+        return "{total=" + e.getTotalPedidos() + ", monto=" + e.getTotalMonto()
+                + ", montoSinCancelados=" + e.getTotalMontoSinCancelados() + ", registrados=" + e.getTotalRegistrados()
+                + ", enPreparacion=" + e.getTotalEnPreparacion() + ", despachados=" + e.getTotalDespachados() + ", cancelados=" + e.getTotalCancelados() + "}";
+    }
+
     // Clase interna que representa el DTO de estadísticas que devolvemos al controller
     public static class EstadisticasPedidos {
         private int totalPedidos;
         private double totalMonto;
         private double totalMontoSinCancelados;
         private int totalRegistrados;
+        private int totalEnPreparacion;
         private int totalDespachados;
         private int totalCancelados;
 
@@ -212,12 +1014,14 @@ public class PedidoService {
                                    double totalMonto,
                                    double totalMontoSinCancelados,
                                    int totalRegistrados,
+                                   int totalEnPreparacion,
                                    int totalDespachados,
                                    int totalCancelados) {
             this.totalPedidos = totalPedidos;
             this.totalMonto = totalMonto;
             this.totalMontoSinCancelados = totalMontoSinCancelados;
             this.totalRegistrados = totalRegistrados;
+            this.totalEnPreparacion = totalEnPreparacion;
             this.totalDespachados = totalDespachados;
             this.totalCancelados = totalCancelados;
         }
@@ -226,66 +1030,255 @@ public class PedidoService {
         public double getTotalMonto() { return totalMonto; }
         public double getTotalMontoSinCancelados() { return totalMontoSinCancelados; }
         public int getTotalRegistrados() { return totalRegistrados; }
+        public int getTotalEnPreparacion() { return totalEnPreparacion; }
         public int getTotalDespachados() { return totalDespachados; }
         public int getTotalCancelados() { return totalCancelados; }
+
+        // Estadísticas de dos particiones juntas (los contadores y los montos se suman)
+        public EstadisticasPedidos sumar(EstadisticasPedidos otra) {
+            return new EstadisticasPedidos(
+                    totalPedidos + otra.totalPedidos,
+                    totalMonto + otra.totalMonto,
+                    totalMontoSinCancelados + otra.totalMontoSinCancelados,
+                    totalRegistrados + otra.totalRegistrados,
+                    totalEnPreparacion + otra.totalEnPreparacion,
+                    totalDespachados + otra.totalDespachados,
+                    totalCancelados + otra.totalCancelados
+            );
+        }
     }
 
-    // Total recursivo
-    // Calcula el monto total de todos los pedidos
-    public double calcularTotalMontoRecursivo() {
-        // Pasamos la lista a arreglo para facilitar el recorrido recursivo
-        Pedido[] arr = pedidos.toArray();
-        // Llamamos al método recursivo comenzando en el índice 0
-        return calcularTotalRecursivo(arr, 0);
+    // DTO de la actividad en una ventana de tiempo: ritmo de pedidos y percentiles del tiempo hasta
+    // el despacho (los percentiles son null si no hubo despachos; se equivocan como mucho en ~3%)
+    public static class EstadisticasVentana {
+        private final int minutos;
+        private final long creados;
+        private final long despachados;
+        private final long cancelados;
+        private final double creadosPorMinuto;
+        private final double despachadosPorMinuto;
+        private final Long p50DespachoMs;
+        private final Long p95DespachoMs;
+        private final Long p99DespachoMs;
+
+        public EstadisticasVentana(VentanaTemporal.Resumen resumen) {
+            this.minutos = resumen.minutos();
+            this.creados = resumen.creados();
+            this.despachados = resumen.despachados();
+            this.cancelados = resumen.cancelados();
+            this.creadosPorMinuto = (double) creados / minutos;
+            this.despachadosPorMinuto = (double) despachados / minutos;
+            boolean hayEsperas = resumen.esperas().cantidad() > 0;
+            this.p50DespachoMs = hayEsperas ? resumen.esperas().percentil(50) : null;
+            this.p95DespachoMs = hayEsperas ? resumen.esperas().percentil(95) : null;
+            this.p99DespachoMs = hayEsperas ? resumen.esperas().percentil(99) : null;
+        }
+
+        public int getMinutos() { return minutos; }
+        public long getCreados() { return creados; }
+        public long getDespachados() { return despachados; }
+        public long getCancelados() { return cancelados; }
+        public double getCreadosPorMinuto() { return creadosPorMinuto; }
+        public double getDespachadosPorMinuto() { return despachadosPorMinuto; }
+        public Long getP50DespachoMs() { return p50DespachoMs; }
+        public Long getP95DespachoMs() { return p95DespachoMs; }
+        public Long getP99DespachoMs() { return p99DespachoMs; }
+    }
+
+    // DTO de un artículo del top de ventas
+    public static class ArticuloTop {
+        private final String descripcion;
+        private final long cantidad;
+        private final long error;
+        private final double ingresos;
+
+        public ArticuloTop(String descripcion, long cantidad, long error, double ingresos) {
+            this.descripcion = descripcion;
+            this.cantidad = cantidad;
+            this.error = error;
+            this.ingresos = ingresos;
+        }
+
+        // Descripción normalizada (minúsculas, sin acentos ni signos)
+        public String getDescripcion() { return descripcion; }
+        // Pedidos vigentes; puede pasarse del real como mucho en "error"
+        public long getCantidad() { return cantidad; }
+        public long getError() { return error; }
+        // Monto de los pedidos contados desde que el artículo está en el top
+        public double getIngresos() { return ingresos; }
+        // Con error 0 el artículo se sigue desde su primer pedido: cantidad e ingresos son exactos
+        public boolean isExacto() { return error == 0; }
+    }
+
+    // DTO de una página del listado
+    public static class PaginaPedidos {
+        private final Pedido[] pedidos;
+        private final Integer siguiente;
+
+        public PaginaPedidos(Pedido[] pedidos, Integer siguiente) {
+            this.pedidos = pedidos;
+            this.siguiente = siguiente;
+        }
+
+        public Pedido[] getPedidos() { return pedidos; }
+        // Cursor para la siguiente página (null si ya no hay más)
+        public Integer getSiguiente() { return siguiente; }
     }
 
-    // Método recursivo privado: suma los montos desde "index" hasta el final del arreglo
-    private double calcularTotalRecursivo(Pedido[] arr, int index) {
-        // Caso base: si ya nos pasamos del último índice, regresamos 0.0
-        if (index >= arr.length) {
-            return 0.0;
+    // DTO con el resultado de un pedido de la ingesta por lotes: el id creado o el error
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ResultadoLote {
+        private final int indice;
+        private final Integer id;
+        private final String error;
+
+        public ResultadoLote(int indice, Integer id, String error) {
+            this.indice = indice;
+            this.id = id;
+            this.error = error;
         }
-        // Caso recursivo: monto actual + suma del resto
-        return arr[index].getMonto() + calcularTotalRecursivo(arr, index + 1);
+
+        // Posición del pedido en el cuerpo de la petición (desde 0)
+        public int getIndice() { return indice; }
+        public Integer getId() { return id; }
+        public String getError() { return error; }
+    }
+
+    // Total recursivo
+    // Calcula el monto total de todos los pedidos con una suma "divide y vencerás" en el ForkJoinPool
+    // (profundidad logarítmica, usa todos los núcleos y suma compensada para no perder centavos)
+    @Override
+    public double calcularTotalMontoRecursivo() {
+        return pedidos.sumarMontos();
     }
 
     // Rollback
-    // Deshace la ÚLTIMA operación realizada (CREAR, CANCELAR o DESPACHAR)
+    // Deshace la ÚLTIMA operación realizada (CREAR, PREPARAR, CANCELAR o DESPACHAR)
     public Pedido rollbackUltimaOperacion() {
-        // Si la pila de historial está vacía, no hay nada que revertir
-        if (historial.isEmpty()) {
-            throw new IllegalStateException("No hay operaciones para revertir");
+        return rollback(1)[0];
+    }
+
+    // Deshace las últimas "pasos" operaciones en una sola pasada atómica:
+    // o se revierten todas o ninguna (si no hay suficientes en el historial)
+    // Devuelve los pedidos afectados, empezando por la operación más reciente
+    // (un DESPACHAR_LOTE cuenta como un paso pero devuelve todos sus pedidos)
+    @Override
+    public Pedido[] rollback(int pasos) {
+        if (pasos < 1) {
+            throw new IllegalArgumentException("pasos debe ser mayor a 0");
+        }
+        while (true) {
+            // Miramos las últimas operaciones del historial sin sacarlas
+            HistorialOperacion[] ops = historial.recientes(pasos);
+            if (ops.length == 0) {
+                // Si la pila de historial está vacía, no hay nada que revertir
+                throw new IllegalStateException("No hay operaciones para revertir");
+            }
+            if (ops.length < pasos) {
+                throw new IllegalStateException("Solo hay " + ops.length + " operaciones para revertir");
+            }
+
+            // Una operación compuesta (DESPACHAR_LOTE) bloquea todos sus pedidos
+            int[] ids = Arrays.stream(ops).flatMapToInt(op -> Arrays.stream(idsAfectados(op))).toArray();
+            List<Pedido> revertidos = null;
+            long posicionLog = 0;
+            int[] franjas = candados.lockTodas(ids);
+            try {
+                // Con los pedidos bloqueados, las sacamos solo si nadie apiló otra operación encima
+                if (historial.popIfTop(ops)) {
+                    revertidos = new ArrayList<>(ids.length);
+                    for (HistorialOperacion op : ops) {
+                        int desde = revertidos.size();
+                        revertir(op, revertidos);
+                        String revertida = op.getPartes() == null ? op.getTipoOperacion() : "DESPACHAR";
+                        for (int k = desde; k < revertidos.size(); k++) {
+                            eventos.publicar("REVERTIDO", revertida, revertidos.get(k));
+                        }
+                        if (wal != null) {
+                            posicionLog = wal.registrarRollback(op.getTipoOperacion(), op.getIdPedido());
+                        }
+                    }
+                    version.incrementAndGet();
+                }
+            } finally {
+                candados.unlockTodas(franjas);
+            }
+            if (revertidos != null) {
+                esperarLog(posicionLog);
+                return revertidos.toArray(new Pedido[0]);
+            }
+        }
+    }
+
+    // Historial
+    // Devuelve las últimas operaciones (la más reciente primero) sin sacarlas de la pila
+    @Override
+    public HistorialOperacion[] listarHistorial(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("limite debe ser mayor a 0");
+        }
+        return historial.recientes(limite);
+    }
+
+    // Ids de todos los pedidos a los que afecta una operación (varios si es compuesta)
+    private static int[] idsAfectados(HistorialOperacion op) {
+        if (op.getPartes() == null) {
+            return new int[]{op.getIdPedido()};
+        }
+        return Arrays.stream(op.getPartes()).mapToInt(HistorialOperacion::getIdPedido).toArray();
+    }
+
+    // Revierte una operación (simple o compuesta) y agrega a "revertidos" los pedidos afectados
+    private void revertir(HistorialOperacion op, List<Pedido> revertidos) {
+        if (op.getPartes() == null) {
+            revertidos.add(revertir(op));
+            return;
+        }
+        // Las partes se deshacen de la última a la primera: cada pedido vuelve al frente
+        // de la cola, así el lote queda otra vez en el orden en que había salido
+        HistorialOperacion[] partes = op.getPartes();
+        for (int i = partes.length - 1; i >= 0; i--) {
+            revertidos.add(revertir(partes[i]));
         }
+    }
 
-        // Sacamos la última operación del historial (top de la pila)
-        HistorialOperacion op = historial.pop();
+    // Aplica el rollback de una operación simple ya sacada del historial (con el pedido bloqueado)
+    private Pedido revertir(HistorialOperacion op) {
         String tipo = op.getTipoOperacion();
 
         // Según el tipo de operación, aplicamos una lógica distinta de rollback
         switch (tipo) {
             case "CREAR": {
                 // Si la operación fue CREAR, el rollback es eliminar el pedido creado
-                Pedido creado = op.getPedidoDespues();
+                Pedido actual = pedidoParaRollback(op);
                 // Lo quitamos de la lista principal
-                pedidos.removeById(creado.getId());
+                if (pedidos.removeById(actual.getId())) {
+                    EstadoPedido estadoActual = EstadoPedido.desde(actual.getEstado());
+                    estadisticas.alQuitar(actual.getMonto(), estadoActual);
+                    if (estadoActual != EstadoPedido.CANCELADO) {
+                        analitica.alAnular(actual.getDescripcion(), actual.getMonto());
+                    }
+                }
                 // Y también de la cola de pendientes (por si está ahí)
-                colaPendientes.removeById(creado.getId());
-                return creado;
+                colaPendientes.removeById(actual.getId());
+                return actual;
+            }
+            case "PREPARAR": {
+                // Si fue PREPARAR, el pedido vuelve al estado anterior (REGISTRADO)
+                // Nunca salió de la cola, así que ahí no hay nada que tocar
+                Pedido actual = pedidoParaRollback(op);
+                cambiarEstado(actual, op.getEstadoAntes(), actual.getDespachadoEn(), actual.getCanceladoEn());
+                return actual;
             }
             case "CANCELAR": {
                 // Si fue CANCELAR, tenemos que regresar el pedido a su estado anterior
-                Pedido antes = op.getPedidoAntes();
-                // Buscamos el pedido actual en la lista
-                Pedido actual = pedidos.findById(antes.getId());
-                if (actual == null) {
-                    throw new IllegalStateException("No se encontró el pedido para rollback");
-                }
-                // Restauramos el estado anterior (por ejemplo, de CANCELADO a REGISTRADO)
-                actual.setEstado(antes.getEstado());
+                Pedido actual = pedidoParaRollback(op);
+                // Restauramos el estado anterior (por ejemplo, de CANCELADO a REGISTRADO) y su canceladoEn
+                EstadoPedido estadoAnterior = op.getEstadoAntes();
+                cambiarEstado(actual, estadoAnterior, actual.getDespachadoEn(), op.getInstanteAnterior());
 
-                String estadoAnterior = antes.getEstado();
                 // Si antes era un pedido pendiente, debe estar en la cola
-                if ("REGISTRADO".equals(estadoAnterior) || "EN_PREPARACION".equals(estadoAnterior)) {
+                if (estadoAnterior.esPendiente()) {
                     // Por si acaso ya estuviera en la cola, lo removemos primero
                     colaPendientes.removeById(actual.getId());
                     // Y lo volvemos a encolar al final
@@ -295,19 +1288,14 @@ public class PedidoService {
             }
             case "DESPACHAR": {
                 // Si fue DESPACHAR, hay que regresarlo a su estado anterior
-                Pedido antes = op.getPedidoAntes();
-                // Buscamos el pedido actual en la lista
-                Pedido actual = pedidos.findById(antes.getId());
-                if (actual == null) {
-                    throw new IllegalStateException("No se encontró el pedido para rollback");
-                }
+                Pedido actual = pedidoParaRollback(op);
 
-                // Restauramos el estado que tenía antes de ser despachado
-                actual.setEstado(antes.getEstado());
+                // Restauramos el estado que tenía antes de ser despachado y su despachadoEn
+                EstadoPedido estadoAnterior = op.getEstadoAntes();
+                cambiarEstado(actual, estadoAnterior, op.getInstanteAnterior(), actual.getCanceladoEn());
 
-                String estadoAnterior = antes.getEstado();
                 // Si antes era un pedido pendiente, debe regresar a la cola de pendientes
-                if ("REGISTRADO".equals(estadoAnterior) || "EN_PREPARACION".equals(estadoAnterior)) {
+                if (estadoAnterior.esPendiente()) {
                     // Por si estuviera en la cola, lo removemos
                     colaPendientes.removeById(actual.getId());
                     // Lo encolamos al FRENTE para conservar el orden 1,2,3 como estaba
@@ -321,4 +1309,106 @@ public class PedidoService {
                 throw new IllegalStateException("Tipo de operación desconocido: " + tipo);
         }
     }
+
+    // El pedido al que afecta una operación del historial, tal como está ahora
+    private Pedido pedidoParaRollback(HistorialOperacion op) {
+        Pedido actual = pedidos.findById(op.getIdPedido());
+        if (actual == null) {
+            throw new IllegalStateException("No se encontró el pedido para rollback");
+        }
+        return actual;
+    }
+
+    // Espera a que el registro del log sea durable (según el modo configurado)
+    private void esperarLog(long posicionLog) {
+        if (wal != null) {
+            wal.esperarDurable(posicionLog);
+        }
+    }
+
+    // Recuperación
+    // Aplica una operación leída del log al arrancar (un solo hilo, antes de atender peticiones)
+    private void reproducir(RegistroWal registro) {
+        switch (registro.tipo()) {
+            case "CREAR": {
+                Pedido pedido = new Pedido(registro.id(), registro.nombreCliente(), registro.descripcion(),
+                        registro.monto(), EstadoPedido.REGISTRADO.name());
+                // Si el canal ya no está configurado, el pedido espera en el primer carril
+                pedido.setCanal(colaPendientes.tieneCarril(registro.canal())
+                        ? registro.canal() : colaPendientes.carrilPorDefecto());
+                pedido.setCreadoEn(instanteDelLog(registro));
+                aplicarCrear(pedido);
+                // Los ids nunca se reutilizan, aunque la creación se haya revertido
+                nextId.accumulateAndGet(registro.id() + 1, Math::max);
+                break;
+            }
+            case "PREPARAR": {
+                aplicarPreparar(pedidoDelLog(registro.id()));
+                break;
+            }
+            case "CANCELAR": {
+                aplicarCancelar(pedidoDelLog(registro.id()), instanteDelLog(registro));
+                break;
+            }
+            case "DESPACHAR": {
+                // El log dice qué pedido se despachó: lo sacamos de la cola por id
+                Pedido pedido = pedidoDelLog(registro.id());
+                colaPendientes.removeById(pedido.getId());
+                aplicarDespacho(pedido, instanteDelLog(registro));
+                break;
+            }
+            case "DESPACHAR_LOTE": {
+                HistorialOperacion[] partes = new HistorialOperacion[registro.lote().length];
+                for (int i = 0; i < partes.length; i++) {
+                    Pedido pedido = pedidoDelLog(registro.lote()[i]);
+                    colaPendientes.removeById(pedido.getId());
+                    partes[i] = marcarDespachado(pedido, instanteDelLog(registro));
+                }
+                historial.push(new HistorialOperacion("DESPACHAR_LOTE", partes));
+                break;
+            }
+            case "ROLLBACK": {
+                revertir(sacarDelHistorial(registro.tipoRevertido(), registro.id()), new ArrayList<>());
+                break;
+            }
+            default:
+                throw new IllegalStateException("Tipo de operación desconocido en el log: " + registro.tipo());
+        }
+    }
+
+    // Los registros anteriores a que el log guardara el instante quedan sin momento (null)
+    private static Instant instanteDelLog(RegistroWal registro) {
+        return registro.instante() == 0 ? null : Instant.ofEpochMilli(registro.instante());
+    }
+
+    private Pedido pedidoDelLog(int id) {
+        Pedido pedido = pedidos.findById(id);
+        if (pedido == null) {
+            throw new IllegalStateException("El log hace referencia al pedido " + id + " que no existe");
+        }
+        return pedido;
+    }
+
+    // Saca del historial la operación más reciente de ese tipo sobre ese pedido.
+    // Casi siempre es el tope; con varias cajas a la vez, operaciones de OTROS pedidos
+    // pueden haber quedado encima en el log, así que se apartan y se vuelven a apilar.
+    private HistorialOperacion sacarDelHistorial(String tipo, int id) {
+        Deque<HistorialOperacion> apartadas = new ArrayDeque<>();
+        try {
+            while (true) {
+                HistorialOperacion op = historial.pop();
+                if (op == null) {
+                    throw new IllegalStateException("El log revierte una operación que no está en el historial");
+                }
+                if (op.getTipoOperacion().equals(tipo) && op.getIdPedido() == id) {
+                    return op;
+                }
+                apartadas.push(op);
+            }
+        } finally {
+            while (!apartadas.isEmpty()) {
+                historial.push(apartadas.pop());
+            }
+        }
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.fastfood_service.service;
+
+// Qué hacer con un suscriptor de eventos que se atrasa más de lo que cabe en su buffer
+// - DESCARTAR: se saltan los eventos viejos y se le envía un REINICIO para que recargue el estado
+// - DESCONECTAR: se cierra su conexión (puede volver a conectarse con Last-Event-ID)
+public enum PoliticaDesborde {
+    DESCARTAR,
+    DESCONECTAR
+}
@@ -0,0 +1,116 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.datastructures.VentanaTemporal;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import com.example.fastfood_service.service.PedidoService.EstadisticasVentana;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Operaciones sobre todas las sucursales a la vez
+//
+// Cada partición calcula sus propios agregados (estadísticas acumuladas, total recursivo) y aquí solo
+// se combinan. Las consultas a las particiones salen en paralelo, una por hilo virtual: con particiones
+// locales el total recursivo de cada una corre a la vez, y con particiones remotas las esperas se solapan.
+@Service
+public class SucursalesService {
+
+    private final EnrutadorSucursales enrutador;
+
+    // Un hilo virtual por partición consultada
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SucursalesService(EnrutadorSucursales enrutador) {
+        this.enrutador = enrutador;
+    }
+
+    // La partición de una sucursal (NoSuchElementException si no existe: 404 en el controller)
+    public ParticionPedidos particion(String sucursal) {
+        return enrutador.particion(sucursal);
+    }
+
+    public List<String> sucursales() {
+        return enrutador.sucursales();
+    }
+
+    // Estadísticas de todas las sucursales juntas
+    public EstadisticasPedidos estadisticasGlobales() {
+        return enTodas(ParticionPedidos::obtenerEstadisticas).values().stream()
+                .reduce(EstadisticasPedidos::sumar)
+                .orElseThrow();
+    }
+
+    // Estadísticas de cada sucursal por separado (en el orden de sucursales())
+    public Map<String, EstadisticasPedidos> estadisticasPorSucursal() {
+        return enTodas(ParticionPedidos::obtenerEstadisticas);
+    }
+
+    // Monto total de todas las sucursales (cada una suma la suya con su total recursivo)
+    public double totalMontoGlobal() {
+        // DoubleStream.sum usa suma compensada, como el total recursivo de cada partición
+        return enTodas(ParticionPedidos::calcularTotalMontoRecursivo).values().stream()
+                .mapToDouble(Double::doubleValue)
+                .sum();
+    }
+
+    // Versión de todas las sucursales juntas: la suma de las versiones de cada partición, que solo
+    // crecen, así que cambia cuando cambia cualquiera. No hace falta consultarlas en paralelo.
+    public long version() {
+        long total = 0;
+        for (String sucursal : enrutador.sucursales()) {
+            total += enrutador.particion(sucursal).version();
+        }
+        return total;
+    }
+
+    // Actividad de los últimos "minutos" minutos en todas las sucursales: los conteos y los
+    // histogramas de cada partición se suman antes de calcular ritmos y percentiles
+    public EstadisticasVentana ventanaGlobal(int minutos) {
+        VentanaTemporal.Resumen total = enTodas(p -> p.resumenVentana(minutos)).values().stream()
+                .reduce(VentanaTemporal.Resumen::sumar)
+                .orElseThrow();
+        return new EstadisticasVentana(total);
+    }
+
+    // Hace la consulta en todas las particiones en paralelo y devuelve los resultados por sucursal
+    private <T> Map<String, T> enTodas(Function<ParticionPedidos, T> consulta) {
+        List<String> sucursales = enrutador.sucursales();
+        Map<String, T> resultados = new LinkedHashMap<>();
+        if (sucursales.size() == 1) {
+            // Una sola partición: no vale la pena saltar de hilo
+            resultados.put(sucursales.get(0), consulta.apply(enrutador.particion(sucursales.get(0))));
+            return resultados;
+        }
+        List<CompletableFuture<T>> pendientes = new ArrayList<>(sucursales.size());
+        for (String sucursal : sucursales) {
+            ParticionPedidos particion = enrutador.particion(sucursal);
+            pendientes.add(CompletableFuture.supplyAsync(() -> consulta.apply(particion), hilos));
+        }
+        try {
+            for (int i = 0; i < sucursales.size(); i++) {
+                resultados.put(sucursales.get(i), pendientes.get(i).join());
+            }
+        } catch (CompletionException e) {
+            // El error de la partición tal cual, para que el controller lo traduzca como siempre
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+        return resultados;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        hilos.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.fastfood_service.carga;
+
+import com.example.fastfood_service.datastructures.HistogramaLogLineal;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Generador de carga de "modelo abierto": las peticiones llegan a una tasa fija, como los clientes
+// a la hora del almuerzo, sin esperar a que el servicio termine con las anteriores
+//
+// - Cada petición tiene su hora programada (inicio + i / tasa) y sale en su propio hilo virtual,
+//   así que un servicio lento no frena la llegada de las siguientes.
+// - La latencia se mide desde la hora programada, no desde que la petición salió de verdad: si el
+//   generador o el servicio se atrasan, ese atraso cuenta (corrección de la omisión coordinada).
+//   Medir desde el envío real escondería justamente las esperas que ve un cliente.
+// - Lo que se programa durante el calentamiento se envía pero no se mide.
+final class GeneradorCarga {
+
+    // Una petición ya armada; devuelve true si la respuesta es una de las esperadas
+    interface Peticion {
+        boolean enviar() throws Exception;
+    }
+
+    // Lo medido después del calentamiento; latencias en microsegundos
+    record Medicion(long enviadas, long completadas, long errores, double porSegundo, HistogramaLogLineal latencias) {
+    }
+
+    private GeneradorCarga() {
+    }
+
+    // "siguiente" arma cada petición en el hilo del generador (puede usar un Random sin sincronizar)
+    static Medicion correr(int tasa, Duration calentamiento, Duration medicion, Supplier<Peticion> siguiente) {
+        if (tasa < 1) {
+            throw new IllegalArgumentException("tasa debe ser al menos 1 petición por segundo");
+        }
+        long intervalo = 1_000_000_000L / tasa;
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + calentamiento.toNanos();
+        long fin = inicioMedicion + medicion.toNanos();
+
+        HistogramaLogLineal latencias = new HistogramaLogLineal();
+        LongAdder enviadas = new LongAdder();
+        LongAdder completadas = new LongAdder();
+        LongAdder errores = new LongAdder();
+        LongAccumulator ultimaRespuesta = new LongAccumulator(Math::max, inicioMedicion);
+
+        // close() espera a que terminen todas las peticiones en curso
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long programada = inicio + i * intervalo;
+                if (programada - fin >= 0) {
+                    break;
+                }
+                esperarHasta(programada);
+                Peticion peticion = siguiente.get();
+                boolean medida = programada - inicioMedicion >= 0;
+                if (medida) {
+                    enviadas.increment();
+                }
+                clientes.execute(() -> {
+                    boolean esperada;
+                    try {
+                        esperada = peticion.enviar();
+                    } catch (Exception e) {
+                        esperada = false;
+                    }
+                    long respondida = System.nanoTime();
+                    if (!medida) {
+                        return;
+                    }
+                    if (!esperada) {
+                        errores.increment();
+                    }
+                    completadas.increment();
+                    ultimaRespuesta.accumulate(respondida);
+                    synchronized (latencias) {
+                        latencias.agregar((respondida - programada) / 1_000);
+                    }
+                });
+            }
+        }
+
+        // Respuestas por segundo desde el fin del calentamiento hasta la última respuesta medida:
+        // si el servicio no da abasto queda por debajo de la tasa pedida
+        double segundos = Math.max(ultimaRespuesta.get() - inicioMedicion, 1) / 1e9;
+        return new Medicion(enviadas.sum(), completadas.sum(), errores.sum(), completadas.sum() / segundos, latencias);
+    }
+
+    private static void esperarHasta(long momento) {
+        long falta;
+        while ((falta = momento - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(falta);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.fastfood_service.carga;
+
+import com.example.fastfood_service.datastructures.HistogramaLogLineal;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prueba de carga de la hora pico contra la aplicación levantada en un puerto al azar
+//
+// No corre con "mvn test": está marcada con el tag "carga" y se corre con el perfil del mismo nombre
+//   mvn -Pcarga test
+// Opciones (-D...): carga.tasa (peticiones por segundo, 100), carga.duracion-s (20),
+// carga.calentamiento-s (3, antes de cada escenario), carga.precalentamiento-s (5 por escenario, una sola
+// vez al arrancar), carga.tolerancia (% de empeoramiento aceptado en la mediana y en respuestas por
+// segundo, 20), carga.tolerancia-p99 (% aceptado en el p99, 100),
+// carga.base (archivo de referencia; por defecto src/test/resources/carga/base.json; "" para no comparar)
+// y carga.resultado (target/carga/resultados.json).
+//
+// Cada escenario mezcla operaciones con distintos pesos. Los números absolutos dependen de la máquina,
+// así que no se comparan: antes de los escenarios se mide en la misma corrida uno de REFERENCIA (solo
+// consultas por id, el piso de HTTP, JSON e hilos de esa máquina) y cada escenario se compara con la
+// base en relación a su referencia: si la mediana de la referencia de hoy es el doble que la de la
+// base, se espera el doble de latencia. Los escenarios o tasas que no están en la base (o una base sin su
+// referencia) solo se informan. Para actualizar la base alcanza con copiar el archivo de resultados
+// de una corrida buena; trae la referencia con la que se midió.
+@Tag("carga")
+// La hora pico se mide con la cola de tres carriles ponderados del ejemplo de application.properties
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "pedidos.cola.carriles[0].nombre=MOSTRADOR", "pedidos.cola.carriles[0].peso=1",
+        "pedidos.cola.carriles[0].orden=FIFO",
+        "pedidos.cola.carriles[1].nombre=DELIVERY", "pedidos.cola.carriles[1].peso=2",
+        "pedidos.cola.carriles[1].orden=ANTIGUEDAD",
+        "pedidos.cola.carriles[2].nombre=EXPRESS", "pedidos.cola.carriles[2].peso=3",
+        "pedidos.cola.carriles[2].orden=FIFO"})
+class HoraPicoCargaTest {
+
+    // Por debajo de esta diferencia (1 ms) no se compara la latencia: es ruido de la máquina
+    private static final long LATENCIA_MINIMA_US = 1_000;
+
+    private static final String[] CANALES = {"MOSTRADOR", "DELIVERY", "EXPRESS"};
+    private static final String[] ARTICULOS = {"Hamburguesa", "Papas", "Combo familiar", "Helado", "Gaseosa"};
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().build();
+
+    private static final List<ResultadoCarga> RESULTADOS = new CopyOnWriteArrayList<>();
+
+    enum Operacion {
+        CREAR, DESPACHAR, CANCELAR, CONSULTAR, ESTADISTICAS, VENTANA, TOP
+    }
+
+    // Mezcla de operaciones (pesos relativos) y pedidos que se cargan por lote antes de empezar
+    enum Escenario {
+        // Solo consultas por id: no es un escenario de la hora pico sino la vara con la que se miden los demás
+        REFERENCIA(200, Map.of(Operacion.CONSULTAR, 100)),
+        // Llegan muchos pedidos y la cocina despacha poco
+        CREACION(200, Map.of(Operacion.CREAR, 80, Operacion.DESPACHAR, 10, Operacion.CONSULTAR, 10)),
+        // La cola está llena y se despacha sin parar
+        DESPACHO(5_000, Map.of(Operacion.DESPACHAR, 80, Operacion.CREAR, 20)),
+        // Muchas cancelaciones, repetidas y en carrera con el despacho de los mismos pedidos
+        CANCELACIONES(1_000, Map.of(Operacion.CANCELAR, 70, Operacion.DESPACHAR, 20, Operacion.CREAR, 10)),
+        // Las pantallas consultan las estadísticas mientras siguen entrando pedidos
+        TABLERO(200, Map.of(Operacion.ESTADISTICAS, 50, Operacion.VENTANA, 20, Operacion.TOP, 20, Operacion.CREAR, 10));
+
+        final int pedidosIniciales;
+        final Map<Operacion, Integer> pesos;
+
+        Escenario(int pedidosIniciales, Map<Operacion, Integer> pesos) {
+            this.pedidosIniciales = pedidosIniciales;
+            this.pesos = new EnumMap<>(pesos);
+        }
+
+        Operacion elegir(Random random) {
+            int total = pesos.values().stream().mapToInt(Integer::intValue).sum();
+            int r = random.nextInt(total);
+            for (Map.Entry<Operacion, Integer> peso : pesos.entrySet()) {
+                r -= peso.getValue();
+                if (r < 0) {
+                    return peso.getKey();
+                }
+            }
+            throw new IllegalStateException("pesos inválidos en " + this);
+        }
+    }
+
+    // Resultado de un escenario (el mismo formato que el archivo de base)
+    record ResultadoCarga(String escenario, int tasa, long enviadas, long errores, double porSegundo,
+                          long p50Us, long p99Us, long p999Us, long maximoUs) {
+
+        String clave() {
+            return escenario + " tasa=" + tasa;
+        }
+    }
+
+    @LocalServerPort
+    int puerto;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    // La primera vez se calienta la JVM (JIT, conexiones) con todos los escenarios sin medir: en frío
+    // el primer escenario se atrasa segundos y esas latencias no dicen nada del servicio
+    private static boolean jvmCaliente;
+
+    // Referencia de esta corrida (se mide una vez, antes del primer escenario)
+    private static ResultadoCarga referencia;
+
+    // Último ETag de /estadisticas que vio "el tablero" (para que los sondeos sin cambios den 304)
+    private volatile String etagEstadisticas;
+
+    @ParameterizedTest
+    @EnumSource(value = Escenario.class, names = "REFERENCIA", mode = EnumSource.Mode.EXCLUDE)
+    void horaPicoSinRegresiones(Escenario escenario) throws Exception {
+        int tasa = Integer.getInteger("carga.tasa", 100);
+        Duration calentamiento = Duration.ofSeconds(Integer.getInteger("carga.calentamiento-s", 3));
+        Duration duracion = Duration.ofSeconds(Integer.getInteger("carga.duracion-s", 20));
+
+        if (!jvmCaliente) {
+            Duration precalentamiento = Duration.ofSeconds(Integer.getInteger("carga.precalentamiento-s", 5));
+            for (Escenario previo : Escenario.values()) {
+                int[] ids = cargarLote(previo.pedidosIniciales);
+                Random random = new Random(-1 - previo.ordinal());
+                GeneradorCarga.correr(tasa, precalentamiento, Duration.ZERO, () -> peticion(previo.elegir(random), random, ids));
+            }
+            jvmCaliente = true;
+        }
+        if (referencia == null) {
+            referencia = medir(Escenario.REFERENCIA, tasa, calentamiento, duracion);
+        }
+
+        ResultadoCarga resultado = medir(escenario, tasa, calentamiento, duracion);
+        Map<String, ResultadoCarga> base = base();
+        ResultadoCarga anterior = base.get(resultado.clave());
+        ResultadoCarga referenciaAnterior = base.get(referencia.clave());
+        if (anterior != null && referenciaAnterior != null) {
+            double tolerancia = Double.parseDouble(System.getProperty("carga.tolerancia", "20"));
+            double toleranciaP99 = Double.parseDouble(System.getProperty("carga.tolerancia-p99", "100"));
+            List<String> regresiones = regresiones(anterior, referenciaAnterior, resultado, referencia,
+                    tolerancia, toleranciaP99);
+            assertTrue(regresiones.isEmpty(), "Regresiones de más de " + tolerancia + "% (p99: " + toleranciaP99
+                    + "%): " + regresiones);
+        }
+    }
+
+    // Corre un escenario, lo agrega a los resultados y verifica que todas las respuestas llegaron y eran esperadas
+    private ResultadoCarga medir(Escenario escenario, int tasa, Duration calentamiento, Duration duracion)
+            throws Exception {
+        int[] ids = cargarLote(escenario.pedidosIniciales);
+        Random random = new Random(escenario.ordinal());
+        GeneradorCarga.Medicion medicion = GeneradorCarga.correr(tasa, calentamiento, duracion,
+                () -> peticion(escenario.elegir(random), random, ids));
+
+        HistogramaLogLineal latencias = medicion.latencias();
+        ResultadoCarga resultado = new ResultadoCarga(escenario.name(), tasa, medicion.enviadas(), medicion.errores(),
+                Math.round(medicion.porSegundo() * 10) / 10.0, latencias.percentil(50), latencias.percentil(99),
+                latencias.percentil(99.9), latencias.percentil(100));
+        RESULTADOS.add(resultado);
+        System.out.printf("%s: %d peticiones, %.1f/s, p50 %d us, p99 %d us, p99.9 %d us, máx %d us, %d errores%n",
+                resultado.clave(), resultado.enviadas(), resultado.porSegundo(), resultado.p50Us(), resultado.p99Us(),
+                resultado.p999Us(), resultado.maximoUs(), resultado.errores());
+
+        assertEquals(medicion.enviadas(), medicion.completadas(), "Quedaron peticiones sin respuesta");
+        assertEquals(0, resultado.errores(), "Respuestas inesperadas o fallidas en " + resultado.clave());
+        return resultado;
+    }
+
+    @AfterAll
+    static void guardarResultados() throws Exception {
+        Path archivo = Path.of(System.getProperty("carga.resultado", "target/carga/resultados.json"));
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(archivo.toFile(), RESULTADOS);
+        System.out.println("Resultados en " + archivo.toAbsolutePath());
+    }
+
+    // Arma la petición de una operación (en el hilo del generador: el Random no se comparte)
+    private GeneradorCarga.Peticion peticion(Operacion operacion, Random random, int[] ids) {
+        int id = ids[random.nextInt(ids.length)];
+        return switch (operacion) {
+            case CREAR -> enviar(HttpRequest.newBuilder(uri("/api/pedidos"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(pedido(random))), Set.of(201));
+            // 409: la cola quedó vacía
+            case DESPACHAR -> enviar(HttpRequest.newBuilder(uri("/api/pedidos/despachar"))
+                    .POST(HttpRequest.BodyPublishers.noBody()), Set.of(200, 409));
+            // 409: ya estaba despachado o cancelado (en la tormenta de cancelaciones es lo normal)
+            case CANCELAR -> enviar(HttpRequest.newBuilder(uri("/api/pedidos/" + id)).DELETE(), Set.of(200, 409));
+            case CONSULTAR -> enviar(HttpRequest.newBuilder(uri("/api/pedidos/" + id)).GET(), Set.of(200));
+            case ESTADISTICAS -> this::sondearEstadisticas;
+            case VENTANA -> enviar(HttpRequest.newBuilder(uri("/api/pedidos/estadisticas/ventana")).GET(), Set.of(200));
+            case TOP -> enviar(HttpRequest.newBuilder(uri("/api/pedidos/estadisticas/top")).GET(), Set.of(200));
+        };
+    }
+
+    private GeneradorCarga.Peticion enviar(HttpRequest.Builder builder, Set<Integer> esperados) {
+        HttpRequest request = builder.build();
+        return () -> esperados.contains(http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    private boolean sondearEstadisticas() throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri("/api/pedidos/estadisticas")).GET();
+        String etag = etagEstadisticas;
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        HttpResponse<Void> respuesta = http.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+        respuesta.headers().firstValue("ETag").ifPresent(e -> etagEstadisticas = e);
+        return respuesta.statusCode() == 200 || respuesta.statusCode() == 304;
+    }
+
+    // Crea "cantidad" pedidos en un solo POST /lote y devuelve sus ids
+    private int[] cargarLote(int cantidad) throws Exception {
+        Random random = new Random(cantidad);
+        StringBuilder cuerpo = new StringBuilder("[");
+        for (int i = 0; i < cantidad; i++) {
+            cuerpo.append(i == 0 ? "" : ",").append(pedido(random));
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/pedidos/lote"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo.append(']').toString()))
+                .build();
+        HttpResponse<String> respuesta = http.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, respuesta.statusCode(), respuesta.body());
+        JsonNode resultados = MAPPER.readTree(respuesta.body()).get("resultados");
+        int[] ids = new int[resultados.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = resultados.get(i).get("id").asInt();
+        }
+        return ids;
+    }
+
+    private static String pedido(Random random) {
+        return "{\"nombreCliente\":\"Cliente " + random.nextInt(500) + "\",\"descripcion\":\""
+                + ARTICULOS[random.nextInt(ARTICULOS.length)] + "\",\"monto\":" + (100 + random.nextInt(5_000)) / 100.0
+                + ",\"canal\":\"" + CANALES[random.nextInt(CANALES.length)] + "\"}";
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    // Empeoramientos de más de "tolerancia" por ciento, medidos contra la referencia de cada corrida:
+    // latencias más altas o menos respuestas por segundo. Lo esperado es lo de la base escalado por
+    // cuánto cambió la mediana de la referencia (su p99 depende de unas pocas pausas y no sirve de vara).
+    // El p99 sale de unas 20 respuestas por escenario: entre corridas iguales en la misma máquina varió
+    // hasta un 75%, contra menos de 10% la mediana escalada. Por eso tiene su propia tolerancia, que
+    // solo atrapa empeoramientos grandes de la cola; la mediana y las respuestas por segundo van ajustadas.
+    // El p99.9 y el máximo se guardan pero no se comparan: con unos miles de peticiones salen de
+    // unas pocas respuestas y cambian al doble de una corrida a otra
+    static List<String> regresiones(ResultadoCarga antes, ResultadoCarga referenciaAntes, ResultadoCarga ahora,
+                                    ResultadoCarga referenciaAhora, double tolerancia, double toleranciaP99) {
+        List<String> regresiones = new ArrayList<>();
+        double escala = (double) referenciaAhora.p50Us() / Math.max(referenciaAntes.p50Us(), 1);
+        compararLatencia("p50", antes.p50Us(), ahora.p50Us(), escala, tolerancia, regresiones);
+        compararLatencia("p99", antes.p99Us(), ahora.p99Us(), escala, toleranciaP99, regresiones);
+        double esperadas = antes.porSegundo() * referenciaAhora.porSegundo() / referenciaAntes.porSegundo();
+        if (ahora.porSegundo() < esperadas * (1 - tolerancia / 100.0)) {
+            regresiones.add(String.format("%.1f -> %.1f peticiones/s (esperadas %.1f por la referencia)",
+                    antes.porSegundo(), ahora.porSegundo(), esperadas));
+        }
+        return regresiones;
+    }
+
+    private static void compararLatencia(String nombre, long antes, long ahora, double escala, double tolerancia,
+                                         List<String> regresiones) {
+        double esperada = antes * escala;
+        if (ahora - esperada > LATENCIA_MINIMA_US && ahora > esperada * (1 + tolerancia / 100.0)) {
+            regresiones.add(String.format("%s %d -> %d us (esperada %.0f con la referencia a x%.2f)",
+                    nombre, antes, ahora, esperada, escala));
+        }
+    }
+
+    // Resultados de referencia por "escenario tasa=N"; vacío si no hay base
+    private static Map<String, ResultadoCarga> base() throws Exception {
+        String ruta = System.getProperty("carga.base");
+        Map<String, ResultadoCarga> porClave = new HashMap<>();
+        if (ruta != null && ruta.isBlank()) {
+            return porClave;
+        }
+        try (InputStream entrada = ruta != null ? Files.newInputStream(Path.of(ruta))
+                : HoraPicoCargaTest.class.getResourceAsStream("/carga/base.json")) {
+            if (entrada == null) {
+                return porClave;
+            }
+            for (ResultadoCarga resultado : MAPPER.readValue(entrada, ResultadoCarga[].class)) {
+                porClave.put(resultado.clave(), resultado);
+            }
+        }
+        return porClave;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.fastfood_service.controller;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService.PaginaPedidos;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class EscritorJsonTest {
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    RequestMappingHandlerAdapter adaptador;
+
+    private static final String[] TEXTOS = {"Ana", "Hamburguesa doble", "", "Sofía", "comillas \" y \\ barra /",
+            "línea\nnueva\ttab\r\b\f", "\u0000\u0001\u001f\u007f", "emoji 😀 y ñ €", "\ud800 suelto \udc00", "日本語"};
+
+    private static final double[] MONTOS = {12.5, 12.0, 0.01, 0.1, 9_999_999.99, 10_000_000.0, 0.001, 0.3 + 0.6,
+            123456.78, 1e-5, 2.675, 1e22, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY};
+
+    private static final Instant[] INSTANTES = {null, Instant.ofEpochMilli(0), Instant.ofEpochMilli(1_700_000_000_123L),
+            Instant.ofEpochMilli(1_700_000_000_000L), Instant.parse("2024-02-29T23:59:59.050Z"),
+            Instant.parse("9999-12-31T23:59:59.999Z"), Instant.parse("+10000-01-01T00:00:00Z"),
+            Instant.parse("1969-12-31T23:59:59.100Z"), Instant.ofEpochSecond(5, 1000)};
+
+    private static Pedido pedidoAlAzar(Random random) {
+        String estado = random.nextInt(10) == 0 ? "OTRO"
+                : EstadoPedido.values()[random.nextInt(EstadoPedido.values().length)].name();
+        Pedido pedido = new Pedido(random.nextInt(3) == 0 ? -random.nextInt() : random.nextInt(),
+                texto(random), texto(random),
+                random.nextBoolean() ? MONTOS[random.nextInt(MONTOS.length)] : random.nextInt(100_000) / 100.0,
+                random.nextInt(20) == 0 ? null : estado);
+        pedido.setCanal(random.nextInt(4) == 0 ? null : texto(random));
+        pedido.setCreadoEn(random.nextBoolean() ? INSTANTES[random.nextInt(INSTANTES.length)]
+                : Instant.ofEpochMilli(random.nextLong(253_402_300_800_000L)));
+        pedido.setDespachadoEn(INSTANTES[random.nextInt(INSTANTES.length)]);
+        pedido.setCanceladoEn(INSTANTES[random.nextInt(INSTANTES.length)]);
+        return pedido;
+    }
+
+    private static String texto(Random random) {
+        return random.nextInt(8) == 0 ? null : TEXTOS[random.nextInt(TEXTOS.length)];
+    }
+
+    private void assertIgualAJackson(Object valor) {
+        byte[] esperado = mapper.writeValueAsBytes(valor);
+        byte[] obtenido = EscritorJson.aBytes(valor);
+        assertEquals(new String(esperado, StandardCharsets.UTF_8), new String(obtenido, StandardCharsets.UTF_8));
+        assertArrayEquals(esperado, obtenido);
+    }
+
+    @Test
+    void escribeLoMismoQueJacksonByteAByte() {
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            assertIgualAJackson(pedidoAlAzar(random));
+        }
+        // Más grande que el buffer, para que se vacíe a mitad de camino
+        Pedido[] muchos = new Pedido[500];
+        for (int i = 0; i < muchos.length; i++) {
+            muchos[i] = pedidoAlAzar(random);
+        }
+        assertIgualAJackson(muchos);
+        assertIgualAJackson(new Pedido[0]);
+        assertIgualAJackson(new PaginaPedidos(muchos, 42));
+        assertIgualAJackson(new PaginaPedidos(new Pedido[0], null));
+        assertIgualAJackson(new RespuestaPedido("Pedido despachado correctamente", muchos[0]));
+        assertIgualAJackson(new RespuestaPedidos("Rollback de 3 operaciones realizado correctamente", muchos));
+    }
+
+    @Test
+    void springLoUsaAntesQueJacksonParaLosPedidos() {
+        List<HttpMessageConverter<?>> conversores = adaptador.getMessageConverters();
+        int propio = -1;
+        int jackson = -1;
+        for (int i = 0; i < conversores.size(); i++) {
+            if (conversores.get(i) instanceof ConversorJsonPedidos && propio < 0) {
+                propio = i;
+            }
+            if (conversores.get(i) instanceof JacksonJsonHttpMessageConverter && jackson < 0) {
+                jackson = i;
+            }
+        }
+        assertTrue(propio >= 0 && propio < jackson, conversores.toString());
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.fastfood_service.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PedidoControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    private int crear(String cliente, double monto) throws Exception {
+        String json = "{\"nombreCliente\":\"" + cliente + "\",\"descripcion\":\"Combo\",\"monto\":" + monto + "}";
+        String respuesta = mockMvc.perform(post("/api/pedidos").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(respuesta.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    @Test
+    void listadoPaginadoConCursorYFiltros() throws Exception {
+        int primero = crear("Paginado", 1.0);
+        crear("Paginado", 2.0);
+        crear("Otro", 3.0);
+        int ultimo = crear("Paginado", 4.0);
+
+        mockMvc.perform(get("/api/pedidos").param("nombreCliente", "Paginado").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pedidos.length()").value(2))
+                .andExpect(jsonPath("$.pedidos[0].id").value(primero))
+                .andExpect(jsonPath("$.siguiente").value(primero + 1));
+
+        mockMvc.perform(get("/api/pedidos").param("nombreCliente", "Paginado")
+                        .param("after", String.valueOf(primero + 1)).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pedidos.length()").value(1))
+                .andExpect(jsonPath("$.pedidos[0].id").value(ultimo))
+                .andExpect(jsonPath("$.siguiente").doesNotExist());
+
+        mockMvc.perform(get("/api/pedidos").param("estado", "PERDIDO"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/pedidos").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listadoEnStreamingEscribeUnPedidoPorLinea() throws Exception {
+        crear("Streaming", 5.0);
+        crear("Streaming", 6.0);
+
+        MvcResult inicio = mockMvc.perform(get("/api/pedidos/stream").param("nombreCliente", "Streaming"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String cuerpo = mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(2, lineas.length);
+        assertTrue(lineas[0].startsWith("{\"id\":"));
+        assertTrue(lineas[1].contains("\"monto\":6.0"));
+
+        MvcResult invalido = mockMvc.perform(get("/api/pedidos/stream").param("estado", "PERDIDO"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(invalido))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void loteEnArregloYEnNdjsonConResultadoPorPedido() throws Exception {
+        String arreglo = "[{\"nombreCliente\":\"Lote\",\"descripcion\":\"Combo\",\"monto\":3.5},"
+                + "{\"nombreCliente\":\"\",\"descripcion\":\"Combo\",\"monto\":1},"
+                + "{\"nombreCliente\":\"Lote\",\"descripcion\":\"Combo\",\"monto\":\"caro\"},"
+                + "{\"nombreCliente\":\"Lote\",\"descripcion\":\"Papas\",\"monto\":2}]";
+        mockMvc.perform(post("/api/pedidos/lote").contentType(MediaType.APPLICATION_JSON).content(arreglo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(2))
+                .andExpect(jsonPath("$.rechazados").value(2))
+                .andExpect(jsonPath("$.resultados[0].id").exists())
+                .andExpect(jsonPath("$.resultados[1].indice").value(1))
+                .andExpect(jsonPath("$.resultados[1].error").exists())
+                .andExpect(jsonPath("$.resultados[2].error").exists())
+                .andExpect(jsonPath("$.resultados[3].indice").value(3))
+                .andExpect(jsonPath("$.resultados[3].id").exists());
+
+        String ndjson = "{\"nombreCliente\":\"LoteNd\",\"descripcion\":\"Combo\",\"monto\":1}\n"
+                + "{\"nombreCliente\":\"LoteNd\",\"descripcion\":\"Combo\",\"monto\":2}\n";
+        mockMvc.perform(post("/api/pedidos/lote").contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(2));
+        mockMvc.perform(get("/api/pedidos/cliente/LoteNd"))
+                .andExpect(jsonPath("$.pedidos.length()").value(2));
+
+        // JSON cortado: lo anterior se crea y se informa el error
+        String cortado = "[{\"nombreCliente\":\"LoteCortado\",\"descripcion\":\"Combo\",\"monto\":1}, {\"nombre";
+        mockMvc.perform(post("/api/pedidos/lote").contentType(MediaType.APPLICATION_JSON).content(cortado))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.creados").value(1))
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void listadoYEstadisticasSinCambiosRespondenNoModificado() throws Exception {
+        crear("Etag", 7.0);
+        for (String ruta : new String[]{"/api/pedidos", "/api/pedidos/estadisticas", "/api/pedidos/total-recursivo"}) {
+            String etag = mockMvc.perform(get(ruta))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getHeader("ETag");
+            String cuerpo = mockMvc.perform(get(ruta)).andReturn().getResponse().getContentAsString();
+
+            mockMvc.perform(get(ruta).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+            // Un ETag de otra versión recibe la respuesta completa
+            mockMvc.perform(get(ruta).header("If-None-Match", "\"otro-1\""))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(cuerpo));
+
+            // Cualquier cambio invalida el ETag
+            crear("Etag", 8.0);
+            mockMvc.perform(get(ruta).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)));
+        }
+        mockMvc.perform(get("/api/pedidos/estadisticas"))
+                .andExpect(jsonPath("$.totalPedidos").exists());
+        mockMvc.perform(get("/api/pedidos/total-recursivo"))
+                .andExpect(jsonPath("$.totalMontoRecursivo").exists());
+    }
+
+    @Test
+    void sinSucursalesConfiguradasSoloEstaLaPrincipal() throws Exception {
+        mockMvc.perform(get("/api/sucursales"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.principal").exists());
+    }
+
+    @Test
+    void cancelarUnPedidoTerminadoRespondeConflicto() throws Exception {
+        int id = crear("Conflicto", 9.0);
+        mockMvc.perform(delete("/api/pedidos/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mensaje").value("Pedido cancelado correctamente"))
+                .andExpect(jsonPath("$.pedido.estado").value("CANCELADO"));
+        mockMvc.perform(delete("/api/pedidos/" + id))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").exists());
+        mockMvc.perform(get("/api/pedidos/" + id))
+                .andExpect(jsonPath("$.estado").value("CANCELADO"));
+    }
+
+    @Test
+    void prepararSoloDesdeRegistradoYLuegoSeCancela() throws Exception {
+        int id = crear("Cocina", 7.0);
+        mockMvc.perform(post("/api/pedidos/" + id + "/preparar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mensaje").value("Pedido en preparación"))
+                .andExpect(jsonPath("$.pedido.estado").value("EN_PREPARACION"));
+        mockMvc.perform(post("/api/pedidos/" + id + "/preparar"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").exists());
+        mockMvc.perform(get("/api/pedidos/estadisticas"))
+                .andExpect(jsonPath("$.totalEnPreparacion").exists());
+        mockMvc.perform(delete("/api/pedidos/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pedido.estado").value("CANCELADO"));
+        mockMvc.perform(post("/api/pedidos/" + id + "/preparar"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/pedidos/999999/preparar"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.fastfood_service.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "pedidos.sucursales.ids=CENTRO,NORTE,SUR")
+@AutoConfigureMockMvc
+class SucursalControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    private double total(String ruta) throws Exception {
+        String respuesta = mockMvc.perform(get(ruta))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Double.parseDouble(respuesta.replaceAll(".*:([0-9.Ee-]+).*", "$1"));
+    }
+
+    @Test
+    void pedidosPorSucursalYTotalesGlobales() throws Exception {
+        double antesGlobal = total("/api/sucursales/total-recursivo");
+        double antesPrincipal = total("/api/pedidos/total-recursivo");
+        String json = "{\"nombreCliente\":\"Sucursal\",\"descripcion\":\"Combo\",\"monto\":12.5}";
+
+        mockMvc.perform(post("/api/sucursales/NORTE/pedidos").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.nombreCliente").value("Sucursal"));
+        mockMvc.perform(post("/api/sucursales/SUR/pedidos").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/sucursales/NORTE/pedidos").param("nombreCliente", "Sucursal"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pedidos.length()").value(1));
+        mockMvc.perform(post("/api/sucursales/NORTE/pedidos/despachar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pedido.estado").value("DESPACHADO"));
+        mockMvc.perform(post("/api/sucursales/CENTRO/pedidos/despachar"))
+                .andExpect(status().isConflict());
+
+        // El total global suma las sucursales; el de /api/pedidos es solo de la principal,
+        // igual que su listado
+        assertEquals(antesGlobal + 25.0, total("/api/sucursales/total-recursivo"), 1e-9);
+        assertEquals(antesPrincipal, total("/api/pedidos/total-recursivo"), 1e-9);
+        mockMvc.perform(get("/api/sucursales/estadisticas"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.totalDespachados").isNumber());
+        mockMvc.perform(get("/api/sucursales"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.principal").exists())
+                .andExpect(jsonPath("$.SUR.totalPedidos").isNumber());
+
+        // La ventana global también suma las sucursales
+        mockMvc.perform(get("/api/sucursales/estadisticas/ventana").param("minutos", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.minutos").value(5))
+                .andExpect(jsonPath("$.p50DespachoMs").isNumber());
+        mockMvc.perform(get("/api/sucursales/NORTE/pedidos/estadisticas/ventana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(1))
+                .andExpect(jsonPath("$.despachados").value(1));
+        mockMvc.perform(get("/api/sucursales/estadisticas/ventana").param("minutos", "61"))
+                .andExpect(status().isBadRequest());
+
+        // Sucursal inexistente: 404
+        mockMvc.perform(post("/api/sucursales/OESTE/pedidos").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Sucursal no encontrada"));
+        mockMvc.perform(get("/api/sucursales/OESTE/pedidos/estadisticas"))
+                .andExpect(status().isNotFound());
+    }
+}
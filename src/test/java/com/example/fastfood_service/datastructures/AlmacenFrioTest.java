@@ -0,0 +1,231 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlmacenFrioTest {
+
+    private static final long INICIO = Instant.parse("2026-01-05T12:00:00Z").toEpochMilli();
+
+    private static Pedido pedido(int id) {
+        Pedido p = new Pedido(id, "Cliente " + (id % 50), "Combo " + (id % 40) + " con papas ñ",
+                5.0 + (id % 97) * 0.25, "REGISTRADO");
+        p.setCanal(id % 5 == 0 ? null : "MOSTRADOR");
+        p.setCreadoEn(Instant.ofEpochMilli(INICIO + id * 1_000L));
+        return p;
+    }
+
+    private static void assertMismoPedido(Pedido esperado, Pedido actual) {
+        if (esperado == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(esperado.getId(), actual.getId());
+        assertEquals(esperado.getNombreCliente(), actual.getNombreCliente());
+        assertEquals(esperado.getDescripcion(), actual.getDescripcion());
+        assertEquals(esperado.getMonto(), actual.getMonto());
+        assertEquals(esperado.getCanal(), actual.getCanal());
+        assertEquals(esperado.getEstado(), actual.getEstado());
+        assertEquals(esperado.getCreadoEn(), actual.getCreadoEn());
+        assertEquals(esperado.getDespachadoEn(), actual.getDespachadoEn());
+        assertEquals(esperado.getCanceladoEn(), actual.getCanceladoEn());
+    }
+
+    private static void assertMismos(List<Pedido> esperados, List<Pedido> actuales) {
+        assertEquals(esperados.size(), actuales.size());
+        for (int i = 0; i < esperados.size(); i++) {
+            assertMismoPedido(esperados.get(i), actuales.get(i));
+        }
+    }
+
+    private static List<Pedido> porId(List<Pedido> pedidos) {
+        List<Pedido> ordenados = new ArrayList<>(pedidos);
+        ordenados.sort(Comparator.comparingInt(Pedido::getId));
+        return ordenados;
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void conPedidosArchivadosSeVeIgualQueSinArchivar(ModoAlmacen modo, @TempDir Path dir) {
+        Random random = new Random(17);
+        PedidoStore esperado = new IndexedPedidoList();
+        PedidoStore actual = PedidoStore.crear(modo);
+        actual.habilitarArchivo(dir);
+        List<Integer> vivos = new ArrayList<>();
+        EstadoPedido[] estados = EstadoPedido.values();
+        int nextId = 1;
+        int maximoArchivados = 0;
+
+        for (int paso = 0; paso < 20_000; paso++) {
+            int accion = random.nextInt(10);
+            if (accion < 5 || vivos.isEmpty()) {
+                Pedido p = pedido(nextId++);
+                esperado.add(p);
+                actual.add(new Pedido(p));
+                vivos.add(p.getId());
+            } else if (accion < 8) {
+                // Incluye pedidos ya archivados: vuelven a memoria
+                int id = vivos.get(random.nextInt(vivos.size()));
+                EstadoPedido nuevo = estados[random.nextInt(estados.length)];
+                Instant fin = Instant.ofEpochMilli(INICIO + paso * 1_000L);
+                Instant despachadoEn = nuevo == EstadoPedido.DESPACHADO ? fin : null;
+                Instant canceladoEn = nuevo == EstadoPedido.CANCELADO ? fin : null;
+                assertEquals(esperado.cambiarEstado(id, nuevo, despachadoEn, canceladoEn),
+                        actual.cambiarEstado(id, nuevo, despachadoEn, canceladoEn));
+            } else if (accion < 9) {
+                int id = random.nextBoolean()
+                        ? vivos.remove(random.nextInt(vivos.size()))
+                        : nextId + random.nextInt(100);
+                assertEquals(esperado.removeById(id), actual.removeById(id));
+            } else {
+                int id = random.nextInt(nextId + 10);
+                assertMismoPedido(esperado.findById(id), actual.findById(id));
+                assertEquals(esperado.estadoDe(id), actual.estadoDe(id));
+            }
+            if (paso % 500 == 0) {
+                // Archivamos lo terminado hace más de ~200 pasos
+                actual.archivar(INICIO + (paso - 200) * 1_000L);
+                maximoArchivados = Math.max(maximoArchivados, actual.archivados());
+            }
+            if (paso % 1000 == 0) {
+                assertMismos(List.of(esperado.toArray()), List.of(actual.toArray()));
+                EstadoPedido estado = estados[random.nextInt(estados.length)];
+                Integer cursor = vivos.isEmpty() ? null : vivos.get(random.nextInt(vivos.size()));
+                assertMismos(esperado.pagina(cursor, 50, estado), actual.pagina(cursor, 50, estado));
+                assertMismos(esperado.pagina(cursor, 50, null), actual.pagina(cursor, 50, null));
+                assertMismos(esperado.paginaDeCliente("Cliente 7", cursor, 20, (EstadoPedido) null),
+                        actual.paginaDeCliente("Cliente 7", cursor, 20, (EstadoPedido) null));
+                // El orden por estado cambia (los archivados van primero), pero son los mismos
+                assertMismos(porId(esperado.listarPorEstado(estado, Integer.MAX_VALUE)),
+                        porId(actual.listarPorEstado(estado, Integer.MAX_VALUE)));
+                assertEquals(esperado.contarPorEstado(estado), actual.contarPorEstado(estado));
+                assertEquals(esperado.sumarMontos(), actual.sumarMontos(), 1e-6);
+                assertEquals(esperado.size(), actual.size());
+            }
+        }
+        assertTrue(maximoArchivados > 1_000, "archivados=" + maximoArchivados);
+        // Las fusiones mantienen pocos segmentos
+        assertTrue(actual.segmentosFrios() <= 12, "segmentos=" + actual.segmentosFrios());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void idsQueLleganDesordenadosSePaginanEnOrdenConLosArchivados(ModoAlmacen modo, @TempDir Path dir) {
+        PedidoStore almacen = PedidoStore.crear(modo);
+        almacen.habilitarArchivo(dir);
+        // Como con creaciones simultáneas: cada pedido llega a pocos lugares del orden de sus ids
+        int n = 4_000;
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= n; id++) {
+            ids.add(id);
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < n; i += 8) {
+            Collections.shuffle(ids.subList(i, Math.min(i + 8, n)), random);
+        }
+        for (int i = 0; i < n; i++) {
+            int id = ids.get(i);
+            almacen.add(pedido(id));
+            if (id % 3 != 0) {
+                almacen.cambiarEstado(id, EstadoPedido.DESPACHADO, Instant.ofEpochMilli(INICIO), null);
+            }
+            if (i % 1000 == 999) {
+                almacen.archivar(INICIO + 1);
+            }
+        }
+        assertTrue(almacen.archivados() > n / 2, "archivados=" + almacen.archivados());
+
+        List<Integer> vistos = new ArrayList<>();
+        Integer cursor = null;
+        for (List<Pedido> pagina; !(pagina = almacen.pagina(cursor, 37, null)).isEmpty(); ) {
+            pagina.forEach(p -> vistos.add(p.getId()));
+            cursor = pagina.get(pagina.size() - 1).getId();
+        }
+        ids.sort(null);
+        assertEquals(ids, vistos);
+        assertEquals(ids, List.of(almacen.toArray()).stream().map(Pedido::getId).toList());
+
+        List<Integer> delCliente = new ArrayList<>();
+        cursor = null;
+        for (List<Pedido> pagina; !(pagina = almacen.paginaDeCliente("Cliente 7", cursor, 9, (EstadoPedido) null)).isEmpty(); ) {
+            pagina.forEach(p -> delCliente.add(p.getId()));
+            cursor = pagina.get(pagina.size() - 1).getId();
+        }
+        assertEquals(ids.stream().filter(id -> id % 50 == 7).toList(), delCliente);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void unCorteEntregaLosPedidosComoEstabanAlFijarloAunqueCambienMientrasSeRecorre(ModoAlmacen modo, @TempDir Path dir) {
+        PedidoStore almacen = PedidoStore.crear(modo);
+        almacen.habilitarArchivo(dir);
+        int n = 6_000;
+        for (int id = 1; id <= n; id++) {
+            almacen.add(pedido(id));
+            if (id % 4 != 0) {
+                almacen.cambiarEstado(id, EstadoPedido.DESPACHADO, Instant.ofEpochMilli(INICIO), null);
+            }
+            if (id % 1500 == 0) {
+                almacen.archivar(INICIO + 1);
+            }
+        }
+        assertTrue(almacen.archivados() > n / 2, "archivados=" + almacen.archivados());
+        // Copias: con el almacén de objetos toArray da los mismos pedidos que después cambian
+        List<Pedido> esperados = List.of(almacen.toArray()).stream().map(Pedido::new).toList();
+
+        List<Object> entregados = new ArrayList<>();
+        Random random = new Random(5);
+        int[] nextId = {n + 1};
+        try (PedidoStore.Corte corte = almacen.nuevoCorte()) {
+            corte.fijar();
+            assertEquals(n, corte.cantidad());
+            // Mientras se recorre: cambios, rollbacks de archivados, bajas y altas, antes y después del cursor
+            corte.recorrer(p -> {
+                entregados.add(p);
+                cambiar(almacen, random, nextId);
+            }, registro -> {
+                entregados.add(registro);
+                cambiar(almacen, random, nextId);
+            });
+        }
+
+        assertEquals(esperados.size(), entregados.size());
+        for (int i = 0; i < esperados.size(); i++) {
+            Pedido esperado = esperados.get(i);
+            if (entregados.get(i) instanceof Pedido p) {
+                assertMismoPedido(esperado, p);
+            } else {
+                // Registro del segmento: [int id][byte estado][double monto]...
+                ByteBuffer registro = (ByteBuffer) entregados.get(i);
+                assertEquals(esperado.getId(), registro.getInt(0));
+                assertEquals(EstadoPedido.desde(esperado.getEstado()).codigo(), registro.get(4));
+                assertEquals(esperado.getMonto(), registro.getDouble(5));
+            }
+        }
+        assertTrue(entregados.stream().anyMatch(e -> e instanceof ByteBuffer));
+    }
+
+    private static void cambiar(PedidoStore almacen, Random random, int[] nextId) {
+        int id = 1 + random.nextInt(nextId[0] - 1);
+        switch (random.nextInt(4)) {
+            case 0 -> almacen.cambiarEstado(id, EstadoPedido.REGISTRADO, null, null);
+            case 1 -> almacen.cambiarEstado(id, EstadoPedido.CANCELADO, null, Instant.ofEpochMilli(INICIO + 7));
+            case 2 -> almacen.removeById(id);
+            default -> almacen.add(pedido(nextId[0]++));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPedidoStoreTest {
+
+    private static final String[] CANALES = {"MOSTRADOR", "DELIVERY", "EXPRESS"};
+
+    private static final long INICIO = Instant.parse("2026-01-05T12:00:00Z").toEpochMilli();
+
+    // Como llegan de la API: textos repetidos entre pedidos pero cada uno es un String distinto
+    private static Pedido pedido(int id) {
+        Pedido p = new Pedido(id, new String("Cliente " + (id % 500)), new String("Combo " + (id % 40) + " con papas"),
+                5.0 + (id % 97) * 0.25, "REGISTRADO");
+        p.setCanal(new String(CANALES[id % CANALES.length]));
+        p.setCreadoEn(Instant.ofEpochMilli(INICIO + id * 1_250L));
+        return p;
+    }
+
+    private static Instant momentoDespues(int id, Random random) {
+        long espera = random.nextBoolean() ? random.nextInt(3_600_000) : 30L * 24 * 3_600_000 + random.nextInt(1000);
+        return Instant.ofEpochMilli(INICIO + id * 1_250L + espera);
+    }
+
+    private static void assertMismoPedido(Pedido esperado, Pedido actual) {
+        if (esperado == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(esperado.getId(), actual.getId());
+        assertEquals(esperado.getNombreCliente(), actual.getNombreCliente());
+        assertEquals(esperado.getDescripcion(), actual.getDescripcion());
+        assertEquals(esperado.getMonto(), actual.getMonto());
+        assertEquals(esperado.getCanal(), actual.getCanal());
+        assertEquals(esperado.getEstado(), actual.getEstado());
+        assertEquals(esperado.getCreadoEn(), actual.getCreadoEn());
+        assertEquals(esperado.getDespachadoEn(), actual.getDespachadoEn());
+        assertEquals(esperado.getCanceladoEn(), actual.getCanceladoEn());
+    }
+
+    private static void assertMismos(List<Pedido> esperados, List<Pedido> actuales) {
+        assertEquals(esperados.size(), actuales.size());
+        for (int i = 0; i < esperados.size(); i++) {
+            assertMismoPedido(esperados.get(i), actuales.get(i));
+        }
+    }
+
+    @Test
+    void secuenciaAleatoriaSeComportaIgualQueElAlmacenDeObjetos() {
+        Random random = new Random(5);
+        IndexedPedidoList esperado = new IndexedPedidoList(4);
+        ColumnarPedidoStore actual = new ColumnarPedidoStore(4);
+        List<Integer> vivos = new ArrayList<>();
+        EstadoPedido[] estados = EstadoPedido.values();
+        int nextId = 1;
+
+        for (int paso = 0; paso < 20_000; paso++) {
+            int accion = random.nextInt(10);
+            if (accion < 4 || vivos.isEmpty()) {
+                Pedido p = pedido(nextId++);
+                esperado.add(p);
+                actual.add(new Pedido(p));
+                vivos.add(p.getId());
+            } else if (accion < 6) {
+                int id = vivos.get(random.nextInt(vivos.size()));
+                EstadoPedido nuevo = estados[random.nextInt(estados.length)];
+                if (random.nextBoolean()) {
+                    assertEquals(esperado.cambiarEstado(id, nuevo), actual.cambiarEstado(id, nuevo));
+                } else {
+                    // Tiempos de cierre cercanos, lejanos (más de 24 días) o los dos a la vez
+                    Instant despachadoEn = random.nextInt(3) == 0 ? null : momentoDespues(id, random);
+                    Instant canceladoEn = random.nextInt(3) == 0 ? null : momentoDespues(id, random);
+                    assertEquals(esperado.cambiarEstado(id, nuevo, despachadoEn, canceladoEn),
+                            actual.cambiarEstado(id, nuevo, despachadoEn, canceladoEn));
+                }
+            } else if (accion < 8) {
+                int id = random.nextBoolean()
+                        ? vivos.remove(random.nextInt(vivos.size()))
+                        : nextId + random.nextInt(100);
+                assertEquals(esperado.removeById(id), actual.removeById(id));
+            } else {
+                int id = random.nextInt(nextId + 10);
+                assertMismoPedido(esperado.findById(id), actual.findById(id));
+                assertEquals(esperado.estadoDe(id), actual.estadoDe(id));
+            }
+            if (paso % 1000 == 0) {
+                assertMismos(List.of(esperado.toArray()), List.of(actual.toArray()));
+                EstadoPedido estado = estados[random.nextInt(estados.length)];
+                Integer cursor = vivos.isEmpty() ? null : vivos.get(random.nextInt(vivos.size()));
+                assertMismos(esperado.pagina(cursor, 50, estado), actual.pagina(cursor, 50, estado));
+                assertMismos(esperado.paginaDeCliente("Cliente 7", null, 50, (EstadoPedido) null),
+                        actual.paginaDeCliente("Cliente 7", null, 50, (EstadoPedido) null));
+                assertMismos(esperado.listarPorEstado(estado, 100), actual.listarPorEstado(estado, 100));
+                assertEquals(esperado.contarPorEstado(estado), actual.contarPorEstado(estado));
+                assertEquals(esperado.sumarMontos(), actual.sumarMontos(), 1e-6);
+            }
+        }
+        assertEquals(esperado.size(), actual.size());
+    }
+
+    @Test
+    void cadaLecturaArmaUnPedidoNuevo() {
+        ColumnarPedidoStore almacen = new ColumnarPedidoStore();
+        almacen.add(pedido(1));
+        Pedido leido = almacen.findById(1);
+        assertNotSame(leido, almacen.findById(1));
+
+        // Cambiar la copia no cambia lo guardado: los cambios pasan por cambiarEstado
+        leido.setEstado("CANCELADO");
+        assertEquals(EstadoPedido.REGISTRADO, almacen.estadoDe(1));
+        assertTrue(almacen.cambiarEstado(1, EstadoPedido.DESPACHADO));
+        assertEquals("DESPACHADO", almacen.findById(1).getEstado());
+        assertFalse(almacen.cambiarEstado(2, EstadoPedido.DESPACHADO));
+    }
+
+    @Test
+    void elDiccionarioSueltaLosTextosSinPedidosYReutilizaSusCodigos() {
+        StringDictionary textos = new StringDictionary();
+        int ana = textos.codificar("Ana");
+        assertEquals(ana, textos.codificar(new String("Ana")));
+        int luis = textos.codificar("Luis");
+        assertEquals(StringDictionary.NULO, textos.codificar(null));
+        assertEquals(2, textos.size());
+
+        // Ana tiene dos referencias: con la primera que se suelta sigue en el diccionario
+        textos.soltar(ana);
+        assertEquals("Ana", textos.texto(ana));
+        textos.soltar(ana);
+        textos.soltar(StringDictionary.NULO);
+        assertEquals(1, textos.size());
+
+        // El código libre es para el próximo texto nuevo; los demás no cambian
+        assertEquals(ana, textos.codificar("Eva"));
+        assertEquals("Eva", textos.texto(ana));
+        assertEquals(luis, textos.codificar("Luis"));
+        assertNotEquals(ana, textos.codificar("Ana"));
+        assertEquals(3, textos.size());
+    }
+
+    @Test
+    void elIndiceDensoSueltaLasPaginasVaciasSinPerderLasDemas() {
+        DenseIntIndex indice = new DenseIntIndex();
+        for (int id = 0; id < 3 * 4096; id++) {
+            indice.put(id, id + 7);
+        }
+        // La primera página queda vacía (se libera) y la segunda a medias
+        for (int id = 0; id < 4096 + 100; id++) {
+            assertEquals(id + 7, indice.remove(id));
+        }
+        assertEquals(IndiceIds.NO_ENCONTRADO, indice.get(5));
+        assertEquals(IndiceIds.NO_ENCONTRADO, indice.remove(5));
+        assertEquals(IndiceIds.NO_ENCONTRADO, indice.get(4096 + 99));
+        assertEquals(4096 + 100 + 7, indice.get(4096 + 100));
+        assertEquals(2 * 4096 + 7, indice.get(2 * 4096));
+
+        // Volver a usar un id de una página liberada la crea de nuevo
+        assertEquals(IndiceIds.NO_ENCONTRADO, indice.put(5, 1));
+        assertEquals(1, indice.get(5));
+        assertEquals(IndiceIds.NO_ENCONTRADO, indice.get(6));
+    }
+}
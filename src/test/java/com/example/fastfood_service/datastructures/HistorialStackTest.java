@@ -0,0 +1,55 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.HistorialOperacion;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistorialStackTest {
+
+    private static HistorialOperacion op(int id) {
+        return new HistorialOperacion("CREAR", id, null, EstadoPedido.REGISTRADO, null);
+    }
+
+    @Test
+    void anilloSobrescribeLaMasAntiguaYMantieneOrdenLifo() {
+        HistorialStack pila = new HistorialStack(3);
+        HistorialOperacion[] ops = new HistorialOperacion[6];
+        for (int i = 1; i <= 5; i++) {
+            ops[i] = op(i);
+            pila.push(ops[i]);
+        }
+        assertEquals(3, pila.size());
+        assertEquals(2, pila.descartadas());
+        assertArrayEquals(new HistorialOperacion[]{ops[5], ops[4], ops[3]}, pila.recientes(10));
+
+        assertSame(ops[5], pila.pop());
+        pila.push(ops[1]);
+        assertSame(ops[1], pila.peek());
+        assertSame(ops[1], pila.pop());
+        assertSame(ops[4], pila.pop());
+        assertSame(ops[3], pila.pop());
+        assertNull(pila.pop());
+        assertTrue(pila.isEmpty());
+    }
+
+    @Test
+    void popIfTopDeVariasOperacionesEsAtomico() {
+        HistorialStack pila = new HistorialStack(4);
+        HistorialOperacion a = op(1);
+        HistorialOperacion b = op(2);
+        HistorialOperacion c = op(3);
+        pila.push(a);
+        pila.push(b);
+        HistorialOperacion[] vistas = pila.recientes(2);
+
+        // Alguien apiló encima: no se saca nada
+        pila.push(c);
+        assertFalse(pila.popIfTop(vistas));
+        assertEquals(3, pila.size());
+
+        assertTrue(pila.popIfTop(pila.recientes(2)));
+        assertSame(a, pila.peek());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.Pedido;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedPedidoListTest {
+
+    private static Pedido pedido(int id) {
+        return new Pedido(id, "Cliente " + id, "Combo " + id, id * 1.5, "REGISTRADO");
+    }
+
+    private static void assertMismoContenido(SinglyLinkedList esperada, IndexedPedidoList actual) {
+        assertEquals(esperada.size(), actual.size());
+        assertArrayEquals(esperada.toArray(), actual.toArray());
+    }
+
+    @Test
+    void mantieneOrdenDeInsercion() {
+        IndexedPedidoList lista = new IndexedPedidoList();
+        for (int id = 1; id <= 5; id++) {
+            lista.add(pedido(id));
+        }
+        int[] ids = Arrays.stream(lista.toArray()).mapToInt(Pedido::getId).toArray();
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, ids);
+    }
+
+    @Test
+    void eliminarCabezaMedioYCola() {
+        IndexedPedidoList lista = new IndexedPedidoList();
+        for (int id = 1; id <= 5; id++) {
+            lista.add(pedido(id));
+        }
+        assertTrue(lista.removeById(1));
+        assertTrue(lista.removeById(3));
+        assertTrue(lista.removeById(5));
+        assertFalse(lista.removeById(5));
+        assertNull(lista.findById(3));
+        assertEquals(2, lista.size());
+        assertEquals(2, lista.toArray()[0].getId());
+        assertEquals(4, lista.toArray()[1].getId());
+
+        // Las casillas liberadas se reutilizan sin romper el orden
+        lista.add(pedido(6));
+        lista.add(pedido(7));
+        assertEquals(7, lista.toArray()[3].getId());
+    }
+
+    @Test
+    void rechazaIdsRepetidos() {
+        IndexedPedidoList lista = new IndexedPedidoList();
+        lista.add(pedido(1));
+        assertThrows(IllegalArgumentException.class, () -> lista.add(pedido(1)));
+        assertEquals(1, lista.size());
+    }
+
+    @Test
+    void indicesPorEstadoYClienteSiguenLosCambios() {
+        IndexedPedidoList lista = new IndexedPedidoList(2);
+        for (int id = 1; id <= 6; id++) {
+            lista.add(new Pedido(id, id % 2 == 0 ? "Par" : "Impar", "Combo", 1.0, "REGISTRADO"));
+        }
+        lista.cambiarEstado(4, EstadoPedido.DESPACHADO);
+        lista.cambiarEstado(2, EstadoPedido.DESPACHADO);
+        lista.cambiarEstado(4, EstadoPedido.REGISTRADO);
+        lista.removeById(3);
+        // El almacén de objetos cambia el mismo pedido que devolvió findById
+        assertEquals("REGISTRADO", lista.findById(4).getEstado());
+        assertEquals("DESPACHADO", lista.findById(2).getEstado());
+
+        // Cada estado guarda el orden en que los pedidos entraron a él
+        assertEquals(List.of(1, 5, 6, 4), ids(lista.listarPorEstado(EstadoPedido.REGISTRADO, 10)));
+        assertEquals(List.of(2), ids(lista.listarPorEstado(EstadoPedido.DESPACHADO, 10)));
+        assertEquals(4, lista.contarPorEstado(EstadoPedido.REGISTRADO));
+        assertEquals(List.of(1, 5), ids(lista.listarPorEstado(EstadoPedido.REGISTRADO, 2)));
+
+        // El índice por cliente respeta el orden de inserción y el cursor
+        assertEquals(List.of(2, 4, 6), ids(lista.paginaDeCliente("Par", null, 10, null)));
+        assertEquals(List.of(6), ids(lista.paginaDeCliente("Par", 4, 10, null)));
+        assertEquals(List.of(5), ids(lista.paginaDeCliente("Impar", 3, 10, null)));
+        assertEquals(List.of(4, 6), ids(lista.paginaDeCliente("Par", null, 10, EstadoPedido.REGISTRADO)));
+        assertEquals(List.of(4), ids(lista.paginaDeCliente("Par", null, 1, EstadoPedido.REGISTRADO)));
+
+        lista.removeById(1);
+        lista.removeById(5);
+        assertTrue(lista.paginaDeCliente("Impar", null, 10, null).isEmpty());
+    }
+
+    private static List<Integer> ids(List<Pedido> pedidos) {
+        return pedidos.stream().map(Pedido::getId).toList();
+    }
+
+    @Test
+    void secuenciaAleatoriaSeComportaIgualQueSinglyLinkedList() {
+        Random random = new Random(42);
+        SinglyLinkedList esperada = new SinglyLinkedList();
+        IndexedPedidoList actual = new IndexedPedidoList(4);
+        List<Integer> vivos = new ArrayList<>();
+        int nextId = 1;
+
+        for (int paso = 0; paso < 20_000; paso++) {
+            int accion = random.nextInt(10);
+            if (accion < 5 || vivos.isEmpty()) {
+                Pedido p = pedido(nextId++);
+                esperada.add(p);
+                actual.add(p);
+                vivos.add(p.getId());
+            } else if (accion < 8) {
+                // Eliminamos un id existente o uno que nunca existió
+                int id = random.nextBoolean()
+                        ? vivos.remove(random.nextInt(vivos.size()))
+                        : nextId + random.nextInt(100);
+                assertEquals(esperada.removeById(id), actual.removeById(id));
+            } else {
+                int id = random.nextInt(nextId + 10);
+                assertSame(esperada.findById(id), actual.findById(id));
+            }
+            if (paso % 1000 == 0) {
+                assertMismoContenido(esperada, actual);
+            }
+        }
+        assertMismoContenido(esperada, actual);
+    }
+}
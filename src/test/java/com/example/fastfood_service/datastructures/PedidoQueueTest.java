@@ -0,0 +1,182 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.Pedido;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoQueueTest {
+
+    private static Pedido pedido(int id) {
+        return new Pedido(id, "Cliente", "Combo", 10.0, "REGISTRADO");
+    }
+
+    private static Pedido pedido(int id, String canal, double monto) {
+        Pedido p = new Pedido(id, "Cliente", "Combo", monto, "REGISTRADO");
+        p.setCanal(canal);
+        return p;
+    }
+
+    @Test
+    void repartoPonderadoEntreCarriles() {
+        PedidoQueue cola = new PedidoQueue(List.of(
+                new DefinicionCarril("MOSTRADOR", 1, OrdenCarril.FIFO),
+                new DefinicionCarril("DELIVERY", 2, OrdenCarril.FIFO),
+                new DefinicionCarril("EXPRESS", 3, OrdenCarril.FIFO)));
+        int id = 1;
+        for (int i = 0; i < 60; i++) {
+            cola.enqueue(pedido(id++, "MOSTRADOR", 1.0));
+            cola.enqueue(pedido(id++, "DELIVERY", 1.0));
+            cola.enqueue(pedido(id++, "EXPRESS", 1.0));
+        }
+
+        // Con todos los carriles llenos, cada 6 turnos salen 3 EXPRESS, 2 DELIVERY y 1 MOSTRADOR
+        Map<String, Integer> salidas = new HashMap<>();
+        for (int i = 0; i < 60; i++) {
+            salidas.merge(cola.dequeue().getCanal(), 1, Integer::sum);
+        }
+        assertEquals(30, salidas.get("EXPRESS"));
+        assertEquals(20, salidas.get("DELIVERY"));
+        assertEquals(10, salidas.get("MOSTRADOR"));
+
+        // Un carril vacío cede su turno; sin canal conocido se usa el primer carril
+        cola.enqueue(pedido(1000, null, 1.0));
+        int restantes = 0;
+        while (cola.dequeue() != null) {
+            restantes++;
+        }
+        assertEquals(121, restantes);
+        assertTrue(cola.isEmpty());
+    }
+
+    @Test
+    void carrilesConMonticuloPorMontoYAntiguedad() {
+        PedidoQueue cola = new PedidoQueue(List.of(
+                new DefinicionCarril("DELIVERY", 1, OrdenCarril.MONTO)));
+        double[] montos = {5.0, 40.0, 12.5, 40.0, 7.0, 99.0};
+        for (int i = 0; i < montos.length; i++) {
+            cola.enqueue(pedido(i + 1, "DELIVERY", montos[i]));
+        }
+        // Quitar del medio del montículo (cancelar) y devolver uno al frente (rollback de DESPACHAR)
+        assertTrue(cola.removeById(3));
+        assertFalse(cola.removeById(3));
+        cola.enqueueFront(pedido(50, "DELIVERY", 1.0));
+
+        List<Integer> orden = new ArrayList<>();
+        for (Pedido p = cola.dequeue(); p != null; p = cola.dequeue()) {
+            orden.add(p.getId());
+        }
+        assertEquals(List.of(50, 6, 2, 4, 5, 1), orden);
+
+        PedidoQueue porAntiguedad = new PedidoQueue(List.of(
+                new DefinicionCarril("MOSTRADOR", 1, OrdenCarril.ANTIGUEDAD)));
+        porAntiguedad.enqueue(pedido(7, "MOSTRADOR", 1.0));
+        porAntiguedad.enqueue(pedido(3, "MOSTRADOR", 1.0));
+        porAntiguedad.enqueue(pedido(5, "MOSTRADOR", 1.0));
+        // Volver a encolar el mismo pedido no lo duplica
+        porAntiguedad.enqueue(pedido(7, "MOSTRADOR", 1.0));
+        assertEquals(3, porAntiguedad.size());
+        assertEquals(3, porAntiguedad.dequeue().getId());
+        assertEquals(5, porAntiguedad.dequeue().getId());
+        assertEquals(7, porAntiguedad.dequeue().getId());
+        assertNull(porAntiguedad.dequeue());
+    }
+
+    @Test
+    void fifoConFrenteYBorrado() {
+        PedidoQueue cola = new PedidoQueue();
+        cola.enqueue(pedido(1));
+        cola.enqueue(pedido(2));
+        cola.enqueue(pedido(3));
+        assertTrue(cola.removeById(2));
+        assertFalse(cola.removeById(2));
+        cola.enqueueFront(pedido(9));
+
+        assertEquals(3, cola.size());
+        assertEquals(9, cola.dequeue().getId());
+        assertEquals(1, cola.dequeue().getId());
+        assertEquals(3, cola.dequeue().getId());
+        assertNull(cola.dequeue());
+        assertTrue(cola.isEmpty());
+    }
+
+    @Test
+    void variosProductoresYConsumidoresSinPerdidasNiDuplicados() throws Exception {
+        int productores = 4;
+        int consumidores = 4;
+        int porProductor = 25_000;
+        int total = productores * porProductor;
+
+        PedidoQueue cola = new PedidoQueue();
+        ConcurrentHashMap<Integer, Boolean> vistos = new ConcurrentHashMap<>();
+        AtomicInteger duplicados = new AtomicInteger();
+        AtomicInteger quitados = new AtomicInteger();
+        AtomicInteger desencolados = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(productores + consumidores);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            int base = p * porProductor;
+            tareas.add(pool.submit(() -> {
+                inicio.await();
+                for (int i = 1; i <= porProductor; i++) {
+                    int id = base + i;
+                    if (i % 10 == 0) {
+                        cola.enqueueFront(pedido(id));
+                    } else {
+                        cola.enqueue(pedido(id));
+                    }
+                    // De vez en cuando quitamos un pedido propio ya encolado (como un cancelar)
+                    if (i % 7 == 0 && cola.removeById(id - 3)) {
+                        if (vistos.putIfAbsent(id - 3, Boolean.TRUE) != null) {
+                            duplicados.incrementAndGet();
+                        }
+                        quitados.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int c = 0; c < consumidores; c++) {
+            tareas.add(pool.submit(() -> {
+                inicio.await();
+                while (quitados.get() + desencolados.get() < total) {
+                    Pedido p = cola.dequeue();
+                    if (p == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (vistos.putIfAbsent(p.getId(), Boolean.TRUE) != null) {
+                        duplicados.incrementAndGet();
+                    }
+                    desencolados.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0, duplicados.get());
+        assertEquals(total, vistos.size());
+        assertTrue(cola.isEmpty());
+        assertNull(cola.dequeue());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.datastructures.SpaceSavingSketch.Elemento;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void conCapacidadSuficienteEsExactoConSumasYRestas() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(50, 1024, 4);
+        Map<String, Long> conteos = new HashMap<>();
+        Map<String, Double> pesos = new HashMap<>();
+        List<String> vigentes = new ArrayList<>();
+        Random random = new Random(3);
+        for (int paso = 0; paso < 20_000; paso++) {
+            if (random.nextInt(4) > 0 || vigentes.isEmpty()) {
+                String clave = "combo " + random.nextInt(30);
+                sketch.sumar(clave, 1, 2.5);
+                conteos.merge(clave, 1L, Long::sum);
+                pesos.merge(clave, 2.5, Double::sum);
+                vigentes.add(clave);
+            } else {
+                String clave = vigentes.remove(random.nextInt(vigentes.size()));
+                sketch.sumar(clave, -1, 2.5);
+                conteos.merge(clave, -1L, Long::sum);
+                pesos.merge(clave, -2.5, Double::sum);
+            }
+        }
+
+        List<Elemento> top = sketch.top(50);
+        assertEquals(conteos.size(), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            Elemento e = top.get(i);
+            assertEquals(0, e.error());
+            assertEquals(conteos.get(e.clave()), e.conteo(), e.clave());
+            assertEquals(pesos.get(e.clave()), e.peso(), 1e-6);
+            if (i > 0) {
+                // De mayor a menor
+                assertTrue(top.get(i - 1).conteo() >= e.conteo());
+            }
+        }
+        assertEquals(5, sketch.top(5).size());
+    }
+
+    @Test
+    void encuentraLosMasFrecuentesEntreMuchasClavesConMemoriaAcotada() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(20, 2048, 4);
+        Map<String, Long> conteos = new HashMap<>();
+        Random random = new Random(9);
+        // Distribución sesgada: pocos artículos se llevan la mayoría de los pedidos, muchos aparecen poco
+        for (int paso = 0; paso < 100_000; paso++) {
+            int rango = (int) Math.floor(Math.pow(5_000, random.nextDouble()));
+            String clave = "articulo " + rango;
+            sketch.sumar(clave, 1, 1.0);
+            conteos.merge(clave, 1L, Long::sum);
+        }
+        assertTrue(conteos.size() > 1_000);
+        assertEquals(20, sketch.size());
+
+        List<String> reales = conteos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(5).map(Map.Entry::getKey).toList();
+        List<Elemento> top = sketch.top(10);
+        List<String> claves = top.stream().map(Elemento::clave).toList();
+        assertTrue(claves.containsAll(reales), "top=" + claves + " reales=" + reales);
+        for (Elemento e : top) {
+            long real = conteos.get(e.clave());
+            // El conteo nunca es menor que el real, y se pasa como mucho en su error
+            assertTrue(e.conteo() >= real);
+            assertTrue(e.conteo() - e.error() <= real);
+        }
+    }
+
+    @Test
+    void sumarVariasAparicionesJuntasEsComoSumarlasDeAUna() {
+        SpaceSavingSketch juntas = new SpaceSavingSketch(8, 1024, 4);
+        SpaceSavingSketch deAUna = new SpaceSavingSketch(8, 1024, 4);
+        Random random = new Random(5);
+        for (int paso = 0; paso < 200; paso++) {
+            String clave = "combo " + random.nextInt(6);
+            int cantidad = 1 + random.nextInt(40);
+            juntas.sumar(clave, cantidad, cantidad * 3.0);
+            for (int i = 0; i < cantidad; i++) {
+                deAUna.sumar(clave, 1, 3.0);
+            }
+        }
+        juntas.sumar("combo 0", -1, 3.0);
+        deAUna.sumar("combo 0", -1, 3.0);
+
+        assertEquals(deAUna.top(8), juntas.top(8));
+        assertThrows(IllegalArgumentException.class, () -> juntas.sumar("combo 0", 0, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> juntas.sumar("combo 0", -2, 0.0));
+    }
+}
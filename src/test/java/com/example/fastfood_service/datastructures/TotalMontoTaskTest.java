@@ -0,0 +1,56 @@
+package com.example.fastfood_service.datastructures;
+
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TotalMontoTaskTest {
+
+    @Test
+    void sumaMillonesDePedidosSinDesbordarNiDesviarse() {
+        int n = 3_000_000;
+        IndexedPedidoList lista = new IndexedPedidoList(n);
+        BigDecimal esperado = BigDecimal.ZERO;
+        for (int id = 1; id <= n; id++) {
+            double monto = id % 3 == 0 ? 0.1 : 19.99;
+            lista.add(new Pedido(id, "Cliente", "Combo", monto, "REGISTRADO"));
+            esperado = esperado.add(new BigDecimal(monto));
+        }
+        // Quitamos algunos para que haya casillas vacías en medio
+        for (int id = 5; id <= n; id += 1000) {
+            lista.removeById(id);
+            esperado = esperado.subtract(new BigDecimal(id % 3 == 0 ? 0.1 : 19.99));
+        }
+
+        double total = lista.sumarMontos();
+
+        // El resultado es el double más cercano a la suma exacta
+        assertEquals(esperado.doubleValue(), total, Math.ulp(esperado.doubleValue()));
+    }
+
+    @Test
+    void servicioCalculaTotalConMillonesDePedidos() {
+        // La versión recursiva se caía cerca de los 10 mil pedidos: acá van 200 veces más,
+        // creados por lotes para no medir el costo de la creación uno por uno
+        PedidoService servicio = new PedidoService();
+        int n = 2_000_000;
+        int tamanoLote = 10_000;
+        List<Pedido> lote = Collections.nCopies(tamanoLote, new Pedido(0, "Cliente", "Combo", 0.1, null));
+        for (int creados = 0; creados < n; creados += tamanoLote) {
+            servicio.crearLote(lote, 0);
+        }
+        double esperado = new BigDecimal(0.1).multiply(BigDecimal.valueOf(n)).doubleValue();
+        assertEquals(esperado, servicio.calcularTotalMontoRecursivo(), Math.ulp(esperado));
+    }
+
+    @Test
+    void listaVaciaSumaCero() {
+        assertEquals(0.0, new IndexedPedidoList().sumarMontos());
+    }
+}
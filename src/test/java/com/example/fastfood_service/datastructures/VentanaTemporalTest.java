@@ -0,0 +1,95 @@
+package com.example.fastfood_service.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VentanaTemporalTest {
+
+    private static final long MINUTO = VentanaTemporal.MS_POR_MINUTO;
+
+    @Test
+    void percentilesDelHistogramaConErrorRelativoAcotado() {
+        HistogramaLogLineal histograma = new HistogramaLogLineal();
+        Random random = new Random(11);
+        long[] valores = new long[50_000];
+        for (int i = 0; i < valores.length; i++) {
+            // Desde milisegundos hasta horas
+            valores[i] = (long) Math.pow(10, random.nextDouble() * 7);
+            histograma.agregar(valores[i]);
+        }
+        Arrays.sort(valores);
+        assertEquals(valores.length, histograma.cantidad());
+        for (double p : new double[]{1, 50, 90, 95, 99, 99.9, 100}) {
+            long real = valores[(int) Math.ceil(p / 100 * valores.length) - 1];
+            long aproximado = histograma.percentil(p);
+            assertTrue(Math.abs(aproximado - real) <= Math.max(1, real / 32.0),
+                    "p" + p + " real=" + real + " aproximado=" + aproximado);
+        }
+
+        // Cada balde empieza donde termina el anterior y los valores caen en el suyo
+        for (int b = 1; b < HistogramaLogLineal.BALDES; b++) {
+            long inicio = HistogramaLogLineal.inicioBalde(b);
+            assertEquals(b, HistogramaLogLineal.balde(inicio));
+            assertEquals(b - 1, HistogramaLogLineal.balde(inicio - 1));
+        }
+        assertEquals(HistogramaLogLineal.BALDES - 1, HistogramaLogLineal.balde(Long.MAX_VALUE));
+        assertEquals(0, new HistogramaLogLineal().percentil(99));
+    }
+
+    @Test
+    void sumaSoloLosMinutosDeLaVentanaYReutilizaLosBaldes() {
+        VentanaTemporal ventana = new VentanaTemporal(15);
+        long t0 = 1_000 * MINUTO;
+        // Un pedido creado por minuto durante 30 minutos; en los últimos 10 además un despacho
+        for (int m = 0; m < 30; m++) {
+            ventana.alCrear(t0 + m * MINUTO + 5);
+            if (m >= 20) {
+                ventana.alDespachar(t0 + m * MINUTO + 10, (m - 19) * 1_000L);
+            }
+        }
+        ventana.alCancelar(t0 + 29 * MINUTO);
+        // Llega tarde, de un minuto que el anillo ya no guarda: se ignora
+        ventana.alCrear(t0 + 2 * MINUTO);
+
+        long ahora = t0 + 29 * MINUTO + 30_000;
+        VentanaTemporal.Resumen ultimos5 = ventana.resumen(ahora, 5);
+        assertEquals(5, ultimos5.creados());
+        assertEquals(5, ultimos5.despachados());
+        assertEquals(1, ultimos5.cancelados());
+
+        VentanaTemporal.Resumen todos = ventana.resumen(ahora, 15);
+        assertEquals(15, todos.creados());
+        assertEquals(10, todos.despachados());
+        assertEquals(10, todos.esperas().cantidad());
+        // Esperas de 1 a 10 segundos: la mediana es 5 s
+        assertEquals(5_000, todos.esperas().percentil(50), 5_000 / 32.0);
+
+        // Media hora sin actividad: la ventana queda vacía
+        assertEquals(0, ventana.resumen(ahora + 30 * MINUTO, 15).creados());
+        assertThrows(IllegalArgumentException.class, () -> ventana.resumen(ahora, 16));
+        assertThrows(IllegalArgumentException.class, () -> ventana.resumen(ahora, 0));
+    }
+
+    @Test
+    void losResumenesDeVariasParticionesSeSuman() {
+        VentanaTemporal a = new VentanaTemporal(10);
+        VentanaTemporal b = new VentanaTemporal(10);
+        long ahora = 500 * MINUTO;
+        HistogramaLogLineal juntos = new HistogramaLogLineal();
+        for (int i = 1; i <= 100; i++) {
+            a.alDespachar(ahora - (i % 3) * MINUTO, i * 10L);
+            b.alDespachar(ahora, i * 1_000L);
+            juntos.agregar(i * 10L);
+            juntos.agregar(i * 1_000L);
+        }
+        VentanaTemporal.Resumen suma = a.resumen(ahora, 10).sumar(b.resumen(ahora, 10));
+        assertEquals(200, suma.despachados());
+        for (double p : new double[]{50, 95, 99}) {
+            assertEquals(juntos.percentil(p), suma.esperas().percentil(p));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.fastfood_service.persistence;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.datastructures.OrdenCarril;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstantaneaTest {
+
+    @TempDir
+    Path directorio;
+
+    private PedidoService servicio() {
+        return servicio(false);
+    }
+
+    // Con el archivo en frío, los terminados se archivan en cuanto se llama a archivarTerminados
+    private PedidoService servicio(boolean conArchivo) {
+        PedidosProperties propiedades = new PedidosProperties();
+        if (conArchivo) {
+            propiedades.getArchivo().setHabilitado(true);
+            propiedades.getArchivo().setDirectorio(directorio.resolve("frio").toString());
+            propiedades.getArchivo().setAntiguedadMs(0);
+        }
+        propiedades.getEstadisticas().setVerificar(true);
+        propiedades.getWal().setHabilitado(true);
+        propiedades.getWal().setDirectorio(directorio.toString());
+        propiedades.getWal().setTamanoSegmento(1024);
+        propiedades.getCola().setCarriles(List.of(
+                carril("MOSTRADOR", 1, OrdenCarril.FIFO),
+                carril("DELIVERY", 2, OrdenCarril.ANTIGUEDAD),
+                carril("EXPRESS", 3, OrdenCarril.MONTO)));
+        return new PedidoService(propiedades);
+    }
+
+    private static PedidosProperties.Cola.Carril carril(String nombre, int peso, OrdenCarril orden) {
+        PedidosProperties.Cola.Carril carril = new PedidosProperties.Cola.Carril();
+        carril.setNombre(nombre);
+        carril.setPeso(peso);
+        carril.setOrden(orden);
+        return carril;
+    }
+
+    private static Pedido body(int i) {
+        Pedido body = new Pedido(0, "Cliente " + (i % 7), "Combo ñandú " + i, 1.0 + (i % 13) * 2.5, null);
+        body.setCanal(i % 3 == 0 ? "EXPRESS" : i % 3 == 1 ? "DELIVERY" : null);
+        return body;
+    }
+
+    private static String resumen(PedidoService servicio) {
+        StringBuilder sb = new StringBuilder();
+        for (Pedido p : servicio.listarTodos()) {
+            sb.append(p.getId()).append(':').append(p.getNombreCliente()).append(':')
+                    .append(p.getDescripcion()).append(':').append(p.getMonto()).append(':')
+                    .append(p.getCanal()).append(':').append(p.getEstado()).append(':')
+                    .append(p.getCreadoEn()).append(':').append(p.getDespachadoEn()).append(':')
+                    .append(p.getCanceladoEn()).append(';');
+        }
+        return sb.toString();
+    }
+
+    // Mismos rollbacks y, carril por carril, mismo orden de despacho en los dos servicios
+    // (el turno del reparto entre carriles no es parte del estado: al arrancar empieza de nuevo)
+    private static void assertMismoComportamiento(PedidoService original, PedidoService recuperado) {
+        assertEquals(resumen(original), resumen(recuperado));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(original.rollbackUltimaOperacion().getId(), recuperado.rollbackUltimaOperacion().getId());
+        }
+        assertEquals(despachosPorCarril(original), despachosPorCarril(recuperado));
+        assertEquals(original.crearPedido(body(1)).getId(), recuperado.crearPedido(body(1)).getId());
+        assertEquals(original.obtenerEstadisticas().getTotalDespachados(),
+                recuperado.obtenerEstadisticas().getTotalDespachados());
+    }
+
+    // Despacha todo lo pendiente y devuelve los ids en el orden en que salieron de cada carril
+    private static Map<String, List<Integer>> despachosPorCarril(PedidoService servicio) {
+        Map<String, List<Integer>> porCarril = new TreeMap<>();
+        while (servicio.obtenerEstadisticas().getTotalRegistrados()
+                + servicio.obtenerEstadisticas().getTotalEnPreparacion() > 0) {
+            Pedido p = servicio.despacharSiguiente();
+            porCarril.computeIfAbsent(p.getCanal(), k -> new ArrayList<>()).add(p.getId());
+        }
+        return porCarril;
+    }
+
+    @Test
+    void recuperaDesdeLaInstantaneaYElLogPosterior() throws IOException {
+        PedidoService original = servicio();
+        for (int i = 1; i <= 60; i++) {
+            original.crearPedido(body(i));
+        }
+        original.despacharSiguiente();
+        original.despacharSiguiente();
+        original.despacharLote(4, null);
+        original.cancelarPedido(9);
+        original.despacharSiguiente();
+        original.rollbackUltimaOperacion();
+        original.prepararPedido(40);
+        original.crearPedido(body(61));
+        original.rollbackUltimaOperacion();
+        int segmentosAntes = segmentosDelLog().size();
+        original.tomarInstantanea();
+
+        // Después de la instantánea: más operaciones que solo están en el log
+        for (int i = 62; i <= 70; i++) {
+            original.crearPedido(body(i));
+        }
+        original.cancelarPedido(3);
+        original.despacharLote(3, null);
+        original.despacharSiguiente();
+        original.rollbackUltimaOperacion();
+        original.tomarInstantanea();
+        original.crearPedido(body(71));
+        original.cancelarPedido(20);
+        original.prepararPedido(50);
+        // Sin cerrar: simulamos que el proceso murió aquí
+
+        // Con dos instantáneas se borró el log anterior a la primera
+        assertTrue(segmentosDelLog().get(0).getFileName().toString().compareTo("wal-00000001.seg") > 0);
+        assertTrue(segmentosAntes > 1);
+
+        PedidoService recuperado = servicio();
+        assertEquals(original.obtenerEstadisticas().getTotalMonto(), recuperado.obtenerEstadisticas().getTotalMonto(), 1e-9);
+        assertMismoComportamiento(original, recuperado);
+    }
+
+    @Test
+    void siLaUltimaInstantaneaEstaDanadaSeUsaLaAnterior() throws IOException {
+        PedidoService original = servicio();
+        for (int i = 1; i <= 30; i++) {
+            original.crearPedido(body(i));
+        }
+        original.tomarInstantanea();
+        original.despacharLote(5, null);
+        // Un pedido que sigue pendiente (los despachados ya no se pueden cancelar)
+        original.cancelarPedido(original.listarPorEstado("REGISTRADO", 1)[0].getId());
+        original.tomarInstantanea();
+        original.despacharSiguiente();
+
+        dañar(instantaneas().get(instantaneas().size() - 1));
+
+        PedidoService recuperado = servicio();
+        assertMismoComportamiento(original, recuperado);
+    }
+
+    @Test
+    void sinNingunaInstantaneaLegibleNoArranca() throws IOException {
+        PedidoService original = servicio();
+        for (int i = 1; i <= 30; i++) {
+            original.crearPedido(body(i));
+        }
+        original.tomarInstantanea();
+        original.cerrar();
+
+        dañar(instantaneas().get(0));
+
+        // El log pudo haberse recortado: arrancar sin la instantánea perdería pedidos en silencio
+        assertThrows(IllegalStateException.class, this::servicio);
+    }
+
+    @Test
+    void losArchivadosEntranALaInstantaneaSinArmarlos() throws InterruptedException {
+        PedidoService original = servicio(true);
+        for (int i = 1; i <= 80; i++) {
+            original.crearPedido(body(i));
+        }
+        original.despacharLote(30, null);
+        original.cancelarPedido(original.listarPorEstado("REGISTRADO", 1)[0].getId());
+        Thread.sleep(5);
+        assertTrue(original.archivarTerminados() > 0);
+        // Uno archivado vuelve a memoria (rollback de su despacho) y otro se despacha sin archivarse
+        original.rollbackUltimaOperacion();
+        original.despacharSiguiente();
+        original.tomarInstantanea();
+        original.crearPedido(body(81));
+
+        PedidoService recuperado = servicio(true);
+        assertEquals(original.obtenerEstadisticas().getTotalMonto(), recuperado.obtenerEstadisticas().getTotalMonto(), 1e-9);
+        assertMismoComportamiento(original, recuperado);
+    }
+
+    @Test
+    void sinLogNoHayInstantaneas() {
+        PedidoService enMemoria = new PedidoService();
+        assertThrows(IllegalStateException.class, enMemoria::tomarInstantanea);
+    }
+
+    // Cambia un byte en el medio del archivo
+    private static void dañar(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long medio = canal.size() / 2;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            canal.read(b, medio);
+            canal.write(ByteBuffer.wrap(new byte[]{(byte) (b.get(0) ^ 0x5A)}), medio);
+        }
+    }
+
+    private List<Path> instantaneas() throws IOException {
+        return archivos("instantanea-");
+    }
+
+    private List<Path> segmentosDelLog() throws IOException {
+        return archivos("wal-");
+    }
+
+    private List<Path> archivos(String prefijo) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(p -> p.getFileName().toString().startsWith(prefijo)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.fastfood_service.persistence;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directorio;
+
+    private PedidoService servicio(ModoDurabilidad modo, int tamanoSegmento) {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getEstadisticas().setVerificar(true);
+        propiedades.getWal().setHabilitado(true);
+        propiedades.getWal().setDirectorio(directorio.toString());
+        propiedades.getWal().setTamanoSegmento(tamanoSegmento);
+        propiedades.getWal().setDurabilidad(modo);
+        return new PedidoService(propiedades);
+    }
+
+    private static Pedido body(String cliente, double monto) {
+        return new Pedido(0, cliente, "Combo ñandú", monto, null);
+    }
+
+    private static String resumen(PedidoService servicio) {
+        StringBuilder sb = new StringBuilder();
+        for (Pedido p : servicio.listarTodos()) {
+            sb.append(p.getId()).append(':').append(p.getNombreCliente()).append(':')
+                    .append(p.getMonto()).append(':').append(p.getEstado()).append(':')
+                    .append(p.getCreadoEn()).append(':').append(p.getDespachadoEn()).append(':')
+                    .append(p.getCanceladoEn()).append(';');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void recuperaListaColaHistorialYContadorDespuesDeUnaCaida() {
+        PedidoService original = servicio(ModoDurabilidad.GRUPO, 1024);
+        for (int i = 1; i <= 40; i++) {
+            original.crearPedido(body("Cliente " + i, i * 1.25));
+        }
+        original.despacharSiguiente();
+        original.despacharSiguiente();
+        original.cancelarPedido(5);
+        original.cancelarPedido(7);
+        original.rollbackUltimaOperacion();
+        original.despacharSiguiente();
+        original.rollbackUltimaOperacion();
+        original.crearPedido(body("Ultimo", 9.0));
+        original.rollbackUltimaOperacion();
+        // Sin cerrar: simulamos que el proceso murió aquí
+
+        PedidoService recuperado = servicio(ModoDurabilidad.GRUPO, 1024);
+        assertEquals(resumen(original), resumen(recuperado));
+        EstadisticasPedidos e1 = original.obtenerEstadisticas();
+        EstadisticasPedidos e2 = recuperado.obtenerEstadisticas();
+        assertEquals(e1.getTotalPedidos(), e2.getTotalPedidos());
+        assertEquals(e1.getTotalMontoSinCancelados(), e2.getTotalMontoSinCancelados(), 1e-9);
+
+        // Los ids siguen después del último usado, aunque su creación se revirtió
+        assertEquals(42, recuperado.crearPedido(body("Nuevo", 1.0)).getId());
+        recuperado.rollbackUltimaOperacion();
+
+        // La cola conserva el orden: el despacho revertido volvió al frente
+        assertEquals(original.despacharSiguiente().getId(), recuperado.despacharSiguiente().getId());
+        assertEquals(original.despacharSiguiente().getId(), recuperado.despacharSiguiente().getId());
+
+        // El historial también: los rollbacks siguientes deshacen lo mismo en ambos
+        for (int i = 0; i < 6; i++) {
+            assertEquals(original.rollbackUltimaOperacion().getId(), recuperado.rollbackUltimaOperacion().getId());
+        }
+        assertEquals(resumen(original), resumen(recuperado));
+    }
+
+    @Test
+    void recuperaDespachosPorLotes() {
+        PedidoService original = servicio(ModoDurabilidad.GRUPO, 4096);
+        for (int i = 1; i <= 10; i++) {
+            original.crearPedido(body("Cliente " + i, i));
+        }
+        original.despacharLote(3, null);
+        original.despacharLote(4, null);
+        original.rollbackUltimaOperacion();
+
+        PedidoService recuperado = servicio(ModoDurabilidad.GRUPO, 4096);
+        assertEquals(resumen(original), resumen(recuperado));
+        // El lote que quedó sigue siendo una sola operación en el historial
+        assertEquals(3, recuperado.rollback(1).length);
+        assertEquals(3, original.rollback(1).length);
+        assertEquals(resumen(original), resumen(recuperado));
+        assertEquals(original.despacharLote(10, null).length, recuperado.despacharLote(10, null).length);
+    }
+
+    @Test
+    void recuperaPedidosEnPreparacion() {
+        PedidoService original = servicio(ModoDurabilidad.GRUPO, 4096);
+        for (int i = 1; i <= 5; i++) {
+            original.crearPedido(body("Cliente " + i, i));
+        }
+        original.prepararPedido(2);
+        original.prepararPedido(4);
+        original.prepararPedido(5);
+        original.cancelarPedido(4);
+        original.rollbackUltimaOperacion();
+        original.rollbackUltimaOperacion();
+
+        PedidoService recuperado = servicio(ModoDurabilidad.GRUPO, 4096);
+        assertEquals(resumen(original), resumen(recuperado));
+        assertEquals(2, recuperado.obtenerEstadisticas().getTotalEnPreparacion());
+        // La preparación que quedó en el historial se revierte igual en ambos
+        assertEquals(original.rollbackUltimaOperacion().getId(), recuperado.rollbackUltimaOperacion().getId());
+        assertEquals(resumen(original), resumen(recuperado));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(original.despacharSiguiente().getId(), recuperado.despacharSiguiente().getId());
+        }
+    }
+
+    @Test
+    void registroCortadoAlFinalSeDescarta() throws IOException {
+        PedidoService original = servicio(ModoDurabilidad.SINCRONO, 4096);
+        original.crearPedido(body("Ana", 10.0));
+        original.crearPedido(body("Luis", 20.0));
+        original.cerrar();
+
+        // Dañamos el último byte del último registro (como si la escritura se hubiera cortado)
+        Path segmento = ultimoSegmento();
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            canal.read(buffer, 0);
+            int offset = 0;
+            int ultimo = 0;
+            while (buffer.getInt(offset) != 0) {
+                ultimo = offset;
+                offset += 8 + buffer.getInt(offset);
+            }
+            int finUltimo = ultimo + 8 + buffer.getInt(ultimo) - 1;
+            canal.write(ByteBuffer.wrap(new byte[]{(byte) (buffer.get(finUltimo) ^ 0x5A)}), finUltimo);
+        }
+
+        PedidoService recuperado = servicio(ModoDurabilidad.SINCRONO, 4096);
+        assertEquals(1, recuperado.listarTodos().length);
+        assertEquals("Ana", recuperado.buscarPorId(1).getNombreCliente());
+        // Lo que se escribe después reemplaza al registro dañado
+        recuperado.crearPedido(body("Eva", 5.0));
+        PedidoService otraVez = servicio(ModoDurabilidad.SINCRONO, 4096);
+        assertEquals(resumen(recuperado), resumen(otraVez));
+    }
+
+    @Test
+    void recuperaUnMillonDeOperaciones() {
+        PedidoService original = servicio(ModoDurabilidad.NINGUNO, 64 * 1024 * 1024);
+        int n = 500_000;
+        for (int i = 0; i < n; i++) {
+            original.crearPedido(body("C", 2.5));
+        }
+        for (int i = 0; i < n; i++) {
+            original.despacharSiguiente();
+        }
+        original.cerrar();
+
+        PedidoService recuperado = servicio(ModoDurabilidad.NINGUNO, 64 * 1024 * 1024);
+        EstadisticasPedidos e = recuperado.obtenerEstadisticas();
+        assertEquals(n, e.getTotalPedidos());
+        assertEquals(n, e.getTotalDespachados());
+        assertEquals(n * 2.5, e.getTotalMonto(), 1e-6);
+    }
+
+    private Path ultimoSegmento() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            List<Path> segmentos = archivos.sorted().toList();
+            return segmentos.get(segmentos.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.model.EventoPedido;
+import com.example.fastfood_service.model.Pedido;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventosPedidosTest {
+
+    private static Pedido pedido(int id, String estado) {
+        return new Pedido(id, "Cliente", "Combo", 10.0, estado);
+    }
+
+    @Test
+    void entregaEnOrdenYRetomaDesdeUltimoId() throws Exception {
+        EventosPedidos eventos = new EventosPedidos(16, 8, PoliticaDesborde.DESCARTAR, "a1");
+        EventosPedidos.Suscripcion pantalla = eventos.suscribir(null);
+        eventos.publicar("CREADO", null, pedido(1, "REGISTRADO"));
+        eventos.publicar("DESPACHADO", null, pedido(1, "DESPACHADO"));
+        eventos.publicar("REVERTIDO", "DESPACHAR", pedido(1, "REGISTRADO"));
+
+        EventoPedido primero = pantalla.siguiente(1, TimeUnit.SECONDS);
+        assertEquals(1, primero.id());
+        assertEquals("a1-1", eventos.idEvento(primero));
+        assertEquals("CREADO", primero.tipo());
+        assertEquals("DESPACHADO", pantalla.siguiente(1, TimeUnit.SECONDS).tipo());
+        EventoPedido revertido = pantalla.siguiente(1, TimeUnit.SECONDS);
+        assertEquals("DESPACHAR", revertido.operacionRevertida());
+        assertEquals("REGISTRADO", revertido.pedido().getEstado());
+        assertNull(pantalla.siguiente(10, TimeUnit.MILLISECONDS));
+
+        // Una pantalla que se reconecta con Last-Event-ID=a1-1 recibe lo que se perdió
+        try (EventosPedidos.Suscripcion reconectada = eventos.suscribir("a1-1")) {
+            assertEquals(2, reconectada.siguiente(1, TimeUnit.SECONDS).id());
+            assertEquals(3, reconectada.siguiente(1, TimeUnit.SECONDS).id());
+        }
+        // Un id que el servidor nunca emitió, sin época o mal formado pide recargar todo
+        for (String id : new String[]{"a1-99", "2", "a1-", "a1-x"}) {
+            try (EventosPedidos.Suscripcion vieja = eventos.suscribir(id)) {
+                assertEquals("REINICIO", vieja.siguiente(1, TimeUnit.SECONDS).tipo());
+            }
+        }
+        pantalla.close();
+        assertEquals(0, eventos.suscriptores());
+    }
+
+    @Test
+    void idDeOtroArranqueConLaMismaSecuenciaPideReiniciar() throws Exception {
+        // Antes del reinicio la pantalla había visto el evento 2; el servidor nuevo vuelve a
+        // numerar desde 1 y ya publicó 3 eventos, así que el 2 existe pero es otro
+        EventosPedidos antes = new EventosPedidos(16, 8, PoliticaDesborde.DESCARTAR);
+        EventosPedidos despues = new EventosPedidos(16, 8, PoliticaDesborde.DESCARTAR);
+        assertNotEquals(antes.epoca(), despues.epoca());
+        antes.publicar("CREADO", null, pedido(1, "REGISTRADO"));
+        antes.publicar("CREADO", null, pedido(2, "REGISTRADO"));
+        for (int i = 1; i <= 3; i++) {
+            despues.publicar("CREADO", null, pedido(i, "REGISTRADO"));
+        }
+        String visto = antes.idEvento(new EventoPedido(2, "CREADO", null, null));
+
+        try (EventosPedidos.Suscripcion pantalla = despues.suscribir(visto)) {
+            EventoPedido reinicio = pantalla.siguiente(1, TimeUnit.SECONDS);
+            assertEquals("REINICIO", reinicio.tipo());
+            assertEquals(despues.epoca() + "-3", despues.idEvento(reinicio));
+            assertNull(pantalla.siguiente(10, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void suscriptorLentoSegunPoliticaDeDesborde() throws Exception {
+        EventosPedidos descartar = new EventosPedidos(16, 4, PoliticaDesborde.DESCARTAR);
+        EventosPedidos.Suscripcion lenta = descartar.suscribir(null);
+        for (int i = 1; i <= 10; i++) {
+            descartar.publicar("CREADO", null, pedido(i, "REGISTRADO"));
+        }
+        // Se saltea lo perdido y avisa con REINICIO; sigue recibiendo lo nuevo
+        assertEquals("REINICIO", lenta.siguiente(1, TimeUnit.SECONDS).tipo());
+        assertNull(lenta.siguiente(10, TimeUnit.MILLISECONDS));
+        descartar.publicar("CANCELADO", null, pedido(3, "CANCELADO"));
+        assertEquals(11, lenta.siguiente(1, TimeUnit.SECONDS).id());
+
+        EventosPedidos desconectar = new EventosPedidos(16, 4, PoliticaDesborde.DESCONECTAR);
+        EventosPedidos.Suscripcion otra = desconectar.suscribir(null);
+        for (int i = 1; i <= 10; i++) {
+            desconectar.publicar("CREADO", null, pedido(i, "REGISTRADO"));
+        }
+        assertThrows(IllegalStateException.class, () -> otra.siguiente(1, TimeUnit.SECONDS));
+        assertTrue(otra.cerrada());
+        assertEquals(0, desconectar.suscriptores());
+    }
+
+    @Test
+    void despiertaAlSuscriptorQueEspera() throws Exception {
+        EventosPedidos eventos = new EventosPedidos(16, 8, PoliticaDesborde.DESCARTAR);
+        EventosPedidos.Suscripcion pantalla = eventos.suscribir(null);
+        Thread publicador = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            eventos.publicar("CREADO", null, pedido(1, "REGISTRADO"));
+        });
+        assertEquals(1, pantalla.siguiente(5, TimeUnit.SECONDS).id());
+        publicador.join();
+
+        // Cerrar la suscripción libera al hilo que está esperando
+        Thread cierre = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            pantalla.close();
+        });
+        assertNull(pantalla.siguiente(5, TimeUnit.SECONDS));
+        cierre.join();
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.datastructures.ModoAlmacen;
+import com.example.fastfood_service.model.Pedido;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoServiceConcurrencyTest {
+
+    private static Pedido body(int i) {
+        return new Pedido(0, "Caja " + i, "Combo", 5.0, null);
+    }
+
+    private static List<Future<?>> correr(int hilos, CountDownLatch inicio, ExecutorService pool,
+                                          Callable<Void> tarea) {
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            tareas.add(pool.submit(tarea));
+        }
+        return tareas;
+    }
+
+    @Test
+    void crearYDespacharEnParaleloSinPerdidasNiDuplicados() throws Exception {
+        PedidoService servicio = new PedidoService();
+        int cajas = 4;
+        int porCaja = 5_000;
+        int total = cajas * porCaja;
+
+        ConcurrentHashMap<Integer, Boolean> creados = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Integer, Boolean> despachados = new ConcurrentHashMap<>();
+        AtomicInteger idsRepetidos = new AtomicInteger();
+        AtomicInteger despachosRepetidos = new AtomicInteger();
+        AtomicInteger cajasTerminadas = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(cajas * 2);
+
+        List<Future<?>> tareas = new ArrayList<>(correr(cajas, inicio, pool, () -> {
+            inicio.await();
+            for (int i = 0; i < porCaja; i++) {
+                Pedido p = servicio.crearPedido(body(i));
+                if (creados.putIfAbsent(p.getId(), Boolean.TRUE) != null) {
+                    idsRepetidos.incrementAndGet();
+                }
+            }
+            cajasTerminadas.incrementAndGet();
+            return null;
+        }));
+        tareas.addAll(correr(cajas, inicio, pool, () -> {
+            inicio.await();
+            while (true) {
+                try {
+                    Pedido p = servicio.despacharSiguiente();
+                    if (despachados.putIfAbsent(p.getId(), Boolean.TRUE) != null) {
+                        despachosRepetidos.incrementAndGet();
+                    }
+                } catch (IllegalStateException vacia) {
+                    if (cajasTerminadas.get() == cajas) {
+                        return null;
+                    }
+                    Thread.yield();
+                }
+            }
+        }));
+
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0, idsRepetidos.get());
+        assertEquals(0, despachosRepetidos.get());
+        assertEquals(total, servicio.listarTodos().length);
+
+        // Todo pedido creado quedó despachado o sigue pendiente: ninguno se perdió
+        Set<Integer> pendientes = new HashSet<>();
+        for (Pedido p : servicio.listarTodos()) {
+            if ("REGISTRADO".equals(p.getEstado())) {
+                pendientes.add(p.getId());
+            } else {
+                assertEquals("DESPACHADO", p.getEstado());
+                assertTrue(despachados.containsKey(p.getId()));
+            }
+        }
+        assertEquals(total, despachados.size() + pendientes.size());
+        while (!pendientes.isEmpty()) {
+            assertTrue(pendientes.remove(servicio.despacharSiguiente().getId()));
+        }
+        assertThrows(IllegalStateException.class, servicio::despacharSiguiente);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void cancelarYDespacharEnParaleloGanaUnoSoloPorPedido(ModoAlmacen modo) throws Exception {
+        int total = 5_000;
+        // El historial debe alcanzar para todas las operaciones de la prueba
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getAlmacen().setModo(modo);
+        propiedades.getHistorial().setCapacidad(4 * total);
+        PedidoService servicio = new PedidoService(propiedades);
+        for (int i = 0; i < total; i++) {
+            servicio.crearPedido(body(i));
+        }
+
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Set<Integer> despachados = ConcurrentHashMap.newKeySet();
+        Set<Integer> cancelados = ConcurrentHashMap.newKeySet();
+        AtomicInteger cancelacionesRepetidas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>(correr(2, inicio, pool, () -> {
+            inicio.await();
+            for (int id = 1; id <= total; id++) {
+                try {
+                    if (!cancelados.add(servicio.cancelarPedido(id).getId())) {
+                        cancelacionesRepetidas.incrementAndGet();
+                    }
+                } catch (IllegalStateException perdio) {
+                    // Ya estaba despachado o lo canceló la otra caja
+                }
+            }
+            return null;
+        }));
+        tareas.addAll(correr(2, inicio, pool, () -> {
+            inicio.await();
+            try {
+                while (true) {
+                    despachados.add(servicio.despacharSiguiente().getId());
+                }
+            } catch (IllegalStateException vacia) {
+                return null;
+            }
+        }));
+
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Cada pedido lo ganó una sola operación: quedó despachado o cancelado, nunca las dos cosas
+        assertEquals(0, cancelacionesRepetidas.get());
+        assertEquals(total, despachados.size() + cancelados.size());
+        for (Pedido p : servicio.listarTodos()) {
+            assertEquals(despachados.contains(p.getId()) ? "DESPACHADO" : "CANCELADO", p.getEstado());
+            assertTrue(despachados.contains(p.getId()) != cancelados.contains(p.getId()));
+        }
+        assertThrows(IllegalStateException.class, servicio::despacharSiguiente);
+
+        // Revertir todo el historial deja la lista vacía sin errores de consistencia
+        int revertidas = 0;
+        while (true) {
+            try {
+                servicio.rollbackUltimaOperacion();
+                revertidas++;
+            } catch (IllegalStateException vacio) {
+                break;
+            }
+        }
+        assertEquals(total + cancelados.size() + despachados.size(), revertidas);
+        assertEquals(0, servicio.listarTodos().length);
+    }
+
+    @Test
+    void verificarEstadisticasMientrasSeOperaNoDaFalsosDescuadres() throws Exception {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getEstadisticas().setVerificar(true);
+        PedidoService servicio = new PedidoService(propiedades);
+        int cajas = 3;
+        int porCaja = 2_000;
+
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger cajasTerminadas = new AtomicInteger();
+        AtomicInteger lecturas = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(cajas + 1);
+        List<Future<?>> tareas = new ArrayList<>(correr(cajas, inicio, pool, () -> {
+            inicio.await();
+            for (int i = 0; i < porCaja; i++) {
+                Pedido p = servicio.crearPedido(body(i));
+                if (i % 3 == 0) {
+                    servicio.cancelarPedido(p.getId());
+                } else if (i % 3 == 1) {
+                    try {
+                        servicio.despacharSiguiente();
+                    } catch (IllegalStateException vacia) {
+                        // Otra caja se llevó el último pendiente
+                    }
+                }
+            }
+            cajasTerminadas.incrementAndGet();
+            return null;
+        }));
+        tareas.addAll(correr(1, inicio, pool, () -> {
+            inicio.await();
+            while (cajasTerminadas.get() < cajas) {
+                // Un descuadre entre acumulados y recorrido lanzaría IllegalStateException
+                servicio.obtenerEstadisticas();
+                lecturas.incrementAndGet();
+            }
+            return null;
+        }));
+
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(lecturas.get() > 0);
+        assertEquals(cajas * porCaja, servicio.obtenerEstadisticas().getTotalPedidos());
+    }
+
+    @Test
+    void paginarMientrasSeCreaYSeArchivaVeCadaPedidoUnaVezYEnOrden(@TempDir Path dir) throws Exception {
+        // Las cajas toman el id antes del candado, así que los pedidos pueden llegar desordenados
+        // mientras otra tarea pasa los terminados a disco y otra recorre las páginas
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getArchivo().setHabilitado(true);
+        propiedades.getArchivo().setDirectorio(dir.toString());
+        propiedades.getArchivo().setAntiguedadMs(0);
+        propiedades.getArchivo().setIntervaloMs(3_600_000);
+        PedidoService servicio = new PedidoService(propiedades);
+        int cajas = 4;
+        int porCaja = 3_000;
+        int total = cajas * porCaja;
+
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger cajasTerminadas = new AtomicInteger();
+        AtomicInteger paginasDesordenadas = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(cajas + 2);
+        List<Future<?>> tareas = new ArrayList<>(correr(cajas, inicio, pool, () -> {
+            inicio.await();
+            for (int i = 0; i < porCaja; i++) {
+                Pedido p = servicio.crearPedido(body(i % 7));
+                if (i % 2 == 0) {
+                    servicio.cancelarPedido(p.getId());
+                }
+            }
+            cajasTerminadas.incrementAndGet();
+            return null;
+        }));
+        tareas.addAll(correr(1, inicio, pool, () -> {
+            inicio.await();
+            while (cajasTerminadas.get() < cajas) {
+                servicio.archivarTerminados();
+                Thread.yield();
+            }
+            servicio.archivarTerminados();
+            return null;
+        }));
+        tareas.addAll(correr(1, inicio, pool, () -> {
+            inicio.await();
+            while (cajasTerminadas.get() < cajas) {
+                // Dentro de una página y entre páginas los ids solo crecen
+                Integer cursor = null;
+                do {
+                    PedidoService.PaginaPedidos pagina = servicio.listarPagina(cursor, 50, null, null);
+                    int anterior = cursor == null ? 0 : cursor;
+                    for (Pedido p : pagina.getPedidos()) {
+                        if (p.getId() <= anterior) {
+                            paginasDesordenadas.incrementAndGet();
+                        }
+                        anterior = p.getId();
+                    }
+                    cursor = pagina.getSiguiente();
+                } while (cursor != null);
+            }
+            return null;
+        }));
+
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(120, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0, paginasDesordenadas.get());
+        assertTrue(servicio.cantidadArchivados() > 0);
+        List<Integer> vistos = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            PedidoService.PaginaPedidos pagina = servicio.listarPagina(cursor, 50, null, null);
+            for (Pedido p : pagina.getPedidos()) {
+                vistos.add(p.getId());
+            }
+            cursor = pagina.getSiguiente();
+        } while (cursor != null);
+        List<Integer> esperados = new ArrayList<>();
+        for (int id = 1; id <= total; id++) {
+            esperados.add(id);
+        }
+        assertEquals(esperados, vistos);
+
+        // Lo mismo por cliente
+        List<Integer> delCliente = new ArrayList<>();
+        cursor = null;
+        do {
+            PedidoService.PaginaPedidos pagina = servicio.listarPorCliente("Caja 3", cursor, 20);
+            for (Pedido p : pagina.getPedidos()) {
+                delCliente.add(p.getId());
+            }
+            cursor = pagina.getSiguiente();
+        } while (cursor != null);
+        assertEquals(cajas * ((porCaja + 3) / 7), delCliente.size());
+        for (int i = 1; i < delCliente.size(); i++) {
+            assertTrue(delCliente.get(i - 1) < delCliente.get(i));
+        }
+        servicio.cerrar();
+    }
+}
@@ -0,0 +1,467 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.datastructures.ModoAlmacen;
+import com.example.fastfood_service.model.EstadoPedido;
+import com.example.fastfood_service.model.HistorialOperacion;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService.ArticuloTop;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoServiceTest {
+
+    private static PedidoService servicioVerificado() {
+        return servicioVerificado(ModoAlmacen.OBJETOS);
+    }
+
+    private static PedidoService servicioVerificado(ModoAlmacen modo) {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getEstadisticas().setVerificar(true);
+        propiedades.getAlmacen().setModo(modo);
+        return new PedidoService(propiedades);
+    }
+
+    private static Pedido body(String cliente, double monto) {
+        return new Pedido(0, cliente, "Hamburguesa", monto, null);
+    }
+
+    @Test
+    void estadisticasSeActualizanEnCadaOperacionYRollback() {
+        PedidoService servicio = servicioVerificado();
+        servicio.crearPedido(body("Ana", 10.0));
+        servicio.crearPedido(body("Luis", 20.0));
+        servicio.crearPedido(body("Eva", 30.5));
+        servicio.despacharSiguiente();
+        servicio.cancelarPedido(2);
+
+        EstadisticasPedidos e = servicio.obtenerEstadisticas();
+        assertEquals(3, e.getTotalPedidos());
+        assertEquals(60.5, e.getTotalMonto(), 1e-9);
+        assertEquals(40.5, e.getTotalMontoSinCancelados(), 1e-9);
+        assertEquals(1, e.getTotalRegistrados());
+        assertEquals(1, e.getTotalDespachados());
+        assertEquals(1, e.getTotalCancelados());
+
+        // Rollback de CANCELAR, DESPACHAR y CREAR
+        servicio.rollbackUltimaOperacion();
+        servicio.rollbackUltimaOperacion();
+        servicio.rollbackUltimaOperacion();
+        e = servicio.obtenerEstadisticas();
+        assertEquals(2, e.getTotalPedidos());
+        assertEquals(30.0, e.getTotalMonto(), 1e-9);
+        assertEquals(30.0, e.getTotalMontoSinCancelados(), 1e-9);
+        assertEquals(2, e.getTotalRegistrados());
+        assertEquals(0, e.getTotalDespachados());
+        assertEquals(0, e.getTotalCancelados());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void estadisticasIncrementalesCoincidenConRecorridoCompleto(ModoAlmacen modo) {
+        PedidoService servicio = servicioVerificado(modo);
+        Random random = new Random(7);
+        int creados = 0;
+        for (int paso = 0; paso < 5_000; paso++) {
+            int accion = random.nextInt(11);
+            try {
+                if (accion < 5 || creados == 0) {
+                    servicio.crearPedido(body("Cliente", 0.01 + random.nextInt(50_000) / 100.0));
+                    creados++;
+                } else if (accion < 7) {
+                    servicio.despacharSiguiente();
+                } else if (accion < 8) {
+                    servicio.cancelarPedido(1 + random.nextInt(creados));
+                } else if (accion < 9) {
+                    servicio.prepararPedido(1 + random.nextInt(creados));
+                } else {
+                    servicio.rollbackUltimaOperacion();
+                }
+            } catch (IllegalStateException | NoSuchElementException esperado) {
+                // Cola vacía, historial vacío o pedido revertido: no cambia nada
+            }
+            // En modo verificación esta llamada falla si las estadísticas se desviaron
+            servicio.obtenerEstadisticas();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void indicesPorEstadoYClienteCoincidenConRecorridoCompleto(ModoAlmacen modo) {
+        PedidoService servicio = servicioVerificado(modo);
+        Random random = new Random(11);
+        String[] clientes = {"Ana", "Luis", "Eva"};
+        int creados = 0;
+        for (int paso = 0; paso < 1_500; paso++) {
+            int accion = random.nextInt(11);
+            try {
+                if (accion < 5 || creados == 0) {
+                    servicio.crearPedido(body(clientes[random.nextInt(clientes.length)], 1.0));
+                    creados++;
+                } else if (accion < 7) {
+                    servicio.despacharSiguiente();
+                } else if (accion < 8) {
+                    servicio.cancelarPedido(1 + random.nextInt(creados));
+                } else if (accion < 9) {
+                    servicio.prepararPedido(1 + random.nextInt(creados));
+                } else {
+                    servicio.rollback(1 + random.nextInt(3));
+                }
+            } catch (IllegalStateException | NoSuchElementException esperado) {
+                // Cola vacía, historial corto o pedido revertido: no cambia nada
+            }
+            if (paso % 100 == 0) {
+                assertIndicesConsistentes(servicio, clientes);
+            }
+        }
+        assertIndicesConsistentes(servicio, clientes);
+    }
+
+    private static void assertIndicesConsistentes(PedidoService servicio, String[] clientes) {
+        Pedido[] todos = servicio.listarTodos();
+        for (String estado : new String[]{"REGISTRADO", "DESPACHADO", "CANCELADO"}) {
+            int[] esperados = Arrays.stream(todos).filter(p -> estado.equals(p.getEstado()))
+                    .mapToInt(Pedido::getId).sorted().toArray();
+            int[] indice = Arrays.stream(servicio.listarPorEstado(estado, 1000))
+                    .mapToInt(Pedido::getId).sorted().toArray();
+            assertArrayEquals(esperados, indice, estado);
+        }
+        for (String cliente : clientes) {
+            int[] esperados = Arrays.stream(todos).filter(p -> cliente.equals(p.getNombreCliente()))
+                    .mapToInt(Pedido::getId).toArray();
+            int[] indice = Arrays.stream(servicio.listarPorCliente(cliente, null, 1000).getPedidos())
+                    .mapToInt(Pedido::getId).toArray();
+            assertArrayEquals(esperados, indice, cliente);
+        }
+    }
+
+    @Test
+    void topDeArticulosNormalizaYDescuentaCanceladosYRollbacks() {
+        PedidoService servicio = servicioVerificado();
+        String[] descripciones = {"Hamburguesa doble", "  hamburguesa DOBLE!", "Hamburguesa, dóble", "Papas fritas", "Papas Fritas", "Refresco"};
+        for (String descripcion : descripciones) {
+            servicio.crearPedido(new Pedido(0, "Ana", descripcion, 10.0, null));
+        }
+        servicio.cancelarPedido(6);
+        servicio.despacharSiguiente();
+
+        List<ArticuloTop> top = servicio.topArticulos(5);
+        assertEquals(2, top.size());
+        assertEquals("hamburguesa doble", top.get(0).getDescripcion());
+        assertEquals(3, top.get(0).getCantidad());
+        assertEquals(30.0, top.get(0).getIngresos(), 1e-9);
+        assertTrue(top.get(0).isExacto());
+        assertEquals("papas fritas", top.get(1).getDescripcion());
+
+        // Revertir el despacho no cambia nada; revertir la cancelación vuelve a contar el refresco
+        servicio.rollback(2);
+        top = servicio.topArticulos(5);
+        assertEquals(3, top.size());
+        assertEquals("refresco", top.get(2).getDescripcion());
+        assertEquals(1, top.get(2).getCantidad());
+
+        // Y revertir su creación lo vuelve a sacar
+        servicio.rollbackUltimaOperacion();
+        assertEquals(2, servicio.topArticulos(5).size());
+        assertThrows(IllegalArgumentException.class, () -> servicio.topArticulos(0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void registraTiemposYMetricasDeDespacho(ModoAlmacen modo) {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getEstadisticas().setVerificar(true);
+        propiedades.getAlmacen().setModo(modo);
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        PedidoService servicio = new PedidoService(propiedades, registro);
+        for (int i = 1; i <= 4; i++) {
+            servicio.crearPedido(body("Cliente " + i, i));
+        }
+        Pedido creado = servicio.buscarPorId(1);
+        assertNotNull(creado.getCreadoEn());
+        assertNull(creado.getDespachadoEn());
+
+        servicio.despacharSiguiente();
+        servicio.cancelarPedido(2);
+        Pedido despachado = servicio.buscarPorId(1);
+        assertFalse(despachado.getDespachadoEn().isBefore(despachado.getCreadoEn()));
+        assertNotNull(servicio.buscarPorId(2).getCanceladoEn());
+        assertEquals(2.0, registro.get("pedidos.cola.pendientes").gauge().value());
+        assertEquals(6.0, registro.get("pedidos.historial.operaciones").gauge().value());
+        assertEquals(1, cantidadDespachos(registro));
+
+        // El rollback devuelve también los tiempos
+        servicio.rollback(2);
+        assertNull(servicio.buscarPorId(1).getDespachadoEn());
+        assertNull(servicio.buscarPorId(2).getCanceladoEn());
+        assertEquals(creado.getCreadoEn(), servicio.buscarPorId(1).getCreadoEn());
+        assertEquals(4.0, registro.get("pedidos.cola.pendientes").gauge().value());
+
+        // Cada pedido de un lote cuenta como un despacho
+        servicio.despacharLote(3, null);
+        assertEquals(4, cantidadDespachos(registro));
+        assertEquals(1.0, registro.get("pedidos.cola.pendientes").gauge().value());
+    }
+
+    private static long cantidadDespachos(SimpleMeterRegistry registro) {
+        long cantidad = (long) registro.get("pedidos.tiempo.despacho").functionTimers().stream()
+                .mapToDouble(FunctionTimer::count).sum();
+        // El último balde acumulado cuenta todos los despachos
+        long enBaldes = (long) registro.get("pedidos.tiempo.despacho.baldes").tag("le", "+Inf")
+                .functionCounters().stream().mapToDouble(FunctionCounter::count).sum();
+        assertEquals(cantidad, enBaldes);
+        return cantidad;
+    }
+
+    @Test
+    void despachoPorLotesSeRevierteEnUnSoloRollback() {
+        PedidoService servicio = servicioVerificado();
+        for (int i = 1; i <= 6; i++) {
+            servicio.crearPedido(body("Cliente " + i, i));
+        }
+        servicio.cancelarPedido(2);
+
+        Pedido[] lote = servicio.despacharLote(4, null);
+        assertArrayEquals(new int[]{1, 3, 4, 5}, Arrays.stream(lote).mapToInt(Pedido::getId).toArray());
+        assertEquals("DESPACHAR_LOTE", servicio.listarHistorial(1)[0].getTipoOperacion());
+        assertEquals(4, servicio.obtenerEstadisticas().getTotalDespachados());
+
+        // Un solo paso de rollback deshace el lote entero y la cola recupera su orden
+        Pedido[] revertidos = servicio.rollback(1);
+        assertEquals(4, revertidos.length);
+        assertEquals(0, servicio.obtenerEstadisticas().getTotalDespachados());
+        assertEquals("CANCELAR", servicio.listarHistorial(1)[0].getTipoOperacion());
+        assertArrayEquals(new int[]{1, 3, 4, 5, 6},
+                Arrays.stream(servicio.despacharLote(10, null)).mapToInt(Pedido::getId).toArray());
+
+        // Con presupuesto 0 sale un solo pedido, y un lote de uno es un despacho normal
+        servicio.rollbackUltimaOperacion();
+        assertEquals(1, servicio.despacharLote(10, 0L).length);
+        assertEquals("DESPACHAR", servicio.listarHistorial(1)[0].getTipoOperacion());
+        assertThrows(IllegalArgumentException.class, () -> servicio.despacharLote(0, null));
+        servicio.despacharLote(10, null);
+        assertThrows(IllegalStateException.class, () -> servicio.despacharLote(10, null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void historialGuardaSoloElCambioYElRollbackLoDeshace(ModoAlmacen modo) {
+        PedidoService servicio = servicioVerificado(modo);
+        servicio.crearPedido(body("Ana", 10.0));
+        servicio.crearPedido(body("Luis", 20.0));
+        Pedido despachado = servicio.despacharSiguiente();
+        Pedido cancelado = servicio.cancelarPedido(2);
+
+        // Un pedido despachado o ya cancelado no se cancela: 409, sin cambios ni entrada en el historial
+        assertThrows(IllegalStateException.class, () -> servicio.cancelarPedido(1));
+        assertThrows(IllegalStateException.class, () -> servicio.cancelarPedido(2));
+        assertEquals("DESPACHADO", servicio.buscarPorId(1).getEstado());
+        assertNull(servicio.buscarPorId(1).getCanceladoEn());
+        assertEquals(cancelado.getCanceladoEn(), servicio.buscarPorId(2).getCanceladoEn());
+
+        HistorialOperacion[] ops = servicio.listarHistorial(10);
+        assertEquals(4, ops.length);
+        assertEquals("CANCELAR", ops[0].getTipoOperacion());
+        assertEquals(2, ops[0].getIdPedido());
+        assertEquals(EstadoPedido.REGISTRADO, ops[0].getEstadoAntes());
+        assertNull(ops[0].getInstanteAnterior());
+        assertEquals("DESPACHAR", ops[1].getTipoOperacion());
+        assertEquals(EstadoPedido.REGISTRADO, ops[1].getEstadoAntes());
+        assertNull(ops[1].getInstanteAnterior());
+        assertEquals("CREAR", ops[3].getTipoOperacion());
+        assertNull(ops[3].getEstadoAntes());
+        assertEquals(EstadoPedido.REGISTRADO, ops[3].getEstadoDespues());
+
+        // Revertir la cancelación deja el pedido pendiente, sin canceladoEn
+        servicio.rollbackUltimaOperacion();
+        Pedido actual = servicio.buscarPorId(2);
+        assertEquals("REGISTRADO", actual.getEstado());
+        assertNull(actual.getCanceladoEn());
+
+        // Revertir el despacho lo deja como estaba antes, sin despachadoEn
+        servicio.rollbackUltimaOperacion();
+        actual = servicio.buscarPorId(1);
+        assertEquals("REGISTRADO", actual.getEstado());
+        assertNull(actual.getDespachadoEn());
+
+        // Y la creación se deshace con el id
+        assertEquals(2, servicio.rollbackUltimaOperacion().getId());
+        assertThrows(NoSuchElementException.class, () -> servicio.buscarPorId(2));
+        assertEquals(1, servicio.despacharSiguiente().getId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void prepararDejaElPedidoEnLaColaYSeRevierteAlEstadoAnterior(ModoAlmacen modo) {
+        PedidoService servicio = servicioVerificado(modo);
+        servicio.crearPedido(body("Ana", 10.0));
+        servicio.crearPedido(body("Luis", 20.0));
+        servicio.crearPedido(body("Eva", 30.0));
+
+        assertEquals("EN_PREPARACION", servicio.prepararPedido(2).getEstado());
+        assertEquals("EN_PREPARACION", servicio.buscarPorId(2).getEstado());
+        // Solo se prepara un pedido REGISTRADO
+        assertThrows(IllegalStateException.class, () -> servicio.prepararPedido(2));
+        assertThrows(NoSuchElementException.class, () -> servicio.prepararPedido(99));
+        EstadisticasPedidos e = servicio.obtenerEstadisticas();
+        assertEquals(2, e.getTotalRegistrados());
+        assertEquals(1, e.getTotalEnPreparacion());
+        assertEquals(1, servicio.listarPorEstado("EN_PREPARACION", 10).length);
+
+        HistorialOperacion op = servicio.listarHistorial(1)[0];
+        assertEquals("PREPARAR", op.getTipoOperacion());
+        assertEquals(EstadoPedido.REGISTRADO, op.getEstadoAntes());
+        assertEquals(EstadoPedido.EN_PREPARACION, op.getEstadoDespues());
+
+        // Sigue en la cola en su lugar y se despacha desde EN_PREPARACION
+        assertEquals(1, servicio.despacharSiguiente().getId());
+        Pedido despachado = servicio.despacharSiguiente();
+        assertEquals(2, despachado.getId());
+        assertEquals("DESPACHADO", despachado.getEstado());
+        assertThrows(IllegalStateException.class, () -> servicio.prepararPedido(2));
+        // Revertir el despacho lo devuelve a EN_PREPARACION, al frente de la cola
+        servicio.rollbackUltimaOperacion();
+        assertEquals("EN_PREPARACION", servicio.buscarPorId(2).getEstado());
+
+        // Un pedido en preparación también se cancela, y revertirlo lo devuelve a EN_PREPARACION
+        servicio.cancelarPedido(2);
+        servicio.rollbackUltimaOperacion();
+        assertEquals("EN_PREPARACION", servicio.buscarPorId(2).getEstado());
+
+        // Revertir la cancelación lo volvió al final de la cola; revertir el despacho de 1 y la
+        // preparación deja a 2 REGISTRADO sin moverlo de ahí
+        Pedido revertido = servicio.rollback(2)[1];
+        assertEquals(2, revertido.getId());
+        assertEquals("REGISTRADO", servicio.buscarPorId(2).getEstado());
+        assertEquals(0, servicio.obtenerEstadisticas().getTotalEnPreparacion());
+        assertEquals(1, servicio.despacharSiguiente().getId());
+        assertEquals(3, servicio.despacharSiguiente().getId());
+        assertEquals(2, servicio.despacharSiguiente().getId());
+        assertThrows(IllegalStateException.class, servicio::despacharSiguiente);
+    }
+
+    @Test
+    void rollbackDeVariosPasosEsTodoONada() {
+        PedidoService servicio = servicioVerificado();
+        servicio.crearPedido(body("Ana", 10.0));
+        servicio.crearPedido(body("Luis", 20.0));
+        servicio.despacharSiguiente();
+        servicio.cancelarPedido(2);
+
+        // No hay 5 operaciones: no se revierte ninguna
+        assertThrows(IllegalStateException.class, () -> servicio.rollback(5));
+        assertEquals(4, servicio.listarHistorial(10).length);
+
+        Pedido[] revertidos = servicio.rollback(3);
+        assertArrayEquals(new int[]{2, 1, 2}, Arrays.stream(revertidos).mapToInt(Pedido::getId).toArray());
+        assertEquals(1, servicio.listarTodos().length);
+        assertEquals("REGISTRADO", servicio.buscarPorId(1).getEstado());
+        assertEquals(1, servicio.despacharSiguiente().getId());
+        assertThrows(IllegalArgumentException.class, () -> servicio.rollback(0));
+    }
+
+    @Test
+    void historialAcotadoDescartaLasOperacionesMasAntiguas() {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getHistorial().setCapacidad(3);
+        PedidoService servicio = new PedidoService(propiedades);
+        for (int i = 0; i < 5; i++) {
+            servicio.crearPedido(body("Cliente", 1.0));
+        }
+        assertEquals(3, servicio.listarHistorial(10).length);
+        assertEquals(5, servicio.listarHistorial(1)[0].getIdPedido());
+
+        servicio.rollback(3);
+        assertThrows(IllegalStateException.class, servicio::rollbackUltimaOperacion);
+        assertEquals(2, servicio.listarTodos().length);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoAlmacen.class)
+    void pedidosArchivadosSiguenVisiblesYSePuedenRevertir(ModoAlmacen modo, @TempDir Path dir) {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getEstadisticas().setVerificar(true);
+        propiedades.getAlmacen().setModo(modo);
+        propiedades.getArchivo().setHabilitado(true);
+        propiedades.getArchivo().setDirectorio(dir.toString());
+        propiedades.getArchivo().setAntiguedadMs(0);
+        propiedades.getArchivo().setIntervaloMs(3_600_000);
+        PedidoService servicio = new PedidoService(propiedades);
+        for (int i = 1; i <= 6; i++) {
+            servicio.crearPedido(body("Cliente" + (i % 2), i * 10.0));
+        }
+        servicio.despacharSiguiente();
+        servicio.despacharSiguiente();
+        servicio.cancelarPedido(6);
+        double total = servicio.calcularTotalMontoRecursivo();
+
+        // Con antigüedad 0 todo lo terminado pasa a disco (un milisegundo después)
+        esperarUnMilisegundo();
+        assertEquals(3, servicio.archivarTerminados());
+        assertEquals(3, servicio.cantidadArchivados());
+
+        // Búsqueda, listados, estadísticas y total los siguen viendo
+        assertEquals("DESPACHADO", servicio.buscarPorId(1).getEstado());
+        assertEquals(6, servicio.listarTodos().length);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), Arrays.stream(servicio.listarTodos()).map(Pedido::getId).toList());
+        assertEquals(2, servicio.listarPorEstado("DESPACHADO", 10).length);
+        assertEquals(3, servicio.listarPorCliente("Cliente1", null, 10).getPedidos().length);
+        assertEquals(total, servicio.calcularTotalMontoRecursivo(), 1e-9);
+        assertEquals(6, servicio.obtenerEstadisticas().getTotalPedidos());
+
+        // Revertir la cancelación trae el pedido de vuelta a memoria y a la cola
+        assertEquals("REGISTRADO", servicio.rollbackUltimaOperacion().getEstado());
+        assertEquals(2, servicio.cantidadArchivados());
+        Pedido revertido = servicio.rollbackUltimaOperacion();
+        assertEquals(2, revertido.getId());
+        assertEquals("REGISTRADO", servicio.buscarPorId(2).getEstado());
+        assertEquals(2, servicio.despacharSiguiente().getId());
+        assertEquals(1, servicio.cantidadArchivados());
+        servicio.obtenerEstadisticas();
+        servicio.cerrar();
+    }
+
+    @Test
+    void lasPasadasDeArchivoArrancanAlIniciarNoAlConstruir(@TempDir Path dir) throws Exception {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getArchivo().setHabilitado(true);
+        propiedades.getArchivo().setDirectorio(dir.toString());
+        propiedades.getArchivo().setAntiguedadMs(0);
+        propiedades.getArchivo().setIntervaloMs(5);
+        PedidoService servicio = new PedidoService(propiedades);
+        servicio.crearPedido(body("Cliente", 10.0));
+        servicio.despacharSiguiente();
+
+        Thread.sleep(50);
+        assertEquals(0, servicio.cantidadArchivados());
+        servicio.iniciar();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (servicio.cantidadArchivados() == 0 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, servicio.cantidadArchivados());
+        servicio.cerrar();
+    }
+
+    private static void esperarUnMilisegundo() {
+        long inicio = System.currentTimeMillis();
+        while (System.currentTimeMillis() == inicio) {
+            Thread.onSpinWait();
+        }
+    }
+}
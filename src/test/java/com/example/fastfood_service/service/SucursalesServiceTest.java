@@ -0,0 +1,141 @@
+package com.example.fastfood_service.service;
+
+import com.example.fastfood_service.config.PedidosProperties;
+import com.example.fastfood_service.model.Pedido;
+import com.example.fastfood_service.service.PedidoService.EstadisticasPedidos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SucursalesServiceTest {
+
+    private static PedidosProperties propiedades(String... sucursales) {
+        PedidosProperties propiedades = new PedidosProperties();
+        propiedades.getEstadisticas().setVerificar(true);
+        propiedades.getSucursales().setIds(List.of(sucursales));
+        return propiedades;
+    }
+
+    private static Pedido body(String cliente, double monto) {
+        return new Pedido(0, cliente, "Hamburguesa", monto, null);
+    }
+
+    @Test
+    void cadaSucursalTieneSusPedidosColaEHistorial() {
+        PedidosProperties config = propiedades("CENTRO", "NORTE");
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        SucursalesService sucursales = new SucursalesService(
+                new EnrutadorLocal(new PedidoService(config, registro), config, registro));
+        ParticionPedidos centro = sucursales.particion("CENTRO");
+        ParticionPedidos norte = sucursales.particion("NORTE");
+
+        Pedido a = centro.crearPedido(body("Ana", 10.0));
+        Pedido b = norte.crearPedido(body("Beto", 20.0));
+        norte.crearPedido(body("Caro", 30.0));
+
+        // Los ids y las colas son de cada partición
+        assertEquals(1, a.getId());
+        assertEquals(1, b.getId());
+        assertEquals("Ana", centro.despacharSiguiente().getNombreCliente());
+        assertThrows(IllegalStateException.class, centro::despacharSiguiente);
+        assertEquals("Beto", norte.despacharSiguiente().getNombreCliente());
+
+        // El rollback de una sucursal no toca a las demás
+        Pedido revertido = norte.rollback(1)[0];
+        assertEquals("Beto", revertido.getNombreCliente());
+        assertEquals("REGISTRADO", revertido.getEstado());
+        assertEquals("DESPACHADO", centro.buscarPorId(1).getEstado());
+        assertEquals(2, norte.listarHistorial(10).length);
+
+        // Cada partición publica sus métricas con su etiqueta
+        assertEquals(2.0, registro.get("pedidos.cola.pendientes").tag("sucursal", "NORTE").gauge().value());
+        assertEquals(0.0, registro.get("pedidos.cola.pendientes").tag("sucursal", "CENTRO").gauge().value());
+
+        assertEquals(List.of("principal", "CENTRO", "NORTE"), sucursales.sucursales());
+        assertThrows(NoSuchElementException.class, () -> sucursales.particion("SUR"));
+        sucursales.cerrar();
+    }
+
+    @Test
+    void estadisticasYTotalGlobalesCombinanTodasLasParticiones() {
+        PedidosProperties config = propiedades("A", "B", "C");
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        PedidoService principal = new PedidoService(config, registro);
+        SucursalesService sucursales = new SucursalesService(new EnrutadorLocal(principal, config, registro));
+
+        principal.crearPedido(body("P", 1.0));
+        double esperado = 1.0;
+        int total = 1;
+        for (String id : List.of("A", "B", "C")) {
+            ParticionPedidos particion = sucursales.particion(id);
+            for (int i = 1; i <= 50; i++) {
+                particion.crearPedido(body(id + i, i * 0.5));
+                esperado += i * 0.5;
+                total++;
+            }
+            particion.despacharSiguiente();
+            particion.cancelarPedido(2);
+        }
+
+        EstadisticasPedidos global = sucursales.estadisticasGlobales();
+        assertEquals(total, global.getTotalPedidos());
+        assertEquals(3, global.getTotalDespachados());
+        assertEquals(3, global.getTotalCancelados());
+        assertEquals(total - 6, global.getTotalRegistrados());
+        assertEquals(esperado, global.getTotalMonto(), 1e-9);
+        assertEquals(esperado - 3 * 1.0, global.getTotalMontoSinCancelados(), 1e-9);
+        assertEquals(esperado, sucursales.totalMontoGlobal(), 1e-9);
+        assertEquals(50, sucursales.estadisticasPorSucursal().get("B").getTotalPedidos());
+        sucursales.cerrar();
+    }
+
+    @Test
+    void cadaSucursalTieneSuPropioLog(@TempDir Path dir) {
+        PedidosProperties config = propiedades("CENTRO");
+        config.getWal().setHabilitado(true);
+        config.getWal().setDirectorio(dir.toString());
+        config.getWal().setTamanoSegmento(1 << 16);
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+        PedidoService principal = new PedidoService(config, registro);
+        EnrutadorLocal enrutador = new EnrutadorLocal(principal, config, registro);
+        principal.crearPedido(body("Principal", 5.0));
+        enrutador.particion("CENTRO").crearPedido(body("Centro", 7.0));
+        enrutador.particion("CENTRO").crearPedido(body("Centro", 8.0));
+        enrutador.cerrar();
+        principal.cerrar();
+
+        assertTrue(Files.isDirectory(dir.resolve("sucursales").resolve("CENTRO")));
+
+        // Al reiniciar cada partición recupera solo sus pedidos
+        SimpleMeterRegistry otroRegistro = new SimpleMeterRegistry();
+        PedidoService principalRecuperado = new PedidoService(config, otroRegistro);
+        EnrutadorLocal recuperado = new EnrutadorLocal(principalRecuperado, config, otroRegistro);
+        assertEquals(1, principalRecuperado.listarTodos().length);
+        assertEquals(2, recuperado.particion("CENTRO").listarTodos().length);
+        assertEquals(15.0, recuperado.particion("CENTRO").calcularTotalMontoRecursivo(), 1e-9);
+        recuperado.cerrar();
+        principalRecuperado.cerrar();
+    }
+
+    @Test
+    void rechazaIdsDeSucursalInvalidosORepetidos() {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        PedidosProperties repetida = propiedades("CENTRO", "CENTRO");
+        assertThrows(IllegalArgumentException.class,
+                () -> new EnrutadorLocal(new PedidoService(repetida, registro), repetida, registro));
+        PedidosProperties invalida = propiedades("../otra");
+        assertThrows(IllegalArgumentException.class,
+                () -> new EnrutadorLocal(new PedidoService(invalida, registro), invalida, registro));
+        PedidosProperties principal = propiedades(PedidoService.SUCURSAL_PRINCIPAL);
+        assertThrows(IllegalArgumentException.class,
+                () -> new EnrutadorLocal(new PedidoService(principal, registro), principal, registro));
+    }
+}